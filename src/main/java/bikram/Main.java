@@ -3,14 +3,23 @@ package bikram;
 import bikram.db.*;
 import bikram.model.Role;
 import bikram.model.User;
+import bikram.security.AuthService;
+import bikram.security.SecurityAuth;
 import bikram.util.AppContext;
 import bikram.util.Navigator;
+import bikram.util.SearchIndexWatcher;
 import bikram.views.page.*;
 import bikram.views.ui.Navbar;
+import bikram.views.ui.NotificationsManager;
 import bikram.views.ui.Sidebar;
 import bikram.views.ui.TimeManagementView;
 import javafx.animation.*;
 import javafx.application.Application;
+import javafx.concurrent.Task;
+import javafx.event.EventHandler;
+import javafx.scene.input.InputEvent;
+import javafx.scene.input.KeyEvent;
+import javafx.scene.input.MouseEvent;
 import javafx.scene.Scene;
 import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
@@ -28,12 +37,28 @@ public class Main extends Application {
 
     @Override
     public void start(Stage primaryStage) {
-        createAlltable();
-        if (udb.getAllUsers().isEmpty()) {
-            User user = new User("admin", "", "", "", "admin@gmail.com", "admin123", Role.OWNER, 100000);
-            udb.addUser(user);
-            System.out.println("admin created successfully!");
-        }
+        // Schema migrations and the admin seed run behind the splash, off the FX thread
+        Task<Void> bootstrap = new Task<>() {
+            @Override
+            protected Void call() {
+                // Argon2 calibration runs on the auth pool while migrations run here
+                var calibration = AuthService.shared().calibrate();
+                createAlltable();
+                SearchIndexWatcher.start();   // notes/tasks → full-text index
+                new StockLedger().purgeExpired();   // holds left by registers that were closed mid-sale
+                if (DBM.getCount("users") == 0) {
+                    calibration.join(); // seed the admin with the calibrated parameters
+                    User user = new User("admin", "", "", "", "admin@gmail.com", "admin123", Role.OWNER, 100000);
+                    udb.addUser(user);
+                    System.out.println("admin created successfully!");
+                }
+                return null;
+            }
+        };
+        bootstrap.exceptionProperty().addListener((obs, old, ex) -> {
+            if (ex != null) ex.printStackTrace();
+        });
+        new Thread(bootstrap, "DB-Bootstrap").start();
 
         AppContext.setHostServices(getHostServices());
         primaryStage.setTitle("Techura Business Dashboard");
@@ -83,78 +108,103 @@ public class Main extends Application {
         splashSeq.play();
 
         splashSeq.setOnFinished(e -> {
-            // --- Fade out splash ---
-            FadeTransition fadeOut = new FadeTransition(Duration.seconds(0.8), splashRoot);
-            fadeOut.setFromValue(1.0);
-            fadeOut.setToValue(0.0);
-            fadeOut.setOnFinished(ev -> splashStage.close());
-            fadeOut.play();
-
-            // --- Main app setup ---
-            Navigator.registerPageClass("TechuraDashboard", TechuraDashboard.class);
-            Navigator.registerPageClass("AboutPage", AboutPage.class);
-            Navigator.registerPageClass("ProfilePage", ProfilePage.class);
-            Navigator.registerPageClass("ProductPage", ProductPage.class);
-            Navigator.registerPageClass("LoginPage", LoginPage.class);
-            Navigator.registerPageClass("ContactSupportPage", ContactSupportPage.class);
-            Navigator.registerPageClass("Calculator", Calculator.class);
-            Navigator.registerPageClass("Notebook", Notebook.class);
-            Navigator.registerPageClass("TaskManager", TaskManager.class);
-            Navigator.registerPageClass("Settings", Settings.class);
-            Navigator.registerPageClass("SalesPage", SalesPage.class);
-            Navigator.registerPageClass("PriceCardPage", PriceCardPage.class);
-            Navigator.registerPageClass("UserIDCardPage", UserIDCardPage.class);
-            try {
-                Navigator.registerPage("AITrendPage", AITrendPage.class.newInstance());
-            } catch (InstantiationException ex) {
-                throw new RuntimeException(ex);
-            } catch (IllegalAccessException ex) {
-                throw new RuntimeException(ex);
+            Runnable showMain = () -> showMainWindow(primaryStage, splashStage, splashRoot);
+            if (bootstrap.isDone()) {
+                showMain.run();
+            } else {
+                bootstrap.setOnSucceeded(ev -> showMain.run());
+                bootstrap.setOnFailed(ev -> showMain.run());
             }
-            Navigator.registerPageClass("TimeManagementView", TimeManagementView.class);
-            Navigator.registerPageClass("EmploymentPaySlip",EmploymentPaySlip.class);
-            Navigator.registerPageClass("QRGeneratorPage",QRGeneratorPage.class);
-            AppContext.setPrimaryStage(primaryStage);
-
-
-            BorderPane root = new BorderPane();
-            Sidebar sidebar = new Sidebar();
-            Navbar navbar = new Navbar();
-            mainContent = new StackPane();
-            mainContent.getStyleClass().add("main-content");
-
-            root.setTop(navbar);
-            root.setLeft(sidebar);
-            root.setCenter(mainContent);
-            Navigator.setMainContent(mainContent);
-            Navigator.navigate("TechuraDashboard");
-            mainContent.setOpacity(0); // start invisible
-            FadeTransition fadeMain = new FadeTransition(Duration.seconds(1.0), mainContent);
-            fadeMain.setFromValue(0);
-            fadeMain.setToValue(1.0);
-            fadeMain.play();
-
-            Scene scene = new Scene(root, 1300, 800);
-            scene.getStylesheets().add("styles.css");
-
-            // --- Smooth exit animation ---
-            primaryStage.setOnCloseRequest(ev -> {
-                ev.consume();
-                FadeTransition fadeRoot = new FadeTransition(Duration.seconds(0.8), root);
-                fadeRoot.setFromValue(1.0);
-                fadeRoot.setToValue(0.0);
-                fadeRoot.setOnFinished(event -> primaryStage.close());
-                fadeRoot.play();
-            });
-
-            primaryStage.setScene(scene);
-            primaryStage.show();
         });
     }
+
+    private void showMainWindow(Stage primaryStage, Stage splashStage, StackPane splashRoot) {
+        // --- Fade out splash ---
+        FadeTransition fadeOut = new FadeTransition(Duration.seconds(0.8), splashRoot);
+        fadeOut.setFromValue(1.0);
+        fadeOut.setToValue(0.0);
+        fadeOut.setOnFinished(ev -> splashStage.close());
+        fadeOut.play();
+
+        // --- Main app setup ---
+        Navigator.registerPageClass("TechuraDashboard", TechuraDashboard.class);
+        Navigator.registerPageClass("AboutPage", AboutPage.class);
+        Navigator.registerPageClass("ProfilePage", ProfilePage.class);
+        Navigator.registerPageClass("ProductPage", ProductPage.class);
+        Navigator.registerPageClass("LoginPage", LoginPage.class);
+        Navigator.registerPageClass("ContactSupportPage", ContactSupportPage.class);
+        Navigator.registerPageClass("Calculator", Calculator.class);
+        Navigator.registerPageClass("Notebook", Notebook.class);
+        Navigator.registerPageClass("TaskManager", TaskManager.class);
+        Navigator.registerPageClass("Settings", Settings.class);
+        Navigator.registerPageClass("SalesPage", SalesPage.class);
+        Navigator.registerPageClass("PriceCardPage", PriceCardPage.class);
+        Navigator.registerPageClass("UserIDCardPage", UserIDCardPage.class);
+        try {
+            Navigator.registerPage("AITrendPage", AITrendPage.class.newInstance());
+        } catch (InstantiationException ex) {
+            throw new RuntimeException(ex);
+        } catch (IllegalAccessException ex) {
+            throw new RuntimeException(ex);
+        }
+        Navigator.registerPageClass("TimeManagementView", TimeManagementView.class);
+        Navigator.registerPageClass("EmploymentPaySlip",EmploymentPaySlip.class);
+        Navigator.registerPageClass("QRGeneratorPage",QRGeneratorPage.class);
+        AppContext.setPrimaryStage(primaryStage);
+
+
+        BorderPane root = new BorderPane();
+        Sidebar sidebar = new Sidebar();
+        Navbar navbar = new Navbar();
+        mainContent = new StackPane();
+        mainContent.getStyleClass().add("main-content");
+
+        root.setTop(navbar);
+        root.setLeft(sidebar);
+        root.setCenter(mainContent);
+        Navigator.setMainContent(mainContent);
+        Navigator.navigate("TechuraDashboard");
+        mainContent.setOpacity(0); // start invisible
+        FadeTransition fadeMain = new FadeTransition(Duration.seconds(1.0), mainContent);
+        fadeMain.setFromValue(0);
+        fadeMain.setToValue(1.0);
+        fadeMain.play();
+
+        Scene scene = new Scene(root, 1300, 800);
+        scene.getStylesheets().add("styles.css");
+
+        // Any click or key press counts as session activity; an idled-out session returns to login
+        EventHandler<InputEvent> activity = ev -> {
+            if (!SecurityAuth.touch()) {
+                NotificationsManager.showNotification("セッション期限切れ", "一定時間操作がなかったためログアウトしました",
+                        NotificationsManager.NotificationType.WARNING);
+                Navigator.resetToLogin();
+            }
+        };
+        scene.addEventFilter(MouseEvent.MOUSE_PRESSED, activity);
+        scene.addEventFilter(KeyEvent.KEY_PRESSED, activity);
+
+        // --- Smooth exit animation ---
+        primaryStage.setOnCloseRequest(ev -> {
+            ev.consume();
+            FadeTransition fadeRoot = new FadeTransition(Duration.seconds(0.8), root);
+            fadeRoot.setFromValue(1.0);
+            fadeRoot.setToValue(0.0);
+            fadeRoot.setOnFinished(event -> primaryStage.close());
+            fadeRoot.play();
+        });
+
+        primaryStage.setScene(scene);
+        primaryStage.show();
+    }
+
+    @Override
+    public void stop() {
+        DbConnector.close();
+    }
+
     public void createAlltable(){
-        udb.createTable();
-        salesRepo.createTable();
-        productRepo.createTable();
+        SchemaMigrator.migrate();
     }
 
 
@@ -4,81 +4,87 @@ import bikram.model.Business;
 import com.google.gson.Gson;
 import com.google.gson.GsonBuilder;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
 import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 
+/**
+ * 🏢 Business profile (name, owner, address, budget) in data/business.json.
+ * Balance, profit and loss are not stored here: {@link #loadBusiness()} reads them
+ * from the {@link Journal}, the only place money is recorded.
+ * <p>
+ * The file is replaced atomically (temp file, fsync, rename), so a crash leaves either the
+ * old or the new profile, never a truncated one. Read-modify-write updates hold {@code LOCK}.
+ */
 public class BusinessDataManager {
 
-    private static final String FILE_PATH = "data/business.json";
+    private static final Path FILE_PATH = Path.of("data", "business.json");
+    private static final Object LOCK = new Object();
     private static final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private static final Journal journal = new Journal();
+
     public BusinessDataManager(){
         
     }
-    // 🔹 Save business to JSON
+    // 🔹 Save the business profile to JSON (totals are journal-derived and not written)
     public static void saveBusiness(Business business) throws IOException {
-        File file = new File(FILE_PATH);
-        file.getParentFile().mkdirs();
-        try (FileWriter writer = new FileWriter(file)) {
-            gson.toJson(business, writer);
+        byte[] json = gson.toJson(business).getBytes(StandardCharsets.UTF_8);
+        synchronized (LOCK) {
+            Path dir = FILE_PATH.toAbsolutePath().getParent();
+            Files.createDirectories(dir);
+            // Same directory as the target, so the move is a rename
+            Path tmp = Files.createTempFile(dir, "business", ".json.tmp");
+            try {
+                try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.WRITE)) {
+                    ByteBuffer buffer = ByteBuffer.wrap(json);
+                    while (buffer.hasRemaining()) channel.write(buffer);
+                    channel.force(true);   // on disk before it can replace the old file
+                }
+                Files.move(tmp, FILE_PATH, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+            } finally {
+                Files.deleteIfExists(tmp);   // no-op after a successful move
+            }
         }
     }
 
-    // 🔹 Load business from JSON (if not exist, create new empty one)
+    // 🔹 Load the profile (created with defaults on first run) with current journal totals
     public static Business loadBusiness() throws IOException {
-        File file = new File(FILE_PATH);
-        if (!file.exists()) {
-            Business emptyBusiness = new Business("Techura", "Khadka Dhurba Bikram", "kobe higasi nadaku");
-            saveBusiness(emptyBusiness);
-            return emptyBusiness;
-        }
-
-        try (FileReader reader = new FileReader(file)) {
-            return gson.fromJson(reader, Business.class);
+        Business business;
+        synchronized (LOCK) {
+            business = readProfile();
+            if (business == null) {
+                business = defaultProfile();
+                saveBusiness(business);
+            }
         }
+        business.setTotals(journal.getCash(), journal.getProfitAndLoss());
+        return business;
     }
 
-    // 🔹 Update specific fields dynamically (profit, loss, etc.)
-    public static void updateProfit(double amount) throws IOException {
-        Business business = loadBusiness();
-        business.setProfit(amount);
-        saveBusiness(business);
-    }
-
-    public static void updateLoss(double amount) throws IOException {
-        Business business = loadBusiness();
-        business.setLoss(amount);
-        saveBusiness(business);
+    // 🔹 Read-modify-write under LOCK, so two updates can't overwrite each other
+    public static void updateBudget(double amount) throws IOException {
+        synchronized (LOCK) {
+            Business business = readProfile();
+            if (business == null) business = defaultProfile();
+            business.setBudgect("update", amount);
+            saveBusiness(business);
+        }
     }
 
-    public static void updateBalance(double amount) throws IOException {
-        Business business = loadBusiness();
-        business.setBalance(amount);
-        saveBusiness(business);
+    private static Business defaultProfile() {
+        return new Business("Techura", "Khadka Dhurba Bikram", "kobe higasi nadaku");
     }
 
-    public static void updateBudget(double amount) throws IOException {
-        Business business = loadBusiness();
-        business.setBudgect("update", amount);
-        saveBusiness(business);
-    }
-    public static void makeProfit(double amount) throws IOException {
-        Business business = loadBusiness();
-        double newProfit = business.getProfit()+amount;
-        business.setProfit(newProfit);
-        saveBusiness(business);
-    }
-    public static void makeLoss(double amount) throws IOException {
-        Business business = loadBusiness();
-        double newloss = business.getLoss()-amount;
-        business.setLoss(newloss);
-        saveBusiness(business);
-    }
-    public static void addBalence(double amount) throws IOException {
-        Business business = loadBusiness();
-        double newBalence = business.getBalance()+amount;
-        business.setBalance(newBalence);
-        saveBusiness(business);
+    private static Business readProfile() throws IOException {
+        if (!Files.exists(FILE_PATH)) return null;
+        try (Reader reader = Files.newBufferedReader(FILE_PATH, StandardCharsets.UTF_8)) {
+            return gson.fromJson(reader, Business.class);
+        }
     }
 }
@@ -0,0 +1,380 @@
+package bikram.db;
+
+import bikram.model.Money;
+import bikram.model.Product;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 🗂️ In-memory product catalog in front of a {@link ProductRepository}.
+ * The catalog is loaded once and indexed by id, name and category. Writes go to
+ * the delegate first, then the affected rows are re-read and swapped in, so the
+ * cache never holds a row the database rejected. Lookups never touch SQLite;
+ * {@link #getProductById} is a single hash lookup with no allocation.
+ * <p>
+ * Returned products are the cached instances, shared by every page, and must be treated
+ * as read-only. To edit one, copy it with {@link Product#Product(Product)} and save the copy
+ * through {@link #updateProduct}; the cache then swaps in the re-read row and tells listeners.
+ * Listeners run on the thread that made the change.
+ */
+public class CachedProductRepository implements ProductRepository {
+
+    private static volatile CachedProductRepository shared;
+
+    /** 🌐 Process-wide catalog shared by every page. */
+    public static CachedProductRepository shared() {
+        CachedProductRepository c = shared;
+        if (c == null) {
+            synchronized (CachedProductRepository.class) {
+                c = shared;
+                if (c == null) {
+                    c = new CachedProductRepository(new ProductDB());
+                    shared = c;
+                }
+            }
+        }
+        return c;
+    }
+
+    private final ProductRepository delegate;
+
+    private final Map<String, Product> byId = new ConcurrentHashMap<>();
+    private final Map<String, List<Product>> byName = new ConcurrentHashMap<>();
+    private final Map<String, List<Product>> byCategory = new ConcurrentHashMap<>();
+    // Keys each product was indexed under, so unindexing never depends on a cached row's current fields
+    private final Map<String, String[]> indexedKeys = new HashMap<>();
+    private volatile List<Product> all = List.of();
+    private volatile boolean loaded;
+
+    private final CopyOnWriteArrayList<Consumer<ProductChange>> listeners = new CopyOnWriteArrayList<>();
+
+    public CachedProductRepository(ProductRepository delegate) {
+        this.delegate = delegate;
+    }
+
+    // ---------- CHANGE EVENTS ----------
+    /** What happened to the catalog; {@code product} is null for RELOADED. */
+    public static final class ProductChange {
+        public enum Type { ADDED, UPDATED, REMOVED, RELOADED }
+
+        private final Type type;
+        private final String productId;
+        private final Product product;
+
+        ProductChange(Type type, String productId, Product product) {
+            this.type = type;
+            this.productId = productId;
+            this.product = product;
+        }
+
+        public Type getType() { return type; }
+        public String getProductId() { return productId; }
+        public Product getProduct() { return product; }
+    }
+
+    public void addListener(Consumer<ProductChange> listener) {
+        listeners.addIfAbsent(listener);
+    }
+
+    public void removeListener(Consumer<ProductChange> listener) {
+        listeners.remove(listener);
+    }
+
+    private void publish(ProductChange change) {
+        for (Consumer<ProductChange> l : listeners) {
+            try {
+                l.accept(change);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Product listener failed: " + e.getMessage());
+            }
+        }
+    }
+
+    // ---------- LOAD ----------
+    private void ensureLoaded() {
+        if (loaded) return;
+        synchronized (this) {
+            if (loaded) return;
+            loadAll();
+            loaded = true;
+        }
+    }
+
+    private void loadAll() {
+        byId.clear();
+        byName.clear();
+        byCategory.clear();
+        indexedKeys.clear();
+        List<Product> fresh = new ArrayList<>();
+        for (Product p : delegate.getAllProducts()) {
+            Product copy = new Product(p);
+            fresh.add(copy);
+            index(copy);
+        }
+        all = Collections.unmodifiableList(fresh);
+        System.out.println("🗂️ Product catalog cached (" + fresh.size() + ")");
+    }
+
+    /** 🔄 Drop everything and reload from the database. */
+    public void reload() {
+        synchronized (this) {
+            loadAll();
+            loaded = true;
+        }
+        publish(new ProductChange(ProductChange.Type.RELOADED, null, null));
+    }
+
+    /** 🔄 Re-read the given rows, e.g. after stock changed outside this repository (checkout). */
+    public void refresh(Collection<String> ids) {
+        ensureLoaded();
+        List<ProductChange> changes = new ArrayList<>(ids.size());
+        synchronized (this) {
+            for (String id : ids) {
+                ProductChange change = sync(id);
+                if (change != null) changes.add(change);
+            }
+        }
+        changes.forEach(this::publish);
+    }
+
+    // ---------- INDEX MAINTENANCE (callers hold the lock) ----------
+    /** Bring one id in line with the delegate; returns the resulting change, or null if nothing changed. */
+    private ProductChange sync(String id) {
+        if (id == null) return null;
+        Product fresh = delegate.getProductById(id);
+        Product old = byId.get(id);
+        if (fresh == null) {
+            if (old == null) return null;
+            unindex(old);
+            replaceInAll(old, null);
+            return new ProductChange(ProductChange.Type.REMOVED, id, old);
+        }
+        Product copy = new Product(fresh);
+        if (old != null) unindex(old);
+        index(copy);
+        replaceInAll(old, copy);
+        return new ProductChange(old == null ? ProductChange.Type.ADDED : ProductChange.Type.UPDATED, id, copy);
+    }
+
+    private void index(Product p) {
+        String[] keys = {nameKey(p.getName()), categoryKey(p.getCategory())};
+        indexedKeys.put(p.getId(), keys);
+        byId.put(p.getId(), p);
+        addTo(byName, keys[0], p);
+        addTo(byCategory, keys[1], p);
+    }
+
+    private void unindex(Product p) {
+        String[] keys = indexedKeys.remove(p.getId());
+        byId.remove(p.getId(), p);
+        if (keys == null) return;
+        removeFrom(byName, keys[0], p);
+        removeFrom(byCategory, keys[1], p);
+    }
+
+    // Bucket lists are immutable so readers can iterate them without locking
+    private static void addTo(Map<String, List<Product>> index, String key, Product p) {
+        List<Product> bucket = index.getOrDefault(key, List.of());
+        List<Product> next = new ArrayList<>(bucket.size() + 1);
+        next.addAll(bucket);
+        next.add(p);
+        index.put(key, Collections.unmodifiableList(next));
+    }
+
+    private static void removeFrom(Map<String, List<Product>> index, String key, Product p) {
+        List<Product> bucket = index.get(key);
+        if (bucket == null) return;
+        List<Product> next = new ArrayList<>(bucket);
+        next.remove(p);
+        if (next.isEmpty()) index.remove(key);
+        else index.put(key, Collections.unmodifiableList(next));
+    }
+
+    private void replaceInAll(Product old, Product replacement) {
+        List<Product> next = new ArrayList<>(all);
+        int i = old == null ? -1 : next.indexOf(old);
+        if (i < 0) {
+            if (replacement != null) next.add(replacement);
+        } else if (replacement == null) {
+            next.remove(i);
+        } else {
+            next.set(i, replacement);
+        }
+        all = Collections.unmodifiableList(next);
+    }
+
+    private static String nameKey(String name) {
+        return name == null ? "" : name.toLowerCase(Locale.ROOT);
+    }
+
+    private static String categoryKey(String category) {
+        return category == null ? "" : category;
+    }
+
+    // ---------- READS ----------
+    @Override
+    public void createTable() {
+        delegate.createTable();
+    }
+
+    /** Unmodifiable snapshot in insertion order; no copy is made per call. */
+    @Override
+    public List<Product> getAllProducts() {
+        ensureLoaded();
+        return all;
+    }
+
+    @Override
+    public Product getProductById(String id) {
+        ensureLoaded();
+        return id == null ? null : byId.get(id);
+    }
+
+    /** Case-insensitive substring match, same as {@link ProductDB#getProductByName}. */
+    @Override
+    public List<Product> getProductByName(String name) {
+        ensureLoaded();
+        String needle = nameKey(name);
+        List<Product> list = new ArrayList<>();
+        for (Product p : all) {
+            if (nameKey(p.getName()).contains(needle)) list.add(p);
+        }
+        return list;
+    }
+
+    /** Exact, case-insensitive name lookup. */
+    public List<Product> getProductsByExactName(String name) {
+        ensureLoaded();
+        return byName.getOrDefault(nameKey(name), List.of());
+    }
+
+    public List<Product> getProductsByCategory(String category) {
+        ensureLoaded();
+        return byCategory.getOrDefault(categoryKey(category), List.of());
+    }
+
+    public Set<String> getCategories() {
+        ensureLoaded();
+        return Collections.unmodifiableSet(byCategory.keySet());
+    }
+
+    // ---------- WRITES ----------
+    @Override
+    public void addProduct(Product product) {
+        ensureLoaded();
+        delegate.addProduct(product);
+        ProductChange change;
+        synchronized (this) {
+            change = sync(product.getId());
+        }
+        if (change != null) publish(change);
+    }
+
+    @Override
+    public void updateProduct(Product product) {
+        ensureLoaded();
+        delegate.updateProduct(product);
+        ProductChange change;
+        synchronized (this) {
+            change = sync(product.getId());
+        }
+        if (change != null) publish(change);
+    }
+
+    @Override
+    public boolean deleteProductById(String id) {
+        ensureLoaded();
+        boolean deleted = delegate.deleteProductById(id);
+        if (deleted) {
+            ProductChange change;
+            synchronized (this) {
+                change = sync(id);
+            }
+            if (change != null) publish(change);
+        }
+        return deleted;
+    }
+
+    @Override
+    public int deleteProductByName(String name) {
+        ensureLoaded();
+        int rows = delegate.deleteProductByName(name);
+        if (rows > 0) refresh(idsOf(getProductsByExactName(name)));
+        return rows;
+    }
+
+    private static List<String> idsOf(List<Product> products) {
+        List<String> ids = new ArrayList<>(products.size());
+        for (Product p : products) ids.add(p.getId());
+        return ids;
+    }
+
+    // ---------- ANALYTICS ----------
+    // Catalog-wide totals come straight from the cache; time series still need SQL
+
+    @Override
+    public Money getTotalCost() {
+        ensureLoaded();
+        long total = 0;
+        for (Product p : all) total += Money.times(p.getCost().getMinor(), p.getQuantity());
+        return Money.ofMinor(total);
+    }
+
+    @Override
+    public Money getProfitByProduct(String productName) {
+        List<Product> matches = getProductsByExactName(productName);
+        if (matches.isEmpty()) return Money.ZERO;
+        Product p = matches.get(0);
+        return p.getPrice().minus(p.getCost()).times(p.getQuantity());
+    }
+
+    @Override
+    public Map<String, Double> getMonthlyProfit() {
+        return delegate.getMonthlyProfit();
+    }
+
+    @Override
+    public Map<String, Integer> getMonthlySalesTrend() {
+        return delegate.getMonthlySalesTrend();
+    }
+
+    @Override
+    public Money getTotalProductValue() {
+        ensureLoaded();
+        long total = 0;
+        for (Product p : all) total += Money.times(p.getPrice().getMinor(), p.getQuantity());
+        return Money.ofMinor(total);
+    }
+
+    @Override
+    public Money getAveragePrice() {
+        ensureLoaded();
+        List<Product> snapshot = all;
+        if (snapshot.isEmpty()) return Money.ZERO;
+        long total = 0;
+        for (Product p : snapshot) total += p.getPrice().getMinor();
+        return Money.ofMinor(Math.round(total / (double) snapshot.size()));
+    }
+
+    /** Stock on hand per category, largest first (ProductDB semantics). */
+    @Override
+    public Map<String, Integer> getCategorySales() {
+        ensureLoaded();
+        List<Map.Entry<String, Integer>> totals = new ArrayList<>();
+        byCategory.forEach((category, products) -> {
+            int qty = 0;
+            for (Product p : products) qty += p.getQuantity();
+            totals.add(Map.entry(category, qty));
+        });
+        totals.sort(Map.Entry.<String, Integer>comparingByValue().reversed());
+
+        Map<String, Integer> categoryMap = new LinkedHashMap<>();
+        for (Map.Entry<String, Integer> e : totals) {
+            categoryMap.put(e.getKey().isEmpty() ? null : e.getKey(), e.getValue());
+        }
+        return categoryMap;
+    }
+}
@@ -0,0 +1,17 @@
+package bikram.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * Pooled connection handle that can hand out prepared statements from the
+ * physical connection's {@link StatementCache}. Every statement obtained with
+ * {@link #prepareCached} must be given back with {@link #releaseCached} and never closed.
+ */
+interface CachingConnection extends Connection {
+
+    PreparedStatement prepareCached(String sql) throws SQLException;
+
+    void releaseCached(String sql, PreparedStatement ps);
+}
@@ -0,0 +1,115 @@
+package bikram.db;
+
+import bikram.model.Money;
+import bikram.model.Sales;
+import bikram.model.StockMovement;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 🧾 Checkout write path.
+ * Writes a whole cart in one transaction. Stock is decremented atomically:
+ * {@code quantity = quantity - ?}, guarded so that the on-hand count minus other
+ * registers' live reservations still covers the line. Then a SALE movement is
+ * appended to the stock ledger for each line, the register's reservations are
+ * released, the sales rows are batch-inserted and posted to the {@link Journal}.
+ * Either every line is recorded with its stock deducted and its money booked, or
+ * nothing is. Refunds reverse one sale the same way, rollups included.
+ */
+public class CheckoutService {
+
+    private static final String REFUNDABLE_SQL =
+            "SELECT * FROM sales WHERE id = ? AND refunded_at IS NULL";
+    private static final String MARK_REFUNDED_SQL =
+            "UPDATE sales SET refunded_at = ? WHERE id = ? AND refunded_at IS NULL";
+
+    private static final String DECREMENT_SQL =
+            "UPDATE products SET quantity = quantity - ? WHERE id = ? AND quantity - "
+                    + StockLedger.RESERVED_BY_OTHERS_SQL + " >= ?";
+
+    /** Thrown when a cart line asks for more units than are left in stock. */
+    public static class OutOfStockException extends Exception {
+        private static final long serialVersionUID = 1L;
+
+        private final String productId;
+        private final String productName;
+
+        public OutOfStockException(String productId, String productName) {
+            super("Not enough stock for " + productName + " (" + productId + ")");
+            this.productId = productId;
+            this.productName = productName;
+        }
+
+        public String getProductId() { return productId; }
+        public String getProductName() { return productName; }
+    }
+
+    /**
+     * 💰 Records every sale and deducts its stock in a single commit.
+     * @param registerId the selling cart; its own reservations don't block it and are released
+     * @throws OutOfStockException if any line would oversell; nothing is written
+     */
+    public void checkout(String registerId, List<Sales> lines) throws SQLException, OutOfStockException {
+        if (lines.isEmpty()) return;
+        long now = StockLedger.now();
+
+        try (Connection conn = DbConnector.getConnection()) {
+            conn.setAutoCommit(false);
+            try {
+                int[] updated = SqlTemplate.batch(conn, DECREMENT_SQL, lines,
+                        (ps, s) -> SqlTemplate.bind(ps, s.getQuantity(), s.getProductId(), registerId, now, s.getQuantity()));
+                for (int i = 0; i < updated.length; i++) {
+                    if (updated[i] == 0) {
+                        conn.rollback();
+                        Sales s = lines.get(i);
+                        throw new OutOfStockException(s.getProductId(), s.getName());
+                    }
+                }
+
+                StockLedger.recordSales(conn, registerId, lines);
+                SqlTemplate.batch(conn, SalesDB.INSERT_SQL, lines, SalesDB::bindInsert);
+                Journal.recordSales(conn, lines);
+                SalesRollups.record(conn, lines);
+                conn.commit();
+                System.out.println("💾 Checkout saved: " + lines.size() + " line(s)");
+            } catch (SQLException | RuntimeException e) {
+                conn.rollback();
+                throw e;
+            } finally {
+                conn.setAutoCommit(true);
+            }
+        }
+    }
+
+    /**
+     * ↩️ Refunds one sale: marks it refunded, puts its units back on the shelf (RETURN movement),
+     * takes it out of the sales rollups and posts the reversing REFUND entry, in one commit.
+     * @return false if the sale does not exist or was already refunded
+     */
+    public boolean refund(int saleId) throws SQLException {
+        try (Connection conn = DbConnector.getConnection()) {
+            return SqlTemplate.inTransaction(conn, c -> {
+                Sales sale = SqlTemplate.queryOne(c, REFUNDABLE_SQL, SalesDB.SALE_MAPPER, saleId);
+                if (sale == null || SqlTemplate.update(c, MARK_REFUNDED_SQL, LocalDateTime.now(), saleId) == 0) {
+                    return false;
+                }
+                Money amount = sale.getFinalAmount();
+                Money cost = sale.getCost();
+
+                // The product may have been deleted since; the money is refunded either way
+                StockLedger.move(c, sale.getProductId(), sale.getQuantity(), StockMovement.Reason.RETURN, String.valueOf(saleId));
+                SalesRollups.reverse(c, saleId);
+                Journal.post(c, Journal.Kind.REFUND, String.valueOf(saleId), sale.getName(), List.of(
+                        Journal.Line.debit(Journal.SALES_RETURNS, amount),
+                        Journal.Line.credit(Journal.CASH, amount),
+                        Journal.Line.debit(Journal.INVENTORY, cost),
+                        Journal.Line.credit(Journal.COST_OF_SALES, cost)));
+                System.out.println("↩️ Sale " + saleId + " refunded");
+                return true;
+            });
+        }
+    }
+}
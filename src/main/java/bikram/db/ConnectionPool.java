@@ -0,0 +1,400 @@
+package bikram.db;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🔌 Bounded SQLite connection pool.
+ * SQLite allows one writer at a time, so the pool keeps a single write connection
+ * plus a few read-only connections. A borrowed connection is confined to the
+ * borrowing thread: borrowing again on the same thread hands back the same
+ * physical connection, so nested repository calls never deadlock.
+ * Callers keep using try-with-resources — close() returns the connection.
+ * Each physical connection keeps its own {@link StatementCache}, reachable through
+ * the {@link CachingConnection} handle, so hot SQL is parsed once per connection.
+ */
+public class ConnectionPool {
+
+    public enum Mode { READ, WRITE }
+
+    private static final int CACHE_SIZE_KIB = -16_384;          // negative = KiB, i.e. 16 MB page cache
+    private static final long MMAP_SIZE_BYTES = 256L * 1024 * 1024;
+    private static final int STATEMENT_CACHE_SIZE = 64;
+    private static final long SHUTDOWN_WAIT_MILLIS = 5_000;
+
+    private final String url;
+    private final int maxReaders;
+    private final long borrowTimeoutMillis;
+
+    private final Semaphore writerPermit = new Semaphore(1, true);
+    private volatile Connection writer;
+
+    private final Semaphore readerPermits;
+    private final BlockingQueue<Connection> idleReaders;
+    private final AtomicInteger openReaders = new AtomicInteger();
+
+    private final ThreadLocal<Lease> writerLease = new ThreadLocal<>();
+    private final ThreadLocal<Lease> readerLease = new ThreadLocal<>();
+
+    private final Map<Connection, StatementCache> statementCaches = new ConcurrentHashMap<>();
+
+    private volatile boolean shutdown;
+
+    // ---------- METRICS ----------
+    private final LongAdder borrows = new LongAdder();
+    private final LongAdder reentrantBorrows = new LongAdder();
+    private final LongAdder waits = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicInteger readersInUse = new AtomicInteger();
+    private volatile boolean writerInUse;
+
+    public ConnectionPool(String url, int maxReaders, long borrowTimeoutMillis) {
+        this.url = url;
+        this.maxReaders = maxReaders;
+        this.borrowTimeoutMillis = borrowTimeoutMillis;
+        this.readerPermits = new Semaphore(maxReaders, true);
+        this.idleReaders = new ArrayBlockingQueue<>(maxReaders);
+    }
+
+    // ---------- BORROW ----------
+    public Connection borrow(Mode mode) throws SQLException {
+        if (shutdown) throw new SQLException("Connection pool is shut down");
+
+        ThreadLocal<Lease> local = mode == Mode.WRITE ? writerLease : readerLease;
+        Lease lease = local.get();
+        borrows.increment();
+        if (lease != null && lease.holds > 0) {
+            lease.holds++;
+            reentrantBorrows.increment();
+            return lease.newHandle();
+        }
+
+        long start = System.nanoTime();
+        Connection physical = mode == Mode.WRITE ? acquireWriter() : acquireReader();
+        recordWait(System.nanoTime() - start);
+
+        lease = new Lease(mode, physical, local);
+        local.set(lease);
+        return lease.newHandle();
+    }
+
+    private Connection acquireWriter() throws SQLException {
+        acquirePermit(writerPermit, "write");
+        try {
+            if (writer == null || writer.isClosed()) {
+                if (writer != null) dropStatementCache(writer);
+                writer = open(false);
+            }
+            writerInUse = true;
+            return writer;
+        } catch (SQLException e) {
+            writerPermit.release();
+            throw e;
+        }
+    }
+
+    private Connection acquireReader() throws SQLException {
+        acquirePermit(readerPermits, "read");
+        try {
+            Connection conn = idleReaders.poll();
+            if (conn == null || conn.isClosed()) {
+                if (conn != null) {
+                    dropStatementCache(conn);
+                    openReaders.decrementAndGet();
+                }
+                conn = open(true);
+                openReaders.incrementAndGet();
+            }
+            readersInUse.incrementAndGet();
+            return conn;
+        } catch (SQLException e) {
+            readerPermits.release();
+            throw e;
+        }
+    }
+
+    private void acquirePermit(Semaphore permit, String kind) throws SQLException {
+        if (permit.tryAcquire()) return;
+        waits.increment();
+        try {
+            if (!permit.tryAcquire(borrowTimeoutMillis, TimeUnit.MILLISECONDS)) {
+                timeouts.increment();
+                throw new SQLException("Timed out after " + borrowTimeoutMillis + "ms waiting for a " + kind + " connection");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a " + kind + " connection", e);
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // ---------- RELEASE ----------
+    private void release(Lease lease) {
+        if (--lease.holds > 0) return;
+        if (lease.owner == Thread.currentThread()) lease.local.remove();
+
+        Connection conn = lease.physical;
+        try {
+            // A caller that forgot to commit must not leak its transaction to the next borrower
+            if (!conn.isClosed() && !conn.getAutoCommit()) {
+                conn.rollback();
+                conn.setAutoCommit(true);
+            }
+        } catch (SQLException e) {
+            System.err.println("⚠️ Failed to reset pooled connection: " + e.getMessage());
+        }
+
+        if (lease.mode == Mode.WRITE) {
+            writerInUse = false;
+            writerPermit.release();
+        } else {
+            readersInUse.decrementAndGet();
+            if (shutdown || !idleReaders.offer(conn)) {
+                closeQuietly(conn);
+                openReaders.decrementAndGet();
+            }
+            readerPermits.release();
+        }
+    }
+
+    // ---------- OPEN / CLOSE ----------
+    private Connection open(boolean readOnly) throws SQLException {
+        Connection conn = DriverManager.getConnection(url);
+        conn.setAutoCommit(true);
+        try (Statement stmt = conn.createStatement()) {
+            stmt.execute("PRAGMA busy_timeout = " + borrowTimeoutMillis);
+            // WAL lets readers keep reading while the writer commits; it is persistent, so the writer sets it
+            if (!readOnly) stmt.execute("PRAGMA journal_mode = WAL");
+            stmt.execute("PRAGMA synchronous = NORMAL");
+            stmt.execute("PRAGMA cache_size = " + CACHE_SIZE_KIB);
+            stmt.execute("PRAGMA mmap_size = " + MMAP_SIZE_BYTES);
+            stmt.execute("PRAGMA temp_store = MEMORY");
+            if (readOnly) stmt.execute("PRAGMA query_only = 1");
+        }
+        statementCaches.put(conn, new StatementCache(conn, STATEMENT_CACHE_SIZE));
+        System.out.println("db connect successfully (" + (readOnly ? "read" : "write") + "): " + url);
+        return conn;
+    }
+
+    public void shutdown() {
+        shutdown = true;
+        Connection conn;
+        while ((conn = idleReaders.poll()) != null) {
+            closeQuietly(conn);
+            openReaders.decrementAndGet();
+        }
+        closeWriter();
+        System.out.println("SQL db connection pool closed " + stats());
+    }
+
+    /**
+     * Waits for a borrowed writer to come back, then closes it: closing the last
+     * connection is what checkpoints the WAL into the database file. A writer still
+     * out after {@link #SHUTDOWN_WAIT_MILLIS} is closed anyway, rolling back its transaction.
+     */
+    private void closeWriter() {
+        if (writer == null) return;
+        Lease own = writerLease.get();
+        boolean permitHeld = false;
+        // On the thread that holds the writer, waiting would only time out; its close() returns the permit
+        if (own == null || own.holds == 0) {
+            try {
+                permitHeld = writerPermit.tryAcquire(SHUTDOWN_WAIT_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (!permitHeld) {
+                System.err.println("⚠️ Writer still in use after " + SHUTDOWN_WAIT_MILLIS + "ms, closing it anyway");
+            }
+        }
+        Connection conn = writer;
+        if (conn != null) closeQuietly(conn);
+        writer = null;
+        if (permitHeld) writerPermit.release();
+    }
+
+    private void dropStatementCache(Connection conn) {
+        StatementCache cache = statementCaches.remove(conn);
+        if (cache != null) cache.close();
+    }
+
+    private void closeQuietly(Connection conn) {
+        dropStatementCache(conn);
+        try {
+            if (!conn.isClosed()) conn.close();
+        } catch (SQLException e) {
+            System.err.println("Error closing connection: " + e.getMessage());
+        }
+    }
+
+    // ---------- METRICS ----------
+    public PoolStats stats() {
+        long total = borrows.sum() - reentrantBorrows.sum();
+        long statementHits = 0, statementMisses = 0;
+        for (StatementCache cache : statementCaches.values()) {
+            statementHits += cache.hits();
+            statementMisses += cache.misses();
+        }
+        return new PoolStats(
+                maxReaders,
+                openReaders.get(),
+                readersInUse.get(),
+                writerInUse,
+                borrows.sum(),
+                reentrantBorrows.sum(),
+                waits.sum(),
+                timeouts.sum(),
+                total == 0 ? 0 : totalWaitNanos.get() / total / 1_000_000.0,
+                maxWaitNanos.get() / 1_000_000.0,
+                statementHits,
+                statementMisses
+        );
+    }
+
+    /** 📊 Point-in-time snapshot of pool usage. */
+    public static class PoolStats {
+        private final int maxReaders;
+        private final int openReaders;
+        private final int readersInUse;
+        private final boolean writerInUse;
+        private final long borrows;
+        private final long reentrantBorrows;
+        private final long waits;
+        private final long timeouts;
+        private final double avgWaitMillis;
+        private final double maxWaitMillis;
+        private final long statementHits;
+        private final long statementMisses;
+
+        PoolStats(int maxReaders, int openReaders, int readersInUse, boolean writerInUse,
+                  long borrows, long reentrantBorrows, long waits, long timeouts,
+                  double avgWaitMillis, double maxWaitMillis, long statementHits, long statementMisses) {
+            this.maxReaders = maxReaders;
+            this.openReaders = openReaders;
+            this.readersInUse = readersInUse;
+            this.writerInUse = writerInUse;
+            this.borrows = borrows;
+            this.reentrantBorrows = reentrantBorrows;
+            this.waits = waits;
+            this.timeouts = timeouts;
+            this.avgWaitMillis = avgWaitMillis;
+            this.maxWaitMillis = maxWaitMillis;
+            this.statementHits = statementHits;
+            this.statementMisses = statementMisses;
+        }
+
+        public int getMaxReaders() { return maxReaders; }
+        public int getOpenReaders() { return openReaders; }
+        public int getReadersInUse() { return readersInUse; }
+        public boolean isWriterInUse() { return writerInUse; }
+        public long getBorrows() { return borrows; }
+        public long getReentrantBorrows() { return reentrantBorrows; }
+        public long getWaits() { return waits; }
+        public long getTimeouts() { return timeouts; }
+        public double getAvgWaitMillis() { return avgWaitMillis; }
+        public double getMaxWaitMillis() { return maxWaitMillis; }
+        public long getStatementHits() { return statementHits; }
+        public long getStatementMisses() { return statementMisses; }
+
+        @Override
+        public String toString() {
+            return String.format(
+                    "PoolStats{readers=%d/%d open, %d in use, writer=%s, borrows=%d (reentrant %d), waits=%d, timeouts=%d, avgWait=%.2fms, maxWait=%.2fms, statements=%d hit/%d miss}",
+                    openReaders, maxReaders, readersInUse, writerInUse ? "busy" : "idle",
+                    borrows, reentrantBorrows, waits, timeouts, avgWaitMillis, maxWaitMillis,
+                    statementHits, statementMisses);
+        }
+    }
+
+    // ---------- LEASE ----------
+    /** One thread's hold on a physical connection; every borrow gets its own closeable handle. */
+    private final class Lease {
+        final Mode mode;
+        final Connection physical;
+        final ThreadLocal<Lease> local;
+        final Thread owner = Thread.currentThread();
+        int holds = 1;
+
+        Lease(Mode mode, Connection physical, ThreadLocal<Lease> local) {
+            this.mode = mode;
+            this.physical = physical;
+            this.local = local;
+        }
+
+        Connection newHandle() {
+            return (Connection) Proxy.newProxyInstance(
+                    CachingConnection.class.getClassLoader(),
+                    new Class<?>[]{CachingConnection.class},
+                    new Handle(this));
+        }
+    }
+
+    private final class Handle implements InvocationHandler {
+        private final Lease lease;
+        private boolean closed;
+
+        Handle(Lease lease) {
+            this.lease = lease;
+        }
+
+        private StatementCache statements() {
+            return statementCaches.computeIfAbsent(lease.physical,
+                    conn -> new StatementCache(conn, STATEMENT_CACHE_SIZE));
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        release(lease);
+                    }
+                    return null;
+                case "isClosed":
+                    return closed || lease.physical.isClosed();
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Pooled" + lease.mode + "Connection[" + lease.physical + "]";
+                case "prepareCached":
+                    if (closed) throw new SQLException("Connection has already been returned to the pool");
+                    return statements().acquire((String) args[0]);
+                case "releaseCached":
+                    statements().release((String) args[0], (PreparedStatement) args[1]);
+                    return null;
+                default:
+                    if (closed) throw new SQLException("Connection has already been returned to the pool");
+                    try {
+                        return method.invoke(lease.physical, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+            }
+        }
+    }
+}
@@ -1,17 +1,12 @@
 package bikram.db;
 
 import java.sql.Connection;
-import java.sql.PreparedStatement;
-import java.sql.ResultSet;
 import java.sql.Statement;
 
 public class DBM {
     public static int getCount(String tableName){
-        String sql = "SELECT COUNT(*) AS total FROM "+tableName;
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql);
-             ResultSet rs = pstmt.executeQuery()){
-            return rs.getInt("total");
+        try {
+            return SqlTemplate.queryInt("SELECT COUNT(*) FROM " + tableName);
         } catch (Exception e){
             System.err.println("Coutn failed: "+e.getMessage());
         }return 0;
@@ -24,6 +19,7 @@ public class DBM {
 
             stmt.execute(sql);
             System.out.println("✅ Dropped table: " + tableName);
+            SchemaMigrator.invalidate();
 
         } catch (Exception e) {
             System.err.println("❌ Failed to drop table " + tableName + ": " + e.getMessage());
@@ -4,38 +4,65 @@ import java.io.File;
 import java.sql.*;
 
 public class DbConnector {
-    private static Connection connection;
     private static final String DB_DIR = System.getProperty("user.home") + "/Techura"; // writable folder
     private static final String DB_PATH = DB_DIR + "/app.db";
 
+    private static final int MAX_READERS = Math.max(2, Math.min(4, Runtime.getRuntime().availableProcessors()));
+    private static final long BORROW_TIMEOUT_MS = 10_000;
+
+    private static volatile ConnectionPool pool;
+
     private DbConnector() {}
 
-    public static Connection getConnection() {
-        try {
-            if (connection == null || connection.isClosed()) {
-                // Ensure directory exists
-                File dir = new File(DB_DIR);
-                if (!dir.exists()) dir.mkdirs();
-
-                Class.forName("org.sqlite.JDBC");
-                connection = DriverManager.getConnection("jdbc:sqlite:" + DB_PATH);
-                connection.setAutoCommit(true);
-                System.out.println("db connect successfully: " + DB_PATH);
+    private static ConnectionPool pool() throws SQLException {
+        ConnectionPool p = pool;
+        if (p == null) {
+            synchronized (DbConnector.class) {
+                p = pool;
+                if (p == null) {
+                    // Ensure directory exists
+                    File dir = new File(DB_DIR);
+                    if (!dir.exists()) dir.mkdirs();
+                    try {
+                        Class.forName("org.sqlite.JDBC");
+                    } catch (ClassNotFoundException e) {
+                        throw new SQLException("SQLite driver not found", e);
+                    }
+                    p = new ConnectionPool("jdbc:sqlite:" + DB_PATH, MAX_READERS, BORROW_TIMEOUT_MS);
+                    pool = p;
+                }
             }
-        } catch (Exception e) {
-            System.err.println("Error connecting to database: " + e.getMessage());
         }
-        return connection;
+        return p;
+    }
+
+    /** ✍️ Borrow the single write connection (also used for DDL). Close it to give it back. */
+    public static Connection getConnection() throws SQLException {
+        return pool().borrow(ConnectionPool.Mode.WRITE);
+    }
+
+    /** 📖 Borrow a read-only connection; several threads can read at once. Close it to give it back. */
+    public static Connection getReadConnection() throws SQLException {
+        return pool().borrow(ConnectionPool.Mode.READ);
+    }
+
+    /** Number of read connections that can be in use at once (sizes parallel read work). */
+    public static int getMaxReaders() {
+        return MAX_READERS;
+    }
+
+    /** 📊 Current pool usage. */
+    public static ConnectionPool.PoolStats getPoolStats() {
+        ConnectionPool p = pool;
+        return p == null ? null : p.stats();
     }
 
     public static void close() {
-        try {
-            if (connection != null && !connection.isClosed()) {
-                connection.close();
-                System.out.println("SQL db connection closed");
+        synchronized (DbConnector.class) {
+            if (pool != null) {
+                pool.shutdown();
+                pool = null;
             }
-        } catch (Exception e) {
-            System.err.println("Error closing connection: " + e.getMessage());
         }
     }
 }
@@ -1,6 +1,7 @@
 package bikram.db;
 
 import bikram.model.EmployeTime;
+import bikram.model.Payroll;
 
 import java.sql.*;
 import java.time.*;
@@ -15,30 +16,35 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
     private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private static final String SELECT_ALL_SQL = "SELECT id, userid, entrytime, exittime FROM employeeTime";
+    // Served by the partial idx_employee_time_open index: cost does not grow with history
+    private static final String LAST_OPEN_ENTRY_SQL = SELECT_ALL_SQL + """
+             WHERE userid = ? AND exit_epoch IS NULL
+            ORDER BY entry_epoch DESC LIMIT 1
+            """;
+    private static final String SUM_HOURS_SQL =
+            "SELECT SUM(hours) FROM employeeTime WHERE userid = ? AND entry_epoch >= ? AND entry_epoch < ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO employeeTime(userid, entrytime, exittime, hours, entry_epoch, exit_epoch) VALUES(?,?,?,?,?,?)";
+    private static final String UPDATE_SQL = """
+            UPDATE employeeTime
+            SET exittime = ?, hours = ?, exit_epoch = ?
+            WHERE id = ?
+            """;
+
+    private final PayrollEngine payroll = new PayrollEngine();
+
+    private static final SqlTemplate.RowMapper<EmployeTime> TIME_MAPPER =
+            rs -> new EmployeTime(rs.getLong(1), rs.getString(2), rs.getString(3), rs.getString(4));
+
 
     // ============================================================
 // TABLE CREATION / DROP
 // ============================================================
     @Override
     public void createTable() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS employeeTime (
-                userid TEXT,
-                entrytime TEXT,
-                exittime TEXT,
-                hours REAL
-            );
-            """;
-
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement()) {
-
-            stmt.execute(sql);
-            log("🟢 employeeTime table created successfully");
-
-        } catch (SQLException e) {
-            logError("❌ Failed to create employeeTime table:"+e.getMessage());
-        }
+        // DDL lives in SchemaMigrator; this only runs once per process
+        SchemaMigrator.migrate();
     }
 
     private void log(String s) {
@@ -58,6 +64,7 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
             stmt.execute(sql);
             log("🟢 employeeTime table dropped successfully");
+            SchemaMigrator.invalidate();
 
         } catch (SQLException e) {
             logError("❌ Failed to drop employeeTime table: " + e.getMessage());
@@ -69,19 +76,10 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 // ============================================================
     @Override
     public void saveEmployeTime(EmployeTime et) {
-        String sql = "INSERT INTO employeeTime(userid, entrytime, exittime, hours) VALUES(?,?,?,?)";
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, et.getUserId());
-            pstmt.setString(2, et.getEntryTime());
-            pstmt.setString(3, et.getExitTime());
-            pstmt.setDouble(4, et.getWorkHours());
-
-            pstmt.executeUpdate();
+        try {
+            et.setId(SqlTemplate.insert(INSERT_SQL, et.getUserId(), et.getEntryTime(), et.getExitTime(), et.getWorkHours(),
+                    epochOf(et.getEntryTime()), epochOf(et.getExitTime())));
             log("🟢 EmployeeTime saved successfully");
-
         } catch (SQLException e) {
             logError("❌ Failed to save EmployeeTime: " + e.getMessage());
         }
@@ -89,28 +87,61 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
     @Override
     public void updateTime(String userid, EmployeTime et) {
-        String sql = """
-            UPDATE employeeTime
-            SET exittime = ?, hours = ?
-            WHERE userid = ? AND entrytime = ?
-            """;
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, et.getExitTime());
-            pstmt.setDouble(2, et.getWorkHours());
-            pstmt.setString(3, userid);
-            pstmt.setString(4, et.getEntryTime());
-
-            pstmt.executeUpdate();
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                long id = et.getId();
+                if (id == 0) {
+                    // Record built without an id (older callers): close the user's open shift
+                    EmployeTime open = SqlTemplate.queryOne(c, LAST_OPEN_ENTRY_SQL, TIME_MAPPER, userid);
+                    if (open == null) return null;
+                    id = open.getId();
+                    et.setId(id);
+                }
+                SqlTemplate.update(c, UPDATE_SQL, et.getExitTime(), et.getWorkHours(), epochOf(et.getExitTime()), id);
+                return null;
+            });
             log("🔵 EmployeeTime updated successfully");
-
         } catch (SQLException e) {
             logError("❌ Failed to update EmployeeTime: " + e.getMessage());
         }
     }
 
+    @Override
+    public EmployeTime clockIn(String userid, LocalDateTime at) {
+        String entry = at.format(FORMATTER);
+        try (Connection conn = DbConnector.getConnection()) {
+            return SqlTemplate.inTransaction(conn, c -> {
+                // One open shift per user: a second clock-in returns the running one
+                EmployeTime open = SqlTemplate.queryOne(c, LAST_OPEN_ENTRY_SQL, TIME_MAPPER, userid);
+                if (open != null) return open;
+                long id = SqlTemplate.insert(c, INSERT_SQL, userid, entry, null, 0.0, epochOf(at), null);
+                log("🟢 Clock-in saved for " + userid);
+                return new EmployeTime(id, userid, entry, null);
+            });
+        } catch (SQLException e) {
+            logError("❌ Failed to clock in: " + e.getMessage());
+            return null;
+        }
+    }
+
+    @Override
+    public EmployeTime clockOut(String userid, LocalDateTime at) {
+        String exit = at.format(FORMATTER);
+        try (Connection conn = DbConnector.getConnection()) {
+            return SqlTemplate.inTransaction(conn, c -> {
+                EmployeTime open = SqlTemplate.queryOne(c, LAST_OPEN_ENTRY_SQL, TIME_MAPPER, userid);
+                if (open == null) return null;
+                EmployeTime closed = new EmployeTime(open.getId(), userid, open.getEntryTime(), exit);
+                SqlTemplate.update(c, UPDATE_SQL, exit, closed.getWorkHours(), epochOf(at), open.getId());
+                log("🔴 Clock-out saved for " + userid);
+                return closed;
+            });
+        } catch (SQLException e) {
+            logError("❌ Failed to clock out: " + e.getMessage());
+            return null;
+        }
+    }
+
     // ============================================================
 // GETTERS
 // ============================================================
@@ -124,30 +155,25 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
         }
     }
 
-    private EmployeTime fromResultSet(ResultSet rs) throws SQLException {
-        return new EmployeTime(
-                rs.getString("userid"),
-                rs.getString("entrytime"),
-                rs.getString("exittime")
-        );
+    /** Local wall-clock time → epoch seconds; must match strftime('%s', ts, 'utc') used by the v5 migration. */
+    static long epochOf(LocalDateTime ts) {
+        return ts.atZone(ZoneId.systemDefault()).toEpochSecond();
     }
 
-    @Override
-    public EmployeTime getLastEntry(String userid) {
-        String sql = """
-            SELECT * FROM employeeTime
-            WHERE userid = ? AND exittime IS NULL
-            ORDER BY entrytime DESC LIMIT 1
-            """;
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            ResultSet rs = pstmt.executeQuery();
+    private Long epochOf(String ts) {
+        LocalDateTime parsed = parse(ts);
+        return parsed == null ? null : epochOf(parsed);
+    }
 
-            if (rs.next()) return fromResultSet(rs);
+    // [start, end) epoch ranges are index range scans on (userid, entry_epoch)
+    private static long startOf(LocalDate day) {
+        return epochOf(day.atStartOfDay());
+    }
 
+    @Override
+    public EmployeTime getLastEntry(String userid) {
+        try {
+            return SqlTemplate.queryOne(LAST_OPEN_ENTRY_SQL, TIME_MAPPER, userid);
         } catch (SQLException e) {
             logError("❌ Failed to get last entry: " + e.getMessage());
         }
@@ -156,71 +182,33 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
     @Override
     public List<EmployeTime> getAllRecords(String userid) {
-        List<EmployeTime> list = new ArrayList<>();
-        String sql = "SELECT * FROM employeeTime WHERE userid = ? ORDER BY entrytime ASC";
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            ResultSet rs = pstmt.executeQuery();
-
-            while (rs.next()) {
-                list.add(fromResultSet(rs));
-            }
-
+        try {
+            return SqlTemplate.query(SELECT_ALL_SQL + " WHERE userid = ? ORDER BY entry_epoch ASC", TIME_MAPPER, userid);
         } catch (SQLException e) {
             logError("❌ Failed to get all records: " + e.getMessage());
         }
-
-        return list;
+        return new ArrayList<>();
     }
 
     @Override
     public List<EmployeTime> getMonthlyRecords(String userid, int year, int month) {
-        List<EmployeTime> list = new ArrayList<>();
-        String sql = """
-            SELECT * FROM employeeTime
-            WHERE userid = ? AND strftime('%Y', entrytime)=? AND strftime('%m', entrytime)=?
-            ORDER BY entrytime ASC
-            """;
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, String.valueOf(year));
-            pstmt.setString(3, String.format("%02d", month));
-
-            ResultSet rs = pstmt.executeQuery();
-            while (rs.next()) list.add(fromResultSet(rs));
-
+        String sql = SELECT_ALL_SQL + " WHERE userid = ? AND entry_epoch >= ? AND entry_epoch < ? ORDER BY entry_epoch ASC";
+        LocalDate first = LocalDate.of(year, month, 1);
+        try {
+            return SqlTemplate.query(sql, TIME_MAPPER, userid, startOf(first), startOf(first.plusMonths(1)));
         } catch (SQLException e) {
             logError("❌ Failed to get monthly records: " + e.getMessage());
         }
-        return list;
+        return new ArrayList<>();
     }
     // ============================================================
 // TIME CALCULATIONS
 // ============================================================
     @Override
     public double getDailyHours(String userid, int year, int month, int day) {
-        String sql = """
-            SELECT SUM(hours) FROM employeeTime
-            WHERE userid = ? AND strftime('%Y', entrytime)=? AND strftime('%m', entrytime)=? AND strftime('%d', entrytime)=?
-            """;
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, String.valueOf(year));
-            pstmt.setString(3, String.format("%02d", month));
-            pstmt.setString(4, String.format("%02d", day));
-
-            ResultSet rs = pstmt.executeQuery();
-            return rs.getDouble(1);
-
+        LocalDate date = LocalDate.of(year, month, day);
+        try {
+            return SqlTemplate.queryDouble(SUM_HOURS_SQL, userid, startOf(date), startOf(date.plusDays(1)));
         } catch (SQLException e) {
             logError("❌ Failed to get daily hours: " + e.getMessage());
             return 0;
@@ -234,18 +222,8 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
                 .with(java.time.DayOfWeek.MONDAY);
         LocalDate end = start.plusDays(6);
 
-        String sql = "SELECT SUM(hours) FROM employeeTime WHERE userid=? AND entrytime BETWEEN ? AND ?";
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, start.atStartOfDay().format(FORMATTER));
-            pstmt.setString(3, end.atTime(23, 59, 59).format(FORMATTER));
-
-            ResultSet rs = pstmt.executeQuery();
-            return rs.getDouble(1);
-
+        try {
+            return SqlTemplate.queryDouble(SUM_HOURS_SQL, userid, startOf(start), startOf(end.plusDays(1)));
         } catch (SQLException e) {
             logError("❌ Failed to get weekly hours: " + e.getMessage());
             return 0;
@@ -254,18 +232,9 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
     @Override
     public double getMonthlyTime(String userid, int year, int month) {
-        String sql = "SELECT SUM(hours) FROM employeeTime WHERE userid=? AND strftime('%Y', entrytime)=? AND strftime('%m', entrytime)=?";
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, String.valueOf(year));
-            pstmt.setString(3, String.format("%02d", month));
-
-            ResultSet rs = pstmt.executeQuery();
-            return rs.getDouble(1);
-
+        LocalDate first = LocalDate.of(year, month, 1);
+        try {
+            return SqlTemplate.queryDouble(SUM_HOURS_SQL, userid, startOf(first), startOf(first.plusMonths(1)));
         } catch (SQLException e) {
             logError("❌ Failed to get monthly hours: " + e.getMessage());
             return 0;
@@ -273,18 +242,31 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
     }
 
     @Override
-    public double getYearlyHours(String userid, int year) {
-        String sql = "SELECT SUM(hours) FROM employeeTime WHERE userid=? AND strftime('%Y', entrytime)=?";
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, String.valueOf(year));
-
-            ResultSet rs = pstmt.executeQuery();
-            return rs.getDouble(1);
+    public double[] getMonthlyHoursOfYear(String userid, int year) {
+        String sql = """
+            SELECT CAST(substr(entrytime, 6, 2) AS INTEGER) AS m, SUM(hours)
+            FROM employeeTime
+            WHERE userid = ? AND entry_epoch >= ? AND entry_epoch < ?
+            GROUP BY m
+            """;
+        double[] hours = new double[12];
+        LocalDate first = LocalDate.of(year, 1, 1);
+        try {
+            SqlTemplate.forEach(sql, rs -> {
+                int m = rs.getInt(1);
+                if (m >= 1 && m <= 12) hours[m - 1] = rs.getDouble(2);
+            }, userid, startOf(first), startOf(first.plusYears(1)));
+        } catch (SQLException e) {
+            logError("❌ Failed to get monthly hours of year: " + e.getMessage());
+        }
+        return hours;
+    }
 
+    @Override
+    public double getYearlyHours(String userid, int year) {
+        LocalDate first = LocalDate.of(year, 1, 1);
+        try {
+            return SqlTemplate.queryDouble(SUM_HOURS_SQL, userid, startOf(first), startOf(first.plusYears(1)));
         } catch (SQLException e) {
             logError("❌ Failed to get yearly hours: " + e.getMessage());
             return 0;
@@ -296,15 +278,12 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 // ============================================================
     @Override
     public double getDailyOvertime(String userid, int year, int month, int day) {
-        return Math.max(0, getDailyHours(userid, year, month, day) - 8.0);
+        return Math.max(0, getDailyHours(userid, year, month, day) - PayrollEngine.STANDARD_DAY_HOURS);
     }
 
     @Override
     public double getMonthlyOvertime(String userid, int year, int month) {
-        double total = 0;
-        int days = YearMonth.of(year, month).lengthOfMonth();
-        for (int d = 1; d <= days; d++) total += getDailyOvertime(userid, year, month, d);
-        return total;
+        return computePayroll(userid, year, month, 0, 0, 0).getOvertimeHours();
     }
 
     // ============================================================
@@ -312,25 +291,16 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 // ============================================================
     @Override
     public int getLateMinutes(String userid, int year, int month, int day) {
-        String sql = "SELECT entrytime FROM employeeTime WHERE userid=? AND strftime('%Y', entrytime)=? AND strftime('%m', entrytime)=? AND strftime('%d', entrytime)=? ORDER BY entrytime ASC LIMIT 1";
+        String sql = "SELECT entrytime FROM employeeTime WHERE userid = ? AND entry_epoch >= ? AND entry_epoch < ? ORDER BY entry_epoch ASC LIMIT 1";
+        LocalDate date = LocalDate.of(year, month, day);
 
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, String.valueOf(year));
-            pstmt.setString(3, String.format("%02d", month));
-            pstmt.setString(4, String.format("%02d", day));
-
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                LocalDateTime actual = parse(rs.getString("entrytime"));
-                if (actual != null) {
-                    LocalDateTime expected = LocalDateTime.of(year, month, day, 9, 0);
-                    if (actual.isAfter(expected)) return (int) Duration.between(expected, actual).toMinutes();
-                }
+        try {
+            LocalDateTime actual = parse(SqlTemplate.queryOne(sql, rs -> rs.getString(1),
+                    userid, startOf(date), startOf(date.plusDays(1))));
+            if (actual != null) {
+                LocalDateTime expected = date.atTime(PayrollEngine.SHIFT_START);
+                if (actual.isAfter(expected)) return (int) Duration.between(expected, actual).toMinutes();
             }
-
         } catch (SQLException e) {
             logError("❌ Failed to calculate late minutes: " + e.getMessage());
         }
@@ -340,25 +310,16 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
     @Override
     public int getEarlyLeaveMinutes(String userid, int year, int month, int day) {
-        String sql = "SELECT exittime FROM employeeTime WHERE userid=? AND strftime('%Y', entrytime)=? AND strftime('%m', entrytime)=? AND strftime('%d', entrytime)=? ORDER BY exittime DESC LIMIT 1";
+        String sql = "SELECT exittime FROM employeeTime WHERE userid = ? AND entry_epoch >= ? AND entry_epoch < ? ORDER BY exit_epoch DESC LIMIT 1";
+        LocalDate date = LocalDate.of(year, month, day);
 
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, userid);
-            pstmt.setString(2, String.valueOf(year));
-            pstmt.setString(3, String.format("%02d", month));
-            pstmt.setString(4, String.format("%02d", day));
-
-            ResultSet rs = pstmt.executeQuery();
-            if (rs.next()) {
-                LocalDateTime actual = parse(rs.getString("exittime"));
-                if (actual != null) {
-                    LocalDateTime expected = LocalDateTime.of(year, month, day, 18, 0);
-                    if (actual.isBefore(expected)) return (int) Duration.between(actual, expected).toMinutes();
-                }
+        try {
+            LocalDateTime actual = parse(SqlTemplate.queryOne(sql, rs -> rs.getString(1),
+                    userid, startOf(date), startOf(date.plusDays(1))));
+            if (actual != null) {
+                LocalDateTime expected = date.atTime(PayrollEngine.SHIFT_END);
+                if (actual.isBefore(expected)) return (int) Duration.between(actual, expected).toMinutes();
             }
-
         } catch (SQLException e) {
             logError("❌ Failed to calculate early leave minutes: " + e.getMessage());
         }
@@ -374,6 +335,13 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
         return getDailyHours(userid, year, month, day) * hourlyRate;
     }
 
+    // Monthly figures come from one PayrollEngine pass instead of a query per day
+    private Payroll computePayroll(String userid, int year, int month,
+                                   double hourlyRate, double overtimeRate, double penaltyPerMinute) {
+        return payroll.compute(userid, YearMonth.of(year, month),
+                new PayrollEngine.Rates(hourlyRate, overtimeRate, penaltyPerMinute));
+    }
+
     @Override
     public double calculateMonthlySalary(String userid, int year, int month, double hourlyRate) {
         return getMonthlyTime(userid, year, month) * hourlyRate;
@@ -381,28 +349,32 @@ public class EmployeeTimeDB implements EmployeeTimeRepository {
 
     @Override
     public double calculateMonthlyOvertimePay(String userid, int year, int month, double overtimeRate) {
-        return getMonthlyOvertime(userid, year, month) * overtimeRate;
+        return computePayroll(userid, year, month, 0, overtimeRate, 0).getOvertimePay();
     }
 
     @Override
     public double calculateMonthlyDeductions(String userid, int year, int month, double penaltyPerMinute) {
-        double total = 0;
-        int days = YearMonth.of(year, month).lengthOfMonth();
-        for (int d = 1; d <= days; d++)
-            total += (getLateMinutes(userid, year, month, d) + getEarlyLeaveMinutes(userid, year, month, d)) * penaltyPerMinute;
-        return total;
+        return computePayroll(userid, year, month, 0, 0, penaltyPerMinute).getDeductions();
     }
 
     @Override
     public double calculateTotalMonthlyPay(String userid, int year, int month, double hourlyRate, double overtimeRate) {
-        return calculateMonthlySalary(userid, year, month, hourlyRate)
-                + calculateMonthlyOvertimePay(userid, year, month, overtimeRate);
+        return computePayroll(userid, year, month, hourlyRate, overtimeRate, 0).getGrossPay();
     }
 
     @Override
     public double calculateFinalPayroll(String userid, int year, int month, double hourlyRate, double overtimeRate, double penaltyPerMinute) {
-        return calculateTotalMonthlyPay(userid, year, month, hourlyRate, overtimeRate)
-                - calculateMonthlyDeductions(userid, year, month, penaltyPerMinute);
+        return computePayroll(userid, year, month, hourlyRate, overtimeRate, penaltyPerMinute).getFinalPay();
+    }
+
+    @Override
+    public Payroll getMonthlyPayroll(String userid, YearMonth month, PayrollEngine.Rates rates) {
+        return payroll.compute(userid, month, rates);
+    }
+
+    @Override
+    public List<Payroll> getMonthlyPayrollForAll(YearMonth month, PayrollEngine.Rates rates) {
+        return payroll.computeAll(month, rates);
     }
 
 }
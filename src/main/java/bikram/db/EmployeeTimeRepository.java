@@ -2,7 +2,10 @@ package bikram.db;
 
 
 import bikram.model.EmployeTime;
+import bikram.model.Payroll;
 
+import java.time.LocalDateTime;
+import java.time.YearMonth;
 import java.util.List;
 
 public interface EmployeeTimeRepository {
@@ -21,6 +24,11 @@ public interface EmployeeTimeRepository {
     List<EmployeTime> getAllRecords(String userid);
     EmployeTime getLastEntry(String userid);
 
+    // Open-shift punches: clock-in returns the already open shift if there is one,
+    // clock-out closes it by id (null when nothing is open)
+    EmployeTime clockIn(String userid, LocalDateTime at);
+    EmployeTime clockOut(String userid, LocalDateTime at);
+
     // -------------------------
     // TIME CALCULATIONS
     // -------------------------
@@ -35,6 +43,9 @@ public interface EmployeeTimeRepository {
     // Total hours in month
     double getMonthlyTime(String userid, int year, int month);
 
+    // Hours for every month of the year in one query (index 0 = January)
+    double[] getMonthlyHoursOfYear(String userid, int year);
+
     // Total hours in year
     double getYearlyHours(String userid, int year);
 
@@ -83,6 +94,12 @@ public interface EmployeeTimeRepository {
             double penaltyPerMinute
     );
 
+    // Full payroll breakdown for one employee-month (single range query)
+    Payroll getMonthlyPayroll(String userid, YearMonth month, PayrollEngine.Rates rates);
+
+    // Bulk mode: payroll for every user in one pass
+    List<Payroll> getMonthlyPayrollForAll(YearMonth month, PayrollEngine.Rates rates);
+
     // Export all data for a month (for CSV/PDF generation)
     List<EmployeTime> getMonthlyRecords(String userid, int year, int month);
 }
@@ -0,0 +1,226 @@
+package bikram.db;
+
+import bikram.model.Account;
+import bikram.model.Money;
+import bikram.model.ProfitAndLoss;
+import bikram.model.Sales;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 📚 Double-entry journal (SchemaMigrator v9).
+ * Every money movement is one {@code journal_entries} row whose {@code journal_lines}
+ * sum to zero (debits positive, credits negative). It is written in the same
+ * transaction as the sale, refund or payment that caused it. Posting a line also adds
+ * it to {@code accounts.balance} and stores the resulting balance on the line. So
+ * current totals are one row per account, and the totals at any earlier moment are one
+ * indexed lookup per account. Neither ever sums history.
+ * <p>
+ * (kind, ref) is unique, so a payroll period or a refunded sale can only be posted once.
+ */
+public class Journal {
+
+    public enum Kind { OPENING, SALE, REFUND, PAYROLL }
+
+    // ---------- CHART OF ACCOUNTS (seeded by v9) ----------
+    public static final String CASH = "CASH";
+    public static final String INVENTORY = "INVENTORY";
+    public static final String OWNER_EQUITY = "OWNER_EQUITY";
+    public static final String SALES = "SALES";
+    public static final String SALES_RETURNS = "SALES_RETURNS";
+    public static final String COST_OF_SALES = "COST_OF_SALES";
+    public static final String PAYROLL = "PAYROLL";
+    public static final String EXPENSES = "EXPENSES";
+
+    /** One side of an entry, in minor units. */
+    public static final class Line {
+        final String account;
+        final long amount;
+
+        private Line(String account, long amount) {
+            this.account = account;
+            this.amount = amount;
+        }
+
+        public static Line debit(String account, Money amount) { return new Line(account, amount.getMinor()); }
+        public static Line credit(String account, Money amount) { return new Line(account, -amount.getMinor()); }
+    }
+
+    private static final String ADD_ENTRY_SQL =
+            "INSERT INTO journal_entries(kind, ref, memo, created_at) VALUES (?, ?, ?, ?)";
+    private static final String APPLY_SQL = "UPDATE accounts SET balance = balance + ? WHERE code = ?";
+    // The line keeps the account balance just updated (same transaction)
+    private static final String ADD_LINE_SQL = """
+            INSERT INTO journal_lines(entry_id, account, amount, balance)
+            SELECT ?, code, ?, balance FROM accounts WHERE code = ?
+            """;
+    private static final String POSTED_SQL = "SELECT 1 FROM journal_entries WHERE kind = ? AND ref = ?";
+
+    private static final String ACCOUNTS_SQL = "SELECT code, name, type, balance FROM accounts ORDER BY type, code";
+    private static final String BALANCE_SQL = "SELECT balance FROM accounts WHERE code = ?";
+    private static final String LAST_ENTRY_BEFORE_SQL =
+            "SELECT id FROM journal_entries WHERE created_at < ? ORDER BY created_at DESC, id DESC LIMIT 1";
+    private static final String BALANCES_AS_OF_SQL = """
+            SELECT a.code,
+                   IFNULL((SELECT l.balance FROM journal_lines l
+                           WHERE l.account = a.code AND l.entry_id <= ?
+                           ORDER BY l.entry_id DESC, l.id DESC LIMIT 1), 0) AS balance
+            FROM accounts a
+            """;
+
+    // ---------- POSTING ----------
+    /**
+     * Writes one balanced entry on the caller's connection; call inside its transaction.
+     * @return the entry id
+     * @throws IllegalArgumentException if the lines do not balance
+     * @throws SQLException on an unknown account, or if (kind, ref) was already posted
+     */
+    static long post(Connection conn, Kind kind, String ref, String memo, List<Line> lines) throws SQLException {
+        long sum = 0;
+        for (Line l : lines) sum += l.amount;
+        if (sum != 0) {
+            throw new IllegalArgumentException("Unbalanced " + kind + " entry (" + ref + "): off by " + Money.ofMinor(sum));
+        }
+
+        long entryId = SqlTemplate.insert(conn, ADD_ENTRY_SQL, kind, ref, memo, StockLedger.now());
+        for (Line l : lines) {
+            if (l.amount == 0) continue;
+            if (SqlTemplate.update(conn, APPLY_SQL, l.amount, l.account) == 0) {
+                throw new SQLException("Unknown account: " + l.account);
+            }
+            SqlTemplate.update(conn, ADD_LINE_SQL, entryId, l.amount, l.account);
+        }
+        return entryId;
+    }
+
+    /**
+     * Posts the sales rows just inserted on {@code conn} as one SALE entry: cash and revenue
+     * at the final amount, inventory moved to cost of sales at purchase price.
+     * Must run right after the sales INSERT, while last_insert_rowid() is still the last sale.
+     */
+    static void recordSales(Connection conn, Collection<Sales> lines) throws SQLException {
+        if (lines.isEmpty()) return;
+        long lastId = SqlTemplate.queryOne(conn, "SELECT last_insert_rowid()", rs -> rs.getLong(1));
+        long firstId = lastId - lines.size() + 1;   // AUTOINCREMENT ids of one transaction are contiguous
+
+        long revenueMinor = 0, costMinor = 0;
+        for (Sales s : lines) {
+            revenueMinor += s.getFinalAmount().getMinor();
+            costMinor += s.getCost().getMinor();
+        }
+        Money revenue = Money.ofMinor(revenueMinor), cost = Money.ofMinor(costMinor);
+        post(conn, Kind.SALE, saleRef(firstId, lastId), lines.size() + " line(s)", List.of(
+                Line.debit(CASH, revenue),
+                Line.credit(SALES, revenue),
+                Line.debit(COST_OF_SALES, cost),
+                Line.credit(INVENTORY, cost)));
+    }
+
+    /** SALE refs name the inclusive range of sales ids they cover, e.g. "120..124". */
+    static String saleRef(long firstId, long lastId) {
+        return firstId + ".." + lastId;
+    }
+
+    /** 💴 Pays one employee's wages for {@code period}; false if that period was already paid or the write failed. */
+    public boolean recordPayroll(String userId, String period, Money amount) {
+        return postAlone(Kind.PAYROLL, userId + "/" + period, "給与 " + userId, List.of(
+                Line.debit(PAYROLL, amount),
+                Line.credit(CASH, amount)));
+    }
+
+    private boolean postAlone(Kind kind, String ref, String memo, List<Line> lines) {
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> post(c, kind, ref, memo, lines));
+            System.out.println("📚 Journal: " + kind + " " + (ref == null ? memo : ref) + " posted");
+            return true;
+        } catch (SQLException | IllegalArgumentException e) {
+            System.err.println("❌ Journal " + kind + " failed (" + ref + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean isPosted(Kind kind, String ref) {
+        try {
+            return SqlTemplate.queryOne(POSTED_SQL, rs -> true, kind, ref) != null;
+        } catch (SQLException e) {
+            System.err.println("⚠️ Journal lookup failed (" + kind + " " + ref + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ---------- BALANCES ----------
+    public List<Account> getAccounts() {
+        try {
+            return SqlTemplate.query(ACCOUNTS_SQL, rs -> new Account(
+                    rs.getString("code"),
+                    rs.getString("name"),
+                    Account.Type.valueOf(rs.getString("type")),
+                    Money.ofMinor(rs.getLong("balance"))));
+        } catch (SQLException e) {
+            System.err.println("⚠️ Account list failed: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /** Current debit-positive balance of one account. */
+    public Money getBalance(String account) {
+        try {
+            return SqlTemplate.queryMoney(BALANCE_SQL, account);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Balance lookup failed (" + account + "): " + e.getMessage());
+            return Money.ZERO;
+        }
+    }
+
+    /** Cash on hand; what {@code Business.balance} was meant to be. */
+    public Money getCash() {
+        return getBalance(CASH);
+    }
+
+    /** 📈 P&L since the journal was opened, from the current account balances. */
+    public ProfitAndLoss getProfitAndLoss() {
+        Map<String, Long> now = new HashMap<>();
+        for (Account a : getAccounts()) now.put(a.getCode(), a.getBalance().getMinor());
+        return profitAndLoss(now, Map.of());
+    }
+
+    /** 📈 P&L for [from, to): balances at {@code to} minus balances at {@code from}. */
+    public ProfitAndLoss getProfitAndLoss(Instant from, Instant to) {
+        try (Connection conn = DbConnector.getReadConnection()) {
+            return profitAndLoss(balancesAsOf(conn, to), balancesAsOf(conn, from));
+        } catch (SQLException e) {
+            System.err.println("⚠️ P&L query failed: " + e.getMessage());
+            return profitAndLoss(Map.of(), Map.of());
+        }
+    }
+
+    /** Every account's balance just before {@code at}: the running balance on its last earlier line. */
+    private static Map<String, Long> balancesAsOf(Connection conn, Instant at) throws SQLException {
+        Long lastEntry = SqlTemplate.queryOne(conn, LAST_ENTRY_BEFORE_SQL, rs -> rs.getLong(1), at.getEpochSecond());
+        Map<String, Long> balances = new HashMap<>();
+        if (lastEntry == null) return balances;
+        SqlTemplate.forEach(conn, BALANCES_AS_OF_SQL,
+                rs -> balances.put(rs.getString("code"), rs.getLong("balance")), lastEntry);
+        return balances;
+    }
+
+    private static ProfitAndLoss profitAndLoss(Map<String, Long> end, Map<String, Long> start) {
+        return new ProfitAndLoss(
+                change(end, start, SALES).negate(),   // income is credit-normal
+                change(end, start, SALES_RETURNS),
+                change(end, start, COST_OF_SALES),
+                change(end, start, PAYROLL),
+                change(end, start, EXPENSES));
+    }
+
+    private static Money change(Map<String, Long> end, Map<String, Long> start, String account) {
+        return Money.ofMinor(end.getOrDefault(account, 0L) - start.getOrDefault(account, 0L));
+    }
+}
@@ -0,0 +1,190 @@
+package bikram.db;
+
+import bikram.model.Payroll;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * 💴 Set-based payroll.
+ * Loads an employee-month of punches with one range query on (userid, entry_epoch)
+ * and folds them into hours, overtime, late/early minutes and pay in memory.
+ * {@link #computeAll} does the same for every user in a single ordered scan.
+ * Rules match the per-day methods in {@link EmployeeTimeDB}: a shift belongs to
+ * the day it started, overtime is anything over {@link #STANDARD_DAY_HOURS} per day,
+ * lateness is measured from the day's first entry and early leave from its last exit.
+ */
+public class PayrollEngine {
+
+    public static final double STANDARD_DAY_HOURS = 8.0;
+    public static final LocalTime SHIFT_START = LocalTime.of(9, 0);
+    public static final LocalTime SHIFT_END = LocalTime.of(18, 0);
+
+    private static final DateTimeFormatter FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
+
+    private static final String USER_MONTH_SQL = """
+            SELECT userid, entrytime, exittime, hours
+            FROM employeeTime
+            WHERE userid = ? AND entry_epoch >= ? AND entry_epoch < ?
+            ORDER BY entry_epoch
+            """;
+
+    // LEFT JOIN so users without punches still get a (zero) payroll row
+    private static final String ALL_USERS_MONTH_SQL = """
+            SELECT u.id, t.entrytime, t.exittime, t.hours
+            FROM users u
+            LEFT JOIN employeeTime t
+                   ON t.userid = u.id AND t.entry_epoch >= ? AND t.entry_epoch < ?
+            ORDER BY u.id, t.entry_epoch
+            """;
+
+    /** Pay rates applied to one employee's month. */
+    public static class Rates {
+        private final double hourlyRate;
+        private final double overtimeRate;
+        private final double penaltyPerMinute;
+
+        public Rates(double hourlyRate, double overtimeRate, double penaltyPerMinute) {
+            this.hourlyRate = hourlyRate;
+            this.overtimeRate = overtimeRate;
+            this.penaltyPerMinute = penaltyPerMinute;
+        }
+
+        public double getHourlyRate() { return hourlyRate; }
+        public double getOvertimeRate() { return overtimeRate; }
+        public double getPenaltyPerMinute() { return penaltyPerMinute; }
+    }
+
+    // ---------- SINGLE EMPLOYEE ----------
+    public Payroll compute(String userId, YearMonth month, Rates rates) {
+        Accumulator acc = new Accumulator(userId, month);
+        try {
+            SqlTemplate.forEach(USER_MONTH_SQL,
+                    rs -> acc.add(rs.getString(2), rs.getString(3), rs.getDouble(4)),
+                    userId, monthStart(month), monthStart(month.plusMonths(1)));
+        } catch (SQLException e) {
+            System.err.println("❌ Payroll query failed for " + userId + " " + month + ": " + e.getMessage());
+        }
+        return acc.finish(rates);
+    }
+
+    // ---------- WHOLE STAFF ----------
+    /** Payroll for every user in one pass, ordered by user id. */
+    public List<Payroll> computeAll(YearMonth month, Rates rates) {
+        return computeAll(month, userId -> rates);
+    }
+
+    /** Same as {@link #computeAll(YearMonth, Rates)} with per-user rates. */
+    public List<Payroll> computeAll(YearMonth month, Function<String, Rates> ratesFor) {
+        List<Payroll> result = new ArrayList<>();
+        Accumulator[] current = new Accumulator[1];
+        long start = System.nanoTime();
+        try {
+            SqlTemplate.forEach(ALL_USERS_MONTH_SQL, rs -> {
+                String userId = rs.getString(1);
+                if (current[0] == null || !current[0].userId.equals(userId)) {
+                    if (current[0] != null) result.add(current[0].finish(ratesFor.apply(current[0].userId)));
+                    current[0] = new Accumulator(userId, month);
+                }
+                String entry = rs.getString(2);
+                if (entry != null) current[0].add(entry, rs.getString(3), rs.getDouble(4));
+            }, monthStart(month), monthStart(month.plusMonths(1)));
+            if (current[0] != null) result.add(current[0].finish(ratesFor.apply(current[0].userId)));
+        } catch (SQLException e) {
+            System.err.println("❌ Bulk payroll failed for " + month + ": " + e.getMessage());
+        }
+        System.out.printf("💴 Payroll %s: %d employee(s) in %.1f ms%n",
+                month, result.size(), (System.nanoTime() - start) / 1_000_000.0);
+        return result;
+    }
+
+    static long monthStart(YearMonth month) {
+        return EmployeeTimeDB.epochOf(month.atDay(1).atStartOfDay());
+    }
+
+    // ---------- FOLD ----------
+    /** Rows must arrive ordered by entrytime. */
+    private static final class Accumulator {
+        final String userId;
+        final YearMonth month;
+
+        LocalDate day;
+        double dayHours;
+        LocalDateTime dayFirstEntry;
+        LocalDateTime dayLastExit;
+
+        int daysWorked;
+        double totalHours;
+        double overtimeHours;
+        int lateMinutes;
+        int earlyLeaveMinutes;
+
+        Accumulator(String userId, YearMonth month) {
+            this.userId = userId;
+            this.month = month;
+        }
+
+        void add(String entryTime, String exitTime, double hours) {
+            LocalDateTime entry = parse(entryTime);
+            if (entry == null) return;
+            LocalDate entryDay = entry.toLocalDate();
+            if (!entryDay.equals(day)) {
+                closeDay();
+                day = entryDay;
+                dayFirstEntry = entry;
+            }
+            dayHours += hours;
+            LocalDateTime exit = parse(exitTime);
+            if (exit != null && (dayLastExit == null || exit.isAfter(dayLastExit))) dayLastExit = exit;
+        }
+
+        private void closeDay() {
+            if (day == null) return;
+            daysWorked++;
+            totalHours += dayHours;
+            overtimeHours += Math.max(0, dayHours - STANDARD_DAY_HOURS);
+
+            LocalDateTime expectedStart = day.atTime(SHIFT_START);
+            if (dayFirstEntry.isAfter(expectedStart)) {
+                lateMinutes += (int) Duration.between(expectedStart, dayFirstEntry).toMinutes();
+            }
+            LocalDateTime expectedEnd = day.atTime(SHIFT_END);
+            if (dayLastExit != null && dayLastExit.isBefore(expectedEnd)) {
+                earlyLeaveMinutes += (int) Duration.between(dayLastExit, expectedEnd).toMinutes();
+            }
+
+            dayHours = 0;
+            dayFirstEntry = null;
+            dayLastExit = null;
+        }
+
+        Payroll finish(Rates rates) {
+            closeDay();
+            day = null;
+            // Same formula as EmployeeTimeDB: every hour at the base rate, overtime paid on top
+            return new Payroll(userId, month, daysWorked, totalHours, overtimeHours,
+                    lateMinutes, earlyLeaveMinutes,
+                    totalHours * rates.getHourlyRate(),
+                    overtimeHours * rates.getOvertimeRate(),
+                    (lateMinutes + earlyLeaveMinutes) * rates.getPenaltyPerMinute());
+        }
+
+        private static LocalDateTime parse(String ts) {
+            if (ts == null) return null;
+            try {
+                return LocalDateTime.parse(ts, FORMATTER);
+            } catch (Exception e) {
+                System.err.println("❌ Failed to parse timestamp: " + ts);
+                return null;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package bikram.db;
+
+import bikram.model.Payroll;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * 🏃 Runs a month's payroll for a whole roster in parallel.
+ * Each employee is one {@link PayrollEngine#compute} (a single range query on a read
+ * connection); the worker pool is no bigger than the read side of the connection pool,
+ * so workers never queue for connections. Results are handed to a {@link Listener}
+ * as they finish, on a worker thread — UI callers hop to the FX thread themselves.
+ */
+public class PayrollRunner {
+
+    /** Callbacks arrive on worker threads. */
+    public interface Listener {
+        void onResult(Payroll payroll, int done, int total);
+
+        /** Called once with every computed payroll in roster order (partial when cancelled). */
+        default void onFinished(List<Payroll> payrolls, boolean cancelled) {}
+    }
+
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    // Shared and bounded: a second run queues behind the first instead of opening more readers
+    private static final ExecutorService WORKERS = Executors.newFixedThreadPool(DbConnector.getMaxReaders(), r -> {
+        Thread t = new Thread(r, "payroll-" + THREAD_IDS.incrementAndGet());
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final PayrollEngine engine;
+
+    public PayrollRunner() {
+        this(new PayrollEngine());
+    }
+
+    public PayrollRunner(PayrollEngine engine) {
+        this.engine = engine;
+    }
+
+    /** Handle of one run; cancel() lets in-flight employees finish and skips the rest. */
+    public static final class Run {
+        private final CompletableFuture<List<Payroll>> result = new CompletableFuture<>();
+        private volatile boolean cancelled;
+
+        private Run() {}
+
+        /**
+         * Queued employees become no-ops; running ones are not interrupted, since an
+         * interrupted JDBC read would poison the pooled connection.
+         */
+        public void cancel() {
+            cancelled = true;
+        }
+
+        public boolean isCancelled() { return cancelled; }
+
+        /** Completes with every computed payroll in roster order. */
+        public CompletableFuture<List<Payroll>> result() { return result; }
+    }
+
+    // ---------- RUN ----------
+    public Run start(List<String> userIds, YearMonth month, PayrollEngine.Rates rates, Listener listener) {
+        return start(userIds, month, userId -> rates, listener);
+    }
+
+    public Run start(List<String> userIds, YearMonth month, Function<String, PayrollEngine.Rates> ratesFor, Listener listener) {
+        int total = userIds.size();
+        Payroll[] slots = new Payroll[total];
+        AtomicInteger done = new AtomicInteger();
+        List<CompletableFuture<Void>> tasks = new ArrayList<>(total);
+        Run run = new Run();
+        long start = System.nanoTime();
+
+        for (int i = 0; i < total; i++) {
+            int slot = i;
+            String userId = userIds.get(i);
+            tasks.add(CompletableFuture.runAsync(() -> {
+                if (run.cancelled) return;
+                Payroll payroll = engine.compute(userId, month, ratesFor.apply(userId));
+                slots[slot] = payroll;
+                listener.onResult(payroll, done.incrementAndGet(), total);
+            }, WORKERS));
+        }
+
+        CompletableFuture.allOf(tasks.toArray(new CompletableFuture<?>[0])).whenComplete((ignored, error) -> {
+            if (error != null) {
+                System.err.println("❌ Payroll run failed: " + error.getMessage());
+            }
+            List<Payroll> payrolls = new ArrayList<>(total);
+            // Read after allOf: every finished task's slot write happens-before this point
+            for (Payroll p : slots) if (p != null) payrolls.add(p);
+            System.out.printf("🏃 Payroll run %s: %d/%d employee(s)%s in %.1f ms%n",
+                    month, payrolls.size(), total, run.cancelled ? " (cancelled)" : "",
+                    (System.nanoTime() - start) / 1_000_000.0);
+            listener.onFinished(payrolls, run.cancelled);
+            run.result.complete(payrolls);
+        });
+        return run;
+    }
+}
@@ -1,64 +1,70 @@
 package bikram.db;
 
+import bikram.model.Money;
 import bikram.model.Product;
 import bikram.util.IdGenerator;
 
-import java.sql.*;
+import java.sql.SQLException;
 import java.util.*;
 
 public class ProductDB implements ProductRepository {
+    private static final String COLUMNS =
+            "id, name, price, cost, discount, quantity, description, category, supplier, created_at, expire_date";
+
+    // Column order matches COLUMNS, so rows are read by index
+    private static final SqlTemplate.RowMapper<Product> PRODUCT_MAPPER = rs -> {
+        Product p = new Product();
+        p.setId(rs.getString(1));
+        p.setName(rs.getString(2));
+        p.setPrice(Money.ofMinor(rs.getLong(3)));
+        p.setCost(Money.ofMinor(rs.getLong(4)));
+        p.setDiscount(rs.getDouble(5));
+        p.setQuantity(rs.getInt(6));
+        p.setDescription(rs.getString(7));
+        p.setCategory(rs.getString(8));
+        p.setSupplier(rs.getString(9));
+        p.setCreated_at(rs.getDate(10));
+        p.setExpire_date(rs.getDate(11));
+        return p;
+    };
+
+    private static final String INSERT_SQL =
+            "INSERT INTO products (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM products";
+    private static final String SELECT_BY_ID_SQL = SELECT_ALL_SQL + " WHERE id = ?";
+    private static final String SELECT_BY_NAME_SQL = SELECT_ALL_SQL + " WHERE LOWER(name) LIKE LOWER(?)";
+    private static final String UPDATE_SQL = """
+            UPDATE products SET
+                name = ?, price = ?, cost = ?, discount = ?, description = ?,
+                category = ?, supplier = ?, created_at = ?, expire_date = ?
+            WHERE id = ?
+            """;
+
     // ---------------- CREATE TABLE ----------------
     @Override
     public void createTable() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS products (
-                id TEXT UNIQUE NOT NULL,
-                name TEXT NOT NULL,
-                price REAL NOT NULL,
-                cost REAL DEFAULT 0,
-                discount REAL DEFAULT 0,
-                quantity INTEGER NOT NULL,
-                description TEXT,
-                category TEXT,
-                supplier TEXT,
-                created_at DATE,
-                expire_date DATE
-            );
-        """;
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            log("✅ 商品テーブル作成成功！");
-        } catch (SQLException e) {
-            logError("商品テーブル作成失敗: " + e.getMessage());
-        }
+        // DDL lives in SchemaMigrator; this only runs once per process
+        SchemaMigrator.migrate();
     }
 
     // ---------------- ADD PRODUCT ----------------
     @Override
     public void addProduct(Product product) {
-        String sql = """
-            INSERT INTO products (id, name, price, cost, discount, quantity, description, category, supplier, created_at, expire_date)
-            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-        """;
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            String productId = (product.getId() == null || product.getId().isEmpty()) ? IdGenerator.idGenerate("PRD", 4) : product.getId();
-
-            pstmt.setString(1, productId);
-            pstmt.setString(2, product.getName());
-            pstmt.setDouble(3, product.getPrice());
-            pstmt.setDouble(4, product.getCost());
-            pstmt.setDouble(5, product.getDiscount());
-            pstmt.setInt(6, product.getQuantity());
-            pstmt.setString(7, product.getDescription());
-            pstmt.setString(8, product.getCategory());
-            pstmt.setString(9, product.getSupplier());
-            pstmt.setDate(10, product.getCreated_at());
-            pstmt.setDate(11, product.getExpire_date());
-
-            pstmt.executeUpdate();
+        String productId = (product.getId() == null || product.getId().isEmpty()) ? IdGenerator.idGenerate("PRD", 4) : product.getId();
+        product.setId(productId);
+        try {
+            SqlTemplate.update(INSERT_SQL,
+                    productId,
+                    product.getName(),
+                    product.getPrice(),
+                    product.getCost(),
+                    product.getDiscount(),
+                    product.getQuantity(),
+                    product.getDescription(),
+                    product.getCategory(),
+                    product.getSupplier(),
+                    product.getCreated_at(),
+                    product.getExpire_date());
             log("✅ 商品追加成功: " + product.getName());
         } catch (SQLException e) {
             logError("商品追加失敗: " + e.getMessage());
@@ -68,35 +74,28 @@ public class ProductDB implements ProductRepository {
     // ---------------- ANALYTICS METHODS ----------------
 
     @Override
-    public double getTotalCost() {
-        String sql = "SELECT SUM(cost * quantity) AS totalCost FROM products";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) return rs.getDouble("totalCost");
+    public Money getTotalCost() {
+        try {
+            return SqlTemplate.queryMoney("SELECT SUM(cost * quantity) FROM products");
         } catch (SQLException e) {
             logError("総コスト計算失敗: " + e.getMessage());
         }
-        return 0.0;
+        return Money.ZERO;
     }
 
     @Override
-    public double getProfitByProduct(String productName) {
+    public Money getProfitByProduct(String productName) {
         String sql = """
             SELECT (price - cost) * quantity AS profit
             FROM products
             WHERE LOWER(name) = LOWER(?)
         """;
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, productName);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return rs.getDouble("profit");
-            }
+        try {
+            return SqlTemplate.queryMoney(sql, productName);
         } catch (SQLException e) {
             logError("利益計算失敗: " + productName + " → " + e.getMessage());
         }
-        return 0.0;
+        return Money.ZERO;
     }
 
     @Override
@@ -109,12 +108,8 @@ public class ProductDB implements ProductRepository {
             GROUP BY strftime('%Y-%m', created_at)
             ORDER BY month ASC
         """;
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                monthlyProfit.put(rs.getString("month"), rs.getDouble("profit"));
-            }
+        try {
+            SqlTemplate.forEach(sql, rs -> monthlyProfit.put(rs.getString(1), Money.toYen(rs.getLong(2))));
         } catch (SQLException e) {
             logError("月別利益取得失敗: " + e.getMessage());
         }
@@ -131,12 +126,8 @@ public class ProductDB implements ProductRepository {
             GROUP BY strftime('%Y-%m', created_at)
             ORDER BY month ASC
         """;
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                monthlyTrend.put(rs.getString("month"), rs.getInt("total_sold"));
-            }
+        try {
+            SqlTemplate.forEach(sql, rs -> monthlyTrend.put(rs.getString(1), rs.getInt(2)));
         } catch (SQLException e) {
             logError("月別販売数取得失敗: " + e.getMessage());
         }
@@ -146,28 +137,20 @@ public class ProductDB implements ProductRepository {
     // ---------------- EXISTING METHODS ----------------
     @Override
     public List<Product> getAllProducts() {
-        List<Product> list = new ArrayList<>();
-        String sql = "SELECT * FROM products";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) list.add(mapResultSetToProduct(rs));
+        try {
+            List<Product> list = SqlTemplate.query(SELECT_ALL_SQL, PRODUCT_MAPPER);
             log("✅ 全商品取得成功 (" + list.size() + ")");
+            return list;
         } catch (SQLException e) {
             logError("商品取得失敗: " + e.getMessage());
         }
-        return list;
+        return new ArrayList<>();
     }
 
     @Override
     public Product getProductById(String id) {
-        String sql = "SELECT * FROM products WHERE id = ?";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return mapResultSetToProduct(rs);
-            }
+        try {
+            return SqlTemplate.queryOne(SELECT_BY_ID_SQL, PRODUCT_MAPPER, id);
         } catch (SQLException e) {
             logError("ID検索失敗: " + e.getMessage());
         }
@@ -176,43 +159,29 @@ public class ProductDB implements ProductRepository {
 
     @Override
     public List<Product> getProductByName(String name) {
-        List<Product> list = new ArrayList<>();
-        String sql = "SELECT * FROM products WHERE LOWER(name) LIKE LOWER(?)";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, "%" + name + "%");
-            try (ResultSet rs = pstmt.executeQuery()) {
-                while (rs.next()) list.add(mapResultSetToProduct(rs));
-            }
+        try {
+            return SqlTemplate.query(SELECT_BY_NAME_SQL, PRODUCT_MAPPER, "%" + name + "%");
         } catch (SQLException e) {
             logError("商品名検索失敗: " + e.getMessage());
         }
-        return list;
+        return new ArrayList<>();
     }
 
+    /** Saves everything but the stock count, which only changes through {@link StockLedger}. */
     @Override
     public void updateProduct(Product product) {
-        String sql = """
-            UPDATE products SET
-                name = ?, price = ?, cost = ?, discount = ?, quantity = ?, description = ?,
-                category = ?, supplier = ?, created_at = ?, expire_date = ?
-            WHERE id = ?
-        """;
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, product.getName());
-            pstmt.setDouble(2, product.getPrice());
-            pstmt.setDouble(3, product.getCost());
-            pstmt.setDouble(4, product.getDiscount());
-            pstmt.setInt(5, product.getQuantity());
-            pstmt.setString(6, product.getDescription());
-            pstmt.setString(7, product.getCategory());
-            pstmt.setString(8, product.getSupplier());
-            pstmt.setDate(9, product.getCreated_at());
-            pstmt.setDate(10, product.getExpire_date());
-            pstmt.setString(11, product.getId());
-
-            int rows = pstmt.executeUpdate();
+        try {
+            int rows = SqlTemplate.update(UPDATE_SQL,
+                    product.getName(),
+                    product.getPrice(),
+                    product.getCost(),
+                    product.getDiscount(),
+                    product.getDescription(),
+                    product.getCategory(),
+                    product.getSupplier(),
+                    product.getCreated_at(),
+                    product.getExpire_date(),
+                    product.getId());
             if (rows > 0) log("✅ 商品更新成功: " + product.getName());
         } catch (SQLException e) {
             logError("商品更新失敗: " + e.getMessage());
@@ -221,12 +190,8 @@ public class ProductDB implements ProductRepository {
 
     @Override
     public boolean deleteProductById(String id) {
-        String sql = "DELETE FROM products WHERE id = ?";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, id);
-            int rows = pstmt.executeUpdate();
-            return rows > 0;
+        try {
+            return SqlTemplate.update("DELETE FROM products WHERE id = ?", id) > 0;
         } catch (SQLException e) {
             logError("ID削除失敗: " + e.getMessage());
         }
@@ -235,11 +200,8 @@ public class ProductDB implements ProductRepository {
 
     @Override
     public int deleteProductByName(String name) {
-        String sql = "DELETE FROM products WHERE LOWER(name) = LOWER(?)";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, name);
-            return pstmt.executeUpdate();
+        try {
+            return SqlTemplate.update("DELETE FROM products WHERE LOWER(name) = LOWER(?)", name);
         } catch (SQLException e) {
             logError("名前削除失敗: " + e.getMessage());
         }
@@ -247,65 +209,37 @@ public class ProductDB implements ProductRepository {
     }
 
     @Override
-    public double getTotalProductValue() {
-        String sql = "SELECT SUM(price * quantity) AS totalValue FROM products";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) return rs.getDouble("totalValue");
+    public Money getTotalProductValue() {
+        try {
+            return SqlTemplate.queryMoney("SELECT SUM(price * quantity) FROM products");
         } catch (SQLException e) {
             logError("総価値取得失敗: " + e.getMessage());
         }
-        return 0.0;
+        return Money.ZERO;
     }
 
     @Override
-    public double getAveragePrice() {
-        String sql = "SELECT AVG(price) AS avgPrice FROM products";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            if (rs.next()) return rs.getDouble("avgPrice");
+    public Money getAveragePrice() {
+        try {
+            return Money.ofMinor(Math.round(SqlTemplate.queryDouble("SELECT AVG(price) FROM products")));
         } catch (SQLException e) {
             logError("平均価格取得失敗: " + e.getMessage());
         }
-        return 0.0;
+        return Money.ZERO;
     }
 
     @Override
     public Map<String, Integer> getCategorySales() {
         Map<String, Integer> categoryMap = new LinkedHashMap<>();
         String sql = "SELECT category, SUM(quantity) AS total_sold FROM products GROUP BY category ORDER BY total_sold DESC";
-
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                categoryMap.put(rs.getString("category"), rs.getInt("total_sold"));
-            }
+        try {
+            SqlTemplate.forEach(sql, rs -> categoryMap.put(rs.getString(1), rs.getInt(2)));
         } catch (SQLException e) {
             logError("カテゴリー売上取得失敗: " + e.getMessage());
         }
         return categoryMap;
     }
 
-    // --- Helper ---
-    private Product mapResultSetToProduct(ResultSet rs) throws SQLException {
-        Product p = new Product();
-        p.setId(rs.getString("id"));
-        p.setName(rs.getString("name"));
-        p.setPrice(rs.getDouble("price"));
-        p.setCost(rs.getDouble("cost"));
-        p.setDiscount(rs.getDouble("discount"));
-        p.setQuantity(rs.getInt("quantity"));
-        p.setDescription(rs.getString("description"));
-        p.setCategory(rs.getString("category"));
-        p.setSupplier(rs.getString("supplier"));
-        p.setCreated_at(rs.getDate("created_at"));
-        p.setExpire_date(rs.getDate("expire_date"));
-        return p;
-    }
-
     private void log(String msg) {
         System.out.println("📌 " + msg);
     }
@@ -1,5 +1,6 @@
 package bikram.db;
 
+import bikram.model.Money;
 import bikram.model.Product;
 import java.util.List;
 import java.util.Map;
@@ -8,9 +9,9 @@ public interface ProductRepository {
     void createTable();
     void addProduct(Product product);
 
-    double getTotalCost();
+    Money getTotalCost();
 
-    double getProfitByProduct(String productName);
+    Money getProfitByProduct(String productName);
 
     Map<String, Double> getMonthlyProfit();
 
@@ -22,8 +23,8 @@ public interface ProductRepository {
     void updateProduct(Product product);
     boolean deleteProductById(String id);
     int deleteProductByName(String name);
-    double getTotalProductValue();
-    double getAveragePrice();
+    Money getTotalProductValue();
+    Money getAveragePrice();
 
     Map<String, Integer> getCategorySales();
 }
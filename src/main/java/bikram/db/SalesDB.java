@@ -1,10 +1,17 @@
 package bikram.db;
 
+import bikram.model.DateRange;
+import bikram.model.Money;
+import bikram.model.ProductRanking;
 import bikram.model.Sales;
+import bikram.model.SalesPoint;
+import bikram.model.SalesSummary;
+import bikram.model.TimeBucket;
 import bikram.views.page.TechuraDashboard;
 
 import java.sql.*;
 import java.time.LocalDate;
+import java.time.YearMonth;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.LinkedHashMap;
@@ -16,125 +23,135 @@ import java.util.Map;
  * Supports CRUD + sales analytics and insights.
  */
 public class SalesDB implements Salesrepository{
-    public SalesDB() {
-        createTable();
-    }
+    // Refunded rows stay for the audit trail; the totals only count what was kept
+    private static final String NOT_REFUNDED = "refunded_at IS NULL";
 
     // ---------- CREATE TABLE ----------
     @Override
     public void createTable() {
-        String sql = """
-                CREATE TABLE IF NOT EXISTS sales (
-                    id INTEGER PRIMARY KEY AUTOINCREMENT,
-                    product_id TEXT NOT NULL,
-                    name TEXT NOT NULL,
-                    quantity INTEGER,
-                    purchase_price REAL,
-                    sale_price REAL,
-                    discount REAL,
-                    final_amount REAL,
-                    profit REAL,
-                    loss REAL,
-                    created_at TEXT,
-                    updated_at TEXT
-                );
-                """;
-
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            System.out.println("✅ Sales table ready.");
-        } catch (Exception e) {
-            System.err.println("❌ Table creation failed: " + e.getMessage());
-        }
+        // DDL lives in SchemaMigrator; this only runs once per process
+        SchemaMigrator.migrate();
     }
 
     // ---------- INSERT ----------
     @Override
     public boolean saveSales(Sales s) {
-        String sql = """
-                INSERT INTO sales 
-                (product_id, name, quantity, purchase_price, sale_price, discount, final_amount, profit, loss, created_at, updated_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                """;
-
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, s.getProductId());
-            pstmt.setString(2, s.getName());
-            pstmt.setInt(3, s.getQuantity());
-            pstmt.setDouble(4, s.getPurchasePrice());
-            pstmt.setDouble(5, s.getSalePrice());
-            pstmt.setDouble(6, s.getDiscount());
-            pstmt.setDouble(7, s.getFinalAmount());
-            pstmt.setDouble(8, s.getProfit());
-            pstmt.setDouble(9, s.getLoss());
-            pstmt.setString(10, s.getCreatedAt().toString());
-            pstmt.setString(11, s.getUpdatedAt().toString());
-
-            pstmt.executeUpdate();
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                SqlTemplate.batch(c, INSERT_SQL, List.of(s), SalesDB::bindInsert);
+                Journal.recordSales(c, List.of(s));
+                SalesRollups.record(c, List.of(s));
+                return null;
+            });
             System.out.println("💾 Sale saved: " + s.getName());
             return true;
-
         } catch (SQLException e) {
             System.err.println("❌ Save failed: " + e.getMessage());
             return false;
         }
     }
 
+    static final String INSERT_SQL = """
+            INSERT INTO sales 
+            (product_id, name, quantity, purchase_price, sale_price, discount, final_amount, profit, loss,
+             payment_method, paid_amount, created_at, updated_at, sale_day, category)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, (SELECT category FROM products WHERE id = ?))
+            """;
+
+    /** Binds one sale to {@link #INSERT_SQL}; shared with the batched checkout path. */
+    static void bindInsert(PreparedStatement pstmt, Sales s) throws SQLException {
+        SqlTemplate.bind(pstmt,
+                s.getProductId(),
+                s.getName(),
+                s.getQuantity(),
+                s.getPurchasePrice(),
+                s.getSalePrice(),
+                s.getDiscount(),
+                s.getFinalAmount(),
+                s.getProfit(),
+                s.getLoss(),
+                s.getPaymentMethod(),
+                s.getPaidAmount(),
+                s.getCreatedAt(),
+                s.getUpdatedAt(),
+                s.getCreatedAt().toLocalDate().toEpochDay(),
+                s.getProductId());   // category snapshot
+    }
+
     // ---------- BASIC ANALYTICS ----------
 
+    /** 🧾 Every headline total for a range in one aggregate pass */
+    @Override
+    public SalesSummary getSummary(DateRange range) {
+        String sql = """
+                SELECT COUNT(*) AS cnt,
+                       COALESCE(SUM(quantity), 0) AS qty,
+                       COALESCE(SUM(final_amount), 0) AS revenue,
+                       COALESCE(SUM(profit), 0) AS profit,
+                       COALESCE(SUM(loss), 0) AS loss,
+                       COALESCE(SUM(purchase_price * quantity), 0) AS cost,
+                       COUNT(DISTINCT sale_day) AS days
+                FROM sales
+                WHERE refunded_at IS NULL
+                """ + (range.isUnbounded() ? "" : "AND sale_day BETWEEN ? AND ?");
+
+        Object[] params = range.isUnbounded()
+                ? new Object[0]
+                : new Object[]{range.startEpochDay(), range.endEpochDay()};
+        try {
+            SalesSummary summary = SqlTemplate.queryOne(sql, rs -> new SalesSummary(range,
+                    rs.getInt("cnt"),
+                    rs.getInt("qty"),
+                    yen(rs, "revenue"),
+                    yen(rs, "profit"),
+                    yen(rs, "loss"),
+                    yen(rs, "cost"),
+                    rs.getInt("days")), params);
+            if (summary != null) return summary;
+        } catch (SQLException e) {
+            System.err.println("Error loading sales summary: " + e.getMessage());
+        }
+        return SalesSummary.empty(range);
+    }
+
     /** 💰 Total Revenue */
     @Override
-    public double getTotalRevenue() {
-        String sql = "SELECT SUM(final_amount) FROM sales";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.getDouble(1);
+    public Money getTotalRevenue() {
+        try {
+            return SqlTemplate.queryMoney("SELECT SUM(final_amount) FROM sales WHERE " + NOT_REFUNDED);
         } catch (SQLException e) {
             System.err.println("Error calculating total revenue: " + e.getMessage());
-            return 0;
+            return Money.ZERO;
         }
     }
 
     /** 💸 Total Profit */
     @Override
-    public double getTotalProfit() {
-        String sql = "SELECT SUM(profit) FROM sales";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.getDouble(1);
+    public Money getTotalProfit() {
+        try {
+            return SqlTemplate.queryMoney("SELECT SUM(profit) FROM sales WHERE " + NOT_REFUNDED);
         } catch (SQLException e) {
             System.err.println("Error calculating profit: " + e.getMessage());
-            return 0;
+            return Money.ZERO;
         }
     }
 
     /** 📉 Total Loss */
     @Override
-    public double getTotalLoss() {
-        String sql = "SELECT SUM(loss) FROM sales";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.getDouble(1);
+    public Money getTotalLoss() {
+        try {
+            return SqlTemplate.queryMoney("SELECT SUM(loss) FROM sales WHERE " + NOT_REFUNDED);
         } catch (SQLException e) {
             System.err.println("Error calculating loss: " + e.getMessage());
-            return 0;
+            return Money.ZERO;
         }
     }
 
     /** 📦 Total Quantity Sold */
     @Override
     public int getTotalQuantitySold() {
-        String sql = "SELECT SUM(quantity) FROM sales";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.getInt(1);
+        try {
+            return SqlTemplate.queryInt("SELECT SUM(quantity) FROM sales WHERE " + NOT_REFUNDED);
         } catch (SQLException e) {
             System.err.println("Error calculating total quantity: " + e.getMessage());
             return 0;
@@ -149,14 +166,14 @@ public class SalesDB implements Salesrepository{
         String sql = """
                 SELECT name, SUM(quantity) as total_sold
                 FROM sales
+                WHERE refunded_at IS NULL
                 GROUP BY name
                 ORDER BY total_sold DESC
                 LIMIT 1
                 """;
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.next() ? rs.getString("name") + " (" + rs.getInt("total_sold") + ")" : "No data";
+        try {
+            String top = SqlTemplate.queryOne(sql, rs -> rs.getString("name") + " (" + rs.getInt("total_sold") + ")");
+            return top != null ? top : "No data";
         } catch (SQLException e) {
             System.err.println("Error getting most sold product: " + e.getMessage());
             return "Error";
@@ -165,73 +182,93 @@ public class SalesDB implements Salesrepository{
 
     /** 🗓️ Average Sales Per Day */
     @Override
-    public double getAverageSalesPerDay() {
+    public Money getAverageSalesPerDay() {
         String sql = """
                 SELECT AVG(daily_total) FROM (
-                    SELECT DATE(created_at) as date, SUM(final_amount) as daily_total
-                    FROM sales
-                    GROUP BY DATE(created_at)
+                    SELECT sale_day, SUM(revenue) as daily_total
+                    FROM sales_daily_product
+                    GROUP BY sale_day
                 )
                 """;
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.getDouble(1);
+        try {
+            return Money.ofMinor(Math.round(SqlTemplate.queryDouble(sql)));
         } catch (SQLException e) {
             System.err.println("Error calculating average sales: " + e.getMessage());
-            return 0;
+            return Money.ZERO;
         }
     }
 
     /** 📅 Get Sales Summary for Date Range */
     @Override
-    public double getSalesByDateRange(LocalDate start, LocalDate end) {
-        String sql = "SELECT SUM(final_amount) FROM sales WHERE DATE(created_at) BETWEEN ? AND ?";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-            pstmt.setString(1, start.toString());
-            pstmt.setString(2, end.toString());
-            ResultSet rs = pstmt.executeQuery();
-            return rs.getDouble(1);
+    public Money getSalesByDateRange(LocalDate start, LocalDate end) {
+        String sql = "SELECT SUM(final_amount) FROM sales WHERE sale_day BETWEEN ? AND ? AND " + NOT_REFUNDED;
+        try {
+            return SqlTemplate.queryMoney(sql, start.toEpochDay(), end.toEpochDay());
         } catch (SQLException e) {
             System.err.println("Error getting range sales: " + e.getMessage());
-            return 0;
+            return Money.ZERO;
         }
     }
 
-    /** 🔝 Top 5 Products by Revenue */
+    /** 🔝 Top 5 Products by Revenue (display strings; prefer {@link #getTopProducts}) */
     @Override
     public List<String> getTop5Products() {
+        List<String> top = new ArrayList<>();
+        for (ProductRanking r : getTopProducts(ProductRanking.Metric.REVENUE, 5)) {
+            top.add(r.getName() + " - " + Money.of(r.getRevenue()));
+        }
+        return top;
+    }
+
+    /** 🏆 Top-N products by quantity, revenue or profit over all history */
+    @Override
+    public List<ProductRanking> getTopProducts(ProductRanking.Metric metric, int limit) {
+        return getProductRankings(metric, DateRange.all(), 0, limit);
+    }
+
+    /** 🏆 One page of the product ranking for a date range, grouped in a single query */
+    @Override
+    public List<ProductRanking> getProductRankings(ProductRanking.Metric metric, DateRange range, int offset, int limit) {
         String sql = """
-                SELECT name, SUM(final_amount) as total
+                SELECT product_id,
+                       MAX(name) AS name,
+                       SUM(quantity) AS qty,
+                       SUM(final_amount) AS revenue,
+                       SUM(profit) AS profit
                 FROM sales
-                GROUP BY name
-                ORDER BY total DESC
-                LIMIT 5
-                """;
-        List<String> top = new ArrayList<>();
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            while (rs.next()) {
-                top.add(rs.getString("name") + " - ¥" + rs.getDouble("total"));
-            }
+                WHERE refunded_at IS NULL %s
+                GROUP BY product_id
+                ORDER BY %s DESC, product_id
+                LIMIT ? OFFSET ?
+                """.formatted(range.isUnbounded() ? "" : "AND sale_day BETWEEN ? AND ?", metric.column());
+
+        Object[] params = range.isUnbounded()
+                ? new Object[]{limit, offset}
+                : new Object[]{range.startEpochDay(), range.endEpochDay(), limit, offset};
+        try {
+            return SqlTemplate.query(sql, rs -> new ProductRanking(
+                    rs.getString("product_id"),
+                    rs.getString("name"),
+                    rs.getInt("qty"),
+                    yen(rs, "revenue"),
+                    yen(rs, "profit")), params);
         } catch (SQLException e) {
-            System.err.println("Error fetching top products: " + e.getMessage());
+            System.err.println("Error fetching product ranking: " + e.getMessage());
         }
-        return top;
+        return new ArrayList<>();
     }
 
     /** 📊 Print Sales Summary */
     @Override
     public void printSalesSummary() {
+        SalesSummary summary = getSummary(DateRange.all());
         System.out.println("\n===== 🧾 SALES SUMMARY =====");
-        System.out.printf("💰 Total Revenue: ¥%.2f%n", getTotalRevenue());
-        System.out.printf("💸 Total Profit: ¥%.2f%n", getTotalProfit());
-        System.out.printf("📉 Total Loss: ¥%.2f%n", getTotalLoss());
-        System.out.printf("📦 Total Quantity Sold: %d%n", getTotalQuantitySold());
+        System.out.printf("💰 Total Revenue: ¥%.2f%n", summary.getRevenue());
+        System.out.printf("💸 Total Profit: ¥%.2f%n", summary.getProfit());
+        System.out.printf("📉 Total Loss: ¥%.2f%n", summary.getLoss());
+        System.out.printf("📦 Total Quantity Sold: %d%n", summary.getQuantity());
         System.out.printf("🏆 Most Sold Product: %s%n", getMostSoldProduct());
-        System.out.printf("📈 Avg. Daily Sales: ¥%.2f%n", getAverageSalesPerDay());
+        System.out.printf("📈 Avg. Daily Sales: ¥%.2f%n", summary.getAverageSalesPerDay());
         System.out.println("🔝 Top 5 Products:");
         getTop5Products().forEach(p -> System.out.println("   • " + p));
         System.out.println("===========================\n");
@@ -247,31 +284,23 @@ public class SalesDB implements Salesrepository{
             ORDER BY month ASC
             """;
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            // 📅 Pre-fill last 6 months to keep chart consistent
-            java.time.format.DateTimeFormatter monthFormatter = java.time.format.DateTimeFormatter.ofPattern("MMM");
-            java.time.LocalDate now = java.time.LocalDate.now();
+        // 📅 Pre-fill last 6 months to keep chart consistent
+        java.time.format.DateTimeFormatter monthFormatter = java.time.format.DateTimeFormatter.ofPattern("MMM");
+        java.time.LocalDate now = java.time.LocalDate.now();
 
-            for (int i = 5; i >= 0; i--) {
-                java.time.LocalDate month = now.minusMonths(i);
-                data.put(month.format(monthFormatter), 0);
-            }
+        for (int i = 5; i >= 0; i--) {
+            java.time.LocalDate month = now.minusMonths(i);
+            data.put(month.format(monthFormatter), 0);
+        }
 
+        try {
             // 📊 Fill database results
-            while (rs.next()) {
-                String monthNum = rs.getString("month");
-                int total = rs.getInt("total");
-
-                int monthInt = Integer.parseInt(monthNum);
+            SqlTemplate.forEach(sql, rs -> {
+                int monthInt = Integer.parseInt(rs.getString("month"));
                 String monthName = java.time.LocalDate.of(now.getYear(), monthInt, 1)
                         .format(monthFormatter);
-
-                data.put(monthName, total);
-            }
-
+                data.put(monthName, rs.getInt("total"));
+            });
         } catch (SQLException e) {
             System.err.println("Error loading monthly new users: " + e.getMessage());
         }
@@ -283,11 +312,8 @@ public class SalesDB implements Salesrepository{
     /** 🔢 Count Total Sales Transactions */
     @Override
     public int countSales() {
-        String sql = "SELECT COUNT(*) FROM sales";
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            return rs.getInt(1);
+        try {
+            return SqlTemplate.queryInt("SELECT COUNT(*) FROM sales WHERE " + NOT_REFUNDED);
         } catch (SQLException e) {
             System.err.println("Error counting sales: " + e.getMessage());
             return 0;
@@ -304,37 +330,25 @@ public class SalesDB implements Salesrepository{
     public Map<String, Double> getMonthlyRevenue() {
         Map<String, Double> data = new LinkedHashMap<>();
         String sql = """
-                SELECT strftime('%m', created_at) AS month, SUM(final_amount) AS total
-                FROM sales
-                WHERE created_at >= date('now', '-6 months')
-                GROUP BY strftime('%Y-%m', created_at)
+                SELECT month, SUM(revenue) AS total
+                FROM sales_monthly_product
+                WHERE month >= ?
+                GROUP BY month
                 ORDER BY month ASC
                 """;
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
-            LocalDate now = LocalDate.now();
-
-            // Preload last 6 months to ensure chart continuity
-            for (int i = 5; i >= 0; i--) {
-                LocalDate month = now.minusMonths(i);
-                data.put(month.format(monthFormatter), 0.0);
-            }
+        DateTimeFormatter monthFormatter = DateTimeFormatter.ofPattern("MMM");
+        YearMonth first = YearMonth.now().minusMonths(5);
 
-            while (rs.next()) {
-                String monthNum = rs.getString("month");
-                double total = rs.getDouble("total");
-
-                int monthInt = Integer.parseInt(monthNum);
-                String monthName = LocalDate.of(LocalDate.now().getYear(), monthInt, 1)
-                        .format(monthFormatter);
-
-                data.put(monthName, total);
-            }
+        // Preload last 6 months to ensure chart continuity
+        for (int i = 0; i < 6; i++) {
+            data.put(first.plusMonths(i).format(monthFormatter), 0.0);
+        }
 
+        try {
+            SqlTemplate.forEach(sql,
+                    rs -> data.put(monthOf(rs.getInt("month")).format(monthFormatter), yen(rs, "total")),
+                    SalesRollups.monthKey(first.atDay(1)));
         } catch (SQLException e) {
             System.err.println("Error loading monthly revenue: " + e.getMessage());
         }
@@ -352,19 +366,16 @@ public class SalesDB implements Salesrepository{
         String sql = """
                 SELECT name, quantity, final_amount, created_at
                 FROM sales
-                ORDER BY datetime(created_at) DESC
+                WHERE refunded_at IS NULL
+                ORDER BY sale_day DESC, id DESC
                 LIMIT 10
                 """;
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd HH:mm");
-
-            while (rs.next()) {
+        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MMM dd HH:mm");
+        try {
+            SqlTemplate.forEach(sql, rs -> {
                 String user = rs.getString("name");
-                String action = "Sold x" + rs.getInt("quantity") + " for ¥" + rs.getDouble("final_amount");
+                String action = "Sold x" + rs.getInt("quantity") + " for " + Money.ofMinor(rs.getLong("final_amount"));
                 String time = rs.getString("created_at");
 
                 try {
@@ -373,8 +384,7 @@ public class SalesDB implements Salesrepository{
                 } catch (Exception ignored) {}
 
                 list.add(new TechuraDashboard.Activity(user, action, time));
-            }
-
+            });
         } catch (SQLException e) {
             System.err.println("Error fetching recent activities: " + e.getMessage());
         }
@@ -386,23 +396,15 @@ public class SalesDB implements Salesrepository{
         Map<String, Double> profitMap = new LinkedHashMap<>();
 
         String sql = """
-        SELECT 
-            strftime('%Y-%m', created_at) AS month,
-            SUM(profit) AS total_profit
-        FROM sales
+        SELECT month, SUM(profit) AS total_profit
+        FROM sales_monthly_product
         GROUP BY month
         ORDER BY month;
     """;
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String month = rs.getString("month");
-                double profit = rs.getDouble("total_profit");
-                profitMap.put(month, profit);
-            }
+        try {
+            SqlTemplate.forEach(sql,
+                    rs -> profitMap.put(monthOf(rs.getInt("month")).toString(), yen(rs, "total_profit")));
         } catch (SQLException e) {
             System.err.println("⚠️ Error fetching monthly profit: " + e.getMessage());
         }
@@ -411,17 +413,8 @@ public class SalesDB implements Salesrepository{
     }
     @Override
     public int countSalesByProduct(String name) {
-        String sql = "SELECT SUM(quantity) AS total_sold FROM sales WHERE name = ?;";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, name);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return rs.getInt("total_sold");
-            }
-
+        try {
+            return SqlTemplate.queryInt("SELECT SUM(quantity) FROM sales WHERE name = ? AND " + NOT_REFUNDED, name);
         } catch (SQLException e) {
             System.err.println("⚠️ Error counting sales by product: " + e.getMessage());
         }
@@ -432,23 +425,15 @@ public class SalesDB implements Salesrepository{
         Map<String, Integer> trendMap = new LinkedHashMap<>();
 
         String sql = """
-        SELECT 
-            strftime('%Y-%m', created_at) AS month,
-            SUM(quantity) AS total_sold
-        FROM sales
+        SELECT month, SUM(qty) AS total_sold
+        FROM sales_monthly_product
         GROUP BY month
         ORDER BY month;
     """;
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                String month = rs.getString("month");
-                int total = rs.getInt("total_sold");
-                trendMap.put(month, total);
-            }
+        try {
+            SqlTemplate.forEach(sql,
+                    rs -> trendMap.put(monthOf(rs.getInt("month")).toString(), rs.getInt("total_sold")));
         } catch (SQLException e) {
             System.err.println("⚠️ Error fetching monthly sales trend: " + e.getMessage());
         }
@@ -457,80 +442,166 @@ public class SalesDB implements Salesrepository{
     }
 
     @Override
-    public double getProfitByProduct(String productName) {
+    public Money getProfitByProduct(String productName) {
         String sql = """
         SELECT SUM((sale_price - purchase_price) * quantity) AS profit
         FROM sales
-        WHERE name = ?
+        WHERE name = ? AND refunded_at IS NULL
     """;
 
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement ps = conn.prepareStatement(sql)) {
-
-            ps.setString(1, productName);
-            ResultSet rs = ps.executeQuery();
-
-            if (rs.next()) {
-                return rs.getDouble("profit");
-            }
-
+        try {
+            return SqlTemplate.queryMoney(sql, productName);
         } catch (SQLException e) {
             System.err.println("⚠️ Error fetching profit for product '" + productName + "': " + e.getMessage());
         }
 
-        return 0.0;
+        return Money.ZERO;
     }
     @Override
-    public double getTotalCost() {
-        String sql = "SELECT SUM(purchase_priceå * quantity) AS total_cost FROM sales";
-
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            if (rs.next()) {
-                return rs.getDouble("total_cost");
-            }
-
+    public Money getTotalCost() {
+        try {
+            return SqlTemplate.queryMoney("SELECT SUM(purchase_price * quantity) FROM sales WHERE " + NOT_REFUNDED);
         } catch (SQLException e) {
             System.err.println("⚠️ Error fetching total cost: " + e.getMessage());
         }
 
-        return 0.0;
+        return Money.ZERO;
     }
 
     @Override
     public Map<String, Double> getDailySales() {
         Map<String, Double> dailySales = new LinkedHashMap<>();
         LocalDate today = LocalDate.now();
-        LocalDate startDate = today.minusDays(29); // last 30 days
-
-        DateTimeFormatter formatter = DateTimeFormatter.ofPattern("MM/dd");
-
-        for (int i = 0; i < 30; i++) {
-            LocalDate date = startDate.plusDays(i);
-            double total = 0;
-
-            try {
-                String sql = "SELECT SUM(final_amount) FROM sales WHERE DATE(created_at) = ?";
-
-                PreparedStatement ps = DbConnector.getConnection().prepareStatement(sql);
-                ps.setString(1, date.toString()); // assuming date stored as 'YYYY-MM-DD'
-                ResultSet rs = ps.executeQuery();
-                if (rs.next()) {
-                    total = rs.getDouble(1);
-                }
-                rs.close();
-                ps.close();
-            } catch (Exception e) {
-                e.printStackTrace();
-            }
-
-            dailySales.put(date.format(formatter), total);
+        for (SalesPoint p : getSalesSeries(today.minusDays(29), today, TimeBucket.DAY)) { // last 30 days
+            dailySales.put(p.getLabel(), p.getRevenue());
         }
-
         return dailySales;
     }
 
+    /**
+     * 📈 Sales series between start and end (inclusive) in day/week/month buckets.
+     * Reads the daily product rollup by sale_day; buckets without sales are zero-filled.
+     */
+    @Override
+    public List<SalesPoint> getSalesSeries(LocalDate start, LocalDate end, TimeBucket bucket) {
+        Map<LocalDate, long[]> totals = new LinkedHashMap<>();
+        for (LocalDate d = bucket.floor(start); !d.isAfter(end); d = bucket.next(d)) {
+            totals.put(d, new long[5]); // qty, revenue, profit, loss (minor units), transactions
+        }
+
+        String sql = """
+                SELECT sale_day,
+                       SUM(qty) AS qty,
+                       SUM(revenue) AS revenue,
+                       SUM(profit) AS profit,
+                       SUM(loss) AS loss,
+                       SUM(tx_count) AS cnt
+                FROM sales_daily_product
+                WHERE sale_day BETWEEN ? AND ?
+                GROUP BY sale_day
+                """;
+
+        try {
+            SqlTemplate.forEach(sql, rs -> {
+                long[] t = totals.get(bucket.floor(LocalDate.ofEpochDay(rs.getLong("sale_day"))));
+                if (t == null) return;
+                t[0] += rs.getInt("qty");
+                t[1] += rs.getLong("revenue");
+                t[2] += rs.getLong("profit");
+                t[3] += rs.getLong("loss");
+                t[4] += rs.getInt("cnt");
+            }, start.toEpochDay(), end.toEpochDay());
+        } catch (SQLException e) {
+            System.err.println("⚠️ Error loading sales series: " + e.getMessage());
+        }
+
+        List<SalesPoint> series = new ArrayList<>(totals.size());
+        totals.forEach((day, t) -> series.add(new SalesPoint(
+                day, bucket.label(day), (int) t[0], Money.toYen(t[1]), Money.toYen(t[2]), Money.toYen(t[3]), (int) t[4])));
+        return series;
+    }
+
+    /** An exact INTEGER sum of minor units as yen, for the double-based chart/report models. */
+    private static double yen(ResultSet rs, String column) throws SQLException {
+        return Money.toYen(rs.getLong(column));
+    }
+
+    /** yyyymm rollup key → YearMonth (toString() is "yyyy-MM") */
+    private static YearMonth monthOf(int key) {
+        return YearMonth.of(key / 100, key % 100);
+    }
+
+    // ---------- PAGED LISTING ----------
+    private static final String SELECT_SALES_SQL = """
+            SELECT id, product_id, name, quantity, purchase_price, sale_price, discount,
+                   final_amount, paid_amount, payment_method, created_at, updated_at
+            FROM sales
+            WHERE id > ?
+            ORDER BY id
+            LIMIT ?
+            """;
+
+    static final SqlTemplate.RowMapper<Sales> SALE_MAPPER = rs -> new Sales.Builder()
+            .id(rs.getInt("id"))
+            .productId(rs.getString("product_id"))
+            .name(rs.getString("name"))
+            .quantity(rs.getInt("quantity"))
+            .purchasePrice(Money.ofMinor(rs.getLong("purchase_price")))
+            .salePrice(Money.ofMinor(rs.getLong("sale_price")))
+            .discount(rs.getDouble("discount"))
+            .finalAmount(Money.ofMinor(rs.getLong("final_amount")))
+            .paidAmount(Money.ofMinor(rs.getLong("paid_amount")))
+            .paymentMethod(rs.getString("payment_method"))
+            .createdAt(parseTimestamp(rs.getString("created_at")))
+            .updatedAt(parseTimestamp(rs.getString("updated_at")))
+            .build();
+
+    @Override
+    public List<Sales> getSalesPage(int afterId, int limit) {
+        try {
+            return SqlTemplate.query(SELECT_SALES_SQL, SALE_MAPPER, afterId, limit);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Error loading sales page: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    @Override
+    public void streamSales(int afterId, int pageSize, java.util.function.Consumer<List<Sales>> onPage) {
+        // Keyset on id: each page is an index seek, and the read connection is released in between
+        int cursor = afterId;
+        while (true) {
+            List<Sales> page = getSalesPage(cursor, pageSize);
+            if (page.isEmpty()) return;
+            onPage.accept(page);
+            if (page.size() < pageSize) return;
+            cursor = page.get(page.size() - 1).getId();
+        }
+    }
+
+    private static java.time.LocalDateTime parseTimestamp(String text) {
+        if (text == null || text.isBlank()) return null;
+        try {
+            return java.time.LocalDateTime.parse(text);
+        } catch (java.time.format.DateTimeParseException e) {
+            return null;
+        }
+    }
 
+    // ---------- ROLLUPS ----------
+    /** 🔁 Recompute the daily/monthly rollup tables from the raw sales rows. */
+    @Override
+    public boolean rebuildRollups() {
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                SalesRollups.rebuild(c);
+                return null;
+            });
+            System.out.println("🔁 Sales rollups rebuilt");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Error rebuilding sales rollups: " + e.getMessage());
+            return false;
+        }
+    }
 }
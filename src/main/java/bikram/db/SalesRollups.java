@@ -0,0 +1,167 @@
+package bikram.db;
+
+import bikram.model.Sales;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+
+/**
+ * 📦 Daily and monthly sales rollups per product and per category.
+ * Rows are upserted on the caller's connection, so they commit or roll back
+ * together with the sales insert. Reports read these tables and their cost
+ * grows with days × products instead of with the number of sales rows.
+ * Category is the product's category at the time of the sale: checkout copies it onto
+ * the sales row, and {@link #rebuild} groups by that copy, not by the current product.
+ * Refunded rows are taken back out by {@link #reverse} and skipped by {@link #rebuild}.
+ */
+final class SalesRollups {
+
+    static final String UNCATEGORIZED = "Uncategorized";
+
+    private static final String[][] TABLES = {
+            // table, period column, key column
+            {"sales_daily_product", "sale_day", "product_id"},
+            {"sales_monthly_product", "month", "product_id"},
+            {"sales_daily_category", "sale_day", "category"},
+            {"sales_monthly_category", "month", "category"},
+    };
+
+    private static final String MONTH_OF_SALE_DAY =
+            "CAST(strftime('%Y%m', s.sale_day * 86400, 'unixepoch') AS INTEGER)";
+
+    private static final String[] UPSERT_SQL = new String[TABLES.length];
+    private static final String[] REVERSE_SQL = new String[TABLES.length];
+    static {
+        for (int i = 0; i < TABLES.length; i++) {
+            UPSERT_SQL[i] = upsertSql(TABLES[i]);
+            REVERSE_SQL[i] = reverseSql(TABLES[i]);
+        }
+    }
+
+    private SalesRollups() {}
+
+    /** yyyymm, e.g. 202510 */
+    static int monthKey(LocalDate date) {
+        return date.getYear() * 100 + date.getMonthValue();
+    }
+
+    // ---------- WRITE ----------
+    /** Adds the sales to every rollup on the caller's connection (one batch per table). */
+    static void record(Connection conn, Collection<Sales> sales) throws SQLException {
+        for (int i = 0; i < TABLES.length; i++) {
+            boolean daily = TABLES[i][1].equals("sale_day");
+            SqlTemplate.batch(conn, UPSERT_SQL[i], sales, (ps, s) -> {
+                LocalDate day = s.getCreatedAt().toLocalDate();
+                SqlTemplate.bind(ps,
+                        daily ? day.toEpochDay() : (long) monthKey(day),
+                        s.getProductId(),
+                        s.getQuantity(),
+                        s.getFinalAmount(),
+                        s.getProfit(),
+                        s.getLoss(),
+                        s.getCost());
+            });
+        }
+    }
+
+    private static String upsertSql(String[] table) {
+        String keyExpr = table[2].equals("category")
+                ? "COALESCE((SELECT category FROM products WHERE id = ?), '" + UNCATEGORIZED + "')"
+                : "?";
+        return """
+                INSERT INTO %1$s (%2$s, %3$s, qty, revenue, profit, loss, cost, tx_count)
+                VALUES (?, %4$s, ?, ?, ?, ?, ?, 1)
+                ON CONFLICT(%2$s, %3$s) DO UPDATE SET
+                    qty = qty + excluded.qty,
+                    revenue = revenue + excluded.revenue,
+                    profit = profit + excluded.profit,
+                    loss = loss + excluded.loss,
+                    cost = cost + excluded.cost,
+                    tx_count = tx_count + 1
+                """.formatted(table[0], table[1], table[2], keyExpr);
+    }
+
+    /**
+     * Takes one refunded sale back out of every rollup, on the caller's connection.
+     * Reads the stored sales row, so the same day, month and category snapshot are hit.
+     */
+    static void reverse(Connection conn, int saleId) throws SQLException {
+        for (String sql : REVERSE_SQL) SqlTemplate.update(conn, sql, saleId);
+    }
+
+    private static String reverseSql(String[] table) {
+        String periodExpr = table[1].equals("sale_day") ? "s.sale_day" : MONTH_OF_SALE_DAY;
+        String keyExpr = table[2].equals("category")
+                ? "COALESCE(s.category, '" + UNCATEGORIZED + "')"
+                : "s.product_id";
+        return """
+                UPDATE %1$s SET
+                    qty = %1$s.qty - s.quantity,
+                    revenue = %1$s.revenue - s.final_amount,
+                    profit = %1$s.profit - s.profit,
+                    loss = %1$s.loss - s.loss,
+                    cost = %1$s.cost - s.purchase_price * s.quantity,
+                    tx_count = %1$s.tx_count - 1
+                FROM sales s
+                WHERE s.id = ? AND %1$s.%2$s = %4$s AND %1$s.%3$s = %5$s
+                """.formatted(table[0], table[1], table[2], periodExpr, keyExpr);
+    }
+
+    // ---------- SCHEMA / REBUILD ----------
+    static void createTables(Connection conn) throws SQLException {
+        for (String[] t : TABLES) {
+            SchemaMigrator.exec(conn, """
+                    CREATE TABLE IF NOT EXISTS %1$s (
+                        %2$s INTEGER NOT NULL,
+                        %3$s TEXT NOT NULL,
+                        qty INTEGER NOT NULL DEFAULT 0,
+                        revenue INTEGER NOT NULL DEFAULT 0,
+                        profit INTEGER NOT NULL DEFAULT 0,
+                        loss INTEGER NOT NULL DEFAULT 0,
+                        cost INTEGER NOT NULL DEFAULT 0,
+                        tx_count INTEGER NOT NULL DEFAULT 0,
+                        PRIMARY KEY (%2$s, %3$s)
+                    )
+                    """.formatted(t[0], t[1], t[2]));
+        }
+    }
+
+    /** Drops and rebuilds the rollup tables, picking up the current column types. */
+    static void recreate(Connection conn) throws SQLException {
+        for (String[] t : TABLES) SchemaMigrator.exec(conn, "DROP TABLE IF EXISTS " + t[0]);
+        createTables(conn);
+        rebuild(conn);
+    }
+
+    /** 🔁 Recompute every rollup from the raw sales rows (backfill / repair). */
+    static void rebuild(Connection conn) throws SQLException {
+        // Before v12 there is no snapshot yet; the current category is all there is
+        String category = SchemaMigrator.hasColumn(conn, "sales", "category")
+                ? "COALESCE(s.category, '" + UNCATEGORIZED + "')"
+                : "COALESCE(p.category, '" + UNCATEGORIZED + "')";
+        // Before v9 nothing can have been refunded
+        String notRefunded = SchemaMigrator.hasColumn(conn, "sales", "refunded_at") ? " AND s.refunded_at IS NULL" : "";
+        for (String[] t : TABLES) {
+            String periodExpr = t[1].equals("sale_day") ? "s.sale_day" : MONTH_OF_SALE_DAY;
+            String keyExpr = t[2].equals("category") ? category : "s.product_id";
+            SchemaMigrator.exec(conn,
+                    "DELETE FROM " + t[0],
+                    """
+                    INSERT INTO %1$s (%2$s, %3$s, qty, revenue, profit, loss, cost, tx_count)
+                    SELECT %4$s, %5$s,
+                           COALESCE(SUM(s.quantity), 0),
+                           COALESCE(SUM(s.final_amount), 0),
+                           COALESCE(SUM(s.profit), 0),
+                           COALESCE(SUM(s.loss), 0),
+                           COALESCE(SUM(s.purchase_price * s.quantity), 0),
+                           COUNT(*)
+                    FROM sales s
+                    LEFT JOIN products p ON p.id = s.product_id
+                    WHERE s.sale_day IS NOT NULL%6$s
+                    GROUP BY 1, 2
+                    """.formatted(t[0], t[1], t[2], periodExpr, keyExpr, notRefunded));
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package bikram.db;
 
+import bikram.model.DateRange;
+import bikram.model.Money;
+import bikram.model.ProductRanking;
 import bikram.model.Sales;
+import bikram.model.SalesPoint;
+import bikram.model.SalesSummary;
+import bikram.model.TimeBucket;
 import bikram.views.page.TechuraDashboard;
 
 import java.time.LocalDate;
@@ -10,19 +16,26 @@ import java.util.Map;
 public interface Salesrepository {
     public void createTable();
     public boolean saveSales(Sales s);
-    public double getTotalRevenue();
-    public double getTotalProfit();
-    public double getTotalLoss();
+    public SalesSummary getSummary(DateRange range);
+    public Money getTotalRevenue();
+    public Money getTotalProfit();
+    public Money getTotalLoss();
     public int getTotalQuantitySold();
     public String getMostSoldProduct();
-    public double getAverageSalesPerDay();
-    public double getSalesByDateRange(LocalDate start, LocalDate end);
+    public Money getAverageSalesPerDay();
+    public Money getSalesByDateRange(LocalDate start, LocalDate end);
     public List<String> getTop5Products();
+    public List<ProductRanking> getTopProducts(ProductRanking.Metric metric, int limit);
+    public List<ProductRanking> getProductRankings(ProductRanking.Metric metric, DateRange range, int offset, int limit);
     public void printSalesSummary();
     public Map<String, Integer> getMonthlyNewUsers();
     public int countSales();
     public Map<String, Double> getMonthlyRevenue();
     public List<TechuraDashboard.Activity> getRecentActivities();
+    /** Sales with id greater than {@code afterId}, in id order (keyset paging). */
+    public List<Sales> getSalesPage(int afterId, int limit);
+    /** Pages of sales with id greater than {@code afterId}; pass 0 for all of them. */
+    public void streamSales(int afterId, int pageSize, java.util.function.Consumer<List<Sales>> onPage);
 
     Map<String, Double> getMonthlyProfit();
 
@@ -30,9 +43,13 @@ public interface Salesrepository {
 
     Map<String, Integer> getMonthlySalesTrend();
 
-    double getProfitByProduct(String product);
+    Money getProfitByProduct(String product);
 
-    double getTotalCost();
+    Money getTotalCost();
 
     Map<String, Double> getDailySales();
+
+    List<SalesPoint> getSalesSeries(LocalDate start, LocalDate end, TimeBucket bucket);
+
+    boolean rebuildRollups();
 }
@@ -0,0 +1,543 @@
+package bikram.db;
+
+import bikram.model.Money;
+
+import java.sql.*;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 🧱 Versioned schema migrations for app.db.
+ * Each migration runs once inside its own transaction and is recorded in
+ * {@code schema_version}; later starts only read the current version.
+ * Migrations must be re-runnable (IF NOT EXISTS / column checks) because
+ * {@link #invalidate()} replays them after a table has been dropped.
+ */
+public final class SchemaMigrator {
+
+    @FunctionalInterface
+    interface Step {
+        void apply(Connection conn) throws SQLException;
+    }
+
+    static final class Migration {
+        final int version;
+        final String description;
+        final Step step;
+
+        Migration(int version, String description, Step step) {
+            this.version = version;
+            this.description = description;
+            this.step = step;
+        }
+    }
+
+    private static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "baseline users/products/sales/employeeTime tables", SchemaMigrator::v1Baseline),
+            new Migration(2, "sales.sale_day epoch-day column with range indexes", SchemaMigrator::v2SalesDay),
+            new Migration(3, "daily/monthly sales rollups per product and category", SchemaMigrator::v3SalesRollups),
+            new Migration(4, "employeeTime (userid, entrytime) index for range scans", SchemaMigrator::v4EmployeeTimeIndex),
+            new Migration(5, "employeeTime surrogate id, epoch columns and open-shift index", SchemaMigrator::v5EmployeeTimeEpoch),
+            new Migration(6, "case-insensitive users.email index", SchemaMigrator::v6UserEmailNoCase),
+            new Migration(7, "FTS5 search index fed by product/user/sales triggers", SchemaMigrator::v7SearchIndex),
+            new Migration(8, "stock ledger: movements, reservations and opening balances", SchemaMigrator::v8StockLedger),
+            new Migration(9, "double-entry journal with per-account running balances", SchemaMigrator::v9Journal),
+            new Migration(10, "money columns as INTEGER minor units (1/100 yen)", SchemaMigrator::v10MoneyMinorUnits),
+            new Migration(11, "sales.payment_method and paid_amount stored at checkout", SchemaMigrator::v11SalesPayment),
+            new Migration(12, "sales.category snapshot for category rollups", SchemaMigrator::v12SalesCategory)
+    );
+
+    private static volatile boolean migrated;
+
+    private SchemaMigrator() {}
+
+    /** 🚀 Bring the schema up to date. Cheap no-op once it has run in this process. */
+    public static void migrate() {
+        if (migrated) return;
+        synchronized (SchemaMigrator.class) {
+            if (migrated) return;
+            try (Connection conn = DbConnector.getConnection()) {
+                exec(conn, """
+                        CREATE TABLE IF NOT EXISTS schema_version (
+                            version INTEGER PRIMARY KEY,
+                            description TEXT NOT NULL,
+                            applied_at TEXT NOT NULL
+                        )
+                        """);
+                int current = currentVersion(conn);
+                for (Migration m : MIGRATIONS) {
+                    if (m.version > current) apply(conn, m);
+                }
+                migrated = true;
+            } catch (SQLException e) {
+                System.err.println("❌ Schema migration failed: " + e.getMessage());
+            }
+        }
+    }
+
+    /** 🔁 Forget applied versions so the next {@link #migrate()} replays every migration. */
+    public static void invalidate() {
+        synchronized (SchemaMigrator.class) {
+            try (Connection conn = DbConnector.getConnection()) {
+                exec(conn, "DELETE FROM schema_version");
+            } catch (SQLException e) {
+                System.err.println("⚠️ Failed to reset schema version: " + e.getMessage());
+            }
+            migrated = false;
+        }
+    }
+
+    public static int currentVersion() {
+        try (Connection conn = DbConnector.getReadConnection()) {
+            return currentVersion(conn);
+        } catch (SQLException e) {
+            return 0;
+        }
+    }
+
+    private static int currentVersion(Connection conn) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+            return rs.next() ? rs.getInt(1) : 0;
+        }
+    }
+
+    private static void apply(Connection conn, Migration m) throws SQLException {
+        conn.setAutoCommit(false);
+        try {
+            m.step.apply(conn);
+            try (PreparedStatement ps = conn.prepareStatement(
+                    "INSERT OR REPLACE INTO schema_version(version, description, applied_at) VALUES (?, ?, ?)")) {
+                ps.setInt(1, m.version);
+                ps.setString(2, m.description);
+                ps.setString(3, LocalDateTime.now().toString());
+                ps.executeUpdate();
+            }
+            conn.commit();
+            System.out.println("✅ Migration v" + m.version + " applied: " + m.description);
+        } catch (SQLException e) {
+            conn.rollback();
+            throw new SQLException("v" + m.version + " (" + m.description + "): " + e.getMessage(), e);
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // ---------- HELPERS ----------
+    static void exec(Connection conn, String... sqls) throws SQLException {
+        try (Statement stmt = conn.createStatement()) {
+            for (String sql : sqls) stmt.execute(sql);
+        }
+    }
+
+    static boolean hasColumn(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) return true;
+            }
+        }
+        return false;
+    }
+
+    static void addColumn(Connection conn, String table, String column, String definition) throws SQLException {
+        if (!hasColumn(conn, table, column)) {
+            exec(conn, "ALTER TABLE " + table + " ADD COLUMN " + column + " " + definition);
+        }
+    }
+
+    /** Declared type of a column, upper-cased; null if the column does not exist. */
+    static String columnType(Connection conn, String table, String column) throws SQLException {
+        try (Statement stmt = conn.createStatement();
+             ResultSet rs = stmt.executeQuery("PRAGMA table_info(" + table + ")")) {
+            while (rs.next()) {
+                if (rs.getString("name").equalsIgnoreCase(column)) return rs.getString("type").toUpperCase();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Sum of a money column (times {@code quantity} when asked) in minor units, whether or not
+     * v10 has converted it yet. REAL yen values are rounded per row by {@link Money#toMinor(double)},
+     * exactly as v10 will convert them, so the sum matches the converted rows.
+     */
+    private static Money sumMinorUnits(Connection conn, String table, String column, boolean timesQuantity) throws SQLException {
+        boolean converted = "INTEGER".equals(columnType(conn, table, column));
+        long[] sum = {0};
+        SqlTemplate.forEach(conn, "SELECT " + column + ", " + (timesQuantity ? "quantity" : "1")
+                + " FROM " + table + " WHERE " + column + " IS NOT NULL", rs -> {
+            long minor = converted ? rs.getLong(1) : Money.toMinor(rs.getDouble(1));
+            sum[0] = Math.addExact(sum[0], Money.times(minor, rs.getInt(2)));
+        });
+        return Money.ofMinor(sum[0]);
+    }
+
+    // ---------- MIGRATIONS ----------
+    private static void v1Baseline(Connection conn) throws SQLException {
+        exec(conn, """
+                CREATE TABLE IF NOT EXISTS users (
+                    id TEXT UNIQUE NOT NULL,
+                    first_name TEXT NOT NULL,
+                    last_name TEXT NOT NULL,
+                    address TEXT,
+                    phone_number TEXT NOT NULL,
+                    email TEXT UNIQUE,
+                    password TEXT,
+                    role TEXT NOT NULL,
+                    joined_date DATE,
+                    salaryPerMonth NUMBER
+                )
+                """, """
+                CREATE TABLE IF NOT EXISTS products (
+                    id TEXT UNIQUE NOT NULL,
+                    name TEXT NOT NULL,
+                    price REAL NOT NULL,
+                    cost REAL DEFAULT 0,
+                    discount REAL DEFAULT 0,
+                    quantity INTEGER NOT NULL,
+                    description TEXT,
+                    category TEXT,
+                    supplier TEXT,
+                    created_at DATE,
+                    expire_date DATE
+                )
+                """, """
+                CREATE TABLE IF NOT EXISTS sales (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    product_id TEXT NOT NULL,
+                    name TEXT NOT NULL,
+                    quantity INTEGER,
+                    purchase_price REAL,
+                    sale_price REAL,
+                    discount REAL,
+                    final_amount REAL,
+                    profit REAL,
+                    loss REAL,
+                    created_at TEXT,
+                    updated_at TEXT
+                )
+                """, """
+                CREATE TABLE IF NOT EXISTS employeeTime (
+                    userid TEXT,
+                    entrytime TEXT,
+                    exittime TEXT,
+                    hours REAL
+                )
+                """);
+    }
+
+    /** Epoch day (days since 1970-01-01, same as LocalDate.toEpochDay()) so date filters become index range scans. */
+    private static void v2SalesDay(Connection conn) throws SQLException {
+        addColumn(conn, "sales", "sale_day", "INTEGER");
+        exec(conn,
+                "UPDATE sales SET sale_day = CAST(julianday(DATE(created_at)) - 2440587.5 AS INTEGER) WHERE sale_day IS NULL",
+                "CREATE INDEX IF NOT EXISTS idx_sales_day ON sales(sale_day)",
+                "CREATE INDEX IF NOT EXISTS idx_sales_name_day ON sales(name, sale_day)",
+                "CREATE INDEX IF NOT EXISTS idx_sales_product_day ON sales(product_id, sale_day)");
+    }
+
+    private static void v3SalesRollups(Connection conn) throws SQLException {
+        SalesRollups.createTables(conn);
+        SalesRollups.rebuild(conn);
+    }
+
+    private static void v4EmployeeTimeIndex(Connection conn) throws SQLException {
+        exec(conn, "CREATE INDEX IF NOT EXISTS idx_employee_time_user_entry ON employeeTime(userid, entrytime)");
+    }
+
+    /**
+     * Rebuilds employeeTime with an id primary key and epoch-second columns.
+     * Text columns stay for display; strftime(..., 'utc') reads them as local time,
+     * the same way EmployeeTimeDB.epochOf does. Open shifts (exit_epoch IS NULL)
+     * get their own partial index so clock-out lookups stay small.
+     */
+    private static void v5EmployeeTimeEpoch(Connection conn) throws SQLException {
+        if (!hasColumn(conn, "employeeTime", "entry_epoch")) {
+            exec(conn, """
+                    CREATE TABLE employeeTime_v5 (
+                        id INTEGER PRIMARY KEY AUTOINCREMENT,
+                        userid TEXT NOT NULL,
+                        entrytime TEXT NOT NULL,
+                        exittime TEXT,
+                        hours REAL DEFAULT 0,
+                        entry_epoch INTEGER NOT NULL,
+                        exit_epoch INTEGER
+                    )
+                    """, """
+                    INSERT INTO employeeTime_v5(userid, entrytime, exittime, hours, entry_epoch, exit_epoch)
+                    SELECT userid, entrytime, exittime, COALESCE(hours, 0),
+                           COALESCE(CAST(strftime('%s', entrytime, 'utc') AS INTEGER), 0),
+                           CAST(strftime('%s', exittime, 'utc') AS INTEGER)
+                    FROM employeeTime
+                    WHERE userid IS NOT NULL AND entrytime IS NOT NULL
+                    ORDER BY entrytime
+                    """,
+                    "DROP TABLE employeeTime",
+                    "ALTER TABLE employeeTime_v5 RENAME TO employeeTime");
+        }
+        exec(conn,
+                "DROP INDEX IF EXISTS idx_employee_time_user_entry",
+                "CREATE INDEX IF NOT EXISTS idx_employee_time_user_epoch ON employeeTime(userid, entry_epoch)",
+                "CREATE INDEX IF NOT EXISTS idx_employee_time_open ON employeeTime(userid, entry_epoch) WHERE exit_epoch IS NULL");
+    }
+
+    /**
+     * Login looks e-mails up case-insensitively; the column's UNIQUE index uses BINARY,
+     * so a NOCASE index is what "email = ? COLLATE NOCASE" can seek on. Not UNIQUE:
+     * existing rows may differ only by case.
+     */
+    private static void v6UserEmailNoCase(Connection conn) throws SQLException {
+        exec(conn, "CREATE INDEX IF NOT EXISTS idx_users_email_nocase ON users(email COLLATE NOCASE)");
+    }
+
+    /**
+     * One trigram FTS5 table for every searchable record, kept current by triggers, so the
+     * search bar runs one indexed MATCH instead of scanning each table. {@code search_docs}
+     * maps (kind, ref) to the FTS rowid; triggers and {@link SearchIndexDB} always touch FTS
+     * rows by rowid. Notes and tasks live on disk and are fed by {@code SearchIndexWatcher}.
+     */
+    private static void v7SearchIndex(Connection conn) throws SQLException {
+        exec(conn, """
+                CREATE TABLE IF NOT EXISTS search_docs (
+                    rowid INTEGER PRIMARY KEY,
+                    kind TEXT NOT NULL,
+                    ref TEXT NOT NULL,
+                    UNIQUE (kind, ref)
+                )
+                """,
+                "CREATE VIRTUAL TABLE IF NOT EXISTS search_index USING fts5(title, body, tokenize = 'trigram')");
+
+        // Upsert/delete bodies shared by the triggers; :kind, :ref, :title, :body are substituted below
+        String upsert = """
+                INSERT OR IGNORE INTO search_docs(kind, ref) VALUES (:kind, :ref);
+                DELETE FROM search_index WHERE rowid = (SELECT rowid FROM search_docs WHERE kind = :kind AND ref = :ref);
+                INSERT INTO search_index(rowid, title, body)
+                    VALUES ((SELECT rowid FROM search_docs WHERE kind = :kind AND ref = :ref), :title, :body);
+                """;
+        String delete = """
+                DELETE FROM search_index WHERE rowid = (SELECT rowid FROM search_docs WHERE kind = :kind AND ref = :ref);
+                DELETE FROM search_docs WHERE kind = :kind AND ref = :ref;
+                """;
+
+        String productTitle = "NEW.name";
+        String productBody = "NEW.id || ' ' || IFNULL(NEW.category, '') || ' ' || IFNULL(NEW.supplier, '') || ' ' || IFNULL(NEW.description, '')";
+        String userTitle = "NEW.first_name || ' ' || NEW.last_name";
+        String userBody = "NEW.id || ' ' || IFNULL(NEW.email, '') || ' ' || NEW.role";
+        String saleTitle = "NEW.name";
+        String saleBody = "NEW.product_id || ' ' || IFNULL(substr(NEW.created_at, 1, 10), '')";
+
+        // UPDATE OF: stock and password changes don't touch indexed text, so they skip the reindex
+        createSearchTriggers(conn, "products", "'product'", "id, name, category, supplier, description",
+                productTitle, productBody, upsert, delete);
+        createSearchTriggers(conn, "users", "'user'", "id, first_name, last_name, email, role",
+                userTitle, userBody, upsert, delete);
+        createSearchTriggers(conn, "sales", "'sale'", "id, product_id, name, created_at",
+                saleTitle, saleBody, upsert, delete);
+
+        // Backfill (also re-run after a dropped table is recreated)
+        exec(conn,
+                "DELETE FROM search_index WHERE rowid IN (SELECT rowid FROM search_docs WHERE kind IN ('product', 'user', 'sale'))",
+                "DELETE FROM search_docs WHERE kind IN ('product', 'user', 'sale')");
+        backfill(conn, "products", "'product'", "id", productTitle, productBody);
+        backfill(conn, "users", "'user'", "id", userTitle, userBody);
+        backfill(conn, "sales", "'sale'", "id", saleTitle, saleBody);
+    }
+
+    private static void createSearchTriggers(Connection conn, String table, String kind, String indexedColumns,
+                                             String title, String body, String upsert, String delete) throws SQLException {
+        String insertBody = upsert.replace(":kind", kind).replace(":ref", "NEW.id")
+                .replace(":title", title).replace(":body", body);
+        String deleteBody = delete.replace(":kind", kind).replace(":ref", "OLD.id");
+        exec(conn,
+                "DROP TRIGGER IF EXISTS " + table + "_search_ai",
+                "DROP TRIGGER IF EXISTS " + table + "_search_au",
+                "DROP TRIGGER IF EXISTS " + table + "_search_ad",
+                "CREATE TRIGGER " + table + "_search_ai AFTER INSERT ON " + table + " BEGIN\n" + insertBody + "END",
+                // The key may change on update: drop the old ref, then index the new one
+                "CREATE TRIGGER " + table + "_search_au AFTER UPDATE OF " + indexedColumns + " ON " + table + " BEGIN\n" + deleteBody + insertBody + "END",
+                "CREATE TRIGGER " + table + "_search_ad AFTER DELETE ON " + table + " BEGIN\n" + deleteBody + "END");
+    }
+
+    private static void backfill(Connection conn, String table, String kind, String refColumn,
+                                 String title, String body) throws SQLException {
+        exec(conn,
+                "INSERT OR IGNORE INTO search_docs(kind, ref) SELECT " + kind + ", " + refColumn + " FROM " + table,
+                "INSERT INTO search_index(rowid, title, body) SELECT d.rowid, " + title.replace("NEW.", "t.") + ", "
+                        + body.replace("NEW.", "t.") + " FROM " + table + " t JOIN search_docs d ON d.kind = " + kind
+                        + " AND d.ref = t." + refColumn);
+    }
+
+    /**
+     * products.quantity stays the on-hand count, but it now only changes together with an
+     * appended stock_movements row (see StockLedger and CheckoutService). Carts hold
+     * short-lived stock_reservations, which the guarded decrements subtract from what
+     * other registers may take.
+     */
+    private static void v8StockLedger(Connection conn) throws SQLException {
+        exec(conn, """
+                CREATE TABLE IF NOT EXISTS stock_movements (
+                    id INTEGER PRIMARY KEY,
+                    product_id TEXT NOT NULL,
+                    delta INTEGER NOT NULL,
+                    on_hand INTEGER NOT NULL,
+                    reason TEXT NOT NULL,
+                    ref TEXT,
+                    created_at INTEGER NOT NULL
+                )
+                """, """
+                CREATE TABLE IF NOT EXISTS stock_reservations (
+                    register_id TEXT NOT NULL,
+                    product_id TEXT NOT NULL,
+                    quantity INTEGER NOT NULL CHECK (quantity > 0),
+                    expires_at INTEGER NOT NULL,
+                    PRIMARY KEY (register_id, product_id)
+                )
+                """,
+                "CREATE INDEX IF NOT EXISTS idx_stock_movements_product ON stock_movements(product_id, id)",
+                "CREATE INDEX IF NOT EXISTS idx_stock_reservations_product ON stock_reservations(product_id, expires_at)",
+                // New products open their ledger with the quantity they were created with
+                "DROP TRIGGER IF EXISTS products_stock_opening",
+                """
+                CREATE TRIGGER products_stock_opening AFTER INSERT ON products BEGIN
+                    INSERT INTO stock_movements(product_id, delta, on_hand, reason, created_at)
+                    VALUES (NEW.id, NEW.quantity, NEW.quantity, 'OPENING', CAST(strftime('%s', 'now') AS INTEGER));
+                END
+                """,
+                // Existing products: one opening movement each, so every ledger sums to its on-hand count
+                """
+                INSERT INTO stock_movements(product_id, delta, on_hand, reason, created_at)
+                SELECT p.id, p.quantity, p.quantity, 'OPENING', CAST(strftime('%s', 'now') AS INTEGER)
+                FROM products p
+                WHERE NOT EXISTS (SELECT 1 FROM stock_movements m WHERE m.product_id = p.id)
+                """);
+    }
+
+    /**
+     * Accounts carry their running balance and every journal line stores the balance it left
+     * behind (see {@link Journal}). The first run opens the books from what the tables
+     * already hold: inventory at cost (current stock plus what was sold), funded by owner
+     * equity, and one SALE entry covering every existing sales row.
+     */
+    private static void v9Journal(Connection conn) throws SQLException {
+        exec(conn, """
+                CREATE TABLE IF NOT EXISTS accounts (
+                    code TEXT PRIMARY KEY,
+                    name TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    balance INTEGER NOT NULL DEFAULT 0
+                )
+                """, """
+                CREATE TABLE IF NOT EXISTS journal_entries (
+                    id INTEGER PRIMARY KEY,
+                    kind TEXT NOT NULL,
+                    ref TEXT,
+                    memo TEXT,
+                    created_at INTEGER NOT NULL
+                )
+                """, """
+                CREATE TABLE IF NOT EXISTS journal_lines (
+                    id INTEGER PRIMARY KEY,
+                    entry_id INTEGER NOT NULL REFERENCES journal_entries(id),
+                    account TEXT NOT NULL REFERENCES accounts(code),
+                    amount INTEGER NOT NULL,
+                    balance INTEGER NOT NULL
+                )
+                """,
+                "CREATE UNIQUE INDEX IF NOT EXISTS idx_journal_entries_ref ON journal_entries(kind, ref) WHERE ref IS NOT NULL",
+                "CREATE INDEX IF NOT EXISTS idx_journal_entries_time ON journal_entries(created_at)",
+                "CREATE INDEX IF NOT EXISTS idx_journal_lines_account ON journal_lines(account, entry_id)",
+                """
+                INSERT OR IGNORE INTO accounts(code, name, type) VALUES
+                    ('CASH', '現金', 'ASSET'),
+                    ('INVENTORY', '商品', 'ASSET'),
+                    ('OWNER_EQUITY', '元入金', 'EQUITY'),
+                    ('SALES', '売上高', 'INCOME'),
+                    ('SALES_RETURNS', '売上戻り', 'INCOME'),
+                    ('COST_OF_SALES', '売上原価', 'EXPENSE'),
+                    ('PAYROLL', '給料手当', 'EXPENSE'),
+                    ('EXPENSES', '経費', 'EXPENSE')
+                """);
+        // Refunds mark the sale instead of deleting it, so history still reconciles
+        addColumn(conn, "sales", "refunded_at", "TEXT");
+
+        if (SqlTemplate.queryOne(conn, "SELECT 1 FROM journal_entries LIMIT 1", rs -> true) != null) return;
+
+        // A replay can run this against either the REAL yen columns or the v10 INTEGER ones
+        Money stockValue = sumMinorUnits(conn, "products", "cost", true);
+        long[] saleIds = SqlTemplate.queryOne(conn, "SELECT IFNULL(MIN(id), 0), IFNULL(MAX(id), 0) FROM sales",
+                rs -> new long[]{rs.getLong(1), rs.getLong(2)});
+        Money soldRevenue = sumMinorUnits(conn, "sales", "final_amount", false);
+        Money soldCost = sumMinorUnits(conn, "sales", "purchase_price", true);
+
+        Money opening = stockValue.plus(soldCost);
+        Journal.post(conn, Journal.Kind.OPENING, "v9", "開始残高", List.of(
+                Journal.Line.debit(Journal.INVENTORY, opening),
+                Journal.Line.credit(Journal.OWNER_EQUITY, opening)));
+        if (saleIds[1] > 0) {
+            Journal.post(conn, Journal.Kind.SALE, Journal.saleRef(saleIds[0], saleIds[1]), "既存の売上", List.of(
+                    Journal.Line.debit(Journal.CASH, soldRevenue),
+                    Journal.Line.credit(Journal.SALES, soldRevenue),
+                    Journal.Line.debit(Journal.COST_OF_SALES, soldCost),
+                    Journal.Line.credit(Journal.INVENTORY, soldCost)));
+        }
+    }
+
+    /**
+     * Money was REAL yen, so sums drifted by binary fractions (0.1 + 0.2). Every money column
+     * becomes an INTEGER count of 1/100 yen ({@link Money}), rounded once here by
+     * {@link Money#toMinor(double)}, the same rule live writes use. SQLite cannot
+     * change a column's type in place, so each one is copied to a new column, which then
+     * takes the old one's name. Columns that are already INTEGER are skipped.
+     */
+    static void v10MoneyMinorUnits(Connection conn) throws SQLException {
+        toMinorUnits(conn, "products", "price", "INTEGER NOT NULL DEFAULT 0");
+        toMinorUnits(conn, "products", "cost", "INTEGER DEFAULT 0");
+        for (String column : List.of("purchase_price", "sale_price", "final_amount", "profit", "loss")) {
+            toMinorUnits(conn, "sales", column, "INTEGER");
+        }
+        // Journals posted by the first version of v9
+        toMinorUnits(conn, "accounts", "balance", "INTEGER NOT NULL DEFAULT 0");
+        toMinorUnits(conn, "journal_lines", "amount", "INTEGER NOT NULL DEFAULT 0");
+        toMinorUnits(conn, "journal_lines", "balance", "INTEGER NOT NULL DEFAULT 0");
+        // Re-summed from the converted rows rather than converted: exact, and right after any replay order
+        SalesRollups.recreate(conn);
+    }
+
+    /** Older rows keep NULL: their payment was never recorded. */
+    private static void v11SalesPayment(Connection conn) throws SQLException {
+        addColumn(conn, "sales", "payment_method", "TEXT");
+        addColumn(conn, "sales", "paid_amount", "INTEGER");
+    }
+
+    /**
+     * The category a sale is reported under is copied onto the row at checkout, so a
+     * rollup rebuild no longer follows products that were re-categorised later. Existing
+     * rows get the current category: the best record there is.
+     */
+    private static void v12SalesCategory(Connection conn) throws SQLException {
+        addColumn(conn, "sales", "category", "TEXT");
+        exec(conn, "UPDATE sales SET category = (SELECT p.category FROM products p WHERE p.id = sales.product_id)"
+                + " WHERE category IS NULL");
+    }
+
+    static void toMinorUnits(Connection conn, String table, String column, String definition) throws SQLException {
+        String type = columnType(conn, table, column);
+        if (type == null || type.equals("INTEGER")) return;
+        String tmp = column + "__minor";
+        exec(conn, "ALTER TABLE " + table + " ADD COLUMN " + tmp + " " + definition);
+
+        // Rounded in Java: SQL ROUND(col * 100) works on the binary double and turns 1.005 into 100, not 101
+        List<Object[]> rows = SqlTemplate.query(conn, "SELECT rowid, " + column + " FROM " + table, rs -> {
+            long rowid = rs.getLong(1);
+            double yen = rs.getDouble(2);
+            return new Object[]{rs.wasNull() ? null : Money.toMinor(yen), rowid};
+        });
+        // Every row is written, NULLs included, so the new column's DEFAULT never replaces a missing value
+        SqlTemplate.batch(conn, "UPDATE " + table + " SET " + tmp + " = ? WHERE rowid = ?", rows, SqlTemplate::bind);
+
+        exec(conn,
+                "ALTER TABLE " + table + " DROP COLUMN " + column,
+                "ALTER TABLE " + table + " RENAME COLUMN " + tmp + " TO " + column);
+    }
+}
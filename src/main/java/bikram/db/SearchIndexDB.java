@@ -0,0 +1,197 @@
+package bikram.db;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 🔎 Full-text search over the FTS5 {@code search_index} (see SchemaMigrator v7).
+ * Products, users and sales are indexed by triggers; notes and tasks are pushed here
+ * from disk by {@code SearchIndexWatcher}. Ranking is BM25 with the title weighted
+ * over the body, and matches come back highlighted.
+ * <p>
+ * The index uses the trigram tokenizer, so any substring of three or more characters
+ * matches, Japanese included. Shorter terms cannot use the index. They are applied as
+ * LIKE filters on the rows the longer terms matched, and a query made only of short
+ * terms returns nothing (callers fall back to the in-memory index).
+ */
+public class SearchIndexDB {
+
+    public static final String KIND_PRODUCT = "product";
+    public static final String KIND_USER = "user";
+    public static final String KIND_SALE = "sale";
+    public static final String KIND_NOTE = "note";
+    public static final String KIND_TASK = "task";
+
+    private static final String HIGHLIGHT_OPEN = "【";
+    private static final String HIGHLIGHT_CLOSE = "】";
+
+    private static final String SEARCH_SQL = """
+            SELECT d.kind, d.ref,
+                   highlight(search_index, 0, '%1$s', '%2$s') AS title,
+                   snippet(search_index, 1, '%1$s', '%2$s', '…', 10) AS snippet,
+                   bm25(search_index, 10.0, 1.0) AS rank
+            FROM search_index
+            JOIN search_docs d ON d.rowid = search_index.rowid
+            WHERE search_index MATCH ?
+            """.formatted(HIGHLIGHT_OPEN, HIGHLIGHT_CLOSE);   // plain() strips the same markers
+    private static final String SHORT_TERM_SQL = " AND (search_index.title LIKE ? ESCAPE '\\' OR search_index.body LIKE ? ESCAPE '\\')";
+    private static final String ORDER_SQL = " ORDER BY rank LIMIT ?";
+
+    private static final String DOC_ID_SQL = "SELECT rowid FROM search_docs WHERE kind = ? AND ref = ?";
+    private static final String ADD_DOC_SQL = "INSERT OR IGNORE INTO search_docs(kind, ref) VALUES (?, ?)";
+    private static final String DELETE_FTS_SQL = "DELETE FROM search_index WHERE rowid = ?";
+    private static final String INSERT_FTS_SQL = "INSERT INTO search_index(rowid, title, body) VALUES (?, ?, ?)";
+    private static final String DELETE_DOC_SQL = "DELETE FROM search_docs WHERE rowid = ?";
+    private static final String DELETE_KIND_FTS_SQL = "DELETE FROM search_index WHERE rowid IN (SELECT rowid FROM search_docs WHERE kind = ?)";
+    private static final String DELETE_KIND_SQL = "DELETE FROM search_docs WHERE kind = ?";
+
+    /** One ranked match; {@code title} and {@code snippet} carry 【】 around the matched text. */
+    public static final class Match {
+        private final String kind;
+        private final String ref;
+        private final String title;
+        private final String snippet;
+        private final double rank;
+
+        Match(String kind, String ref, String title, String snippet, double rank) {
+            this.kind = kind;
+            this.ref = ref;
+            this.title = title;
+            this.snippet = snippet;
+            this.rank = rank;
+        }
+
+        public String getKind() { return kind; }
+        public String getRef() { return ref; }
+        public String getTitle() { return title; }
+        public String getSnippet() { return snippet; }
+        /** BM25 score, lower is better (SQLite's convention). */
+        public double getRank() { return rank; }
+    }
+
+    /** A file-backed document (note, task) to index. */
+    public static final class Document {
+        final String ref;
+        final String title;
+        final String body;
+
+        public Document(String ref, String title, String body) {
+            this.ref = ref;
+            this.title = title;
+            this.body = body;
+        }
+    }
+
+    // ---------- SEARCH ----------
+    /** Best {@code limit} matches, best first; empty when no term is at least three characters long. */
+    public List<Match> search(String query, int limit) {
+        List<String> longTerms = new ArrayList<>();
+        List<String> shortTerms = new ArrayList<>();
+        for (String term : query.trim().split("\\s+")) {
+            if (term.isEmpty()) continue;
+            if (term.codePointCount(0, term.length()) >= 3) longTerms.add(term);
+            else shortTerms.add(term);
+        }
+        if (longTerms.isEmpty() || limit <= 0) return new ArrayList<>();
+
+        StringBuilder sql = new StringBuilder(SEARCH_SQL);
+        List<Object> params = new ArrayList<>();
+        params.add(matchExpression(longTerms));
+        for (String term : shortTerms) {
+            sql.append(SHORT_TERM_SQL);
+            String like = "%" + escapeLike(term) + "%";
+            params.add(like);
+            params.add(like);
+        }
+        sql.append(ORDER_SQL);
+        params.add(limit);
+
+        try {
+            return SqlTemplate.query(sql.toString(), rs -> new Match(
+                    rs.getString("kind"),
+                    rs.getString("ref"),
+                    rs.getString("title"),
+                    rs.getString("snippet"),
+                    rs.getDouble("rank")), params.toArray());
+        } catch (SQLException e) {
+            System.err.println("⚠️ Full-text search failed: " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    /** Every term as a quoted phrase, implicitly ANDed; quoting keeps FTS5 operators in user input literal. */
+    static String matchExpression(List<String> terms) {
+        StringBuilder match = new StringBuilder();
+        for (String term : terms) {
+            if (match.length() > 0) match.append(' ');
+            match.append('"').append(term.replace("\"", "\"\"")).append('"');
+        }
+        return match.toString();
+    }
+
+    private static String escapeLike(String term) {
+        return term.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    /** Strips the 【】 highlight markers, e.g. to put a match back into the search field. */
+    public static String plain(String highlighted) {
+        return highlighted == null ? "" : highlighted.replace(HIGHLIGHT_OPEN, "").replace(HIGHLIGHT_CLOSE, "");
+    }
+
+    // ---------- FILE-BACKED DOCUMENTS ----------
+    public boolean upsert(String kind, Document doc) {
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                upsert(c, kind, doc);
+                return null;
+            });
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Search index update failed (" + kind + " " + doc.ref + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    public boolean delete(String kind, String ref) {
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                Long rowid = SqlTemplate.queryOne(c, DOC_ID_SQL, rs -> rs.getLong(1), kind, ref);
+                if (rowid != null) {
+                    SqlTemplate.update(c, DELETE_FTS_SQL, rowid);
+                    SqlTemplate.update(c, DELETE_DOC_SQL, rowid);
+                }
+                return null;
+            });
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Search index delete failed (" + kind + " " + ref + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Replaces every document of a kind in one transaction (a whole store was re-read). */
+    public boolean replaceAll(String kind, List<Document> docs) {
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                SqlTemplate.update(c, DELETE_KIND_FTS_SQL, kind);
+                SqlTemplate.update(c, DELETE_KIND_SQL, kind);
+                for (Document doc : docs) upsert(c, kind, doc);
+                return null;
+            });
+            System.out.println("🔎 Search index: " + docs.size() + " " + kind + "(s) indexed");
+            return true;
+        } catch (SQLException e) {
+            System.err.println("❌ Search index rebuild failed (" + kind + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    private static void upsert(Connection c, String kind, Document doc) throws SQLException {
+        SqlTemplate.update(c, ADD_DOC_SQL, kind, doc.ref);
+        long rowid = SqlTemplate.queryOne(c, DOC_ID_SQL, rs -> rs.getLong(1), kind, doc.ref);
+        SqlTemplate.update(c, DELETE_FTS_SQL, rowid);
+        SqlTemplate.update(c, INSERT_FTS_SQL, rowid, doc.title, doc.body);
+    }
+}
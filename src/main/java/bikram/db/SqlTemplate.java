@@ -0,0 +1,234 @@
+package bikram.db;
+
+import bikram.model.Money;
+
+import java.math.BigDecimal;
+import java.sql.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 🧩 Small JDBC template shared by the repositories.
+ * Borrows a pooled connection, takes the statement from the connection's
+ * statement cache, binds parameters by Java type and maps rows with a
+ * {@link RowMapper}. Errors surface as {@link SQLException}; repositories keep
+ * deciding how to log them and what default to return.
+ * <p>
+ * Overloads that take a {@link Connection} run on the caller's connection so
+ * several calls can share one transaction.
+ */
+public final class SqlTemplate {
+
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface RowCallback {
+        void accept(ResultSet rs) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface Binder<T> {
+        void bind(PreparedStatement ps, T item) throws SQLException;
+    }
+
+    @FunctionalInterface
+    public interface TransactionCallback<R> {
+        R apply(Connection conn) throws SQLException;
+    }
+
+    @FunctionalInterface
+    private interface StatementCallback<R> {
+        R apply(PreparedStatement ps) throws SQLException;
+    }
+
+    private SqlTemplate() {}
+
+    // ---------- QUERY ----------
+    public static <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        try (Connection conn = DbConnector.getReadConnection()) {
+            return query(conn, sql, mapper, params);
+        }
+    }
+
+    public static <T> List<T> query(Connection conn, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return execute(conn, sql, ps -> {
+            bind(ps, params);
+            List<T> list = new ArrayList<>();
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) list.add(mapper.map(rs));
+            }
+            return list;
+        });
+    }
+
+    /** Streams every row to the callback without collecting them (e.g. to fill a map). */
+    public static void forEach(String sql, RowCallback callback, Object... params) throws SQLException {
+        try (Connection conn = DbConnector.getReadConnection()) {
+            forEach(conn, sql, callback, params);
+        }
+    }
+
+    public static void forEach(Connection conn, String sql, RowCallback callback, Object... params) throws SQLException {
+        execute(conn, sql, ps -> {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                while (rs.next()) callback.accept(rs);
+            }
+            return null;
+        });
+    }
+
+    /** First row, or null when there is none. */
+    public static <T> T queryOne(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        try (Connection conn = DbConnector.getReadConnection()) {
+            return queryOne(conn, sql, mapper, params);
+        }
+    }
+
+    public static <T> T queryOne(Connection conn, String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        return execute(conn, sql, ps -> {
+            bind(ps, params);
+            try (ResultSet rs = ps.executeQuery()) {
+                return rs.next() ? mapper.map(rs) : null;
+            }
+        });
+    }
+
+    /** First column of the first row; 0 for no row or SQL NULL (e.g. SUM over nothing). */
+    public static double queryDouble(String sql, Object... params) throws SQLException {
+        Double value = queryOne(sql, rs -> rs.getDouble(1), params);
+        return value == null ? 0 : value;
+    }
+
+    /** A SUM over Money columns, exact; {@link Money#ZERO} for no row or SQL NULL. */
+    public static Money queryMoney(String sql, Object... params) throws SQLException {
+        Long value = queryOne(sql, rs -> rs.getLong(1), params);
+        return value == null ? Money.ZERO : Money.ofMinor(value);
+    }
+
+    public static Money queryMoney(Connection conn, String sql, Object... params) throws SQLException {
+        Long value = queryOne(conn, sql, rs -> rs.getLong(1), params);
+        return value == null ? Money.ZERO : Money.ofMinor(value);
+    }
+
+    public static int queryInt(String sql, Object... params) throws SQLException {
+        Integer value = queryOne(sql, rs -> rs.getInt(1), params);
+        return value == null ? 0 : value;
+    }
+
+    // ---------- UPDATE ----------
+    /** Runs one statement on the write connection; returns the update count. */
+    public static int update(String sql, Object... params) throws SQLException {
+        try (Connection conn = DbConnector.getConnection()) {
+            return update(conn, sql, params);
+        }
+    }
+
+    public static int update(Connection conn, String sql, Object... params) throws SQLException {
+        return execute(conn, sql, ps -> {
+            bind(ps, params);
+            return ps.executeUpdate();
+        });
+    }
+
+    /** Runs one INSERT on the write connection and returns the new row's id (SQLite rowid). */
+    public static long insert(String sql, Object... params) throws SQLException {
+        try (Connection conn = DbConnector.getConnection()) {
+            return insert(conn, sql, params);
+        }
+    }
+
+    public static long insert(Connection conn, String sql, Object... params) throws SQLException {
+        update(conn, sql, params);
+        // Same connection, so this is the row just inserted
+        Long id = queryOne(conn, "SELECT last_insert_rowid()", rs -> rs.getLong(1));
+        return id == null ? 0 : id;
+    }
+
+    // ---------- BATCH ----------
+    /** Batches every item through one statement inside its own transaction on the write connection. */
+    public static <T> int[] batch(String sql, Collection<? extends T> items, Binder<T> binder) throws SQLException {
+        try (Connection conn = DbConnector.getConnection()) {
+            return inTransaction(conn, c -> batch(c, sql, items, binder));
+        }
+    }
+
+    /** Batches on the caller's connection; the caller owns the transaction. */
+    public static <T> int[] batch(Connection conn, String sql, Collection<? extends T> items, Binder<T> binder) throws SQLException {
+        if (items.isEmpty()) return new int[0];
+        return execute(conn, sql, ps -> {
+            for (T item : items) {
+                binder.bind(ps, item);
+                ps.addBatch();
+            }
+            return ps.executeBatch();
+        });
+    }
+
+    // ---------- TRANSACTION ----------
+    /** Runs the callback in one transaction; rolls back on any exception. */
+    public static <R> R inTransaction(Connection conn, TransactionCallback<R> work) throws SQLException {
+        boolean outer = conn.getAutoCommit();
+        if (!outer) return work.apply(conn); // already inside the caller's transaction
+        conn.setAutoCommit(false);
+        try {
+            R result = work.apply(conn);
+            conn.commit();
+            return result;
+        } catch (SQLException | RuntimeException e) {
+            conn.rollback();
+            throw e;
+        } finally {
+            conn.setAutoCommit(true);
+        }
+    }
+
+    // ---------- BINDING ----------
+    /** Binds positional parameters by Java type (1-based, in order). */
+    public static void bind(PreparedStatement ps, Object... params) throws SQLException {
+        for (int i = 0; i < params.length; i++) {
+            bind(ps, i + 1, params[i]);
+        }
+    }
+
+    public static void bind(PreparedStatement ps, int index, Object value) throws SQLException {
+        if (value == null) ps.setNull(index, Types.NULL);
+        else if (value instanceof String v) ps.setString(index, v);
+        else if (value instanceof Integer v) ps.setInt(index, v);
+        else if (value instanceof Long v) ps.setLong(index, v);
+        else if (value instanceof Double v) ps.setDouble(index, v);
+        else if (value instanceof Float v) ps.setDouble(index, v);
+        else if (value instanceof Short v) ps.setInt(index, v);
+        else if (value instanceof Boolean v) ps.setBoolean(index, v);
+        else if (value instanceof BigDecimal v) ps.setBigDecimal(index, v);
+        else if (value instanceof Money v) ps.setLong(index, v.getMinor());
+        else if (value instanceof Date v) ps.setDate(index, v);
+        else if (value instanceof Timestamp v) ps.setTimestamp(index, v);
+        else if (value instanceof LocalDateTime v) ps.setString(index, v.toString());
+        else if (value instanceof LocalDate v) ps.setString(index, v.toString());
+        else if (value instanceof Enum<?> v) ps.setString(index, v.name());
+        else if (value instanceof byte[] v) ps.setBytes(index, v);
+        else throw new SQLException("Unsupported parameter type at " + index + ": " + value.getClass().getName());
+    }
+
+    // ---------- STATEMENT LIFECYCLE ----------
+    private static <R> R execute(Connection conn, String sql, StatementCallback<R> body) throws SQLException {
+        if (conn instanceof CachingConnection cached) {
+            PreparedStatement ps = cached.prepareCached(sql);
+            try {
+                return body.apply(ps);
+            } finally {
+                cached.releaseCached(sql, ps);
+            }
+        }
+        try (PreparedStatement ps = conn.prepareStatement(sql)) {
+            return body.apply(ps);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package bikram.db;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 🧠 LRU cache of prepared statements for one physical connection.
+ * A pooled connection is confined to one thread at a time, so no locking is needed.
+ * A statement that is still in use (a nested call running the same SQL) is never
+ * handed out twice; the nested caller gets a throw-away statement instead.
+ * The hit/miss counters are the exception: {@link ConnectionPool#stats()} reads them
+ * from other threads, so they are {@link LongAdder}s.
+ */
+final class StatementCache {
+
+    private final Connection conn;
+    private final Set<PreparedStatement> inUse = Collections.newSetFromMap(new IdentityHashMap<>());
+    private final Map<String, PreparedStatement> statements;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+
+    StatementCache(Connection conn, int capacity) {
+        this.conn = conn;
+        this.statements = new LinkedHashMap<>(capacity * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, PreparedStatement> eldest) {
+                if (size() <= capacity) return false;
+                // A busy statement is closed by release() once its caller is done
+                if (!inUse.contains(eldest.getValue())) closeQuietly(eldest.getValue());
+                return true;
+            }
+        };
+    }
+
+    PreparedStatement acquire(String sql) throws SQLException {
+        PreparedStatement ps = statements.get(sql);
+        if (ps != null && !inUse.contains(ps) && !ps.isClosed()) {
+            hits.increment();
+        } else {
+            misses.increment();
+            PreparedStatement fresh = conn.prepareStatement(sql);
+            if (ps != null && inUse.contains(ps)) return fresh; // nested use: not cached
+            ps = fresh;
+            statements.put(sql, ps);
+        }
+        inUse.add(ps);
+        return ps;
+    }
+
+    void release(String sql, PreparedStatement ps) {
+        inUse.remove(ps);
+        if (statements.get(sql) != ps) {
+            closeQuietly(ps);
+            return;
+        }
+        try {
+            ps.clearParameters();
+            ps.clearBatch();
+        } catch (SQLException e) {
+            statements.remove(sql);
+            closeQuietly(ps);
+        }
+    }
+
+    long hits() { return hits.sum(); }
+    long misses() { return misses.sum(); }
+
+    void close() {
+        statements.values().forEach(StatementCache::closeQuietly);
+        statements.clear();
+        inUse.clear();
+    }
+
+    private static void closeQuietly(PreparedStatement ps) {
+        try {
+            ps.close();
+        } catch (SQLException e) {
+            System.err.println("⚠️ Failed to close cached statement: " + e.getMessage());
+        }
+    }
+}
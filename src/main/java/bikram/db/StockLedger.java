@@ -0,0 +1,231 @@
+package bikram.db;
+
+import bikram.model.StockMovement;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * 📒 Per-product stock ledger (SchemaMigrator v8).
+ * Every change to {@code products.quantity} is one conditional UPDATE plus an appended
+ * {@code stock_movements} row, written in the same transaction. The UPDATE is a
+ * compare-and-set: its WHERE clause re-checks the current count, or what other
+ * registers have reserved, so two registers can never both spend the last unit.
+ * There is no lock in Java; SQLite applies each statement atomically.
+ * <p>
+ * Carts reserve what they hold ({@link #reserve}). A reservation lasts
+ * {@link #RESERVATION_TTL} past the cart's last touch and then simply stops counting,
+ * so an abandoned register never pins stock.
+ */
+public class StockLedger {
+
+    public static final Duration RESERVATION_TTL =
+            Duration.ofMinutes(Long.getLong("techura.stock.reservationMinutes", 15));
+
+    /** Units of {@code product_id} held by other registers' live reservations (params: register, now). */
+    static final String RESERVED_BY_OTHERS_SQL = """
+            IFNULL((SELECT SUM(r.quantity) FROM stock_reservations r
+                    WHERE r.product_id = products.id AND r.register_id <> ? AND r.expires_at > ?), 0)
+            """;
+
+    // Appends a movement whose balance is read from the row just updated (same transaction)
+    static final String RECORD_MOVEMENT_SQL = """
+            INSERT INTO stock_movements(product_id, delta, on_hand, reason, ref, created_at)
+            SELECT id, ?, quantity, ?, ?, ? FROM products WHERE id = ?
+            """;
+
+    private static final String MOVE_SQL =
+            "UPDATE products SET quantity = quantity + ? WHERE id = ? AND quantity + ? >= 0";
+    private static final String SET_IF_SQL =
+            "UPDATE products SET quantity = ? WHERE id = ? AND quantity = ?";
+
+    // Adds to this register's hold only while on-hand minus every live hold still covers it.
+    // An expired hold of this register restarts from zero instead of being topped up.
+    private static final String RESERVE_SQL = """
+            INSERT INTO stock_reservations(register_id, product_id, quantity, expires_at)
+            SELECT ?, ?, ?, ?
+            WHERE (SELECT quantity FROM products WHERE id = ?)
+                  - IFNULL((SELECT SUM(quantity) FROM stock_reservations
+                            WHERE product_id = ? AND expires_at > ?), 0) >= ?
+            ON CONFLICT(register_id, product_id) DO UPDATE SET
+                quantity = CASE WHEN expires_at > ? THEN quantity ELSE 0 END + excluded.quantity,
+                expires_at = excluded.expires_at
+            """;
+    private static final String RELEASE_SQL =
+            "UPDATE stock_reservations SET quantity = quantity - ? WHERE register_id = ? AND product_id = ?";
+    private static final String DROP_EMPTY_SQL =
+            "DELETE FROM stock_reservations WHERE register_id = ? AND quantity <= 0";
+    private static final String RELEASE_ALL_SQL = "DELETE FROM stock_reservations WHERE register_id = ?";
+    private static final String EXTEND_SQL = "UPDATE stock_reservations SET expires_at = ? WHERE register_id = ?";
+    private static final String PURGE_SQL = "DELETE FROM stock_reservations WHERE expires_at <= ?";
+
+    private static final String ON_HAND_SQL = "SELECT quantity FROM products WHERE id = ?";
+    private static final String AVAILABLE_SQL =
+            "SELECT quantity - " + RESERVED_BY_OTHERS_SQL + " FROM products WHERE id = ?";
+    private static final String MOVEMENTS_SQL = """
+            SELECT id, product_id, delta, on_hand, reason, ref, created_at
+            FROM stock_movements
+            WHERE product_id = ?
+            ORDER BY id DESC
+            LIMIT ?
+            """;
+
+    /** A fresh id for one cart/register; reservations and sale movements are keyed by it. */
+    public static String newRegisterId() {
+        return "REG-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+
+    // ---------- MOVEMENTS ----------
+    /**
+     * Applies a signed change (goods received, return, write-off) and logs it.
+     * @return false if the product is unknown or the change would take stock below zero
+     */
+    public boolean move(String productId, int delta, StockMovement.Reason reason, String ref) {
+        try (Connection conn = DbConnector.getConnection()) {
+            return SqlTemplate.inTransaction(conn, c -> move(c, productId, delta, reason, ref));
+        } catch (SQLException e) {
+            System.err.println("❌ Stock movement failed (" + productId + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Stock count correction: sets on-hand to {@code target} only if it is still {@code expected}
+     * (the count the user was looking at). Logs the difference as an ADJUST movement.
+     * @return false if the count changed meanwhile (e.g. another register sold one); re-read and retry
+     */
+    public boolean setOnHand(String productId, int expected, int target, String ref) {
+        if (target < 0) return false;
+        if (target == expected) return true;
+        try (Connection conn = DbConnector.getConnection()) {
+            return SqlTemplate.inTransaction(conn, c -> {
+                if (SqlTemplate.update(c, SET_IF_SQL, target, productId, expected) == 0) return false;
+                SqlTemplate.update(c, RECORD_MOVEMENT_SQL, target - expected, StockMovement.Reason.ADJUST, ref, now(), productId);
+                return true;
+            });
+        } catch (SQLException e) {
+            System.err.println("❌ Stock adjustment failed (" + productId + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ---------- RESERVATIONS ----------
+    /** Holds {@code quantity} more units for the register; false if they are not available. */
+    public boolean reserve(String registerId, String productId, int quantity) {
+        long now = now();
+        try {
+            return SqlTemplate.update(RESERVE_SQL,
+                    registerId, productId, quantity, now + RESERVATION_TTL.toSeconds(),
+                    productId, productId, now, quantity,
+                    now) > 0;
+        } catch (SQLException e) {
+            System.err.println("❌ Stock reservation failed (" + productId + "): " + e.getMessage());
+            return false;
+        }
+    }
+
+    /** Gives back part of a hold (item removed from the cart). */
+    public void release(String registerId, String productId, int quantity) {
+        try (Connection conn = DbConnector.getConnection()) {
+            SqlTemplate.inTransaction(conn, c -> {
+                SqlTemplate.update(c, RELEASE_SQL, quantity, registerId, productId);
+                SqlTemplate.update(c, DROP_EMPTY_SQL, registerId);
+                return null;
+            });
+        } catch (SQLException e) {
+            System.err.println("⚠️ Stock release failed (" + productId + "): " + e.getMessage());
+        }
+    }
+
+    public void releaseAll(String registerId) {
+        try {
+            SqlTemplate.update(RELEASE_ALL_SQL, registerId);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Stock release failed (" + registerId + "): " + e.getMessage());
+        }
+    }
+
+    /** Keeps an active cart's holds alive for another {@link #RESERVATION_TTL}. */
+    public void extend(String registerId) {
+        try {
+            SqlTemplate.update(EXTEND_SQL, now() + RESERVATION_TTL.toSeconds(), registerId);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Stock reservation extend failed (" + registerId + "): " + e.getMessage());
+        }
+    }
+
+    /** Deletes expired holds; they already stopped counting, this only keeps the table small. */
+    public int purgeExpired() {
+        try {
+            return SqlTemplate.update(PURGE_SQL, now());
+        } catch (SQLException e) {
+            System.err.println("⚠️ Reservation purge failed: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    // ---------- READS ----------
+    public int getOnHand(String productId) {
+        try {
+            Integer q = SqlTemplate.queryOne(ON_HAND_SQL, rs -> rs.getInt(1), productId);
+            return q == null ? 0 : q;
+        } catch (SQLException e) {
+            System.err.println("⚠️ On-hand lookup failed (" + productId + "): " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** On-hand minus what other registers hold: what this register can still sell. */
+    public int getAvailable(String registerId, String productId) {
+        try {
+            Integer q = SqlTemplate.queryOne(AVAILABLE_SQL, rs -> rs.getInt(1), registerId, now(), productId);
+            return q == null ? 0 : Math.max(0, q);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Availability lookup failed (" + productId + "): " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /** Audit trail, newest first. */
+    public List<StockMovement> getMovements(String productId, int limit) {
+        try {
+            return SqlTemplate.query(MOVEMENTS_SQL, rs -> new StockMovement(
+                    rs.getLong("id"),
+                    rs.getString("product_id"),
+                    rs.getInt("delta"),
+                    rs.getInt("on_hand"),
+                    StockMovement.Reason.valueOf(rs.getString("reason")),
+                    rs.getString("ref"),
+                    Instant.ofEpochSecond(rs.getLong("created_at"))), productId, limit);
+        } catch (SQLException e) {
+            System.err.println("⚠️ Stock history failed (" + productId + "): " + e.getMessage());
+            return new ArrayList<>();
+        }
+    }
+
+    // ---------- CHECKOUT SUPPORT ----------
+    /** Appends one SALE movement per decremented line; call inside the checkout transaction. */
+    static void recordSales(Connection conn, String registerId, Collection<bikram.model.Sales> lines) throws SQLException {
+        long now = now();
+        SqlTemplate.batch(conn, RECORD_MOVEMENT_SQL, lines, (ps, s) -> SqlTemplate.bind(ps,
+                -s.getQuantity(), StockMovement.Reason.SALE, registerId, now, s.getProductId()));
+        SqlTemplate.update(conn, RELEASE_ALL_SQL, registerId);
+    }
+
+    /** {@link #move} on the caller's connection and transaction. */
+    static boolean move(Connection conn, String productId, int delta, StockMovement.Reason reason, String ref) throws SQLException {
+        if (SqlTemplate.update(conn, MOVE_SQL, delta, productId, delta) == 0) return false;
+        SqlTemplate.update(conn, RECORD_MOVEMENT_SQL, delta, reason, ref, now(), productId);
+        return true;
+    }
+
+    static long now() {
+        return Instant.now().getEpochSecond();
+    }
+}
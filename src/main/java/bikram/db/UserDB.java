@@ -15,32 +15,43 @@ import java.util.*;
  */
 public class UserDB implements UserRepository {
 
+    private static final String COLUMNS =
+            "id, first_name, last_name, address, phone_number, email, password, role, joined_date, salaryPerMonth";
+
+    // Column order matches COLUMNS, so rows are read by index
+    private static final SqlTemplate.RowMapper<User> USER_MAPPER = rs -> new User(
+            rs.getString(1),
+            rs.getString(2),
+            rs.getString(3),
+            rs.getString(4),
+            rs.getString(5),
+            rs.getString(6),
+            rs.getString(7),
+            Role.valueOf(rs.getString(8).toUpperCase()),
+            rs.getDate(9),
+            rs.getDouble(10)
+    );
+
+    private static final String SELECT_ALL_SQL = "SELECT " + COLUMNS + " FROM users";
+    // COLLATE NOCASE matches idx_users_email_nocase, so the lookup is an index seek (LOWER() was a full scan)
+    private static final String SELECT_BY_EMAIL_SQL = SELECT_ALL_SQL + " WHERE email = ? COLLATE NOCASE";
+    private static final String SELECT_BY_ID_SQL = SELECT_ALL_SQL + " WHERE id = ?";
+    // Keyset paging on rowid: insertion order (ids are random), and each page is a seek however deep the listing goes.
+    // rowid is the 11th column, after COLUMNS, so USER_MAPPER reads these rows unchanged
+    private static final String PAGE_SQL = "SELECT " + COLUMNS + ", rowid FROM users WHERE rowid > ? ORDER BY rowid LIMIT ?";
+    private static final String ROWID_BY_ID_SQL = "SELECT rowid FROM users WHERE id = ?";
+
+    public static final int DEFAULT_PAGE_SIZE = 500;
+
+    // id → User, shared by every UserDB instance; writes through this class evict their entry.
+    // Callers only ever get copies, so one page's edits can't leak into another's
+    private static final Map<String, User> BY_ID = new java.util.concurrent.ConcurrentHashMap<>();
 
     // ---------------- CREATE TABLE ----------------
     @Override
     public void createTable() {
-        String sql = """
-            CREATE TABLE IF NOT EXISTS users (
-                id TEXT UNIQUE NOT NULL,
-                first_name TEXT NOT NULL,
-                last_name TEXT NOT NULL,
-                address TEXT,
-                phone_number TEXT NOT NULL,
-                email TEXT UNIQUE,
-                password TEXT,
-                role TEXT NOT NULL,
-                joined_date DATE,
-                salaryPerMonth NUMBER
-            );
-        """;
-
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement()) {
-            stmt.execute(sql);
-            log("✅ ユーザーテーブル作成成功！");
-        } catch (SQLException e) {
-            logError("ユーザーテーブル作成失敗: " + e.getMessage());
-        }
+        // DDL lives in SchemaMigrator; this only runs once per process
+        SchemaMigrator.migrate();
     }
 
     // ---------------- ADD USER ----------------
@@ -51,26 +62,20 @@ public class UserDB implements UserRepository {
             VALUES(?,?,?,?,?,?,?,?,?,?)
         """;
 
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            String userId = (user.getId() == null || user.getId().isEmpty()) ? IdGenerator.idGenerate("USR", 4) : user.getId();
-            String hashedPassword = SecurityUtil.hashPassword(user.getPassword());
-
-            pstmt.setString(1, userId);
-            pstmt.setString(2, user.getFirstName());
-            pstmt.setString(3, user.getLastName());
-            pstmt.setString(4, user.getAddress());
-            pstmt.setString(5, user.getPhoneNumber());
-            pstmt.setString(6, user.getEmail());
-            pstmt.setString(7, hashedPassword);
-            pstmt.setString(8, user.getRole().name());
-            pstmt.setDate(9, user.getJoined_date());
-            pstmt.setDouble(10, user.getSalaryPerMonth());
-
-            pstmt.executeUpdate();
+        String userId = (user.getId() == null || user.getId().isEmpty()) ? IdGenerator.idGenerate("USR", 4) : user.getId();
+        try {
+            SqlTemplate.update(sql,
+                    userId,
+                    user.getFirstName(),
+                    user.getLastName(),
+                    user.getAddress(),
+                    user.getPhoneNumber(),
+                    user.getEmail(),
+                    SecurityUtil.hashPassword(user.getPassword()),
+                    user.getRole().name(),
+                    user.getJoined_date(),
+                    user.getSalaryPerMonth());
             log("✅ ユーザー追加成功: " + user.getFullName());
-
         } catch (SQLException e) {
             logError("ユーザー追加失敗: " + e.getMessage());
         }
@@ -80,35 +85,69 @@ public class UserDB implements UserRepository {
     @Override
     public List<User> getAllUsers() {
         List<User> list = new ArrayList<>();
-        String sql = "SELECT * FROM users";
+        streamUsers(DEFAULT_PAGE_SIZE, list::addAll);
+        log("✅ 全ユーザー取得成功 (" + list.size() + ")");
+        return list;
+    }
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
+    // ---------------- PAGED LISTING ----------------
+    @Override
+    public List<User> getUsersPage(String afterId, int limit) {
+        try {
+            long afterRowid = 0;
+            if (afterId != null) {
+                Long rowid = SqlTemplate.queryOne(ROWID_BY_ID_SQL, rs -> rs.getLong(1), afterId);
+                if (rowid == null) return new ArrayList<>();   // cursor row is gone; restart from null
+                afterRowid = rowid;
+            }
+            return pageAfter(afterRowid, limit, new long[1]);
+        } catch (SQLException e) {
+            logError("ユーザーページ取得失敗: " + e.getMessage());
+        }
+        return new ArrayList<>();
+    }
 
-            while (rs.next()) {
-                list.add(mapResultSetToUser(rs));
+    /** One page after {@code afterRowid}; the last row's rowid is left in {@code lastRowid[0]}. */
+    private List<User> pageAfter(long afterRowid, int limit, long[] lastRowid) throws SQLException {
+        List<User> page = SqlTemplate.query(PAGE_SQL, rs -> {
+            lastRowid[0] = rs.getLong(11);
+            return USER_MAPPER.map(rs);
+        }, afterRowid, limit);
+        for (User u : page) BY_ID.put(u.getId(), new User(u));
+        return page;
+    }
+
+    @Override
+    public void streamUsers(int pageSize, java.util.function.Consumer<List<User>> onPage) {
+        // The read connection goes back to the pool between pages; the cursor is the last rowid seen
+        long[] cursor = {0};
+        try {
+            while (true) {
+                List<User> page = pageAfter(cursor[0], pageSize, cursor);
+                if (page.isEmpty()) return;
+                onPage.accept(page);
+                if (page.size() < pageSize) return;
             }
-            log("✅ 全ユーザー取得成功 (" + list.size() + ")");
+        } catch (SQLException e) {
+            logError("ユーザーページ取得失敗: " + e.getMessage());
+        }
+    }
 
+    @Override
+    public int countUsers() {
+        try {
+            return SqlTemplate.queryInt("SELECT COUNT(*) FROM users");
         } catch (SQLException e) {
-            logError("ユーザー取得失敗: " + e.getMessage());
+            logError("ユーザー数取得失敗: " + e.getMessage());
+            return 0;
         }
-        return list;
     }
 
     // ---------------- READ BY EMAIL ----------------
     @Override
     public User getUserByEmail(String email) {
-        String sql = "SELECT * FROM users WHERE LOWER(email) = LOWER(?)";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, email);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return mapResultSetToUser(rs);
-            }
-
+        try {
+            return SqlTemplate.queryOne(SELECT_BY_EMAIL_SQL, USER_MAPPER, email);
         } catch (SQLException e) {
             logError("メール検索失敗: " + e.getMessage());
         }
@@ -137,40 +176,54 @@ public class UserDB implements UserRepository {
             WHERE id = ?
         """;
 
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, user.getFirstName());
-            pstmt.setString(2, user.getLastName());
-            pstmt.setString(3, user.getAddress());
-            pstmt.setString(4, user.getPhoneNumber());
-            pstmt.setString(5, user.getEmail());
-            pstmt.setString(6, user.getPassword());
-            pstmt.setString(7, user.getRole().name());
-            pstmt.setDate(8, user.getJoined_date());
-            pstmt.setDouble(9, user.getSalaryPerMonth());
-            pstmt.setString(10, user.getId());
-
-            int rows = pstmt.executeUpdate();
-            if (rows > 0) log("✅ ユーザー更新成功: " + user.getFullName());
-            else log("⚠️ 該当ユーザーなし: " + user.getId());
+        try {
+            int rows = SqlTemplate.update(sql,
+                    user.getFirstName(),
+                    user.getLastName(),
+                    user.getAddress(),
+                    user.getPhoneNumber(),
+                    user.getEmail(),
+                    user.getPassword(),
+                    user.getRole().name(),
+                    user.getJoined_date(),
+                    user.getSalaryPerMonth(),
+                    user.getId());
+            BY_ID.remove(user.getId());
+            if (rows > 0) {
+                log("✅ ユーザー更新成功: " + user.getFullName());
+                SecurityAuth.userUpdated(user); // a role change ends that user's sessions
+            } else {
+                log("⚠️ 該当ユーザーなし: " + user.getId());
+            }
 
         } catch (SQLException e) {
             logError("ユーザー更新失敗: " + e.getMessage());
         }
     }
 
+    // ---------------- PASSWORD HASH ----------------
+    @Override
+    public void updatePasswordHash(String id, String passwordHash) {
+        try {
+            SqlTemplate.update("UPDATE users SET password = ? WHERE id = ?", passwordHash, id);
+            BY_ID.remove(id);
+        } catch (SQLException e) {
+            logError("パスワード更新失敗: " + e.getMessage());
+        }
+    }
+
     // ---------------- DELETE USER ----------------
     @Override
     public void deleteUser(String id) {
-        String sql = "DELETE FROM users WHERE id = ?";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, id);
-            int rows = pstmt.executeUpdate();
-            if (rows > 0) log("🗑️ ユーザー削除成功: " + id);
-            else log("⚠️ 該当ユーザーなし: " + id);
+        try {
+            int rows = SqlTemplate.update("DELETE FROM users WHERE id = ?", id);
+            BY_ID.remove(id);
+            if (rows > 0) {
+                log("🗑️ ユーザー削除成功: " + id);
+                SecurityAuth.userDeleted(id);
+            } else {
+                log("⚠️ 該当ユーザーなし: " + id);
+            }
 
         } catch (SQLException e) {
             logError("ユーザー削除失敗: " + e.getMessage());
@@ -185,6 +238,8 @@ public class UserDB implements UserRepository {
              Statement stmt = conn.createStatement()) {
             stmt.execute(sql);
             log("✅ テーブル削除成功: " + tablename);
+            BY_ID.clear();
+            SchemaMigrator.invalidate();
         } catch (SQLException e) {
             logError("テーブル削除失敗: " + e.getMessage());
         }
@@ -193,23 +248,18 @@ public class UserDB implements UserRepository {
     // ---------------- LOGIN ----------------
     @Override
     public Optional<User> verifyLogin(String email, String rawPassword) {
-        String sql = "SELECT * FROM users WHERE LOWER(email) = LOWER(?)";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, email);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) {
-                    String storedHash = rs.getString("password");
-                    if (SecurityUtil.verifyPassword(rawPassword, storedHash)) {
-                        User user = mapResultSetToUser(rs);
-                        SecurityAuth.setCurrentUser(user);
-                        log("✅ ログイン成功: " + email);
-                        return Optional.of(user);
-                    } else log("⚠️ パスワード不正: " + email);
-                } else log("⚠️ 該当ユーザーなし: " + email);
+        try {
+            // Look the row up first and release the connection before the (slow) hash check
+            User user = SqlTemplate.queryOne(SELECT_BY_EMAIL_SQL, USER_MAPPER, email);
+            if (user == null) {
+                log("⚠️ 該当ユーザーなし: " + email);
+            } else if (SecurityUtil.verifyPassword(rawPassword, user.getPassword())) {
+                SecurityAuth.setCurrentUser(user);
+                log("✅ ログイン成功: " + email);
+                return Optional.of(user);
+            } else {
+                log("⚠️ パスワード不正: " + email);
             }
-
         } catch (SQLException e) {
             logError("ログインチェック失敗: " + e.getMessage());
         }
@@ -228,24 +278,20 @@ public class UserDB implements UserRepository {
             ORDER BY month ASC
         """;
 
-        try (Connection conn = DbConnector.getConnection();
-             Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            java.time.format.DateTimeFormatter monthFormatter = java.time.format.DateTimeFormatter.ofPattern("MMM");
-            java.time.LocalDate now = java.time.LocalDate.now();
+        java.time.format.DateTimeFormatter monthFormatter = java.time.format.DateTimeFormatter.ofPattern("MMM");
+        java.time.LocalDate now = java.time.LocalDate.now();
 
-            for (int i = 5; i >= 0; i--) {
-                java.time.LocalDate month = now.minusMonths(i);
-                data.put(month.format(monthFormatter), 0);
-            }
+        for (int i = 5; i >= 0; i--) {
+            java.time.LocalDate month = now.minusMonths(i);
+            data.put(month.format(monthFormatter), 0);
+        }
 
-            while (rs.next()) {
+        try {
+            SqlTemplate.forEach(sql, rs -> {
                 int monthInt = Integer.parseInt(rs.getString("month"));
                 String monthName = java.time.LocalDate.of(now.getYear(), monthInt, 1).format(monthFormatter);
                 data.put(monthName, rs.getInt("total"));
-            }
-
+            });
         } catch (SQLException e) {
             logError("月別ユーザー取得失敗: " + e.getMessage());
         }
@@ -255,38 +301,19 @@ public class UserDB implements UserRepository {
     // ---------------- GET BY ID ----------------
     @Override
     public User getUserById(String id) {
-        String sql = "SELECT * FROM users WHERE id = ?";
-        try (Connection conn = DbConnector.getConnection();
-             PreparedStatement pstmt = conn.prepareStatement(sql)) {
-
-            pstmt.setString(1, id);
-            try (ResultSet rs = pstmt.executeQuery()) {
-                if (rs.next()) return mapResultSetToUser(rs);
-            }
-
+        if (id == null) return null;
+        User cached = BY_ID.get(id);
+        if (cached != null) return new User(cached);
+        try {
+            User user = SqlTemplate.queryOne(SELECT_BY_ID_SQL, USER_MAPPER, id);
+            if (user != null) BY_ID.put(id, new User(user));
+            return user;
         } catch (SQLException e) {
             logError("ID検索失敗: " + e.getMessage());
         }
         return null;
     }
 
-    // ---------------- HELPER: MAP RESULTSET ----------------
-    private User mapResultSetToUser(ResultSet rs) throws SQLException {
-        Role role = Role.valueOf(rs.getString("role").toUpperCase());
-        return new User(
-                rs.getString("id"),
-                rs.getString("first_name"),
-                rs.getString("last_name"),
-                rs.getString("address"),
-                rs.getString("phone_number"),
-                rs.getString("email"),
-                rs.getString("password"),
-                role,
-                rs.getDate("joined_date"),
-                rs.getDouble("salaryPerMonth")
-        );
-    }
-
     // ---------------- LOGGING ----------------
     private void log(String msg) {
         System.out.println("📌 " + msg);
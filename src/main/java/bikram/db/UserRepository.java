@@ -7,9 +7,15 @@ public interface UserRepository {
     void createTable();
     void addUser(User user);
     List<User> getAllUsers();
+    // Keyset paging in insertion order: pass null for the first page, then the last id of the previous page
+    List<User> getUsersPage(String afterId, int limit);
+    // Walks every user page by page, handing each page over as soon as it is read
+    void streamUsers(int pageSize, java.util.function.Consumer<List<User>> onPage);
+    int countUsers();
     User getUserByEmail(String email);
     Optional<User> getUserByEmailOptional(String email);
     void updateUser(User user);
+    void updatePasswordHash(String id, String passwordHash);
     void deleteUser(String id);
     void dropTable(String tableName);
     Optional<User> verifyLogin(String email, String rawPassword);
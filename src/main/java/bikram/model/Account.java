@@ -0,0 +1,33 @@
+package bikram.model;
+
+/**
+ * 📚 One account of the double-entry journal with its running balance.
+ * Balances are debit-positive: assets and expenses are normally positive,
+ * equity and income normally negative.
+ */
+public class Account {
+
+    public enum Type { ASSET, EQUITY, INCOME, EXPENSE }
+
+    private final String code;
+    private final String name;
+    private final Type type;
+    private final Money balance;
+
+    public Account(String code, String name, Type type, Money balance) {
+        this.code = code;
+        this.name = name;
+        this.type = type;
+        this.balance = balance;
+    }
+
+    public String getCode() { return code; }
+    public String getName() { return name; }
+    public Type getType() { return type; }
+    public Money getBalance() { return balance; }
+
+    @Override
+    public String toString() {
+        return String.format("Account{%s %s %s %s}", code, name, type, balance);
+    }
+}
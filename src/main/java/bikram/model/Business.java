@@ -1,30 +1,34 @@
 package bikram.model;
 
+/**
+ * 🏢 The business profile. Balance, profit and loss are a read-only view of the journal,
+ * filled in by {@code BusinessDataManager.loadBusiness()}; they are transient, so they are
+ * never saved with the profile.
+ */
 public class Business {
     private String business_name;
     private String owner;
     private String business_address;
-    private double balance;
-    private double loss;
-    private double profit;
+    private transient double balance;
+    private transient double loss;    // kept as a negative total
+    private transient double profit;
     private double budgect;
     public Business(){}
-    public Business(String business_name,String owner,String business_address,double balance){
-        this.business_name=business_name;
-        this.owner=owner;
-        this.business_address=business_address;
-        this.balance=balance;
-    }
     public Business(String business_name,String owner,String business_address){
         this.business_name=business_name;
         this.owner=owner;
         this.business_address=business_address;
-        this.balance=0;
-        this.loss=0;
-        this.profit=0;
         this.budgect=0;
     }
 
+    /** Journal totals: cash on hand, and the net result as profit (≥ 0) or loss (≤ 0). */
+    public void setTotals(Money cash, ProfitAndLoss pnl) {
+        double net = pnl.getNetProfit().toDouble();
+        this.balance = cash.toDouble();
+        this.profit = Math.max(net, 0);
+        this.loss = Math.min(net, 0);
+    }
+
     public double getBalance() {
         return balance;
     }
@@ -53,10 +57,6 @@ public class Business {
         return owner;
     }
 
-    public void setBalance(double balance) {
-        this.balance += balance;
-    }
-
     public void setBusiness_address(String business_address) {
         this.business_address = business_address;
     }
@@ -66,19 +66,11 @@ public class Business {
     }
 
     public void setBudgect(String title,double budgect) {
-        title=title;
         this.budgect = budgect;
     }
 
-    public void setLoss(double loss) {
-        this.loss -= loss;
-    }
-
     public void setOwner(String owner) {
         this.owner = owner;
     }
 
-    public void setProfit(double profit) {
-        this.profit += profit;
-    }
 }
@@ -0,0 +1,46 @@
+package bikram.model;
+
+import java.time.LocalDate;
+
+/**
+ * 📅 Inclusive date range for analytics queries.
+ * A null bound means "open" on that side; {@link #all()} covers all history.
+ */
+public class DateRange {
+
+    private static final DateRange ALL = new DateRange(null, null);
+
+    private final LocalDate start;
+    private final LocalDate end;
+
+    private DateRange(LocalDate start, LocalDate end) {
+        this.start = start;
+        this.end = end;
+    }
+
+    public static DateRange all() { return ALL; }
+
+    public static DateRange of(LocalDate start, LocalDate end) { return new DateRange(start, end); }
+
+    /** Last {@code days} days including today. */
+    public static DateRange lastDays(int days) {
+        LocalDate today = LocalDate.now();
+        return new DateRange(today.minusDays(days - 1L), today);
+    }
+
+    public LocalDate getStart() { return start; }
+    public LocalDate getEnd() { return end; }
+
+    public boolean isUnbounded() { return start == null && end == null; }
+
+    /** Start as epoch day, or Long.MIN_VALUE when open. */
+    public long startEpochDay() { return start == null ? Long.MIN_VALUE : start.toEpochDay(); }
+
+    /** End as epoch day, or Long.MAX_VALUE when open. */
+    public long endEpochDay() { return end == null ? Long.MAX_VALUE : end.toEpochDay(); }
+
+    @Override
+    public String toString() {
+        return "DateRange{" + (start == null ? "…" : start) + " ~ " + (end == null ? "…" : end) + "}";
+    }
+}
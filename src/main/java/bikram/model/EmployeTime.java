@@ -15,6 +15,7 @@ public class EmployeTime {
     // Updated formatter for "yyyy-MM-dd HH:mm:ss"
     private static final DateTimeFormatter F = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
 
+    private long id;            // 0 until saved
     private String userId;
     private String entryTime;   // stored as String
     private String exitTime;    // stored as String
@@ -46,6 +47,14 @@ public class EmployeTime {
         }
     }
 
+    // --------------------------
+    // STORED ROW
+    // --------------------------
+    public EmployeTime(long id, String userId, String entryTime, String exitTime) {
+        this(userId, entryTime, exitTime);
+        this.id = id;
+    }
+
     // --------------------------
     // TIME CALCULATION
     // --------------------------
@@ -73,6 +82,18 @@ public class EmployeTime {
     // --------------------------
     // GETTERS
     // --------------------------
+    public long getId() {
+        return id;
+    }
+
+    public void setId(long id) {
+        this.id = id;
+    }
+
+    public boolean isOpen() {
+        return exitTime == null;
+    }
+
     public String getUserId() {
         return userId;
     }
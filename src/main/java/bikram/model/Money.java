@@ -0,0 +1,135 @@
+package bikram.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+/**
+ * 💴 An exact yen amount, held as a {@code long} count of minor units (1/100 yen, the two
+ * decimals the app has always shown) and stored in SQLite as INTEGER.
+ * <p>
+ * Rounding rules: sums and quantities are exact. Anything that can produce a fraction
+ * of a minor unit (a percentage, a double or text from the user) is rounded once,
+ * half away from zero (四捨五入).
+ * <p>
+ * The static {@code long} methods do the same arithmetic without allocating. The checkout
+ * path and aggregations work in minor units and wrap the result once.
+ */
+public final class Money implements Comparable<Money> {
+
+    /** Minor units per yen. */
+    public static final int SCALE = 100;
+    private static final long BASIS_POINTS = 10_000;   // 100.00%
+
+    public static final Money ZERO = new Money(0);
+
+    private final long minor;
+
+    private Money(long minor) {
+        this.minor = minor;
+    }
+
+    // ---------- FACTORIES ----------
+    public static Money ofMinor(long minor) {
+        return minor == 0 ? ZERO : new Money(minor);
+    }
+
+    public static Money of(long yen) {
+        return ofMinor(Math.multiplyExact(yen, SCALE));
+    }
+
+    /** From a double yen value (legacy APIs, chart input); rounded to the minor unit. */
+    public static Money of(double yen) {
+        return ofMinor(toMinor(yen));
+    }
+
+    /** Parses user input such as "1,200", "¥980" or "12.5"; throws NumberFormatException. */
+    public static Money parse(String text) {
+        if (text == null) throw new NumberFormatException("金額が空です");
+        String plain = text.trim().replace(",", "").replace("¥", "").replace("￥", "");
+        try {
+            return ofMinor(new BigDecimal(plain).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact());
+        } catch (ArithmeticException e) {
+            throw new NumberFormatException("金額が大きすぎます: " + text);
+        }
+    }
+
+    // ---------- PRIMITIVE ARITHMETIC (allocation-free) ----------
+    public static long toMinor(double yen) {
+        return BigDecimal.valueOf(yen).movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    public static double toYen(long minor) {
+        return minor / (double) SCALE;
+    }
+
+    public static long times(long minor, int quantity) {
+        return Math.multiplyExact(minor, (long) quantity);
+    }
+
+    /** A percentage such as 12.5 as basis points (1250); rounded to 0.01%. */
+    public static long basisPoints(double percent) {
+        return Math.round(percent * 100);
+    }
+
+    /** {@code percent}% of an amount, rounded once. */
+    public static long percentOf(long minor, long basisPoints) {
+        return divideRounded(Math.multiplyExact(minor, basisPoints), BASIS_POINTS);
+    }
+
+    /** Unit price × quantity less a percentage discount, rounded once for the whole line. */
+    public static long lineTotal(long unitMinor, int quantity, double discountPercent) {
+        long gross = times(unitMinor, quantity);
+        return gross - percentOf(gross, basisPoints(discountPercent));
+    }
+
+    /** Integer division rounding half away from zero; {@code divisor} must be positive. */
+    static long divideRounded(long dividend, long divisor) {
+        long half = divisor / 2;
+        return dividend >= 0 ? (dividend + half) / divisor : -((-dividend + half) / divisor);
+    }
+
+    // ---------- VALUE ARITHMETIC ----------
+    public Money plus(Money other) { return ofMinor(Math.addExact(minor, other.minor)); }
+    public Money minus(Money other) { return ofMinor(Math.subtractExact(minor, other.minor)); }
+    public Money times(int quantity) { return ofMinor(times(minor, quantity)); }
+    public Money negate() { return ofMinor(Math.negateExact(minor)); }
+
+    // ---------- ACCESSORS ----------
+    public long getMinor() { return minor; }
+    /** For charts and other double-based display APIs only. */
+    public double toDouble() { return toYen(minor); }
+    public int signum() { return Long.signum(minor); }
+    public boolean isZero() { return minor == 0; }
+    public boolean isNegative() { return minor < 0; }
+
+    /** "1234.5" — for editable text fields ({@link #parse} reads it back). */
+    public String toPlainString() {
+        return BigDecimal.valueOf(minor, 2).stripTrailingZeros().toPlainString();
+    }
+
+    @Override
+    public int compareTo(Money other) {
+        return Long.compare(minor, other.minor);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof Money m && m.minor == minor;
+    }
+
+    @Override
+    public int hashCode() {
+        return Long.hashCode(minor);
+    }
+
+    /** "¥1,234" or "¥1,234.50"; negative amounts as "-¥1,234". */
+    @Override
+    public String toString() {
+        long abs = Math.abs(minor);
+        String sign = minor < 0 ? "-" : "";
+        long fraction = abs % SCALE;
+        return fraction == 0
+                ? String.format("%s¥%,d", sign, abs / SCALE)
+                : String.format("%s¥%,d.%02d", sign, abs / SCALE, fraction);
+    }
+}
@@ -0,0 +1,61 @@
+package bikram.model;
+
+import java.time.YearMonth;
+
+/**
+ * 💴 One employee's payroll for one month, computed from that month's punches in memory.
+ * Hours come from the stored shift hours; overtime, late arrival and early leave are per working day.
+ */
+public class Payroll {
+
+    private final String userId;
+    private final YearMonth month;
+    private final int daysWorked;
+    private final double totalHours;
+    private final double overtimeHours;
+    private final int lateMinutes;
+    private final int earlyLeaveMinutes;
+    private final double regularPay;
+    private final double overtimePay;
+    private final double deductions;
+
+    public Payroll(String userId, YearMonth month, int daysWorked, double totalHours, double overtimeHours,
+                   int lateMinutes, int earlyLeaveMinutes, double regularPay, double overtimePay, double deductions) {
+        this.userId = userId;
+        this.month = month;
+        this.daysWorked = daysWorked;
+        this.totalHours = totalHours;
+        this.overtimeHours = overtimeHours;
+        this.lateMinutes = lateMinutes;
+        this.earlyLeaveMinutes = earlyLeaveMinutes;
+        this.regularPay = regularPay;
+        this.overtimePay = overtimePay;
+        this.deductions = deductions;
+    }
+
+    public String getUserId() { return userId; }
+    public YearMonth getMonth() { return month; }
+    public int getDaysWorked() { return daysWorked; }
+    public double getTotalHours() { return totalHours; }
+    public double getOvertimeHours() { return overtimeHours; }
+    public int getLateMinutes() { return lateMinutes; }
+    public int getEarlyLeaveMinutes() { return earlyLeaveMinutes; }
+    public double getRegularPay() { return regularPay; }
+    public double getOvertimePay() { return overtimePay; }
+    public double getDeductions() { return deductions; }
+
+    /** Regular + overtime pay, before deductions. */
+    public double getGrossPay() {
+        return regularPay + overtimePay;
+    }
+
+    public double getFinalPay() {
+        return getGrossPay() - deductions;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("Payroll{%s %s, days=%d, hours=%.2f, overtime=%.2f, late=%dm, early=%dm, final=%.2f}",
+                userId, month, daysWorked, totalHours, overtimeHours, lateMinutes, earlyLeaveMinutes, getFinalPay());
+    }
+}
@@ -10,8 +10,8 @@ public class Product {
 
     private String id;
     private String name;
-    private double price;      // Selling price per unit
-    private double cost;       // Cost per unit (NEW)
+    private Money price = Money.ZERO;   // Selling price per unit
+    private Money cost = Money.ZERO;    // Cost per unit
     private double discount;
     private int quantity;
     private String description;
@@ -24,7 +24,7 @@ public class Product {
     public Product() {}
 
     // Constructor with cost included
-    public Product(String name, double price, double cost, int quantity, String description) {
+    public Product(String name, Money price, Money cost, int quantity, String description) {
         this.id = IdGenerator.idGenerate("PRD",4);
         this.name = name;
         this.price = price;
@@ -36,7 +36,7 @@ public class Product {
         BarcodeGenerator.generateBarcode(this.getId(), this.getName(), BarcodeFormat.CODE_128, 300, 100);
     }
 
-    public Product(String name, double price, int quantity, String desc) {
+    public Product(String name, Money price, int quantity, String desc) {
         this.name = name;
         this.price=price;
         this.quantity=quantity;
@@ -44,6 +44,24 @@ public class Product {
     }
 
 
+    /**
+     * Field-by-field copy. The product cache stores its own copy of each row it loads, and
+     * editors copy a cached product before changing it, since cached instances are shared.
+     */
+    public Product(Product other) {
+        this.id = other.id;
+        this.name = other.name;
+        this.price = other.price;
+        this.cost = other.cost;
+        this.discount = other.discount;
+        this.quantity = other.quantity;
+        this.description = other.description;
+        this.category = other.category;
+        this.supplier = other.supplier;
+        this.created_at = other.created_at;
+        this.expire_date = other.expire_date;
+    }
+
     // Getters and Setters
     public String getId() { return id; }
     public void setId(String id) { this.id = id; }
@@ -51,11 +69,11 @@ public class Product {
     public String getName() { return name; }
     public void setName(String name) { this.name = name; }
 
-    public double getPrice() { return price; }
-    public void setPrice(double price) { this.price = price; }
+    public Money getPrice() { return price; }
+    public void setPrice(Money price) { this.price = price; }
 
-    public double getCost() { return cost; }
-    public void setCost(double cost) { this.cost = cost; }
+    public Money getCost() { return cost; }
+    public void setCost(Money cost) { this.cost = cost; }
 
     public double getDiscount() { return discount; }
     public void setDiscount(double discount) { this.discount = discount; }
@@ -80,6 +98,6 @@ public class Product {
 
     @Override
     public String toString() {
-        return String.format("Product{id='%s', name='%s', price=%.2f, cost=%.2f, quantity=%d}", id, name, price, cost, quantity);
+        return String.format("Product{id='%s', name='%s', price=%s, cost=%s, quantity=%d}", id, name, price, cost, quantity);
     }
 }
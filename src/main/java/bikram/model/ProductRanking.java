@@ -0,0 +1,57 @@
+package bikram.model;
+
+/**
+ * 🏆 One product's sales totals in a ranking.
+ * Charts and reports read these fields directly instead of parsing display strings.
+ */
+public class ProductRanking {
+
+    /** What to rank by; each maps to a fixed aggregate column. */
+    public enum Metric {
+        QUANTITY("qty"),
+        REVENUE("revenue"),
+        PROFIT("profit");
+
+        private final String column;
+
+        Metric(String column) {
+            this.column = column;
+        }
+
+        public String column() { return column; }
+    }
+
+    private final String productId;
+    private final String name;
+    private final int quantity;
+    private final double revenue;
+    private final double profit;
+
+    public ProductRanking(String productId, String name, int quantity, double revenue, double profit) {
+        this.productId = productId;
+        this.name = name;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.profit = profit;
+    }
+
+    public String getProductId() { return productId; }
+    public String getName() { return name; }
+    public int getQuantity() { return quantity; }
+    public double getRevenue() { return revenue; }
+    public double getProfit() { return profit; }
+
+    public double value(Metric metric) {
+        return switch (metric) {
+            case QUANTITY -> quantity;
+            case REVENUE -> revenue;
+            case PROFIT -> profit;
+        };
+    }
+
+    @Override
+    public String toString() {
+        return String.format("ProductRanking{id='%s', name='%s', qty=%d, revenue=%.2f, profit=%.2f}",
+                productId, name, quantity, revenue, profit);
+    }
+}
@@ -0,0 +1,37 @@
+package bikram.model;
+
+/**
+ * 📈 Income statement read from the journal's account balances.
+ * Every figure is a positive amount in its natural sense (revenue earned, costs paid).
+ */
+public class ProfitAndLoss {
+
+    private final Money revenue;
+    private final Money returns;
+    private final Money costOfSales;
+    private final Money payroll;
+    private final Money expenses;
+
+    public ProfitAndLoss(Money revenue, Money returns, Money costOfSales, Money payroll, Money expenses) {
+        this.revenue = revenue;
+        this.returns = returns;
+        this.costOfSales = costOfSales;
+        this.payroll = payroll;
+        this.expenses = expenses;
+    }
+
+    public Money getRevenue() { return revenue; }
+    public Money getReturns() { return returns; }
+    public Money getNetRevenue() { return revenue.minus(returns); }
+    public Money getCostOfSales() { return costOfSales; }
+    public Money getGrossProfit() { return getNetRevenue().minus(costOfSales); }
+    public Money getPayroll() { return payroll; }
+    public Money getExpenses() { return expenses; }
+    public Money getNetProfit() { return getGrossProfit().minus(payroll).minus(expenses); }
+
+    @Override
+    public String toString() {
+        return String.format("ProfitAndLoss{revenue=%s, returns=%s, cogs=%s, payroll=%s, expenses=%s, net=%s}",
+                revenue, returns, costOfSales, payroll, expenses, getNetProfit());
+    }
+}
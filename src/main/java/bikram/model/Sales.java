@@ -8,6 +8,8 @@ import java.time.format.DateTimeFormatter;
 /**
  * ⚡ Advanced Sales Model
  * Designed for easy database save/load without ORM.
+ * Amounts are kept as {@link Money} minor units in primitive fields, so building a cart
+ * line does its arithmetic without allocating; getters wrap them as {@link Money}.
  */
 public class Sales {
 
@@ -15,13 +17,13 @@ public class Sales {
     private String productId;
     private String name;
     private int quantity;
-    private double purchasePrice;
-    private double salePrice;
+    private long purchasePrice;   // minor units
+    private long salePrice;
     private double discount; // percentage
-    private double finalAmount;
-    private double profit;
-    private double loss;
-    private double paidAmount;
+    private long finalAmount;
+    private long profit;
+    private long loss;
+    private long paidAmount;
     private String paymentMethod;
     private LocalDateTime createdAt;
     private LocalDateTime updatedAt;
@@ -33,18 +35,18 @@ public class Sales {
     }
 
     public Sales(int id, String productId, String name, int quantity,
-                 double purchasePrice, double salePrice, double discount,
+                 Money purchasePrice, Money salePrice, double discount,
                  LocalDateTime createdAt, LocalDateTime updatedAt,
-                 String paymentMethod, double paidAmount) {
+                 String paymentMethod, Money paidAmount) {
         this.id = id;
         this.productId = productId;
         this.name = name;
         this.quantity = quantity;
-        this.purchasePrice = purchasePrice;
-        this.salePrice = salePrice;
+        this.purchasePrice = purchasePrice.getMinor();
+        this.salePrice = salePrice.getMinor();
         this.discount = discount;
         this.paymentMethod = paymentMethod;
-        this.paidAmount = paidAmount;
+        this.paidAmount = paidAmount.getMinor();
         this.createdAt = createdAt;
         this.updatedAt = updatedAt;
         recalc();
@@ -52,18 +54,11 @@ public class Sales {
 
     // ---------- Logic ----------
     private void recalc() {
-        double discounted = salePrice - (salePrice * (discount / 100.0));
-        this.finalAmount = discounted * quantity;
-
-        if (salePrice > purchasePrice) {
-            profit = (salePrice - purchasePrice) * quantity;
-            loss = 0;
-        } else if (salePrice < purchasePrice) {
-            loss = (purchasePrice - salePrice) * quantity;
-            profit = 0;
-        } else {
-            profit = loss = 0;
-        }
+        this.finalAmount = Money.lineTotal(salePrice, quantity, discount);
+
+        long margin = Money.times(salePrice - purchasePrice, quantity);
+        profit = Math.max(margin, 0);
+        loss = Math.max(-margin, 0);
     }
 
     public void updateTimestamp() {
@@ -73,20 +68,27 @@ public class Sales {
     // ---------- Builder Pattern ----------
     public static class Builder {
         private final Sales s = new Sales();
+        private Money storedFinalAmount;
 
         public Builder id(int id) { s.id = id; return this; }
         public Builder productId(String id) { s.productId = id; return this; }
         public Builder name(String n) { s.name = n; return this; }
         public Builder quantity(int q) { s.quantity = q; return this; }
-        public Builder purchasePrice(double p) { s.purchasePrice = p; return this; }
-        public Builder salePrice(double p) { s.salePrice = p; return this; }
+        public Builder purchasePrice(Money p) { s.purchasePrice = p.getMinor(); return this; }
+        public Builder salePrice(Money p) { s.salePrice = p.getMinor(); return this; }
         public Builder discount(double d) { s.discount = d; return this; }
         public Builder paymentMethod(String method) { s.paymentMethod = method; return this; }
-        public Builder paidAmount(double amt) { s.paidAmount = amt; return this; }
+        public Builder paidAmount(Money amt) { s.paidAmount = amt.getMinor(); return this; }
+        /** The amount recorded at checkout; kept as-is instead of being recomputed from price and discount. */
+        public Builder finalAmount(Money amt) { storedFinalAmount = amt; return this; }
         public Builder createdAt(LocalDateTime t) { s.createdAt = t; return this; }
         public Builder updatedAt(LocalDateTime t) { s.updatedAt = t; return this; }
 
-        public Sales build() { s.recalc(); return s; }
+        public Sales build() {
+            s.recalc();
+            if (storedFinalAmount != null) s.finalAmount = storedFinalAmount.getMinor();
+            return s;
+        }
     }
 
     // ---------- Database Conversion ----------
@@ -96,11 +98,11 @@ public class Sales {
         s.productId = rs.getString("product_id");
         s.name = rs.getString("name");
         s.quantity = rs.getInt("quantity");
-        s.purchasePrice = rs.getDouble("purchase_price");
-        s.salePrice = rs.getDouble("sale_price");
+        s.purchasePrice = rs.getLong("purchase_price");
+        s.salePrice = rs.getLong("sale_price");
         s.discount = rs.getDouble("discount");
         s.paymentMethod = rs.getString("payment_method");
-        s.paidAmount = rs.getDouble("paid_amount");
+        s.paidAmount = rs.getLong("paid_amount");
         s.createdAt = LocalDateTime.parse(rs.getString("created_at"), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
         s.updatedAt = LocalDateTime.parse(rs.getString("updated_at"), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
         s.recalc();
@@ -109,7 +111,7 @@ public class Sales {
 
     public String toSQLValues() {
         return String.format(
-                "('%s','%s',%d,%.2f,%.2f,%.2f,%.2f,%.2f,%.2f,'%.2f','%s','%s','%s')",
+                "('%s','%s',%d,%d,%d,%.2f,%d,%d,%d,%d,'%s','%s','%s')",
                 escape(productId), escape(name), quantity, purchasePrice, salePrice,
                 discount, finalAmount, profit, loss, paidAmount, escape(paymentMethod),
                 createdAt.format(DateTimeFormatter.ISO_LOCAL_DATE_TIME),
@@ -126,28 +128,30 @@ public class Sales {
     public String getProductId() { return productId; }
     public String getName() { return name; }
     public int getQuantity() { return quantity; }
-    public double getPurchasePrice() { return purchasePrice; }
-    public double getSalePrice() { return salePrice; }
+    public Money getPurchasePrice() { return Money.ofMinor(purchasePrice); }
+    public Money getSalePrice() { return Money.ofMinor(salePrice); }
     public double getDiscount() { return discount; }
-    public double getFinalAmount() { return finalAmount; }
-    public double getProfit() { return profit; }
-    public double getLoss() { return loss; }
+    public Money getFinalAmount() { return Money.ofMinor(finalAmount); }
+    public Money getProfit() { return Money.ofMinor(profit); }
+    public Money getLoss() { return Money.ofMinor(loss); }
+    /** Purchase price × quantity: what the units sold cost. */
+    public Money getCost() { return Money.ofMinor(Money.times(purchasePrice, quantity)); }
     public String getPaymentMethod() { return paymentMethod; }
-    public double getPaidAmount() { return paidAmount; }
+    public Money getPaidAmount() { return Money.ofMinor(paidAmount); }
     public LocalDateTime getCreatedAt() { return createdAt; }
     public LocalDateTime getUpdatedAt() { return updatedAt; }
 
     public void setQuantity(int q) { this.quantity = q; recalc(); }
-    public void setSalePrice(double s) { this.salePrice = s; recalc(); }
-    public void setPurchasePrice(double p) { this.purchasePrice = p; recalc(); }
+    public void setSalePrice(Money s) { this.salePrice = s.getMinor(); recalc(); }
+    public void setPurchasePrice(Money p) { this.purchasePrice = p.getMinor(); recalc(); }
     public void setDiscount(double d) { this.discount = d; recalc(); }
     public void setPaymentMethod(String m) { this.paymentMethod = m; }
-    public void setPaidAmount(double amt) { this.paidAmount = amt; }
+    public void setPaidAmount(Money amt) { this.paidAmount = amt.getMinor(); }
 
     // ---------- Utility ----------
     @Override
     public String toString() {
-        return String.format("Sales{id=%d, product='%s', qty=%d, sale=%.2f, final=%.2f, pay='%s', paid=%.2f}",
-                id, name, quantity, salePrice, finalAmount, paymentMethod, paidAmount);
+        return String.format("Sales{id=%d, product='%s', qty=%d, sale=%s, final=%s, pay='%s', paid=%s}",
+                id, name, quantity, getSalePrice(), getFinalAmount(), paymentMethod, getPaidAmount());
     }
 }
@@ -0,0 +1,43 @@
+package bikram.model;
+
+import java.time.LocalDate;
+
+/**
+ * 📈 Sales totals for one time bucket of a series.
+ * Buckets without sales are present with zero values.
+ */
+public class SalesPoint {
+
+    private final LocalDate bucketStart;
+    private final String label;
+    private final int quantity;
+    private final double revenue;
+    private final double profit;
+    private final double loss;
+    private final int transactions;
+
+    public SalesPoint(LocalDate bucketStart, String label, int quantity,
+                      double revenue, double profit, double loss, int transactions) {
+        this.bucketStart = bucketStart;
+        this.label = label;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.profit = profit;
+        this.loss = loss;
+        this.transactions = transactions;
+    }
+
+    public LocalDate getBucketStart() { return bucketStart; }
+    public String getLabel() { return label; }
+    public int getQuantity() { return quantity; }
+    public double getRevenue() { return revenue; }
+    public double getProfit() { return profit; }
+    public double getLoss() { return loss; }
+    public int getTransactions() { return transactions; }
+
+    @Override
+    public String toString() {
+        return String.format("SalesPoint{%s, qty=%d, revenue=%.2f, profit=%.2f, loss=%.2f, tx=%d}",
+                label, quantity, revenue, profit, loss, transactions);
+    }
+}
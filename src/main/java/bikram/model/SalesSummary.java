@@ -0,0 +1,53 @@
+package bikram.model;
+
+/**
+ * 🧾 Sales totals for a date range, computed in one aggregate pass.
+ * Dashboard cards bind to one snapshot instead of issuing a query per number.
+ */
+public class SalesSummary {
+
+    private final DateRange range;
+    private final int transactions;
+    private final int quantity;
+    private final double revenue;
+    private final double profit;
+    private final double loss;
+    private final double cost;
+    private final int activeDays;
+
+    public SalesSummary(DateRange range, int transactions, int quantity, double revenue,
+                        double profit, double loss, double cost, int activeDays) {
+        this.range = range;
+        this.transactions = transactions;
+        this.quantity = quantity;
+        this.revenue = revenue;
+        this.profit = profit;
+        this.loss = loss;
+        this.cost = cost;
+        this.activeDays = activeDays;
+    }
+
+    public static SalesSummary empty(DateRange range) {
+        return new SalesSummary(range, 0, 0, 0, 0, 0, 0, 0);
+    }
+
+    public DateRange getRange() { return range; }
+    public int getTransactions() { return transactions; }
+    public int getQuantity() { return quantity; }
+    public double getRevenue() { return revenue; }
+    public double getProfit() { return profit; }
+    public double getLoss() { return loss; }
+    public double getCost() { return cost; }
+    public int getActiveDays() { return activeDays; }
+
+    /** Average revenue per day that had at least one sale. */
+    public double getAverageSalesPerDay() {
+        return activeDays == 0 ? 0 : revenue / activeDays;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("SalesSummary{%s, tx=%d, qty=%d, revenue=%.2f, profit=%.2f, loss=%.2f, cost=%.2f, days=%d}",
+                range, transactions, quantity, revenue, profit, loss, cost, activeDays);
+    }
+}
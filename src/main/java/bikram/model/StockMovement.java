@@ -0,0 +1,45 @@
+package bikram.model;
+
+import java.time.Instant;
+
+/**
+ * 📦 One row of the stock ledger: a signed change to a product's on-hand count.
+ * Movements are append-only; {@code onHand} is the balance right after this one.
+ */
+public class StockMovement {
+
+    public enum Reason { OPENING, SALE, ADJUST, RECEIVE, RETURN }
+
+    private final long id;
+    private final String productId;
+    private final int delta;
+    private final int onHand;
+    private final Reason reason;
+    private final String ref;
+    private final Instant createdAt;
+
+    public StockMovement(long id, String productId, int delta, int onHand,
+                         Reason reason, String ref, Instant createdAt) {
+        this.id = id;
+        this.productId = productId;
+        this.delta = delta;
+        this.onHand = onHand;
+        this.reason = reason;
+        this.ref = ref;
+        this.createdAt = createdAt;
+    }
+
+    public long getId() { return id; }
+    public String getProductId() { return productId; }
+    public int getDelta() { return delta; }
+    public int getOnHand() { return onHand; }
+    public Reason getReason() { return reason; }
+    /** What caused it: register id for sales, free text for adjustments; may be null. */
+    public String getRef() { return ref; }
+    public Instant getCreatedAt() { return createdAt; }
+
+    @Override
+    public String toString() {
+        return String.format("StockMovement{%s %+d → %d, %s, %s}", productId, delta, onHand, reason, createdAt);
+    }
+}
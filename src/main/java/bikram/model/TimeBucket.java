@@ -0,0 +1,44 @@
+package bikram.model;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 🗓️ Bucket size for sales time series.
+ * Each bucket is identified by its first day.
+ */
+public enum TimeBucket {
+    DAY("MM/dd"),
+    WEEK("MM/dd〜"),
+    MONTH("yyyy-MM");
+
+    private final DateTimeFormatter labelFormat;
+
+    TimeBucket(String pattern) {
+        this.labelFormat = DateTimeFormatter.ofPattern(pattern);
+    }
+
+    /** First day of the bucket that contains {@code date} (weeks start on Monday). */
+    public LocalDate floor(LocalDate date) {
+        return switch (this) {
+            case DAY -> date;
+            case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> date.withDayOfMonth(1);
+        };
+    }
+
+    /** First day of the bucket after the one starting at {@code bucketStart}. */
+    public LocalDate next(LocalDate bucketStart) {
+        return switch (this) {
+            case DAY -> bucketStart.plusDays(1);
+            case WEEK -> bucketStart.plusWeeks(1);
+            case MONTH -> bucketStart.plusMonths(1);
+        };
+    }
+
+    public String label(LocalDate bucketStart) {
+        return bucketStart.format(labelFormat);
+    }
+}
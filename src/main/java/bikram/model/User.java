@@ -51,6 +51,11 @@ public class User {
         this.joined_date=joined_date;
         this.salaryPerMonth=salaryPerMonth;
     }
+    /** A detached copy, so a cached user can't be changed through what a page edits. */
+    public User(User other) {
+        this(other.id, other.firstName, other.lastName, other.address, other.phoneNumber,
+                other.email, other.password, other.role, other.joined_date, other.salaryPerMonth);
+    }
     // ✅ Computed getter (not stored)
 
     public String getFullName() {
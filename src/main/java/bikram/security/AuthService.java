@@ -0,0 +1,297 @@
+package bikram.security;
+
+import bikram.db.UserDB;
+import bikram.db.UserRepository;
+import bikram.model.User;
+
+import de.mkammerer.argon2.Argon2;
+import de.mkammerer.argon2.Argon2Factory;
+import de.mkammerer.argon2.Argon2Helper;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * 🔐 Password hashing and login, off the FX thread.
+ * <ul>
+ *   <li>One {@link Argon2} instance for the whole app (it is stateless and thread-safe).</li>
+ *   <li>Hashes run on a small daemon pool; a semaphore counted in KiB keeps the Argon2
+ *       memory of all running hashes under {@code techura.argon2.memoryBudgetKiB}.</li>
+ *   <li>Parameters come from system properties; unless iterations are pinned,
+ *       {@link #calibrate()} picks the most iterations that fit the target latency.
+ *       The result is saved to {@link #CALIBRATION_FILE} and reused on later launches,
+ *       so timing jitter between runs does not change the parameters.</li>
+ *   <li>Hashes weaker than the current parameters (fewer iterations or less memory) are
+ *       upgraded on the next successful login; stronger ones are left alone.</li>
+ * </ul>
+ */
+public final class AuthService {
+
+    /** Argon2id cost parameters (memory in KiB, as the library expects). */
+    public static final class Argon2Params {
+        private final int iterations;
+        private final int memoryKiB;
+        private final int parallelism;
+
+        public Argon2Params(int iterations, int memoryKiB, int parallelism) {
+            this.iterations = iterations;
+            this.memoryKiB = memoryKiB;
+            this.parallelism = parallelism;
+        }
+
+        public int getIterations() { return iterations; }
+        public int getMemoryKiB() { return memoryKiB; }
+        public int getParallelism() { return parallelism; }
+
+        @Override
+        public String toString() {
+            return "t=" + iterations + ", m=" + memoryKiB + "KiB, p=" + parallelism;
+        }
+    }
+
+    // ---------- CONFIG (-Dtechura.argon2.*) ----------
+    private static final Integer PINNED_ITERATIONS = Integer.getInteger("techura.argon2.iterations");
+    private static final int MIN_ITERATIONS = 2;
+    private static final int MEMORY_KIB = Integer.getInteger("techura.argon2.memoryKiB", 65536); // 64 MB
+    private static final int PARALLELISM = Integer.getInteger("techura.argon2.parallelism", 1);
+    private static final long TARGET_MILLIS = Long.getLong("techura.argon2.targetMillis", 500);
+    private static final int MEMORY_BUDGET_KIB = Integer.getInteger("techura.argon2.memoryBudgetKiB", 256 * 1024);
+
+    private static final boolean RECALIBRATE = Boolean.getBoolean("techura.argon2.recalibrate");
+
+    /** Calibrated iterations, valid while memory, parallelism and target stay the same. */
+    public static final Path CALIBRATION_FILE = Paths.get("data", "argon2.properties");
+
+    private static final Pattern MEMORY_IN_HASH = Pattern.compile("\\$m=(\\d+)");
+    private static final Pattern PARAMS_IN_HASH = Pattern.compile("^\\$argon2id\\$v=\\d+\\$m=(\\d+),t=(\\d+),p=(\\d+)\\$");
+
+    private static final Argon2 ARGON2 = Argon2Factory.create(Argon2Factory.Argon2Types.ARGON2id);
+    private static final AtomicInteger THREAD_IDS = new AtomicInteger();
+
+    private static volatile AuthService shared;
+
+    private final UserRepository users;
+    private final ExecutorService workers;
+    private final Semaphore memoryPermits = new Semaphore(MEMORY_BUDGET_KIB, true);
+
+    private volatile Argon2Params params;
+    private volatile String dummyHash;
+    private volatile CompletableFuture<Argon2Params> calibration;
+
+    public AuthService(UserRepository users) {
+        this.users = users;
+        this.params = new Argon2Params(
+                PINNED_ITERATIONS != null ? PINNED_ITERATIONS : 3, MEMORY_KIB, PARALLELISM);
+        // More threads than the budget can run at once would only wait on the semaphore
+        int threads = Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(),
+                MEMORY_BUDGET_KIB / Math.max(1, MEMORY_KIB)));
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "argon2-" + THREAD_IDS.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    /** App-wide instance backed by {@link UserDB}. */
+    public static AuthService shared() {
+        AuthService s = shared;
+        if (s == null) {
+            synchronized (AuthService.class) {
+                s = shared;
+                if (s == null) {
+                    s = new AuthService(new UserDB());
+                    shared = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    public Argon2Params getParams() {
+        return params;
+    }
+
+    // ---------- CALIBRATION ----------
+    /**
+     * ⏱️ Starts calibration on the hash pool (once). Logins submitted meanwhile queue behind it
+     * and then use the calibrated parameters.
+     */
+    public synchronized CompletableFuture<Argon2Params> calibrate() {
+        if (calibration == null) {
+            calibration = CompletableFuture.supplyAsync(this::runCalibration, workers);
+        }
+        return calibration;
+    }
+
+    private Argon2Params runCalibration() {
+        Argon2Params base = params;
+        if (PINNED_ITERATIONS == null) {
+            Integer saved = RECALIBRATE ? null : loadCalibration(base);
+            if (saved != null) {
+                params = new Argon2Params(saved, base.getMemoryKiB(), base.getParallelism());
+                System.out.println("🔐 Argon2 using saved calibration " + params);
+            } else {
+                long start = System.nanoTime();
+                int iterations = withMemory(base.getMemoryKiB(), () ->
+                        Argon2Helper.findIterations(ARGON2, TARGET_MILLIS, base.getMemoryKiB(), base.getParallelism()));
+                params = new Argon2Params(Math.max(MIN_ITERATIONS, iterations), base.getMemoryKiB(), base.getParallelism());
+                System.out.printf("🔐 Argon2 calibrated to %s for %d ms target (took %.0f ms)%n",
+                        params, TARGET_MILLIS, (System.nanoTime() - start) / 1_000_000.0);
+                saveCalibration(params);
+            }
+        }
+        dummyHash = hash("calibration".toCharArray());
+        return params;
+    }
+
+    /** Saved iterations for these settings, or null if there are none (or they were made for other settings). */
+    private static Integer loadCalibration(Argon2Params base) {
+        if (!Files.isRegularFile(CALIBRATION_FILE)) return null;
+        Properties props = new Properties();
+        try (Reader reader = Files.newBufferedReader(CALIBRATION_FILE, StandardCharsets.UTF_8)) {
+            props.load(reader);
+            boolean sameSettings = String.valueOf(base.getMemoryKiB()).equals(props.getProperty("memoryKiB"))
+                    && String.valueOf(base.getParallelism()).equals(props.getProperty("parallelism"))
+                    && String.valueOf(TARGET_MILLIS).equals(props.getProperty("targetMillis"));
+            if (!sameSettings) return null;
+            int iterations = Integer.parseInt(props.getProperty("iterations", ""));
+            return iterations >= MIN_ITERATIONS ? iterations : null;
+        } catch (IOException | NumberFormatException e) {
+            System.err.println("⚠️ Argon2 calibration file ignored: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static void saveCalibration(Argon2Params p) {
+        Properties props = new Properties();
+        props.setProperty("iterations", String.valueOf(p.getIterations()));
+        props.setProperty("memoryKiB", String.valueOf(p.getMemoryKiB()));
+        props.setProperty("parallelism", String.valueOf(p.getParallelism()));
+        props.setProperty("targetMillis", String.valueOf(TARGET_MILLIS));
+        try {
+            Files.createDirectories(CALIBRATION_FILE.getParent());
+            try (Writer writer = Files.newBufferedWriter(CALIBRATION_FILE, StandardCharsets.UTF_8)) {
+                props.store(writer, "Argon2id calibration; delete (or -Dtechura.argon2.recalibrate=true) to measure again");
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not save Argon2 calibration: " + e.getMessage());
+        }
+    }
+
+    // ---------- HASH / VERIFY (caller's thread) ----------
+    /** Hashes with the current parameters and wipes {@code password}. */
+    public String hash(char[] password) {
+        Argon2Params p = params;
+        try {
+            return withMemory(p.getMemoryKiB(), () ->
+                    ARGON2.hash(p.getIterations(), p.getMemoryKiB(), p.getParallelism(), password));
+        } finally {
+            ARGON2.wipeArray(password);
+        }
+    }
+
+    /** Constant-time check against an encoded hash; does not wipe {@code password}. */
+    public boolean verify(String encodedHash, char[] password) {
+        if (encodedHash == null || encodedHash.isEmpty()) return false;
+        try {
+            return withMemory(memoryOf(encodedHash), () -> ARGON2.verify(encodedHash, password));
+        } catch (RuntimeException e) {
+            // Plain-text or corrupted value in the password column
+            System.err.println("⚠️ Password hash could not be verified: " + e.getMessage());
+            return false;
+        }
+    }
+
+    // ---------- ASYNC ----------
+    public CompletableFuture<String> hashAsync(char[] password) {
+        return CompletableFuture.supplyAsync(() -> hash(password), workers);
+    }
+
+    /**
+     * 🔑 Looks the user up and checks the password on the hash pool.
+     * Completes with empty for unknown e-mail or wrong password; {@code password} is wiped
+     * either way. Callbacks run on a hash thread — hop to the FX thread before touching UI.
+     */
+    public CompletableFuture<Optional<User>> login(String email, char[] password) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                User user = users.getUserByEmail(email);
+                // Unknown users still pay for one verify so response time does not reveal who exists
+                String stored = user != null ? user.getPassword() : dummyHash();
+                boolean ok = verify(stored, password) && user != null;
+                if (!ok) {
+                    System.out.println("⚠️ ログイン失敗: " + email);
+                    return Optional.<User>empty();
+                }
+                if (needsRehash(stored)) {
+                    String upgraded = hash(password.clone());
+                    users.updatePasswordHash(user.getId(), upgraded);
+                    user.setPassword(upgraded);
+                    System.out.println("🔁 Password hash upgraded to " + params + " for " + email);
+                }
+                System.out.println("✅ ログイン成功: " + email);
+                return Optional.of(user);
+            } finally {
+                ARGON2.wipeArray(password);
+            }
+        }, workers);
+    }
+
+    // ---------- HELPERS ----------
+    private String dummyHash() {
+        String d = dummyHash;
+        if (d == null) {
+            d = hash("calibration".toCharArray());
+            dummyHash = d;
+        }
+        return d;
+    }
+
+    /**
+     * Only a weaker hash is upgraded: fewer iterations or less memory than the current
+     * parameters. A stronger one (say, from a faster machine) is kept rather than downgraded.
+     */
+    private boolean needsRehash(String encodedHash) {
+        Argon2Params p = params;
+        Matcher m = PARAMS_IN_HASH.matcher(encodedHash);
+        if (!m.find()) return true;   // not Argon2id
+        int memoryKiB = Integer.parseInt(m.group(1));
+        int iterations = Integer.parseInt(m.group(2));
+        return iterations < p.getIterations() || memoryKiB < p.getMemoryKiB();
+    }
+
+    private static int memoryOf(String encodedHash) {
+        Matcher m = MEMORY_IN_HASH.matcher(encodedHash);
+        return m.find() ? Integer.parseInt(m.group(1)) : MEMORY_KIB;
+    }
+
+    @FunctionalInterface
+    private interface HashWork<T> {
+        T run();
+    }
+
+    /** Holds {@code memoryKiB} of the budget while {@code work} runs (a hash bigger than the budget runs alone). */
+    private <T> T withMemory(int memoryKiB, HashWork<T> work) {
+        int permits = Math.max(1, Math.min(memoryKiB, MEMORY_BUDGET_KIB));
+        memoryPermits.acquireUninterruptibly(permits);
+        try {
+            return work.run();
+        } finally {
+            memoryPermits.release(permits);
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package bikram.security;
+
+import bikram.model.Role;
+
+import java.util.EnumSet;
+
+/**
+ * 🛡️ What a role may do. Each permission is one bit; every {@link Role}'s mask is built
+ * once at class load, so a check is a single AND on the session's mask.
+ * Pages that need one are listed in {@code Navigator}; the dashboard and time clock need none.
+ */
+public enum Permission {
+    SELL,               // sales register
+    MANAGE_PRODUCTS,    // product list and form, price cards
+    VIEW_REPORTS,       // sales report, top sales, profit tracker
+    MANAGE_STAFF,       // user forms, user dashboard, ID cards
+    RUN_PAYROLL,        // pay slips and the all-staff payroll run
+    SECURITY_SETTINGS;
+
+    private final long bit = 1L << ordinal();
+
+    private static final long[] MASK_BY_ROLE = new long[Role.values().length];
+
+    static {
+        grant(Role.OWNER, EnumSet.allOf(Permission.class));
+        grant(Role.MANAGER, EnumSet.allOf(Permission.class));
+        grant(Role.LEADER, EnumSet.of(SELL, MANAGE_PRODUCTS, VIEW_REPORTS));
+        grant(Role.STAFF, EnumSet.of(SELL));
+        grant(Role.OTHER, EnumSet.noneOf(Permission.class));
+    }
+
+    private static void grant(Role role, EnumSet<Permission> permissions) {
+        long mask = 0;
+        for (Permission p : permissions) mask |= p.bit;
+        MASK_BY_ROLE[role.ordinal()] = mask;
+    }
+
+    public long bit() {
+        return bit;
+    }
+
+    /** Precomputed permission mask for a role (0 for null). */
+    public static long maskOf(Role role) {
+        return role == null ? 0 : MASK_BY_ROLE[role.ordinal()];
+    }
+}
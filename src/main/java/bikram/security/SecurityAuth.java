@@ -5,51 +5,88 @@ import bikram.model.User;
 import bikram.views.ui.NotificationsManager;
 
 /**
- * 🔒 SecurityAuth manages the current logged-in user session.
- * It ensures that the app can easily check authentication and authorization
- * at any time — without leaking sensitive data.
+ * 🔒 SecurityAuth is the app-facing view of the active {@link Session}.
+ * Sessions and their precomputed permission masks live in {@link SessionManager};
+ * nothing here reads the user table, so checks are cheap enough for every click.
+ * Read the user at the point of use rather than caching it — sessions can
+ * switch, idle out or be invalidated while a page is open.
  */
 public class SecurityAuth {
 
-    private static User currentUser;
+    private static final SessionManager SESSIONS = SessionManager.shared();
 
-    /** ✅ Set authenticated user after successful login */
+    /** ✅ Set authenticated user after successful login (opens or resumes their session) */
     public static void setCurrentUser(User user) {
-        currentUser = user;
+        SESSIONS.open(user);
         System.out.println("👤 Logged in as: " + user.getFullName() + " (" + user.getRole() + ")");
     }
 
+    /** ✅ Active session, or null */
+    public static Session getSession() {
+        return SESSIONS.current();
+    }
+
     /** ✅ Get currently logged-in user */
     public static User getCurrentUser() {
-        return currentUser;
+        Session s = SESSIONS.current();
+        return s == null ? null : s.getUser();
     }
 
     /** ✅ Check if a user is logged in */
     public static boolean isAuthenticated() {
-        return currentUser != null;
+        return SESSIONS.current() != null;
     }
 
     /** ✅ Check if current user has a specific role */
     public static boolean hasRole(Role role) {
-        return currentUser != null && currentUser.getRole() == role;
+        Session s = SESSIONS.current();
+        return s != null && s.getRole() == role;
+    }
+
+    /** ✅ Silent permission check (one bit test on the session mask) */
+    public static boolean has(Permission permission) {
+        Session s = SESSIONS.current();
+        return s != null && s.has(permission);
+    }
+
+    /** 👆 Record user activity; false when the session had idled out */
+    public static boolean touch() {
+        return SESSIONS.touch();
     }
 
     /** 🚪 Logout current user and clear session */
     public static void logout() {
-        if (currentUser != null) {
-            System.out.println("🚪 User logged out: " + currentUser.getFullName());
-            currentUser = null;
+        Session s = SESSIONS.current();
+        if (s != null) {
+            SESSIONS.closeActive();
+            System.out.println("🚪 User logged out: " + s.getFullName());
         }
     }
-    public static boolean permission(){
-        if (currentUser ==null){
-            NotificationsManager.showNotification("ログイン","ログインが必要です。ログインして下さい", NotificationsManager.NotificationType.WARNING);
+
+    /** 🔁 Keep open sessions in line with a saved user (role change ends them) */
+    public static void userUpdated(User user) {
+        SESSIONS.userUpdated(user);
+    }
+
+    public static void userDeleted(String userId) {
+        SESSIONS.invalidateUser(userId);
+    }
+
+    /** Manager/owner pages (staff management, ID cards, security). */
+    public static boolean permission() {
+        return permission(Permission.MANAGE_STAFF);
+    }
+
+    public static boolean permission(Permission permission) {
+        Session s = SESSIONS.current();
+        if (s == null) {
+            NotificationsManager.showNotification("ログイン", "ログインが必要です。ログインして下さい", NotificationsManager.NotificationType.WARNING);
+            return false;
         }
-        if (currentUser.getRole() == Role.MANAGER || currentUser.getRole() == Role.OWNER){
+        if (s.has(permission)) {
             return true;
-        }else {
-            NotificationsManager.showNotification("許可が否定されました","所有者 ID または管理者 ID でログインしてください。", NotificationsManager.NotificationType.WARNING);
         }
+        NotificationsManager.showNotification("許可が否定されました", "所有者 ID または管理者 ID でログインしてください。", NotificationsManager.NotificationType.WARNING);
         return false;
     }
 }
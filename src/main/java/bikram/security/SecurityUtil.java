@@ -1,9 +1,6 @@
 package bikram.security;
 
 
-import de.mkammerer.argon2.Argon2;
-import de.mkammerer.argon2.Argon2Factory;
-
 import java.security.SecureRandom;
 import java.util.UUID;
 
@@ -14,26 +11,18 @@ public class SecurityUtil {
         return UUID.randomUUID().toString();
     }
 
-    // 🔹 Hash password using Argon2id (recommended)
+    // 🔹 Hash password using Argon2id (shared instance, calibrated params, memory-capped)
     public static String hashPassword(String password) {
-        Argon2 argon2 = Argon2Factory.create(Argon2Factory.Argon2Types.ARGON2id);
-        try {
-            int iterations = 3;   // time cost
-            int memory = 65536;   // 64 MB
-            int parallelism = 1;  // threads
-            return argon2.hash(iterations, memory, parallelism, password.toCharArray());
-        } finally {
-            argon2.wipeArray(password.toCharArray()); // clear sensitive data
-        }
+        return AuthService.shared().hash(password.toCharArray());
     }
 
     // 🔹 Verify password safely (constant-time comparison)
     public static boolean verifyPassword(String rawPassword, String hashedPassword) {
-        Argon2 argon2 = Argon2Factory.create(Argon2Factory.Argon2Types.ARGON2id);
+        char[] raw = rawPassword.toCharArray();
         try {
-            return argon2.verify(hashedPassword, rawPassword.toCharArray());
+            return AuthService.shared().verify(hashedPassword, raw);
         } finally {
-            argon2.wipeArray(rawPassword.toCharArray());
+            java.util.Arrays.fill(raw, '\0');
         }
     }
 
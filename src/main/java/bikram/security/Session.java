@@ -0,0 +1,64 @@
+package bikram.security;
+
+import bikram.model.Role;
+import bikram.model.User;
+
+import java.time.Instant;
+import java.util.UUID;
+
+/**
+ * 🎫 One signed-in user on this terminal. Immutable: a role or profile change
+ * produces a new session (or ends it) instead of editing this one.
+ */
+public final class Session {
+
+    private final String id;
+    private final User user;
+    private final String userId;
+    private final String fullName;
+    private final Role role;
+    private final long permissions;
+    private final Instant createdAt;
+
+    Session(User user) {
+        this(UUID.randomUUID().toString(), user, Instant.now());
+    }
+
+    private Session(String id, User user, Instant createdAt) {
+        this.id = id;
+        this.user = profileOf(user);
+        this.userId = user.getId();
+        this.fullName = user.getFullName();
+        this.role = user.getRole();
+        this.permissions = Permission.maskOf(role);
+        this.createdAt = createdAt;
+    }
+
+    /** Same session id and start time, new profile snapshot (role must be unchanged). */
+    Session withUser(User updated) {
+        return new Session(id, updated, createdAt);
+    }
+
+    public String getId() { return id; }
+    /** A fresh copy of the profile snapshot, without the password hash; edits don't reach the session. */
+    public User getUser() { return new User(user); }
+    public String getUserId() { return userId; }
+    public String getFullName() { return fullName; }
+    public Role getRole() { return role; }
+    public Instant getCreatedAt() { return createdAt; }
+
+    private static User profileOf(User user) {
+        User copy = new User(user);
+        copy.setPassword(null);
+        return copy;
+    }
+
+    public boolean has(Permission permission) {
+        return (permissions & permission.bit()) != 0;
+    }
+
+    @Override
+    public String toString() {
+        return "Session{" + fullName + " (" + role + "), since " + createdAt + "}";
+    }
+}
@@ -0,0 +1,230 @@
+package bikram.security;
+
+import bikram.model.User;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+
+/**
+ * 🗂️ Sessions on this terminal.
+ * Several users can be signed in at once (shared POS terminals); one of them is
+ * active. A session not touched for {@link #IDLE_TIMEOUT} expires on its next use.
+ * Profile edits refresh the user's sessions; a role change or deletion ends them,
+ * so permissions never outlive the role they were computed from.
+ */
+public final class SessionManager {
+
+    public static final Duration IDLE_TIMEOUT =
+            Duration.ofMinutes(Long.getLong("techura.session.idleMinutes", 15));
+
+    private static final SessionManager SHARED = new SessionManager(IDLE_TIMEOUT);
+
+    private final long idleNanos;
+    private final Map<String, Session> sessions = new LinkedHashMap<>();   // by session id, sign-in order
+    private final Map<String, Long> lastSeen = new LinkedHashMap<>();      // session id → System.nanoTime()
+    private final List<Consumer<Session>> listeners = new CopyOnWriteArrayList<>();
+
+    private Session active;  // guarded by this
+    private boolean idledOut;  // guarded by this; the active session expired and touch() hasn't reported it yet
+
+    public SessionManager(Duration idleTimeout) {
+        this.idleNanos = idleTimeout.toNanos();
+    }
+
+    public static SessionManager shared() {
+        return SHARED;
+    }
+
+    /** Called with the new active session (null when nobody is active), on the thread that changed it. */
+    public void addListener(Consumer<Session> listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Consumer<Session> listener) {
+        listeners.remove(listener);
+    }
+
+    // ---------- SIGN IN / SWITCH ----------
+    /** Signs the user in (or switches back to their open session) and makes it active. */
+    public Session open(User user) {
+        Session session;
+        synchronized (this) {
+            session = findByUser(user.getId());
+            if (session == null || isExpired(session)) {
+                if (session != null) remove(session.getId());
+                session = new Session(user);
+                sessions.put(session.getId(), session);
+            }
+            lastSeen.put(session.getId(), System.nanoTime());
+            active = session;
+            idledOut = false;
+        }
+        fire(session);
+        return session;
+    }
+
+    /** Makes another open session active; false if it is gone or has expired. */
+    public boolean switchTo(String sessionId) {
+        Session session;
+        synchronized (this) {
+            session = sessions.get(sessionId);
+            if (session == null) return false;
+            if (isExpired(session)) {
+                remove(sessionId);
+                return false;
+            }
+            lastSeen.put(sessionId, System.nanoTime());
+            active = session;
+            idledOut = false;
+        }
+        fire(session);
+        return true;
+    }
+
+    // ---------- ACTIVE SESSION ----------
+    /** The active session, or null when nobody is signed in or it has idled out. */
+    public Session current() {
+        synchronized (this) {
+            Session s = active;
+            if (s == null || !isExpired(s)) return s;
+            expire(s);
+        }
+        fire(null);
+        return null;
+    }
+
+    /**
+     * Records activity on the active session; false when it has idled out, whether this
+     * call found it expired or an earlier {@link #current()} did. Each expiry is reported once.
+     */
+    public boolean touch() {
+        synchronized (this) {
+            Session s = active;
+            if (s == null) {
+                boolean expired = idledOut;
+                idledOut = false;
+                return !expired;
+            }
+            if (!isExpired(s)) {
+                lastSeen.put(s.getId(), System.nanoTime());
+                return true;
+            }
+            expire(s);
+            idledOut = false;   // reported right here
+        }
+        fire(null);
+        return false;
+    }
+
+    public synchronized List<Session> getSessions() {
+        sessions.values().removeIf(s -> {
+            if (!isExpired(s)) return false;
+            lastSeen.remove(s.getId());
+            return true;
+        });
+        return new ArrayList<>(sessions.values());
+    }
+
+    // ---------- SIGN OUT / INVALIDATE ----------
+    public void close(String sessionId) {
+        boolean wasActive;
+        synchronized (this) {
+            remove(sessionId);
+            wasActive = active != null && active.getId().equals(sessionId);
+            if (wasActive) active = null;
+        }
+        if (wasActive) fire(null);
+    }
+
+    public void closeActive() {
+        Session s;
+        synchronized (this) {
+            s = active;
+        }
+        if (s != null) close(s.getId());
+    }
+
+    /** Ends every session of the user (deleted account, forced sign-out). */
+    public void invalidateUser(String userId) {
+        boolean activeClosed;
+        synchronized (this) {
+            activeClosed = active != null && active.getUserId().equals(userId);
+            sessions.values().removeIf(s -> {
+                if (!s.getUserId().equals(userId)) return false;
+                lastSeen.remove(s.getId());
+                return true;
+            });
+            if (activeClosed) active = null;
+        }
+        if (activeClosed) {
+            System.out.println("🔒 Sessions invalidated for " + userId);
+            fire(null);
+        }
+    }
+
+    /** A saved profile: same role → sessions get the new snapshot; new role → sessions end. */
+    public void userUpdated(User user) {
+        Session s;
+        synchronized (this) {
+            s = findByUser(user.getId());
+        }
+        if (s == null) return;
+        if (s.getRole() != user.getRole()) {
+            invalidateUser(user.getId());
+            return;
+        }
+        Session refreshedActive = null;
+        synchronized (this) {
+            for (Map.Entry<String, Session> e : sessions.entrySet()) {
+                if (!e.getValue().getUserId().equals(user.getId())) continue;
+                Session refreshed = e.getValue().withUser(user);
+                e.setValue(refreshed);
+                if (active != null && active.getId().equals(refreshed.getId())) {
+                    active = refreshed;
+                    refreshedActive = refreshed;
+                }
+            }
+        }
+        if (refreshedActive != null) fire(refreshedActive);
+    }
+
+    // ---------- HELPERS ----------
+    private Session findByUser(String userId) {
+        for (Session s : sessions.values()) {
+            if (s.getUserId().equals(userId)) return s;
+        }
+        return null;
+    }
+
+    private boolean isExpired(Session s) {
+        Long seen = lastSeen.get(s.getId());
+        return seen == null || System.nanoTime() - seen > idleNanos;
+    }
+
+    private void expire(Session s) {
+        remove(s.getId());
+        active = null;
+        idledOut = true;
+        System.out.println("⏰ Session idled out: " + s.getFullName());
+    }
+
+    private void remove(String sessionId) {
+        sessions.remove(sessionId);
+        lastSeen.remove(sessionId);
+    }
+
+    private void fire(Session session) {
+        for (Consumer<Session> l : listeners) {
+            try {
+                l.accept(session);
+            } catch (RuntimeException e) {
+                System.err.println("⚠️ Session listener failed: " + e.getMessage());
+            }
+        }
+    }
+}
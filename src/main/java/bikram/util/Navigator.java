@@ -1,6 +1,8 @@
 package bikram.util;
 
+import bikram.security.Permission;
 import bikram.security.SecurityAuth;
+import bikram.security.SessionManager;
 import javafx.animation.FadeTransition;
 import javafx.application.Platform;
 import javafx.concurrent.Task;
@@ -11,6 +13,7 @@ import javafx.util.Duration;
 
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class Navigator {
 
@@ -25,9 +28,31 @@ public class Navigator {
             "bikram.views."
     };
 
-    private static final Map<String, Node> REGISTERED_PAGES = new HashMap<>();
+    private static final Map<String, Node> REGISTERED_PAGES = new ConcurrentHashMap<>();
     private static final Map<String, Class<? extends Node>> REGISTERED_CLASSES = new HashMap<>();
 
+    // Pages behind a permission; navigate() checks the active session before loading any of them
+    private static final Map<String, Permission> PAGE_PERMISSIONS = Map.ofEntries(
+            Map.entry("SalesPage", Permission.SELL),
+            Map.entry("ProductPage", Permission.MANAGE_PRODUCTS),
+            Map.entry("ProductFormPage", Permission.MANAGE_PRODUCTS),
+            Map.entry("PriceCardPage", Permission.MANAGE_PRODUCTS),
+            Map.entry("SalesReportPage", Permission.VIEW_REPORTS),
+            Map.entry("TopSalesPage", Permission.VIEW_REPORTS),
+            Map.entry("ProfitTrackerPage", Permission.VIEW_REPORTS),
+            Map.entry("AITrendPage", Permission.VIEW_REPORTS),
+            Map.entry("UserFormPage", Permission.MANAGE_STAFF),
+            Map.entry("UserDashboardPage", Permission.MANAGE_STAFF),
+            Map.entry("UserIDCardPage", Permission.MANAGE_STAFF),
+            Map.entry("EmploymentPaySlip", Permission.RUN_PAYROLL),
+            Map.entry("SecuritySettingsPage", Permission.SECURITY_SETTINGS)
+    );
+
+    // Cached pages were built for the previous user; rebuild them for whoever is active now
+    static {
+        SessionManager.shared().addListener(session -> clearPageInstances());
+    }
+
     // ✅ Set the main StackPane
     public static void setMainContent(StackPane contentPane) {
         mainContent = contentPane;
@@ -52,12 +77,22 @@ public class Navigator {
         System.out.println("🧹 Navigator cache cleared");
     }
 
+    // ✅ Drop built pages but keep registrations (next visit constructs a fresh page)
+    public static void clearPageInstances() {
+        REGISTERED_PAGES.clear();
+    }
+
     // 🚀 Non-blocking navigate with fade animation
     public static void navigate(String pageName) {
         if (mainContent == null) {
             System.err.println("⚠️ mainContent not set — call Navigator.setMainContent()");
             return;
         }
+        Permission required = PAGE_PERMISSIONS.get(pageName);
+        if (required != null && !SecurityAuth.permission(required)) {
+            System.err.println("🔒 " + pageName + " requires " + required);
+            return;
+        }
 
         Task<Node> loadTask = new Task<>() {
             @Override
@@ -143,12 +178,9 @@ public class Navigator {
             e.printStackTrace();
         }
     }
+    // Kept for existing callers: navigate() itself now checks each page's permission
     public static void nevigateToSecurePage(String Pagename){
-        if (SecurityAuth.permission()){
-            navigate(Pagename);
-        }else {
-            System.err.println("セキュリティ リージョンによって許可が与えられました");
-        }
+        navigate(Pagename);
     }
     public static void nevigateToLoginRequiredPage(String pagename){
         if (SecurityAuth.isAuthenticated()){
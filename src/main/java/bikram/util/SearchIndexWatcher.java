@@ -0,0 +1,159 @@
+package bikram.util;
+
+import bikram.db.SearchIndexDB;
+import bikram.views.page.Notebook;
+import bikram.views.page.TaskManager;
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Stream;
+
+/**
+ * 👀 Keeps the file-backed stores (Notebook notes, TaskManager's tasks.json) in the
+ * full-text index. On start, both stores are re-read in full. After that, a
+ * {@link WatchService} re-indexes only the note files that changed, and re-reads
+ * tasks.json whenever it is rewritten. tasks.json lives under data/, so that watch
+ * only wakes for the app's own files. Runs on one daemon thread.
+ */
+public final class SearchIndexWatcher {
+
+    private static final Path NOTES_DIR = Paths.get(Notebook.NOTES_DIR);
+    private static final Path TASKS_FILE = Paths.get(TaskManager.FILE_PATH).toAbsolutePath();
+    private static final String NOTE_SUFFIX = ".txt";
+
+    private static volatile Thread watcher;
+
+    private SearchIndexWatcher() {}
+
+    /** Starts the watcher once per process; later calls do nothing. */
+    public static synchronized void start() {
+        if (watcher != null) return;
+        watcher = new Thread(SearchIndexWatcher::run, "Search-Index-Watcher");
+        watcher.setDaemon(true);
+        watcher.start();
+    }
+
+    private static void run() {
+        SearchIndexDB index = new SearchIndexDB();
+        try (WatchService ws = FileSystems.getDefault().newWatchService()) {
+            Files.createDirectories(NOTES_DIR);
+            TaskManager.moveLegacyFile();
+            Files.createDirectories(TASKS_FILE.getParent());
+            WatchKey notesKey = register(ws, NOTES_DIR);
+            WatchKey tasksKey = register(ws, TASKS_FILE.getParent());
+
+            // Register first, then sync: a change made in between is seen twice rather than missed
+            reindexNotes(index);
+            reindexTasks(index);
+
+            while (true) {
+                WatchKey key = ws.take();
+                Set<Path> changed = new LinkedHashSet<>();
+                boolean overflow = false;
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) overflow = true;
+                    else changed.add((Path) event.context());
+                }
+                if (key == notesKey) {
+                    if (overflow) reindexNotes(index);
+                    else changed.forEach(name -> reindexNote(index, NOTES_DIR.resolve(name)));
+                }
+                if (key == tasksKey && (overflow || changed.contains(TASKS_FILE.getFileName()))) {
+                    reindexTasks(index);
+                }
+                if (!key.reset()) {
+                    System.err.println("⚠️ Search index watch ended for " + key.watchable());
+                    if (key == notesKey) return;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            System.err.println("❌ Search index watcher failed: " + e.getMessage());
+        }
+    }
+
+    private static WatchKey register(WatchService ws, Path dir) throws IOException {
+        return dir.register(ws,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY,
+                StandardWatchEventKinds.ENTRY_DELETE);
+    }
+
+    // ---------- NOTES ----------
+    private static void reindexNotes(SearchIndexDB index) {
+        List<SearchIndexDB.Document> docs = new ArrayList<>();
+        try (Stream<Path> files = Files.list(NOTES_DIR)) {
+            for (Path file : (Iterable<Path>) files::iterator) {
+                SearchIndexDB.Document doc = readNote(file);
+                if (doc != null) docs.add(doc);
+            }
+        } catch (IOException e) {
+            System.err.println("⚠️ Could not list notes: " + e.getMessage());
+            return;
+        }
+        index.replaceAll(SearchIndexDB.KIND_NOTE, docs);
+    }
+
+    private static void reindexNote(SearchIndexDB index, Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(NOTE_SUFFIX)) return;
+        SearchIndexDB.Document doc = readNote(file);
+        if (doc == null) index.delete(SearchIndexDB.KIND_NOTE, name);
+        else index.upsert(SearchIndexDB.KIND_NOTE, doc);
+    }
+
+    /** The note as a document, or null if it is not a note or no longer exists. */
+    private static SearchIndexDB.Document readNote(Path file) {
+        String name = file.getFileName().toString();
+        if (!name.endsWith(NOTE_SUFFIX) || !Files.isRegularFile(file)) return null;
+        try {
+            String text = Files.readString(file, StandardCharsets.UTF_8);
+            return new SearchIndexDB.Document(name, name.substring(0, name.length() - NOTE_SUFFIX.length()), text);
+        } catch (IOException e) {
+            // Deleted or half-written; the next event for this file brings it back in line
+            return null;
+        }
+    }
+
+    // ---------- TASKS ----------
+    /** tasks.json has no task ids, so the whole list is replaced; refs are list positions. */
+    private static void reindexTasks(SearchIndexDB index) {
+        List<SearchIndexDB.Document> docs = new ArrayList<>();
+        if (Files.isRegularFile(TASKS_FILE)) {
+            try (Reader reader = Files.newBufferedReader(TASKS_FILE, StandardCharsets.UTF_8)) {
+                JsonElement root = JsonParser.parseReader(reader);
+                if (root.isJsonArray()) {
+                    JsonArray tasks = root.getAsJsonArray();
+                    for (int i = 0; i < tasks.size(); i++) {
+                        if (!tasks.get(i).isJsonObject()) continue;
+                        JsonObject task = tasks.get(i).getAsJsonObject();
+                        docs.add(new SearchIndexDB.Document(String.valueOf(i),
+                                text(task, "title"),
+                                text(task, "description") + " " + text(task, "priority")));
+                    }
+                }
+            } catch (IOException | RuntimeException e) {
+                // Gson throws unchecked on a half-written file; keep the current index until the next write
+                System.err.println("⚠️ Could not read tasks for search: " + e.getMessage());
+                return;
+            }
+        }
+        index.replaceAll(SearchIndexDB.KIND_TASK, docs);
+    }
+
+    private static String text(JsonObject obj, String field) {
+        JsonElement value = obj.get(field);
+        return value == null || value.isJsonNull() ? "" : value.getAsString();
+    }
+}
@@ -1,53 +1,485 @@
 package bikram.util;
 
+import bikram.model.Product;
+import bikram.model.Sales;
+import bikram.model.User;
+
+import java.text.Normalizer;
 import java.util.*;
-import java.util.stream.Collectors;
-import bikram.model.*;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 🔎 In-memory inverted index over products, staff and sales for the global search bar.
+ * <p>
+ * Indexed text is normalized once (NFKC, lower case) and split into tokens. Each token
+ * is posted under its character bigrams, plus a "^x" gram for its first letter, so a
+ * keystroke only walks the postings of the query's own grams instead of scanning the
+ * catalog. Bigrams also work for Japanese names, which have no spaces to split on.
+ * <p>
+ * Ranking happens in two stages. First, a document qualifies when it shares enough grams
+ * to be within a typo of every query token; see {@link #allowedMisses}. Then the best
+ * candidates by gram count are re-scored against their text (exact id, word prefix,
+ * substring) and only the top-k are returned.
+ * <p>
+ * Build the index once and keep it current with {@code put…}/{@link #remove}. One
+ * thread can update it while others query it.
+ */
+public final class SearchService {
+
+    public static final int DEFAULT_LIMIT = 20;
+
+    private static final int MAX_TOKEN_LENGTH = 32;   // longer tokens (hashes, notes) are cut for indexing
+    private static final int CANDIDATES_PER_HIT = 8;  // stage-1 pool = limit × this
+    private static final char PREFIX_MARK = '^';
 
-public class SearchService {
+    // ---------- RESULT TYPES ----------
+    public enum Kind {
+        PRODUCT("🛒 Product", 0.10),
+        EMPLOYEE("👤 Employee", 0.05),
+        SALE("🧾 Sale", 0.0),
+        NOTE("📝 Note", 0.0),      // full-text index only (SearchIndexDB)
+        TASK("✅ Task", 0.0);
 
-    private List<Product> products;
-    private List<User> users;
-    private List<Sales> sales;
+        private final String label;
+        private final double weight;   // tie-breaker between kinds with equal text scores
 
-    public SearchService(List<Product> products, List<User> users) {
-        this.products = products;
-        this.users = users;
-        this.sales = sales;
+        Kind(String label, double weight) {
+            this.label = label;
+            this.weight = weight;
+        }
+
+        public String getLabel() { return label; }
     }
 
-    public List<String> search(String query) {
-        query = query.toLowerCase();
+    /** One ranked result; {@link #toString()} is the label shown in the suggestion list. */
+    public static final class Hit {
+        private final Kind kind;
+        private final String id;
+        private final String title;
+        private final String detail;
+        private final double score;
+
+        public Hit(Kind kind, String id, String title, String detail, double score) {
+            this.kind = kind;
+            this.id = id;
+            this.title = title;
+            this.detail = detail;
+            this.score = score;
+        }
+
+        public Kind getKind() { return kind; }
+        public String getId() { return id; }
+        public String getTitle() { return title; }
+        public String getDetail() { return detail; }
+        public double getScore() { return score; }
+
+        public String getLabel() {
+            return kind.label + " → " + title + " (" + detail + ")";
+        }
+
+        @Override
+        public String toString() {
+            return getLabel();
+        }
+    }
 
-        List<String> results = new ArrayList<>();
+    // ---------- INDEX STATE (guarded by lock) ----------
+    private static final class Doc {
+        final Kind kind;
+        final String id;
+        final String title;
+        final String detail;
+        final String normId;
+        final String text;      // normalized tokens joined by single spaces, leading space for prefix checks
 
-        // 🛒 Product search
-        if (products != null) {
-            String finalQuery1 = query;
-            results.addAll(products.stream()
-                    .filter(p -> p.getId().toLowerCase().contains(finalQuery1) ||
-                            p.getName().toLowerCase().contains(finalQuery1) ||
-                            p.getCategory().toLowerCase().contains(finalQuery1))
-                    .map(p -> "🛒 Product → " + p.getName() + " (ID: " + p.getId() + ")")
-                    .collect(Collectors.toList()));
+        Doc(Kind kind, String id, String title, String detail, String normId, String text) {
+            this.kind = kind;
+            this.id = id;
+            this.title = title;
+            this.detail = detail;
+            this.normId = normId;
+            this.text = text;
         }
+    }
 
-        // 👤 User/Employee search
-        if (users != null) {
-            String finalQuery = query;
-            results.addAll(users.stream()
-                    .filter(u -> u.getId().toLowerCase().contains(finalQuery) ||
-                            u.getFullName().toLowerCase().contains(finalQuery) ||
-                            u.getEmail().toLowerCase().contains(finalQuery))
-                    .map(u -> "👤 Employee → " + u.getFullName() + " (ID: " + u.getId() + ")")
-                    .collect(Collectors.toList()));
+    /** Ascending doc slots for one gram; slots are appended in order, so no sorting is needed. */
+    private static final class Postings {
+        int[] slots = new int[4];
+        int size;
+
+        void add(int slot) {
+            if (size == slots.length) slots = Arrays.copyOf(slots, size * 2);
+            slots[size++] = slot;
         }
+    }
+
+    private final ArrayList<Doc> docs = new ArrayList<>();
+    private final Map<String, Integer> slotByKey = new HashMap<>();   // kind:id → slot
+    private final Map<String, Postings> postings = new HashMap<>();
+    private final BitSet deadSlots = new BitSet();   // checked per candidate, so kept off the Doc objects
+    private int deadDocs;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Per-thread scratch for gram counting, sized to the doc table; reset after every query
+    private static final ThreadLocal<int[][]> SCRATCH = ThreadLocal.withInitial(() -> new int[][]{new int[0], new int[0]});
 
+    public SearchService() {}
 
-        if (results.isEmpty()) {
-            results.add("⚠️ No results found for: " + query);
+    public SearchService(Collection<Product> products, Collection<User> users) {
+        this(products, users, null);
+    }
+
+    public SearchService(Collection<Product> products, Collection<User> users, Collection<Sales> sales) {
+        if (products != null) putProducts(products);
+        if (users != null) putUsers(users);
+        if (sales != null) putSales(sales);
+    }
+
+    // ---------- UPDATES ----------
+    public void putProducts(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            for (Product p : products) addProduct(p);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
         }
+    }
+
+    public void putProduct(Product p) {
+        putProducts(List.of(p));
+    }
+
+    /** Drops every product and indexes the given catalog (after a full reload). */
+    public void replaceProducts(Collection<Product> products) {
+        lock.writeLock().lock();
+        try {
+            removeAll(Kind.PRODUCT);
+            for (Product p : products) addProduct(p);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putUsers(Collection<User> users) {
+        lock.writeLock().lock();
+        try {
+            for (User u : users) addUser(u);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putUser(User u) {
+        putUsers(List.of(u));
+    }
+
+    /** Drops every employee and indexes the given staff list (picks up deletions too). */
+    public void replaceUsers(Collection<User> users) {
+        lock.writeLock().lock();
+        try {
+            removeAll(Kind.EMPLOYEE);
+            for (User u : users) addUser(u);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void putSales(Collection<Sales> sales) {
+        lock.writeLock().lock();
+        try {
+            for (Sales s : sales) addSale(s);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Kind kind, String id) {
+        lock.writeLock().lock();
+        try {
+            Integer slot = slotByKey.remove(key(kind, id));
+            if (slot != null) kill(slot);
+            compactIfNeeded();
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return docs.size() - deadDocs;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    // ---------- DOCUMENTS (callers hold the write lock) ----------
+    private void addProduct(Product p) {
+        if (p == null || p.getId() == null) return;
+        add(Kind.PRODUCT, p.getId(), orEmpty(p.getName()), "ID: " + p.getId(),
+                p.getId(), p.getName(), p.getCategory(), p.getSupplier());
+    }
+
+    private void addUser(User u) {
+        if (u == null || u.getId() == null) return;
+        add(Kind.EMPLOYEE, u.getId(), orEmpty(u.getFullName()), "ID: " + u.getId(),
+                u.getId(), u.getFullName(), u.getEmail());
+    }
+
+    private void addSale(Sales s) {
+        if (s == null) return;
+        String id = String.valueOf(s.getId());
+        String day = s.getCreatedAt() == null ? "" : s.getCreatedAt().toLocalDate().toString();
+        add(Kind.SALE, id, orEmpty(s.getName()),
+                "x" + s.getQuantity() + ", " + s.getFinalAmount() + (day.isEmpty() ? "" : ", " + day),
+                s.getProductId(), s.getName(), s.getPaymentMethod(), day);
+    }
+
+    private void add(Kind kind, String id, String title, String detail, String... fields) {
+        String key = key(kind, id);
+        Integer old = slotByKey.remove(key);
+        if (old != null) kill(old);
+
+        StringBuilder text = new StringBuilder();
+        for (String field : fields) {
+            for (String token : tokens(normalize(field))) text.append(' ').append(token);
+        }
+        Doc doc = new Doc(kind, id, title, detail, normalize(id), text.toString());
+        int slot = docs.size();
+        docs.add(doc);
+        slotByKey.put(key, slot);
+        post(doc, slot);
+    }
+
+    private void post(Doc doc, int slot) {
+        Set<String> grams = new HashSet<>();
+        for (String token : tokens(doc.text)) grams(token, grams);
+        for (String g : grams) postings.computeIfAbsent(g, k -> new Postings()).add(slot);
+    }
+
+    private void removeAll(Kind kind) {
+        for (int slot = 0; slot < docs.size(); slot++) {
+            Doc d = docs.get(slot);
+            if (deadSlots.get(slot) || d.kind != kind) continue;
+            slotByKey.remove(key(d.kind, d.id));
+            kill(slot);
+        }
+    }
+
+    private void kill(int slot) {
+        if (deadSlots.get(slot)) return;
+        deadSlots.set(slot);
+        deadDocs++;
+    }
+
+    /** Dead docs stay in their postings until they outnumber the live ones; then everything is re-posted. */
+    private void compactIfNeeded() {
+        if (deadDocs < 1024 || deadDocs * 2 < docs.size()) return;
+        List<Doc> live = new ArrayList<>(docs.size() - deadDocs);
+        for (int slot = 0; slot < docs.size(); slot++) {
+            if (!deadSlots.get(slot)) live.add(docs.get(slot));
+        }
+        docs.clear();
+        deadSlots.clear();
+        slotByKey.clear();
+        postings.clear();
+        deadDocs = 0;
+        for (Doc d : live) {
+            int slot = docs.size();
+            docs.add(d);
+            slotByKey.put(key(d.kind, d.id), slot);
+            post(d, slot);
+        }
+    }
+
+    // ---------- SEARCH ----------
+    /** Top {@code limit} hits for the query, best first; empty for a blank query. */
+    public List<Hit> search(String query, int limit) {
+        return search(query, limit, () -> false);
+    }
+
+    /**
+     * Same as {@link #search(String, int)}, but gives up (returning an empty list) as soon as
+     * {@code cancelled} reports true; it is polled between postings lists and before re-scoring.
+     */
+    public List<Hit> search(String query, int limit, java.util.function.BooleanSupplier cancelled) {
+        String q = normalize(query).trim();
+        List<String> queryTokens = tokens(q);
+        if (queryTokens.isEmpty() || limit <= 0) return List.of();
+
+        Set<String> grams = new LinkedHashSet<>();
+        int misses = 0;
+        for (String token : queryTokens) {
+            queryGrams(token, grams);
+            misses += allowedMisses(token.length());
+        }
+        int need = Math.max(1, grams.size() - misses);
+
+        lock.readLock().lock();
+        try {
+            int n = docs.size();
+            int[][] scratch = SCRATCH.get();
+            if (scratch[0].length < n) {
+                scratch[0] = new int[n + n / 2];
+                scratch[1] = new int[n + n / 2];
+            }
+            int[] counts = scratch[0];
+            int[] touched = scratch[1];
+            int touchedCount = 0;
+            try {
+                // Stage 1: shared gram count per doc, straight off the postings. A qualifying doc
+                // misses at most (grams - need) lists, so it must be in one of the rarest
+                // (grams - need + 1); only those may add new docs, the common lists just count.
+                List<Postings> lists = new ArrayList<>(grams.size());
+                for (String g : grams) {
+                    Postings p = postings.get(g);
+                    if (p != null) lists.add(p);
+                }
+                lists.sort(Comparator.comparingInt(p -> p.size));
+                int seeding = grams.size() - need + 1;
+                for (int l = 0; l < lists.size(); l++) {
+                    if (cancelled.getAsBoolean()) return List.of();
+                    Postings p = lists.get(l);
+                    int[] slots = p.slots;
+                    if (l < seeding) {
+                        for (int i = 0; i < p.size; i++) {
+                            int slot = slots[i];
+                            if (counts[slot]++ == 0) touched[touchedCount++] = slot;
+                        }
+                    } else {
+                        for (int i = 0; i < p.size; i++) {
+                            int slot = slots[i];
+                            if (counts[slot] != 0) counts[slot]++;
+                        }
+                    }
+                }
+                if (cancelled.getAsBoolean()) return List.of();
+                int[] pool = selectCandidates(counts, touched, touchedCount, need, grams.size(),
+                        limit * CANDIDATES_PER_HIT);
+
+                // Stage 2: re-score the pool against the text and keep the top k
+                List<Hit> hits = new ArrayList<>(pool.length);
+                for (int slot : pool) {
+                    Hit hit = score(docs.get(slot), q, queryTokens, counts[slot], grams.size());
+                    if (hit != null) hits.add(hit);
+                }
+                hits.sort(Comparator.comparingDouble(Hit::getScore).reversed());
+                return hits.size() > limit ? new ArrayList<>(hits.subList(0, limit)) : hits;
+            } finally {
+                for (int i = 0; i < touchedCount; i++) counts[touched[i]] = 0;
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Live docs with at least {@code need} shared grams, highest counts first, at most {@code max}. */
+    private int[] selectCandidates(int[] counts, int[] touched, int touchedCount, int need, int maxCount, int max) {
+        // Histogram of counts, then one pass to take everything above the cut-off level
+        int[] histogram = new int[maxCount + 1];
+        for (int i = 0; i < touchedCount; i++) {
+            int slot = touched[i];
+            if (counts[slot] >= need && !deadSlots.get(slot)) histogram[counts[slot]]++;
+        }
+        int cut = maxCount;
+        int taken = 0;
+        while (cut >= need && taken + histogram[cut] < max) {
+            taken += histogram[cut];
+            cut--;
+        }
+        int atCut = cut >= need ? max - taken : 0;
+        int floor = Math.max(cut, need);
+
+        int[] pool = new int[Math.min(max, taken + atCut)];
+        int size = 0;
+        for (int i = 0; i < touchedCount && size < pool.length; i++) {
+            int slot = touched[i];
+            int c = counts[slot];
+            if (c < floor || deadSlots.get(slot)) continue;
+            if (c == cut) {
+                if (atCut == 0) continue;
+                atCut--;
+            }
+            pool[size++] = slot;
+        }
+        return size == pool.length ? pool : Arrays.copyOf(pool, size);
+    }
+
+    private static Hit score(Doc doc, String query, List<String> queryTokens, int shared, int gramCount) {
+        double text = 0;
+        for (String token : queryTokens) {
+            if (doc.text.contains(" " + token)) text += 1.0;                 // word prefix
+            else if (doc.text.contains(token)) text += 0.6;                  // substring
+            else if (allowedMisses(token.length()) == 0) return null;       // short tokens must match as typed
+        }
+        double score = text / queryTokens.size()
+                + (double) shared / gramCount
+                + doc.kind.weight
+                - doc.text.length() * 1e-4;                                   // shorter (more specific) docs first
+        if (doc.normId.equals(query)) score += 3.0;
+        return new Hit(doc.kind, doc.id, doc.title, doc.detail, score);
+    }
+
+    // ---------- TEXT ----------
+    /** Grams a token may miss and still match: one typo costs at most two bigrams. */
+    static int allowedMisses(int tokenLength) {
+        if (tokenLength <= 3) return 0;
+        if (tokenLength <= 7) return 2;
+        return 4;
+    }
+
+    static String normalize(String s) {
+        if (s == null || s.isEmpty()) return "";
+        for (int i = 0; i < s.length(); i++) {
+            if (s.charAt(i) >= 0x80) return Normalizer.normalize(s, Normalizer.Form.NFKC).toLowerCase(Locale.ROOT);
+        }
+        return s.toLowerCase(Locale.ROOT);   // ASCII is already NFKC
+    }
+
+    /** Letter/digit runs of already-normalized text. */
+    static List<String> tokens(String text) {
+        List<String> out = new ArrayList<>();
+        int start = -1;
+        for (int i = 0; i <= text.length(); i++) {
+            boolean word = i < text.length() && Character.isLetterOrDigit(text.charAt(i));
+            if (word && start < 0) start = i;
+            else if (!word && start >= 0) {
+                out.add(text.substring(start, Math.min(i, start + MAX_TOKEN_LENGTH)));
+                start = -1;
+            }
+        }
+        return out;
+    }
+
+    /** Indexed grams: "^" + first char, then every bigram of the token. */
+    static void grams(String token, Set<String> out) {
+        out.add(PREFIX_MARK + token.substring(0, 1));
+        for (int i = 0; i + 2 <= token.length(); i++) out.add(token.substring(i, i + 2));
+    }
+
+    /**
+     * Query grams: a lone character matches word prefixes through its "^" gram; longer tokens
+     * use bigrams only, so mid-word matches (a product code's digits) qualify like prefixes do.
+     */
+    static void queryGrams(String token, Set<String> out) {
+        if (token.length() == 1) {
+            out.add(PREFIX_MARK + token);
+            return;
+        }
+        for (int i = 0; i + 2 <= token.length(); i++) out.add(token.substring(i, i + 2));
+    }
+
+    private static String key(Kind kind, String id) {
+        return kind.ordinal() + ":" + id;
+    }
 
-        return results;
+    private static String orEmpty(String s) {
+        return s == null ? "" : s;
     }
 }
@@ -0,0 +1,50 @@
+package bikram.util;
+
+import bikram.db.UserDB;
+import bikram.db.UserRepository;
+import bikram.model.User;
+import javafx.application.Platform;
+import javafx.collections.ObservableList;
+
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * 👥 Fills an FX user list page by page from a background thread.
+ * The first page shows up as soon as it is read, so large staff lists
+ * never block the FX thread or wait for the whole table.
+ */
+public final class UserListLoader {
+
+    // Latest in-flight load per list, by identity: pages of a superseded load are dropped.
+    // Synchronized because pages are often constructed on Navigator's loader thread.
+    private static final Map<ObservableList<User>, Object> CURRENT_LOAD =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+
+    private UserListLoader() {}
+
+    /**
+     * Replaces the list's contents. Call on the FX thread, or before the list is shown;
+     * {@code onDone} (may be null) runs on the FX thread after the last page.
+     */
+    public static void streamInto(UserRepository repo, ObservableList<User> target, Runnable onDone) {
+        Object load = new Object();
+        CURRENT_LOAD.put(target, load);
+        target.clear();
+        Thread loader = new Thread(() -> {
+            try {
+                repo.streamUsers(UserDB.DEFAULT_PAGE_SIZE, page -> Platform.runLater(() -> {
+                    if (CURRENT_LOAD.get(target) == load) target.addAll(page);
+                }));
+            } finally {
+                Platform.runLater(() -> {
+                    if (!CURRENT_LOAD.remove(target, load)) return;
+                    if (onDone != null) onDone.run();
+                });
+            }
+        }, "User-Loader");
+        loader.setDaemon(true);
+        loader.start();
+    }
+}
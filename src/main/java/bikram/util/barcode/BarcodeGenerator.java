@@ -1,22 +1,19 @@
 package bikram.util.barcode;
 
 import com.google.zxing.BarcodeFormat;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
 
-import java.io.IOException;
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.Paths;
 
 /**
  * 🔳 Barcode Generator Utility
  * Generates barcodes (EAN_13, CODE_128, CODE_39, etc.)
+ * For many labels at once, use {@link CodeRenderer} directly.
  */
 public class BarcodeGenerator {
     // Default folder to save barcodes
-    private static final String BASE_DIR = "src/barcodes/";
+    private static final Path BASE_DIR = Paths.get("src", "barcodes");
 
     /**
      * Generates a barcode image and saves it as a PNG file.
@@ -29,21 +26,16 @@ public class BarcodeGenerator {
      */
     public static void generateBarcode(String data, String filename, BarcodeFormat format, int width, int height) {
         try {
-            // Ensure directory exists
-            Path dirPath = FileSystems.getDefault().getPath(BASE_DIR);
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-            }
+            // Created once per run (see CodeRenderer)
+            CodeRenderer.ensureDirectory(BASE_DIR);
 
             // Create file path (e.g., src/barcodes/Laptop.png)
             String sanitized = filename.replaceAll("[^a-zA-Z0-9-_]", "_");
-            Path filePath = FileSystems.getDefault().getPath(BASE_DIR + sanitized + ".png");
+            Path filePath = BASE_DIR.resolve(sanitized + ".png");
 
-            // Create the barcode
-            BitMatrix matrix = new MultiFormatWriter().encode(data, format, width, height);
-
-            // Write barcode image
-            MatrixToImageWriter.writeToPath(matrix, "png", filePath);
+            // Encode with the shared writers, write the 1-bit PNG
+            byte[] png = CodeRenderer.render(CodeRenderer.Job.of(data, format, width, height)).toPng();
+            Files.write(filePath, png);
 
             System.out.println("✅ Barcode saved at: " + filePath.toAbsolutePath());
         } catch (Exception e) {
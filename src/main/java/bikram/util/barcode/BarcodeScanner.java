@@ -8,17 +8,18 @@ import com.google.zxing.*;
 import com.google.zxing.client.j2se.BufferedImageLuminanceSource;
 import com.google.zxing.common.HybridBinarizer;
 import javafx.application.Platform;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.scene.Scene;
 import javafx.scene.control.TextField;
-import javafx.scene.image.Image;
 import javafx.scene.image.ImageView;
 import javafx.scene.layout.StackPane;
 import javafx.stage.Modality;
 import javafx.stage.Stage;
 
+import java.awt.Dimension;
 import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class BarcodeScanner {
 
@@ -130,7 +131,11 @@ public class BarcodeScanner {
         stage.initModality(Modality.APPLICATION_MODAL);
         stage.setTitle("Camera Barcode Scanner");
 
-        ImageView preview = new ImageView();
+        // One pixel buffer for the whole session; frames are written into it, not wrapped in new images
+        Dimension size = webcam.getViewSize();
+        FxImageBuffer frameBuffer = new FxImageBuffer(size.width, size.height);
+
+        ImageView preview = new ImageView(frameBuffer.getImage());
         preview.setFitWidth(640);
         preview.setFitHeight(480);
 
@@ -139,13 +144,37 @@ public class BarcodeScanner {
         stage.setScene(scene);
         stage.show();
 
-        // Update preview in FX thread
+        // Grab on this thread, paint on the FX thread. A new frame is grabbed only after the
+        // last one was painted, so the raw buffer is never written while it is being read.
+        ByteBuffer raw = ByteBuffer.allocateDirect(size.width * size.height * 3);
+        AtomicReference<BufferedImage> fallbackFrame = new AtomicReference<>();
+        AtomicBoolean painting = new AtomicBoolean(false);
+        Runnable paint = () -> {
+            try {
+                BufferedImage img = fallbackFrame.get();
+                if (img != null) frameBuffer.draw(img);
+                else frameBuffer.drawRgb(raw);
+            } finally {
+                painting.set(false);
+            }
+        };
+
         Thread updater = new Thread(() -> {
+            boolean rawAccess = true;
             while (!scanned.get()) {
-                BufferedImage img = webcam.getImage();
-                if (img != null) {
-                    Image fxImage = SwingFXUtils.toFXImage(img, null);
-                    Platform.runLater(() -> preview.setImage(fxImage));
+                if (!painting.get()) {
+                    if (rawAccess) {
+                        try {
+                            webcam.getImageBytes(raw);   // RGB, straight from the driver's buffer
+                        } catch (IllegalStateException unsupported) {
+                            rawAccess = false;   // driver without buffer access: copy from its images instead
+                        }
+                    }
+                    if (!rawAccess) fallbackFrame.set(webcam.getImage());
+                    if (rawAccess || fallbackFrame.get() != null) {
+                        painting.set(true);
+                        Platform.runLater(paint);
+                    }
                 }
                 try { Thread.sleep(50); } catch (InterruptedException ignored) {}
             }
@@ -0,0 +1,326 @@
+package bikram.util.barcode;
+
+import com.google.zxing.BarcodeFormat;
+import com.google.zxing.EncodeHintType;
+import com.google.zxing.MultiFormatWriter;
+import com.google.zxing.Writer;
+import com.google.zxing.WriterException;
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import com.google.zxing.oned.Code128Writer;
+import com.google.zxing.oned.Code39Writer;
+import com.google.zxing.oned.EAN13Writer;
+import com.google.zxing.oned.EAN8Writer;
+import com.google.zxing.qrcode.QRCodeWriter;
+
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+import javax.imageio.stream.MemoryCacheImageOutputStream;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 🏭 Batch barcode / QR rendering.
+ * Jobs are encoded in parallel on a small pool of daemon workers. The format writers and
+ * hint maps are built once and shared; ZXing writers hold no state. Results stay in
+ * memory as {@link Rendered}. {@link #writeAll} can also store them in a
+ * content-addressed cache: the file name is a hash of (format, size, data), so a
+ * label that was rendered before is never encoded again.
+ * <p>
+ * Images are 1-bit ({@code TYPE_BYTE_BINARY}), filled a whole row at a time. Rows
+ * that repeat the previous one are copied, which covers every row of a 1D barcode.
+ * The PNGs are 1-bit too: small, and quick to encode.
+ */
+public final class CodeRenderer {
+
+    /** Where {@link #writeAll(Stream)} keeps its files. */
+    public static final Path CACHE_DIR = Paths.get("data", "codes");
+
+    private static final Map<BarcodeFormat, Writer> WRITERS = new EnumMap<>(BarcodeFormat.class);
+    private static final Writer FALLBACK = new MultiFormatWriter();
+    private static final Map<EncodeHintType, Object> QR_HINTS = Map.of(EncodeHintType.CHARACTER_SET, "UTF-8");
+
+    static {
+        WRITERS.put(BarcodeFormat.CODE_128, new Code128Writer());
+        WRITERS.put(BarcodeFormat.CODE_39, new Code39Writer());
+        WRITERS.put(BarcodeFormat.EAN_13, new EAN13Writer());
+        WRITERS.put(BarcodeFormat.EAN_8, new EAN8Writer());
+        WRITERS.put(BarcodeFormat.QR_CODE, new QRCodeWriter());
+    }
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors(), pool -> {
+        ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(pool);
+        t.setName("Code-Render-" + t.getPoolIndex());
+        t.setDaemon(true);
+        return t;
+    }, null, false);
+
+    private static final Set<Path> READY_DIRS = ConcurrentHashMap.newKeySet();
+
+    private CodeRenderer() {
+    }
+
+    // ---------- JOBS ----------
+    /** One code to render. Equal jobs render identical images and share a cache file. */
+    public static final class Job {
+        private final String data;
+        private final BarcodeFormat format;
+        private final int width;
+        private final int height;
+        private String key;
+
+        private Job(String data, BarcodeFormat format, int width, int height) {
+            this.data = Objects.requireNonNull(data, "data");
+            this.format = Objects.requireNonNull(format, "format");
+            this.width = width;
+            this.height = height;
+        }
+
+        public static Job of(String data, BarcodeFormat format, int width, int height) {
+            return new Job(data, format, width, height);
+        }
+
+        /** CODE_128 at the 300x100 the label pages have always used. */
+        public static Job code128(String data) {
+            return new Job(data, BarcodeFormat.CODE_128, 300, 100);
+        }
+
+        public static Job qr(String data, int size) {
+            return new Job(data, BarcodeFormat.QR_CODE, size, size);
+        }
+
+        public String getData() { return data; }
+        public BarcodeFormat getFormat() { return format; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+
+        /** SHA-256 of format, size and data, as hex: the cache file name. */
+        public String key() {
+            String k = key;
+            if (k == null) {
+                try {
+                    MessageDigest sha = MessageDigest.getInstance("SHA-256");
+                    sha.update((format + "\n" + width + "x" + height + "\n").getBytes(StandardCharsets.UTF_8));
+                    k = HexFormat.of().formatHex(sha.digest(data.getBytes(StandardCharsets.UTF_8)));
+                } catch (NoSuchAlgorithmException e) {
+                    throw new IllegalStateException("SHA-256 unavailable", e);   // required on every JVM
+                }
+                key = k;
+            }
+            return k;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Job j && j.width == width && j.height == height
+                    && j.format == format && j.data.equals(data);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(data, format, width, height);
+        }
+
+        @Override
+        public String toString() {
+            return format + " " + width + "x" + height + " \"" + data + "\"";
+        }
+    }
+
+    /** An encoded job; the image and PNG are produced on demand, from the matrix. */
+    public static final class Rendered {
+        private final Job job;
+        private final BitMatrix matrix;
+
+        private Rendered(Job job, BitMatrix matrix) {
+            this.job = job;
+            this.matrix = matrix;
+        }
+
+        public Job getJob() { return job; }
+        public BitMatrix getMatrix() { return matrix; }
+
+        public BufferedImage toImage() {
+            return CodeRenderer.toImage(matrix);
+        }
+
+        public byte[] toPng() {
+            return CodeRenderer.toPng(toImage());
+        }
+    }
+
+    // ---------- RENDERING ----------
+    /** Encodes one job on the calling thread. */
+    public static Rendered render(Job job) throws WriterException {
+        Writer writer = WRITERS.getOrDefault(job.format, FALLBACK);
+        BitMatrix matrix = job.format == BarcodeFormat.QR_CODE
+                ? writer.encode(job.data, job.format, job.width, job.height, QR_HINTS)
+                : writer.encode(job.data, job.format, job.width, job.height);
+        return new Rendered(job, matrix);
+    }
+
+    /**
+     * Encodes every job in parallel, in memory.
+     * @return results in first-seen order, one per distinct job; jobs that fail to encode are logged and left out
+     */
+    public static Map<Job, Rendered> renderAll(Stream<Job> jobs) {
+        List<Job> distinct = jobs.distinct().toList();
+        Rendered[] results = POOL.submit(() -> distinct.parallelStream()
+                .map(CodeRenderer::renderQuietly)
+                .toArray(Rendered[]::new)).join();
+
+        Map<Job, Rendered> out = new LinkedHashMap<>(distinct.size() * 2);
+        for (Rendered r : results) {
+            if (r != null) out.put(r.job, r);
+        }
+        return out;
+    }
+
+    public static Map<Job, Rendered> renderAll(Collection<Job> jobs) {
+        return renderAll(jobs.stream());
+    }
+
+    /** {@link #writeAll(Stream, Path)} into {@link #CACHE_DIR}. */
+    public static Map<Job, Path> writeAll(Stream<Job> jobs) {
+        return writeAll(jobs, CACHE_DIR);
+    }
+
+    /**
+     * Makes sure every job has a PNG at {@code dir/<key>.png}, encoding only those not already there.
+     * Files appear atomically, so a reader never sees half a PNG.
+     * @return the file for each distinct job that could be rendered
+     */
+    public static Map<Job, Path> writeAll(Stream<Job> jobs, Path dir) {
+        try {
+            ensureDirectory(dir);
+        } catch (IOException e) {
+            System.err.println("❌ Code cache unavailable (" + dir + "): " + e.getMessage());
+            return new LinkedHashMap<>();
+        }
+        List<Job> distinct = jobs.distinct().toList();
+        AtomicInteger hits = new AtomicInteger();
+        Path[] files = POOL.submit(() -> distinct.parallelStream().map(job -> {
+            Path file = dir.resolve(job.key() + ".png");
+            if (Files.exists(file)) {
+                hits.incrementAndGet();
+                return file;
+            }
+            Rendered r = renderQuietly(job);
+            if (r == null) return null;
+            try {
+                writeAtomically(file, r.toPng());
+                return file;
+            } catch (IOException | UncheckedIOException e) {
+                System.err.println("❌ Failed to write " + job + ": " + e.getMessage());
+                return null;
+            }
+        }).toArray(Path[]::new)).join();
+
+        Map<Job, Path> out = new LinkedHashMap<>(distinct.size() * 2);
+        for (int i = 0; i < files.length; i++) {
+            if (files[i] != null) out.put(distinct.get(i), files[i]);
+        }
+        System.out.println("🏭 " + out.size() + " codes in " + dir + " (" + hits.get() + " cached, "
+                + (out.size() - hits.get()) + " rendered)");
+        return out;
+    }
+
+    private static Rendered renderQuietly(Job job) {
+        try {
+            return render(job);
+        } catch (WriterException | IllegalArgumentException e) {
+            System.err.println("❌ Failed to encode " + job + ": " + e.getMessage());
+            return null;
+        }
+    }
+
+    // ---------- IMAGES ----------
+    /** Set bits are black. Each row is packed once; a row equal to the one above is copied. */
+    public static BufferedImage toImage(BitMatrix matrix) {
+        int width = matrix.getWidth();
+        int height = matrix.getHeight();
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_BYTE_BINARY);
+        byte[] pixels = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        int stride = (width + 7) >> 3;
+
+        BitArray row = new BitArray(width);
+        BitArray previous = new BitArray(width);
+        for (int y = 0; y < height; y++) {
+            row = matrix.getRow(y, row);
+            int offset = y * stride;
+            if (y > 0 && row.equals(previous)) {
+                System.arraycopy(pixels, offset - stride, pixels, offset, stride);
+            } else {
+                packRow(row, pixels, offset, stride);
+            }
+            BitArray swap = previous;
+            previous = row;
+            row = swap;
+        }
+        return image;
+    }
+
+    /**
+     * Palette index 1 is white, 0 black. Pixels are packed MSB-first, BitArray words LSB-first.
+     * Bits past the width are clear, so the row padding comes out white.
+     */
+    private static void packRow(BitArray row, byte[] pixels, int offset, int stride) {
+        int[] words = row.getBitArray();
+        for (int b = 0; b < stride; b++) {
+            int x = b << 3;
+            int bits = (words[x >>> 5] >>> (x & 31)) & 0xFF;   // 8 pixels, x in the low bit
+            pixels[offset + b] = (byte) ~(Integer.reverse(bits) >>> 24);
+        }
+    }
+
+    /** PNG bytes via an in-memory image stream; ImageIO.write would buffer through a temp file. */
+    public static byte[] toPng(BufferedImage image) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(4096);
+        ImageWriter writer = ImageIO.getImageWritersByFormatName("png").next();
+        try (ImageOutputStream stream = new MemoryCacheImageOutputStream(out)) {
+            writer.setOutput(stream);
+            writer.write(image);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);   // in-memory stream
+        } finally {
+            writer.dispose();
+        }
+        return out.toByteArray();
+    }
+
+    // ---------- FILES ----------
+    /** Creates {@code dir} once per run; later calls are a set lookup. */
+    static void ensureDirectory(Path dir) throws IOException {
+        if (READY_DIRS.contains(dir)) return;
+        Files.createDirectories(dir);
+        READY_DIRS.add(dir);
+    }
+
+    static void writeAtomically(Path file, byte[] bytes) throws IOException {
+        // Same directory as the target, so the move is a rename
+        Path tmp = Files.createTempFile(file.toAbsolutePath().getParent(), file.getFileName().toString(), ".tmp");
+        try {
+            Files.write(tmp, bytes);
+            Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(tmp);   // no-op after a successful move
+        }
+    }
+}
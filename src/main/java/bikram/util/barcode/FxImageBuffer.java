@@ -0,0 +1,166 @@
+package bikram.util.barcode;
+
+import com.google.zxing.common.BitArray;
+import com.google.zxing.common.BitMatrix;
+import javafx.scene.image.PixelBuffer;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.PixelWriter;
+import javafx.scene.image.WritableImage;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.awt.image.DataBufferInt;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+
+/**
+ * 🖼 A JavaFX image that shares its pixels with a direct {@link IntBuffer} ({@link PixelBuffer}).
+ * Drawing writes ARGB ints into that buffer and marks it dirty. No PNG, no AWT image,
+ * no copy through {@code SwingFXUtils}. After construction nothing is allocated, so
+ * one buffer can serve a preview that redraws every frame.
+ * <p>
+ * The {@code draw*} methods must run on the JavaFX Application Thread; that is
+ * where {@link PixelBuffer#updateBuffer} is allowed.
+ * <p>
+ * Static images (cards, labels) don't redraw, so {@link #toImage(BitMatrix)} skips the
+ * direct buffer and writes into a plain heap {@link WritableImage} instead: a few
+ * thousand cards then cost heap the GC can reclaim, not off-heap memory.
+ */
+public final class FxImageBuffer {
+
+    private static final int BLACK = 0xFF000000;
+    private static final int WHITE = 0xFFFFFFFF;
+
+    private final int width;
+    private final int height;
+    private final IntBuffer pixels;
+    private final PixelBuffer<IntBuffer> pixelBuffer;
+    private final WritableImage image;
+
+    // Scratch, reused by every draw
+    private final int[] row;
+    private BitArray bits;
+    private BitArray previousBits;
+
+    public FxImageBuffer(int width, int height) {
+        if (width <= 0 || height <= 0) throw new IllegalArgumentException("empty image: " + width + "x" + height);
+        this.width = width;
+        this.height = height;
+        this.pixels = ByteBuffer.allocateDirect(width * height * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        this.pixelBuffer = new PixelBuffer<>(width, height, pixels, PixelFormat.getIntArgbPreInstance());
+        this.image = new WritableImage(pixelBuffer);
+        this.row = new int[width];
+    }
+
+    /** {@code current} if it already has this size, otherwise a new buffer. */
+    public static FxImageBuffer reuse(FxImageBuffer current, int width, int height) {
+        return current != null && current.width == width && current.height == height
+                ? current
+                : new FxImageBuffer(width, height);
+    }
+
+    /** A standalone heap image of a code (labels, cards); any thread, since no scene has seen it yet. */
+    public static WritableImage toImage(BitMatrix matrix) {
+        int w = matrix.getWidth();
+        int h = matrix.getHeight();
+        WritableImage image = new WritableImage(w, h);
+        PixelWriter writer = image.getPixelWriter();
+        int[] row = new int[w];
+        BitArray bits = new BitArray(w);
+        BitArray previous = new BitArray(w);
+        for (int y = 0; y < h; y++) {
+            bits = matrix.getRow(y, bits);
+            if (y == 0 || !bits.equals(previous)) {
+                for (int x = 0; x < w; x++) row[x] = bits.get(x) ? BLACK : WHITE;
+            }
+            writer.setPixels(0, y, w, 1, PixelFormat.getIntArgbInstance(), row, 0, w);
+            BitArray swap = previous;
+            previous = bits;
+            bits = swap;
+        }
+        return image;
+    }
+
+    public WritableImage getImage() { return image; }
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+
+    // ---------- DRAWING (FX thread) ----------
+    /** Redraws a code; the matrix must be this buffer's size. */
+    public void draw(BitMatrix matrix) {
+        fill(matrix);
+        pixelBuffer.updateBuffer(b -> null);   // null = whole image changed
+    }
+
+    /**
+     * Redraws an opaque frame (camera). INT_RGB and 3BYTE_BGR rasters are read directly;
+     * any other type goes through getRGB into the reused row.
+     */
+    public void draw(BufferedImage frame) {
+        requireSize(frame.getWidth(), frame.getHeight());
+        switch (frame.getType()) {
+            case BufferedImage.TYPE_INT_RGB -> {
+                int[] src = ((DataBufferInt) frame.getRaster().getDataBuffer()).getData();
+                for (int y = 0, i = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++) row[x] = src[i++] | BLACK;   // opaque
+                    pixels.put(y * width, row, 0, width);
+                }
+            }
+            case BufferedImage.TYPE_3BYTE_BGR -> {
+                byte[] src = ((DataBufferByte) frame.getRaster().getDataBuffer()).getData();
+                for (int y = 0, i = 0; y < height; y++) {
+                    for (int x = 0; x < width; x++, i += 3) {
+                        row[x] = BLACK | (src[i + 2] & 0xFF) << 16 | (src[i + 1] & 0xFF) << 8 | (src[i] & 0xFF);
+                    }
+                    pixels.put(y * width, row, 0, width);
+                }
+            }
+            default -> {
+                for (int y = 0; y < height; y++) {
+                    frame.getRGB(0, y, width, 1, row, 0, width);
+                    for (int x = 0; x < width; x++) row[x] |= BLACK;
+                    pixels.put(y * width, row, 0, width);
+                }
+            }
+        }
+        pixelBuffer.updateBuffer(b -> null);
+    }
+
+    /** Redraws a frame of packed 24-bit RGB (e.g. a webcam's raw buffer), read from position 0. */
+    public void drawRgb(ByteBuffer rgb) {
+        for (int y = 0, i = 0; y < height; y++) {
+            for (int x = 0; x < width; x++, i += 3) {
+                row[x] = BLACK | (rgb.get(i) & 0xFF) << 16 | (rgb.get(i + 1) & 0xFF) << 8 | (rgb.get(i + 2) & 0xFF);
+            }
+            pixels.put(y * width, row, 0, width);
+        }
+        pixelBuffer.updateBuffer(b -> null);
+    }
+
+    // ---------- INTERNALS ----------
+    /** Set bits are black. A row equal to the one above (every row of a 1D code) reuses the expanded row. */
+    private void fill(BitMatrix matrix) {
+        requireSize(matrix.getWidth(), matrix.getHeight());
+        if (bits == null) {
+            bits = new BitArray(width);
+            previousBits = new BitArray(width);
+        }
+        for (int y = 0; y < height; y++) {
+            bits = matrix.getRow(y, bits);
+            if (y == 0 || !bits.equals(previousBits)) {
+                for (int x = 0; x < width; x++) row[x] = bits.get(x) ? BLACK : WHITE;
+            }
+            pixels.put(y * width, row, 0, width);
+            BitArray swap = previousBits;
+            previousBits = bits;
+            bits = swap;
+        }
+    }
+
+    private void requireSize(int w, int h) {
+        if (w != width || h != height) {
+            throw new IllegalArgumentException(w + "x" + h + " does not fit a " + width + "x" + height + " buffer");
+        }
+    }
+}
@@ -1,15 +1,8 @@
 package bikram.util.barcode;
 
-import com.google.zxing.BarcodeFormat;
-import com.google.zxing.EncodeHintType;
-import com.google.zxing.MultiFormatWriter;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-
-import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.util.HashMap;
+import java.nio.file.Paths;
 
 /**
  * 🌀 QR Code Generator Utility (UTF-8)
@@ -17,7 +10,7 @@ import java.util.HashMap;
  */
 public class QRCodeGenerator {
 
-    private static final String BASE_DIR = "src/qrcodes/";
+    private static final Path BASE_DIR = Paths.get("src", "qrcodes");
 
     /**
      * Generates a QR code PNG and saves it in src/qrcodes/
@@ -28,26 +21,16 @@ public class QRCodeGenerator {
      */
     public static void generateQRCode(String data, String filename, int size) {
         try {
-            // Ensure the folder exists
-            Path dirPath = FileSystems.getDefault().getPath(BASE_DIR);
-            if (!Files.exists(dirPath)) {
-                Files.createDirectories(dirPath);
-            }
+            // Created once per run (see CodeRenderer)
+            CodeRenderer.ensureDirectory(BASE_DIR);
 
             // Sanitize filename (no spaces or special chars)
             String safeName = filename.replaceAll("[^a-zA-Z0-9-_]", "_");
-            Path filePath = FileSystems.getDefault().getPath(BASE_DIR + safeName + ".png");
-
-            // QR encoding hints
-            HashMap<EncodeHintType, Object> hints = new HashMap<>();
-            hints.put(EncodeHintType.CHARACTER_SET, "UTF-8");
-
-            // Create QR matrix
-            BitMatrix matrix = new MultiFormatWriter()
-                    .encode(data, BarcodeFormat.QR_CODE, size, size, hints);
+            Path filePath = BASE_DIR.resolve(safeName + ".png");
 
-            // Save image
-            MatrixToImageWriter.writeToPath(matrix, "png", filePath);
+            // Encode (UTF-8 hints, shared writer) and save image
+            byte[] png = CodeRenderer.render(CodeRenderer.Job.qr(data, size)).toPng();
+            Files.write(filePath, png);
 
             System.out.println("✅ QR Code saved at: " + filePath.toAbsolutePath());
         } catch (Exception e) {
@@ -1,7 +1,8 @@
 package bikram.views.form;
 
-import bikram.db.ProductDB;
+import bikram.db.CachedProductRepository;
 import bikram.db.ProductRepository;
+import bikram.model.Money;
 import bikram.model.Product;
 import bikram.model.ProductType;
 import javafx.animation.*;
@@ -17,7 +18,7 @@ import javafx.util.Duration;
 
 public class ProductFormPage extends BorderPane {
 
-    private final ProductDB productDB = new ProductDB();
+    private final ProductRepository productDB = CachedProductRepository.shared();
 
     public ProductFormPage() {
         setPadding(new Insets(40));
@@ -85,8 +86,8 @@ public class ProductFormPage extends BorderPane {
                 String name = nameField.getText().trim();
                 ProductType type = typeComboBox.getValue();
                 String supplier = supplierField.getText().trim();
-                double price = Double.parseDouble(priceField.getText());
-                double cost = Double.parseDouble(costField.getText());
+                Money price = Money.parse(priceField.getText());
+                Money cost = Money.parse(costField.getText());
                 double discount = Double.parseDouble(discountField.getText());
                 int quantity = Integer.parseInt(quantityField.getText());
                 String desc = descriptionArea.getText().trim();
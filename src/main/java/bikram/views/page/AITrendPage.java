@@ -4,6 +4,11 @@ import bikram.db.ProductDB;
 import bikram.db.ProductRepository;
 import bikram.db.SalesDB;
 import bikram.db.Salesrepository;
+import bikram.model.DateRange;
+import bikram.model.ProductRanking;
+import bikram.model.SalesPoint;
+import bikram.model.SalesSummary;
+import bikram.model.TimeBucket;
 import javafx.animation.FadeTransition;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -17,6 +22,7 @@ import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.util.Duration;
 
+import java.time.LocalDate;
 import java.util.List;
 import java.util.Map;
 
@@ -28,6 +34,7 @@ public class AITrendPage extends StackPane {
 
     private final Salesrepository salesRepo = new SalesDB();
     private final ProductRepository productRepo = new ProductDB();
+    private final SalesSummary summary = salesRepo.getSummary(DateRange.all());
 
     public AITrendPage() {
 
@@ -74,11 +81,11 @@ public class AITrendPage extends StackPane {
 
     // ------------------ SUMMARY CARDS ------------------
     private Node createSummaryCards() {
-        double totalRevenue = salesRepo.getTotalRevenue();
-        double totalProfit = salesRepo.getTotalProfit();
-        double totalLoss = salesRepo.getTotalLoss();
-        int totalSales = salesRepo.countSales();
-        double avgPrice = productRepo.getAveragePrice();
+        double totalRevenue = summary.getRevenue();
+        double totalProfit = summary.getProfit();
+        double totalLoss = summary.getLoss();
+        int totalSales = summary.getTransactions();
+        double avgPrice = productRepo.getAveragePrice().toDouble();
 
         HBox row = new HBox(20);
         row.setAlignment(Pos.CENTER);
@@ -112,8 +119,8 @@ public class AITrendPage extends StackPane {
 
     // ------------------ REVENUE & PROFIT ------------------
     private Node createRevenueProfitChart() {
-        Map<String, Double> monthlyRevenue = salesRepo.getMonthlyRevenue();
-        Map<String, Double> monthlyProfit = salesRepo.getMonthlyProfit();
+        LocalDate today = LocalDate.now();
+        List<SalesPoint> months = salesRepo.getSalesSeries(today.minusMonths(5).withDayOfMonth(1), today, TimeBucket.MONTH);
 
         CategoryAxis xAxis = new CategoryAxis();
         xAxis.setLabel("月");
@@ -132,9 +139,9 @@ public class AITrendPage extends StackPane {
         XYChart.Series<String, Number> profitSeries = new XYChart.Series<>();
         profitSeries.setName("利益");
 
-        for (String month : monthlyRevenue.keySet()) {
-            revenueSeries.getData().add(new XYChart.Data<>(month, monthlyRevenue.get(month)));
-            profitSeries.getData().add(new XYChart.Data<>(month, monthlyProfit.getOrDefault(month, 0.0)));
+        for (SalesPoint p : months) {
+            revenueSeries.getData().add(new XYChart.Data<>(p.getLabel(), p.getRevenue()));
+            profitSeries.getData().add(new XYChart.Data<>(p.getLabel(), p.getProfit()));
         }
 
         chart.getData().addAll(revenueSeries, profitSeries);
@@ -143,12 +150,10 @@ public class AITrendPage extends StackPane {
 
     // ------------------ TOP PRODUCTS ------------------
     private Node createTopProductsChart() {
-        List<String> top5 = salesRepo.getTop5Products();
         PieChart chart = new PieChart();
 
-        for (String name : top5) {
-            int count = salesRepo.countSalesByProduct(name);
-            chart.getData().add(new PieChart.Data(name, count));
+        for (ProductRanking r : salesRepo.getTopProducts(ProductRanking.Metric.REVENUE, 5)) {
+            chart.getData().add(new PieChart.Data(r.getName(), r.getQuantity()));
         }
 
         chart.setTitle("🏆 売上上位5商品");
@@ -157,7 +162,8 @@ public class AITrendPage extends StackPane {
 
     // ------------------ MONTHLY TREND ------------------
     private Node createMonthlyTrendChart() {
-        Map<String, Integer> trendMap = salesRepo.getMonthlySalesTrend();
+        LocalDate today = LocalDate.now();
+        List<SalesPoint> months = salesRepo.getSalesSeries(today.minusMonths(11).withDayOfMonth(1), today, TimeBucket.MONTH);
 
         CategoryAxis xAxis = new CategoryAxis();
         xAxis.setLabel("月");
@@ -171,8 +177,8 @@ public class AITrendPage extends StackPane {
         XYChart.Series<String, Number> trendSeries = new XYChart.Series<>();
         trendSeries.setName("販売数");
 
-        for (String month : trendMap.keySet()) {
-            trendSeries.getData().add(new XYChart.Data<>(month, trendMap.get(month)));
+        for (SalesPoint p : months) {
+            trendSeries.getData().add(new XYChart.Data<>(p.getLabel(), p.getQuantity()));
         }
 
         chart.getData().add(trendSeries);
@@ -193,9 +199,9 @@ public class AITrendPage extends StackPane {
 
     // ------------------ AI INSIGHT ------------------
     private Node createAIInsight() {
-        double profit = salesRepo.getTotalProfit();
-        double loss = salesRepo.getTotalLoss();
-        double revenue = salesRepo.getTotalRevenue();
+        double profit = summary.getProfit();
+        double loss = summary.getLoss();
+        double revenue = summary.getRevenue();
         String topProduct = salesRepo.getMostSoldProduct();
 
         String trend = profit > loss ? "📈 利益傾向が続いています！" : "⚠️ 損失が発生しています。";
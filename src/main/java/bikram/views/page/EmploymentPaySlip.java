@@ -2,11 +2,22 @@ package bikram.views.page;
 
 import bikram.db.EmployeeTimeDB;
 import bikram.db.EmployeeTimeRepository;
+import bikram.db.Journal;
+import bikram.db.PayrollEngine;
+import bikram.db.PayrollRunner;
 import bikram.db.UserDB;
 import bikram.db.UserRepository;
+import bikram.model.Money;
+import bikram.model.Payroll;
 import bikram.model.User;
+import bikram.util.FileActions;
+import bikram.util.UserListLoader;
+import bikram.views.ui.NotificationsManager;
 
+import javafx.application.Platform;
+import javafx.beans.property.SimpleStringProperty;
 import javafx.collections.FXCollections;
+import javafx.collections.ListChangeListener;
 import javafx.collections.ObservableList;
 
 import javafx.geometry.Insets;
@@ -14,12 +25,22 @@ import javafx.geometry.Pos;
 
 import javafx.scene.chart.*;
 import javafx.scene.control.*;
+import javafx.scene.control.cell.PropertyValueFactory;
 
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.time.Year;
+import java.time.YearMonth;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 
 
 public class EmploymentPaySlip extends BorderPane {
@@ -29,7 +50,9 @@ public class EmploymentPaySlip extends BorderPane {
     private ObservableList<User> userList;
 
     private String selectedUserId = "";
-    private double totalMonthlyHours;
+    // The card pays one month: the one picked in the payroll tab
+    private YearMonth payableMonth;
+    private Money payableAmount = Money.ZERO;
 
     private VBox userCardBox;
     private BarChart<String, Number> barChart;
@@ -41,6 +64,22 @@ public class EmploymentPaySlip extends BorderPane {
 
     private final int YEAR = Year.now().getValue();
     private final double SALARY_RATE = 1200; // hourly salary rate
+    private final double OVERTIME_RATE = SALARY_RATE * 0.25; // 25% premium on top of the base hour
+
+    // All-staff payroll run
+    private final PayrollEngine payrollEngine = new PayrollEngine();
+    private final PayrollRunner payrollRunner = new PayrollRunner(payrollEngine);
+    private final Journal journal = new Journal();
+    private PayrollRunner.Run currentRun;
+    private final ObservableList<Payroll> payrollRows = FXCollections.observableArrayList();
+    private final Map<String, String> userNames = new HashMap<>();
+    private ComboBox<Integer> monthBox;
+    private ProgressBar runProgress;
+    private Label runStatusLabel;
+    private Button runButton;
+    private Button cancelButton;
+    private Button exportButton;
+    private Button payAllButton;
 
 
     public EmploymentPaySlip() {
@@ -62,7 +101,12 @@ public class EmploymentPaySlip extends BorderPane {
         // ------------------------------------------------------
         // LEFT SIDE → USER LIST
         // ------------------------------------------------------
-        userList = FXCollections.observableArrayList(userRepo.getAllUsers());
+        userList = FXCollections.observableArrayList();
+        userList.addListener((ListChangeListener<User>) change -> {
+            while (change.next()) {
+                for (User u : change.getAddedSubList()) userNames.put(u.getId(), u.getFullName());
+            }
+        });
         userListView = new ListView<>(userList);
 
         userListView.setPrefWidth(260);
@@ -176,10 +220,25 @@ public class EmploymentPaySlip extends BorderPane {
         setRight(userCardBox);
 
         // -----------------------------------------------------
-        // BOTTOM → BAR CHART
+        // BOTTOM → BAR CHART + ALL-STAFF PAYROLL
         // -----------------------------------------------------
         barChart = createChart();
-        setBottom(barChart);
+
+        Tab chartTab = new Tab("月別時間", barChart);
+        Tab payrollTab = new Tab("全社員給与", createPayrollRunPane());
+        TabPane bottomTabs = new TabPane(chartTab, payrollTab);
+        bottomTabs.setTabClosingPolicy(TabPane.TabClosingPolicy.UNAVAILABLE);
+        bottomTabs.setPrefHeight(380);
+        setBottom(bottomTabs);
+
+        // Staff list streams in page by page; the bulk run waits for the full roster
+        runButton.setDisable(true);
+        UserListLoader.streamInto(userRepo, userList, () -> runButton.setDisable(currentRun != null));
+
+        // Leaving the page stops a running payroll
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene == null) cancelPayrollRun();
+        });
     }
 
 
@@ -204,14 +263,12 @@ public class EmploymentPaySlip extends BorderPane {
         nameLabel.setText("名前: " + user.getFullName());
         emailLabel.setText("Email: " + user.getEmail());
 
-        // Monthly hours for chart
+        // Monthly hours for chart (one grouped query for the whole year)
         ObservableList<XYChart.Data<String, Number>> monthData = FXCollections.observableArrayList();
-        totalMonthlyHours = 0;
 
+        double[] monthlyHours = timeRepo.getMonthlyHoursOfYear(userId, YEAR);
         for (int m = 1; m <= 12; m++) {
-            double hours = timeRepo.getMonthlyTime(userId, YEAR, m);
-            monthData.add(new XYChart.Data<>(String.valueOf(m), hours));
-            totalMonthlyHours += hours;
+            monthData.add(new XYChart.Data<>(String.valueOf(m), monthlyHours[m - 1]));
         }
 
         // Update chart
@@ -221,9 +278,22 @@ public class EmploymentPaySlip extends BorderPane {
         series.setData(monthData);
         barChart.getData().add(series);
 
-        // Update salary
-        totalHoursLabel.setText("総働いた時間: " + totalMonthlyHours + " h");
-        totalSalaryLabel.setText("給与: ¥" + (int) (totalMonthlyHours * SALARY_RATE));
+        // Update salary: the selected month only, same engine and rates as the all-staff run
+        payableMonth = YearMonth.of(YEAR, monthBox.getValue());
+        Payroll payroll = payrollEngine.compute(userId, payableMonth, payRates());
+        totalHoursLabel.setText(payableMonth + " 総働いた時間: " + String.format("%.2f", payroll.getTotalHours()) + " h");
+        payableAmount = Money.of(payroll.getFinalPay());
+        totalSalaryLabel.setText("給与: " + payableAmount);
+        totalSalaryLabel.setTextFill(Color.LIGHTGREEN);
+    }
+
+    private PayrollEngine.Rates payRates() {
+        return new PayrollEngine.Rates(SALARY_RATE, OVERTIME_RATE, 0);
+    }
+
+    /** Journal period of a month's wages, e.g. "2025-10"; the card and the all-staff run share it. */
+    private static String payPeriod(YearMonth month) {
+        return month.toString();
     }
 
 
@@ -250,11 +320,229 @@ public class EmploymentPaySlip extends BorderPane {
     }
 
 
+    // ==========================================================================
+    // ALL-STAFF PAYROLL RUN
+    // ==========================================================================
+    private VBox createPayrollRunPane() {
+        monthBox = new ComboBox<>();
+        for (int m = 1; m <= 12; m++) monthBox.getItems().add(m);
+        monthBox.setValue(LocalDate.now().getMonthValue());
+        monthBox.valueProperty().addListener((obs, oldMonth, newMonth) -> {
+            // The table belongs to the old month: don't export or pay it under the new one
+            payrollRows.clear();
+            exportButton.setDisable(true);
+            payAllButton.setDisable(true);
+            loadUserSalary(selectedUserId);
+        });
+
+        runButton = new Button("全社員計算");
+        runButton.setStyle("-fx-background-color:#2196F3; -fx-text-fill:white;");
+        runButton.setOnAction(e -> startPayrollRun());
+
+        cancelButton = new Button("キャンセル");
+        cancelButton.setStyle("-fx-background-color:#e53935; -fx-text-fill:white;");
+        cancelButton.setDisable(true);
+        cancelButton.setOnAction(e -> cancelPayrollRun());
+
+        exportButton = new Button("CSV出力");
+        exportButton.setStyle("-fx-background-color:#43a047; -fx-text-fill:white;");
+        exportButton.setDisable(true);
+        exportButton.setOnAction(e -> exportPayroll());
+
+        payAllButton = new Button("一括支払い");
+        payAllButton.setStyle("-fx-background-color:#fb8c00; -fx-text-fill:white;");
+        payAllButton.setDisable(true);
+        payAllButton.setOnAction(e -> payAll());
+
+        runProgress = new ProgressBar(0);
+        runProgress.setPrefWidth(220);
+
+        runStatusLabel = new Label("待機中");
+        runStatusLabel.setTextFill(Color.WHITE);
+
+        Label monthLabel = new Label(YEAR + "年");
+        monthLabel.setTextFill(Color.WHITE);
+        Label monthSuffix = new Label("月");
+        monthSuffix.setTextFill(Color.WHITE);
+
+        HBox controls = new HBox(10, monthLabel, monthBox, monthSuffix,
+                runButton, cancelButton, runProgress, runStatusLabel, exportButton, payAllButton);
+        controls.setAlignment(Pos.CENTER_LEFT);
+
+        VBox pane = new VBox(10, controls, createPayrollTable());
+        pane.setPadding(new Insets(10));
+        return pane;
+    }
+
+    private TableView<Payroll> createPayrollTable() {
+        TableView<Payroll> table = new TableView<>(payrollRows);
+        table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY_FLEX_LAST_COLUMN);
+        table.setPrefHeight(280);
+
+        TableColumn<Payroll, String> idCol = new TableColumn<>("ID");
+        idCol.setCellValueFactory(new PropertyValueFactory<>("userId"));
+
+        TableColumn<Payroll, String> nameCol = new TableColumn<>("名前");
+        nameCol.setCellValueFactory(cell ->
+                new SimpleStringProperty(userNames.getOrDefault(cell.getValue().getUserId(), "-")));
+
+        TableColumn<Payroll, Integer> daysCol = new TableColumn<>("出勤日数");
+        daysCol.setCellValueFactory(new PropertyValueFactory<>("daysWorked"));
+
+        TableColumn<Payroll, String> hoursCol = new TableColumn<>("総時間");
+        hoursCol.setCellValueFactory(cell ->
+                new SimpleStringProperty(String.format("%.2f", cell.getValue().getTotalHours())));
+
+        TableColumn<Payroll, String> overtimeCol = new TableColumn<>("残業時間");
+        overtimeCol.setCellValueFactory(cell ->
+                new SimpleStringProperty(String.format("%.2f", cell.getValue().getOvertimeHours())));
+
+        TableColumn<Payroll, String> grossCol = new TableColumn<>("総支給 (¥)");
+        grossCol.setCellValueFactory(cell ->
+                new SimpleStringProperty(String.format("%,.0f", cell.getValue().getGrossPay())));
+
+        TableColumn<Payroll, String> deductionCol = new TableColumn<>("控除 (¥)");
+        deductionCol.setCellValueFactory(cell ->
+                new SimpleStringProperty(String.format("%,.0f", cell.getValue().getDeductions())));
+
+        TableColumn<Payroll, String> finalCol = new TableColumn<>("差引支給 (¥)");
+        finalCol.setCellValueFactory(cell ->
+                new SimpleStringProperty(String.format("%,.0f", cell.getValue().getFinalPay())));
+
+        table.getColumns().setAll(List.of(idCol, nameCol, daysCol, hoursCol, overtimeCol, grossCol, deductionCol, finalCol));
+        return table;
+    }
+
+    private void startPayrollRun() {
+        if (currentRun != null) return;
+
+        List<String> userIds = userList.stream().map(User::getId).toList();
+        if (userIds.isEmpty()) return;
+
+        YearMonth month = YearMonth.of(YEAR, monthBox.getValue());
+        payrollRows.clear();
+        runProgress.setProgress(0);
+        runStatusLabel.setText("0 / " + userIds.size());
+        setRunning(true);
+
+        // Rows stream in as each employee finishes; workers never touch the scene graph
+        currentRun = payrollRunner.start(userIds, month, payRates(),
+                new PayrollRunner.Listener() {
+                    @Override
+                    public void onResult(Payroll payroll, int done, int total) {
+                        Platform.runLater(() -> {
+                            payrollRows.add(payroll);
+                            runProgress.setProgress((double) done / total);
+                            runStatusLabel.setText(done + " / " + total);
+                        });
+                    }
+
+                    @Override
+                    public void onFinished(List<Payroll> payrolls, boolean cancelled) {
+                        Platform.runLater(() -> {
+                            currentRun = null;
+                            payrollRows.setAll(payrolls); // final table in roster order
+                            setRunning(false);
+                            // Only a complete run may be paid out
+                            payAllButton.setDisable(cancelled || payrolls.isEmpty());
+                            runStatusLabel.setText((cancelled ? "キャンセル済み: " : "完了: ")
+                                    + payrolls.size() + " / " + userIds.size());
+                        });
+                    }
+                });
+    }
+
+    private void cancelPayrollRun() {
+        if (currentRun != null) currentRun.cancel();
+    }
+
+    private void setRunning(boolean running) {
+        runButton.setDisable(running);
+        monthBox.setDisable(running);
+        cancelButton.setDisable(!running);
+        exportButton.setDisable(running || payrollRows.isEmpty());
+        if (running) payAllButton.setDisable(true);
+    }
+
+    // 💴 Posts one PAYROLL entry per employee for the computed month; already-paid ones are skipped
+    private void payAll() {
+        if (payrollRows.isEmpty()) return;
+
+        int paid = 0, skipped = 0, failed = 0;
+        for (Payroll p : payrollRows) {
+            Money amount = Money.of(p.getFinalPay());
+            String period = payPeriod(p.getMonth());
+            if (amount.getMinor() <= 0 || journal.isPosted(Journal.Kind.PAYROLL, p.getUserId() + "/" + period)) {
+                skipped++;
+            } else if (journal.recordPayroll(p.getUserId(), period, amount)) {
+                paid++;
+            } else {
+                failed++;
+            }
+        }
+        payAllButton.setDisable(true);
+        runStatusLabel.setText("支払い: " + paid + " / スキップ: " + skipped + (failed > 0 ? " / 失敗: " + failed : ""));
+        NotificationsManager.showNotification(failed > 0 ? "エラー" : "給与支払い",
+                paid + " 名の給与を記帳しました" + (failed > 0 ? " (" + failed + " 名失敗)" : " ✅"),
+                failed > 0 ? NotificationsManager.NotificationType.ERROR : NotificationsManager.NotificationType.SUCCESS);
+        loadUserSalary(selectedUserId);
+    }
+
+    private void exportPayroll() {
+        if (payrollRows.isEmpty()) return;
+
+        String name = "payroll_" + YearMonth.of(YEAR, monthBox.getValue()) + ".csv";
+        File file = FileActions.showSaveDialog(getScene() == null ? null : getScene().getWindow(), name, "*.csv");
+        if (file == null) return;
+
+        // BOM so Excel opens the Japanese headers as UTF-8
+        try (PrintWriter out = new PrintWriter(file, StandardCharsets.UTF_8)) {
+            out.print('\uFEFF');
+            out.println("ID,名前,月,出勤日数,総時間,残業時間,遅刻(分),早退(分),基本給,残業代,控除,差引支給");
+            for (Payroll p : payrollRows) {
+                out.printf("%s,%s,%s,%d,%.2f,%.2f,%d,%d,%.0f,%.0f,%.0f,%.0f%n",
+                        csv(p.getUserId()), csv(userNames.getOrDefault(p.getUserId(), "")), p.getMonth(),
+                        p.getDaysWorked(), p.getTotalHours(), p.getOvertimeHours(),
+                        p.getLateMinutes(), p.getEarlyLeaveMinutes(),
+                        p.getRegularPay(), p.getOvertimePay(), p.getDeductions(), p.getFinalPay());
+            }
+            NotificationsManager.showNotification("CSV出力", file.getName() + " を保存しました ✅",
+                    NotificationsManager.NotificationType.SUCCESS);
+        } catch (IOException e) {
+            System.err.println("❌ Payroll export failed: " + e.getMessage());
+            NotificationsManager.showNotification("エラー", "CSVを保存できませんでした.",
+                    NotificationsManager.NotificationType.ERROR);
+        }
+    }
+
+    private static String csv(String value) {
+        if (value == null) return "";
+        if (value.contains(",") || value.contains("\"") || value.contains("\n")) {
+            return "\"" + value.replace("\"", "\"\"") + "\"";
+        }
+        return value;
+    }
+
+
     // ==========================================================================
     // PAY BUTTON
     // ==========================================================================
     private void handlePayment() {
-        if (selectedUserId == null || selectedUserId.isEmpty()) return;
+        if (selectedUserId == null || selectedUserId.isEmpty() || payableMonth == null) return;
+
+        // One PAYROLL entry per employee and month
+        String period = payPeriod(payableMonth);
+        if (journal.isPosted(Journal.Kind.PAYROLL, selectedUserId + "/" + period)) {
+            NotificationsManager.showNotification("支払い済み", payableMonth + " の給与は既に支払われています.",
+                    NotificationsManager.NotificationType.WARNING);
+            return;
+        }
+        if (payableAmount.getMinor() <= 0) return;
+        if (!journal.recordPayroll(selectedUserId, period, payableAmount)) {
+            NotificationsManager.showNotification("エラー", "給与を記帳できませんでした.",
+                    NotificationsManager.NotificationType.ERROR);
+            return;
+        }
 
         totalSalaryLabel.setText("支払い完了 ✔");
         totalSalaryLabel.setTextFill(Color.YELLOW);
@@ -1,11 +1,12 @@
 package bikram.views.page;
 
-import bikram.db.UserDB;
 import bikram.model.User;
+import bikram.security.AuthService;
 import bikram.security.SecurityAuth;
 import bikram.util.Navigator;
 import bikram.views.ui.NotificationsManager;
 import javafx.animation.*;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -22,6 +23,7 @@ public class LoginPage extends StackPane {
     private final TextField emailField = new TextField();
     private final PasswordField passwordField = new PasswordField();
     private static boolean isLogin;
+    private boolean loginInProgress;
 
     public LoginPage() {
         setAlignment(Pos.CENTER);
@@ -177,9 +179,29 @@ public class LoginPage extends StackPane {
             return;
         }
 
-        UserDB userDB = new UserDB();
-        Optional<User> result = userDB.verifyLogin(email, password);
+        if (loginInProgress) return; // one Argon2 check at a time per form
+        setLoginInProgress(true);
 
+        // Argon2 runs on the auth pool; the FX thread stays free while it hashes
+        AuthService.shared().login(email, password.toCharArray())
+                .whenComplete((result, error) -> Platform.runLater(() -> {
+                    setLoginInProgress(false);
+                    if (error != null) {
+                        System.err.println("❌ Login failed: " + error.getMessage());
+                        onLoginResult(Optional.empty());
+                    } else {
+                        onLoginResult(result);
+                    }
+                }));
+    }
+
+    private void setLoginInProgress(boolean inProgress) {
+        loginInProgress = inProgress;
+        emailField.setDisable(inProgress);
+        passwordField.setDisable(inProgress);
+    }
+
+    private void onLoginResult(Optional<User> result) {
         if (result.isPresent()) {
             SecurityAuth.setCurrentUser(result.get());
             setLogin(true);
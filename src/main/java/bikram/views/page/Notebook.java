@@ -29,7 +29,10 @@ public class Notebook extends BorderPane {
     private Button editBtn;      // ⭐ New
     private Button deleteBtn;    // ⭐ New
 
-    private String noteURL = "src/data/notes";
+    /** Where notes are saved, one .txt per note (also watched by SearchIndexWatcher). */
+    public static final String NOTES_DIR = "src/data/notes";
+
+    private String noteURL = NOTES_DIR;
 
     public Notebook() {
 
@@ -1,10 +1,10 @@
 package bikram.views.page;
 
-import bikram.db.ProductDB;
+import bikram.db.CachedProductRepository;
 import bikram.db.ProductRepository;
 import bikram.model.Product;
-import bikram.util.barcode.BarcodeGenerator;
-import com.google.zxing.BarcodeFormat;
+import bikram.util.barcode.CodeRenderer;
+import bikram.util.barcode.FxImageBuffer;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -28,10 +28,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 
 public class PriceCardPage extends VBox {
 
-    private final ProductRepository pdb = new ProductDB();
+    private final ProductRepository pdb = CachedProductRepository.shared();
     private static final int CARDS_PER_ROW = 5;
     private static final int CARD_WIDTH = 200;
     private static final int CARD_HEIGHT = 150;
@@ -63,6 +64,10 @@ public class PriceCardPage extends VBox {
 
     // --- Create pages with GridPane for each A4 page ---
     private void createPages(List<Product> products) {
+        // Every label in one parallel batch, in memory
+        Map<CodeRenderer.Job, CodeRenderer.Rendered> barcodes =
+                CodeRenderer.renderAll(products.stream().map(p -> CodeRenderer.Job.code128(p.getId())));
+
         GridPane grid = createEmptyGrid();
         int col = 0, row = 0;
         VBox page = new VBox(grid);
@@ -70,8 +75,7 @@ public class PriceCardPage extends VBox {
         pages.add(page);
 
         for (Product p : products) {
-            ensureBarcodeExists(p);
-            VBox card = createCard(p);
+            VBox card = createCard(p, barcodes.get(CodeRenderer.Job.code128(p.getId())));
 
             grid.add(card, col, row);
             col++;
@@ -103,7 +107,7 @@ public class PriceCardPage extends VBox {
     }
 
     // --- Individual card ---
-    private VBox createCard(Product product) {
+    private VBox createCard(Product product, CodeRenderer.Rendered barcode) {
         VBox card = new VBox(5);
         card.setAlignment(Pos.CENTER);
         card.setPadding(new Insets(10));
@@ -122,13 +126,13 @@ public class PriceCardPage extends VBox {
         Text idText = new Text(product.getId());
         idText.setFont(Font.font("Arial", 12));
 
-        Image barcodeImage = loadBarcode(product);
+        Image barcodeImage = toImage(barcode);
         ImageView barcodeView = new ImageView(barcodeImage);
         barcodeView.setFitWidth(150);
         barcodeView.setFitHeight(40);
         barcodeView.setPreserveRatio(true);
 
-        Text price = new Text("¥" + product.getPrice());
+        Text price = new Text(product.getPrice().toString());
         price.setFont(Font.font("Arial", 14));
         price.setFill(Color.DARKBLUE);
 
@@ -137,26 +141,9 @@ public class PriceCardPage extends VBox {
     }
 
     // --- Load barcode ---
-    private Image loadBarcode(Product product) {
-        try {
-            String basePath = "src/barcodes/";
-            File file = new File(basePath + product.getName().replaceAll("[^a-zA-Z0-9-_]", "_") + ".png");
-            if (!file.exists()) file = new File(basePath + product.getId() + ".png");
-
-            if (file.exists()) return new Image(file.toURI().toString());
-            else return new Image("https://via.placeholder.com/150x40.png?text=No+Barcode");
-        } catch (Exception e) {
-            e.printStackTrace();
-            return new Image("https://via.placeholder.com/150x40.png?text=Error");
-        }
-    }
-
-    private void ensureBarcodeExists(Product product) {
-        String basePath = "src/barcodes/";
-        File file = new File(basePath + product.getName().replaceAll("[^a-zA-Z0-9-_]", "_") + ".png");
-        if (!file.exists()) {
-            BarcodeGenerator.generateBarcode(product.getId(), product.getName(), BarcodeFormat.CODE_128, 300, 100);
-        }
+    private Image toImage(CodeRenderer.Rendered barcode) {
+        if (barcode == null) return new Image("https://via.placeholder.com/150x40.png?text=No+Barcode");
+        return FxImageBuffer.toImage(barcode.getMatrix());
     }
 
     // --- Print all pages ---
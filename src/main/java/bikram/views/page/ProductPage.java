@@ -1,10 +1,12 @@
 package bikram.views.page;
 
-import bikram.db.ProductDB;
-import bikram.db.ProductRepository;
+import bikram.db.CachedProductRepository;
+import bikram.db.StockLedger;
+import bikram.model.Money;
 import bikram.model.Product;
 import bikram.util.Navigator;
 import javafx.animation.FadeTransition;
+import javafx.application.Platform;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -21,10 +23,14 @@ import javafx.util.Callback;
 import javafx.util.Duration;
 
 import java.util.List;
+import java.util.function.Consumer;
 
 public class ProductPage extends BorderPane {
 
-    private final ProductRepository productDB = new ProductDB();
+    private final CachedProductRepository productDB = CachedProductRepository.shared();
+    private final StockLedger stockLedger = new StockLedger();
+    private final Consumer<CachedProductRepository.ProductChange> productListener =
+            change -> Platform.runLater(() -> applyChange(change));
     private final ObservableList<Product> products = FXCollections.observableArrayList();
     private TableView<Product> table;
 
@@ -32,6 +38,11 @@ public class ProductPage extends BorderPane {
         setPadding(new Insets(30));
         buildUI();
         loadProducts();
+
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) productDB.addListener(productListener);
+            else productDB.removeListener(productListener);
+        });
     }
 
     private void buildUI() {
@@ -44,7 +55,7 @@ public class ProductPage extends BorderPane {
         addBtn.setOnAction(e -> Navigator.navigate("ProductFormPage"));
 
         Button refreshBtn = createButton("🔄 更新", "#00c6ff");
-        refreshBtn.setOnAction(e -> loadProducts());
+        refreshBtn.setOnAction(e -> productDB.reload());
 
         HBox topBar = new HBox(20, title, addBtn, refreshBtn);
         topBar.setAlignment(Pos.CENTER_LEFT);
@@ -64,19 +75,19 @@ public class ProductPage extends BorderPane {
         nameCol.setCellValueFactory(new PropertyValueFactory<>("name"));
         nameCol.setCellFactory(whiteTextFactory());
 
-        TableColumn<Product, Double> priceCol = new TableColumn<>("価格 (¥)");
+        TableColumn<Product, Money> priceCol = new TableColumn<>("価格 (¥)");
         priceCol.setCellValueFactory(new PropertyValueFactory<>("price"));
         priceCol.setCellFactory(whiteTextFactory());
 
-        TableColumn<Product, Double> costCol = new TableColumn<>("原価 (¥)");
+        TableColumn<Product, Money> costCol = new TableColumn<>("原価 (¥)");
         costCol.setCellValueFactory(new PropertyValueFactory<>("cost"));
         costCol.setCellFactory(whiteTextFactory());
 
-        TableColumn<Product, Double> profitCol = new TableColumn<>("利益 (¥)");
+        TableColumn<Product, Money> profitCol = new TableColumn<>("利益 (¥)");
         profitCol.setCellValueFactory(cellData ->
-                javafx.beans.binding.Bindings.createDoubleBinding(
-                        () -> cellData.getValue().getPrice() - cellData.getValue().getCost()
-                ).asObject()
+                javafx.beans.binding.Bindings.createObjectBinding(
+                        () -> cellData.getValue().getPrice().minus(cellData.getValue().getCost())
+                )
         );
         profitCol.setCellFactory(whiteTextFactory());
 
@@ -152,6 +163,30 @@ public class ProductPage extends BorderPane {
         animate(table);
     }
 
+    // 🔔 キャッシュの変更を行単位で反映 (全件再読込しない)
+    private void applyChange(CachedProductRepository.ProductChange change) {
+        switch (change.getType()) {
+            case ADDED -> products.add(change.getProduct());
+            case UPDATED -> {
+                int i = indexOf(change.getProductId());
+                if (i >= 0) products.set(i, change.getProduct());
+                else products.add(change.getProduct());
+            }
+            case REMOVED -> {
+                int i = indexOf(change.getProductId());
+                if (i >= 0) products.remove(i);
+            }
+            case RELOADED -> loadProducts();
+        }
+    }
+
+    private int indexOf(String id) {
+        for (int i = 0; i < products.size(); i++) {
+            if (products.get(i).getId().equals(id)) return i;
+        }
+        return -1;
+    }
+
     private void animate(Node node) {
         FadeTransition fade = new FadeTransition(Duration.millis(600), node);
         fade.setFromValue(0);
@@ -169,10 +204,11 @@ public class ProductPage extends BorderPane {
         grid.setHgap(12); grid.setVgap(12); grid.setPadding(new Insets(10));
 
         TextField name = new TextField(p.getName());
-        TextField price = new TextField(String.valueOf(p.getPrice()));
-        TextField cost = new TextField(String.valueOf(p.getCost()));
+        TextField price = new TextField(p.getPrice().toPlainString());
+        TextField cost = new TextField(p.getCost().toPlainString());
         TextField discount = new TextField(String.valueOf(p.getDiscount()));
-        TextField qty = new TextField(String.valueOf(p.getQuantity()));
+        int shownQty = p.getQuantity();   // the count the user corrects; the ledger only applies it if unchanged
+        TextField qty = new TextField(String.valueOf(shownQty));
         TextField cat = new TextField(p.getCategory());
         TextField sup = new TextField(p.getSupplier());
         TextArea desc = new TextArea(p.getDescription());
@@ -191,16 +227,22 @@ public class ProductPage extends BorderPane {
         dialog.setResultConverter(button -> {
             if (button == ButtonType.OK) {
                 try {
-                    p.setName(name.getText());
-                    p.setPrice(Double.parseDouble(price.getText()));
-                    p.setCost(Double.parseDouble(cost.getText()));
-                    p.setDiscount(Double.parseDouble(discount.getText()));
-                    p.setQuantity(Integer.parseInt(qty.getText()));
-                    p.setCategory(cat.getText());
-                    p.setSupplier(sup.getText());
-                    p.setDescription(desc.getText());
-                    productDB.updateProduct(p);
-                    loadProducts();
+                    // p is the shared cached row: edit a copy, so a bad field leaves the catalog untouched
+                    Product edited = new Product(p);
+                    edited.setName(name.getText());
+                    edited.setPrice(Money.parse(price.getText()));
+                    edited.setCost(Money.parse(cost.getText()));
+                    edited.setDiscount(Double.parseDouble(discount.getText()));
+                    int newQty = Integer.parseInt(qty.getText());
+                    if (newQty < 0) throw new IllegalArgumentException("数量は0以上で入力してください");
+                    edited.setCategory(cat.getText());
+                    edited.setSupplier(sup.getText());
+                    edited.setDescription(desc.getText());
+                    if (!stockLedger.setOnHand(edited.getId(), shownQty, newQty, "製品編集")) {
+                        showAlert(Alert.AlertType.WARNING, "⚠️ 在庫が変更されました",
+                                "編集中に在庫数が変わったため、数量は保存されませんでした。最新の在庫を確認してもう一度入力してください。");
+                    }
+                    productDB.updateProduct(edited);   // re-reads the row, stock included
                 } catch (Exception ex) {
                     showAlert(Alert.AlertType.ERROR, "❌ エラー", ex.getMessage());
                 }
@@ -216,7 +258,6 @@ public class ProductPage extends BorderPane {
         confirm.showAndWait().ifPresent(result -> {
             if (result == ButtonType.OK) {
                 productDB.deleteProductById(p.getId());
-                loadProducts();
                 showAlert(Alert.AlertType.INFORMATION, "🗑 削除完了", "製品が削除されました！");
             }
         });
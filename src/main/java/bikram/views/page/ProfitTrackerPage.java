@@ -4,6 +4,9 @@ import bikram.db.ProductDB;
 import bikram.db.ProductRepository;
 import bikram.db.SalesDB;
 import bikram.db.Salesrepository;
+import bikram.model.DateRange;
+import bikram.model.ProductRanking;
+import bikram.model.SalesSummary;
 import javafx.animation.FadeTransition;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -16,7 +19,6 @@ import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.scene.text.Font;
 import javafx.util.Duration;
-import java.util.List;
 import java.util.Map;
 
 /**
@@ -69,9 +71,10 @@ public class ProfitTrackerPage extends StackPane {
 
     // ---------------- SUMMARY CARDS ----------------
     private Node createSummaryCards() {
-        double revenue = salesRepo.getTotalRevenue();
-        double cost = salesRepo.getTotalCost();
-        double profit = salesRepo.getTotalProfit();
+        SalesSummary summary = salesRepo.getSummary(DateRange.all());
+        double revenue = summary.getRevenue();
+        double cost = summary.getCost();
+        double profit = summary.getProfit();
 
         HBox row = new HBox(20);
         row.setAlignment(Pos.CENTER);
@@ -128,13 +131,10 @@ public class ProfitTrackerPage extends StackPane {
 
     // ---------------- TOP PRODUCTS BY PROFIT ----------------
     private Node createTopProductsChart() {
-        List<String> topProducts = salesRepo.getTop5Products(); // 利益トップ5
         PieChart chart = new PieChart();
 
-        for (String product : topProducts) {
-            int quantity = salesRepo.countSalesByProduct(product);
-            double profit = salesRepo.getProfitByProduct(product); // 必要に応じてSalesDBに実装
-            chart.getData().add(new PieChart.Data(product + " (¥" + format(profit) + ")", profit));
+        for (ProductRanking r : salesRepo.getTopProducts(ProductRanking.Metric.PROFIT, 5)) { // 利益トップ5
+            chart.getData().add(new PieChart.Data(r.getName() + " (¥" + format(r.getProfit()) + ")", r.getProfit()));
         }
 
         chart.setTitle("🏆 利益トップ5商品");
@@ -1,23 +1,20 @@
 package bikram.views.page;
 
+import bikram.util.barcode.CodeRenderer;
+import bikram.util.barcode.FxImageBuffer;
 import bikram.util.barcode.QRCodeGenerator;
-import com.google.zxing.*;
-import com.google.zxing.client.j2se.MatrixToImageWriter;
-import com.google.zxing.common.BitMatrix;
-import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
 import javafx.scene.effect.DropShadow;
 import javafx.scene.image.ImageView;
-import javafx.scene.image.Image;
 import javafx.scene.layout.*;
 import javafx.scene.paint.Color;
 import javafx.stage.FileChooser;
 import javafx.stage.Stage;
 
-import java.awt.image.BufferedImage;
 import java.io.File;
+import java.nio.file.Files;
 
 public class QRGeneratorPage extends VBox {
 
@@ -25,7 +22,8 @@ public class QRGeneratorPage extends VBox {
     private TextField inputDataField = new TextField();
     private TextField filenameField = new TextField();
     private Slider sizeSlider = new Slider(100, 800, 300);
-    private BufferedImage lastGeneratedImage = null;
+    private CodeRenderer.Rendered lastGenerated = null;
+    private FxImageBuffer previewBuffer;   // reused while the size stays the same
 
     public QRGeneratorPage() {
 
@@ -85,28 +83,18 @@ public class QRGeneratorPage extends VBox {
     private void generateQR() {
         try {
             String data = inputDataField.getText().trim();
-            String file = filenameField.getText().trim();
             int size = (int) sizeSlider.getValue();
 
             if (data.isEmpty()) {
                 alert("いくつかのデータを入力して、QR を生成します");
                 return;
             }
-            if (file.isEmpty()) {
-                alert("ファイル名を入力します");
-                return;
-            }
-
-            // Save using utility class
-            QRCodeGenerator.generateQRCode(data, file, size);
-
-            // Display preview
-            BitMatrix matrix = new MultiFormatWriter().encode(
-                    data, BarcodeFormat.QR_CODE, size, size);
 
-            lastGeneratedImage = MatrixToImageWriter.toBufferedImage(matrix);
-            Image fxImg = SwingFXUtils.toFXImage(lastGeneratedImage, null);
-            qrPreview.setImage(fxImg);
+            // Display preview: bits go straight into the preview's pixel buffer (saving is the save button's job)
+            lastGenerated = CodeRenderer.render(CodeRenderer.Job.qr(data, size));
+            previewBuffer = FxImageBuffer.reuse(previewBuffer, size, size);
+            previewBuffer.draw(lastGenerated.getMatrix());
+            qrPreview.setImage(previewBuffer.getImage());
 
         } catch (Exception ex) {
             alert("Error: " + ex.getMessage());
@@ -131,7 +119,7 @@ public class QRGeneratorPage extends VBox {
     /** --------------------- DOWNLOAD USING FILECHOOSER ----------------------- **/
     private void downloadQR() {
 
-        if (lastGeneratedImage == null) {
+        if (lastGenerated == null) {
             alert("Generate a QR first!");
             return;
         }
@@ -146,16 +134,7 @@ public class QRGeneratorPage extends VBox {
 
         if (file != null) {
             try {
-                MatrixToImageWriter.writeToPath(
-                        new MultiFormatWriter().encode(
-                                inputDataField.getText(),
-                                BarcodeFormat.QR_CODE,
-                                lastGeneratedImage.getWidth(),
-                                lastGeneratedImage.getHeight()
-                        ),
-                        "png",
-                        file.toPath()
-                );
+                Files.write(file.toPath(), lastGenerated.toPng());
             } catch (Exception e) {
                 alert("ダウンロードに失敗しました: " + e.getMessage());
             }
@@ -167,7 +146,7 @@ public class QRGeneratorPage extends VBox {
         inputDataField.clear();
         filenameField.clear();
         qrPreview.setImage(null);
-        lastGeneratedImage = null;
+        lastGenerated = null;
     }
 
     /** --------------------- STYLES ----------------------- **/
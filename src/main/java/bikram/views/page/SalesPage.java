@@ -1,8 +1,10 @@
 package bikram.views.page;
 
 import bikram.db.*;
+import bikram.model.Money;
 import bikram.model.Product;
 import bikram.model.Sales;
+import javafx.application.Platform;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
 import javafx.scene.control.*;
@@ -17,21 +19,32 @@ import java.util.*;
 
 public class SalesPage extends BorderPane {
     private final VBox cartBox = new VBox(10);
-    private final Label totalLabel = new Label("合計: ¥0.00");
-    private final Label discountLabel = new Label("割引: ¥0.00");
-    private final Label finalLabel = new Label("最終合計: ¥0.00");
-    private final Label changeLabel = new Label("お釣り: ¥0.00");
+    private final Label totalLabel = new Label("合計: " + Money.ZERO);
+    private final Label discountLabel = new Label("割引: " + Money.ZERO);
+    private final Label finalLabel = new Label("最終合計: " + Money.ZERO);
+    private final Label changeLabel = new Label("お釣り: " + Money.ZERO);
 
     private final List<CartItem> cart = new ArrayList<>();
     private final GridPane productGrid = new GridPane();
-    private double total = 0, discount = 0, finalTotal = 0;
-
-    private final ProductRepository pdb  = new ProductDB();
+    // Minor units (see Money); the discount is what the per-line rounded totals actually take off
+    private long total = 0, discount = 0, finalTotal = 0;
+    private double discountPercent = 0;
+    private static final long DISCOUNT_THRESHOLD = Money.of(5000).getMinor();
+
+    private final CachedProductRepository pdb = CachedProductRepository.shared();
+    private final java.util.function.Consumer<CachedProductRepository.ProductChange> productListener = change -> scheduleProductReload();
+    private boolean productReloadQueued;
     private final Salesrepository sdb = new SalesDB();
+    private final CheckoutService checkoutService = new CheckoutService();
+    private final StockLedger stockLedger = new StockLedger();
+    // This page's cart is one register: it holds reservations for what is in the cart
+    private final String registerId = StockLedger.newRegisterId();
 
     // 支払い関連
     private final ComboBox<String> paymentMethod = new ComboBox<>();
     private final TextField paymentAmount = new TextField();
+    // 返品関連
+    private final TextField refundSaleId = new TextField();
 
     public SalesPage() {
         setPadding(new Insets(20));
@@ -46,7 +59,7 @@ public class SalesPage extends BorderPane {
         ScrollPane leftScroll = new ScrollPane(leftPane);
         leftScroll.setFitToWidth(true);
 
-        VBox rightPane = new VBox(10, createCartView(), createCheckoutBox());
+        VBox rightPane = new VBox(10, createCartView(), createCheckoutBox(), createRefundBox());
         rightPane.setPadding(new Insets(10));
         rightPane.setPrefWidth(360);
 
@@ -54,9 +67,27 @@ public class SalesPage extends BorderPane {
         setRight(rightPane);
 
         loadProductsFromDB();
+
+        // 表示中だけカタログの変更を購読する
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) pdb.addListener(productListener);
+            else pdb.removeListener(productListener);
+        });
+    }
+
+    // 🔔 チェックアウトで複数商品が更新されても再描画は1回にまとめる
+    private void scheduleProductReload() {
+        Platform.runLater(() -> {
+            if (productReloadQueued) return;
+            productReloadQueued = true;
+            Platform.runLater(() -> {
+                productReloadQueued = false;
+                loadProductsFromDB();
+            });
+        });
     }
 
-    // ✅ 商品をロード
+    // ✅ 商品をロード (キャッシュから描画)
     private void loadProductsFromDB() {
         productGrid.getChildren().clear();
         productGrid.setHgap(15);
@@ -89,7 +120,7 @@ public class SalesPage extends BorderPane {
         Label name = new Label(product.getName());
         name.setFont(Font.font("Poppins", FontWeight.BOLD, 14));
 
-        Label price = new Label(String.format("¥%.2f", product.getPrice()));
+        Label price = new Label(product.getPrice().toString());
         price.setTextFill(Color.web("#4CAF50"));
 
         Button addBtn = new Button("カートに追加");
@@ -106,19 +137,21 @@ public class SalesPage extends BorderPane {
         return card;
     }
 
-    // ✅ カートに追加
+    // ✅ カートに追加 — 1個ずつ在庫を予約する（他のレジと取り合わない）
     private void addToCart(Product p) {
-        if (p.getQuantity() <= 0) {
-            showError("在庫切れ", p.getName() + " は在庫がありません！");
+        Optional<CartItem> existing = cart.stream().filter(c -> c.product.getId().equals(p.getId())).findFirst();
+        if (!stockLedger.reserve(registerId, p.getId(), 1)) {
+            int available = stockLedger.getAvailable(registerId, p.getId());
+            if (existing.isEmpty() && available <= 0) {
+                showError("在庫切れ", p.getName() + " は在庫がありません！");
+            } else {
+                showError("在庫制限", "これ以上追加できません — 販売可能な在庫は " + available + " です！");
+            }
             return;
         }
-        Optional<CartItem> existing = cart.stream().filter(c -> c.product.getId() == p.getId()).findFirst();
+        stockLedger.extend(registerId);   // the whole cart stays held while it is being worked on
         if (existing.isPresent()) {
-            if (existing.get().quantity < p.getQuantity()) {
-                existing.get().quantity++;
-            } else {
-                showError("在庫制限", "これ以上追加できません — 在庫は " + p.getQuantity() + " です！");
-            }
+            existing.get().quantity++;
         } else {
             cart.add(new CartItem(p, 1));
         }
@@ -143,15 +176,16 @@ public class SalesPage extends BorderPane {
         cartBox.getChildren().clear();
         total = 0;
         for (CartItem c : cart) {
-            double subtotal = c.product.getPrice() * c.quantity;
+            long subtotal = Money.times(c.product.getPrice().getMinor(), c.quantity);
             total += subtotal;
 
             HBox item = new HBox(10);
             Label name = new Label(c.product.getName() + " x" + c.quantity);
-            Label price = new Label(String.format("¥%.2f", subtotal));
+            Label price = new Label(Money.ofMinor(subtotal).toString());
             Button remove = new Button("❌");
             remove.setOnAction(e -> {
                 cart.remove(c);
+                stockLedger.release(registerId, c.product.getId(), c.quantity);
                 updateCartUI();
             });
 
@@ -165,11 +199,16 @@ public class SalesPage extends BorderPane {
 
     // ✅ 合計計算
     private void calculateTotals() {
-        discount = total > 5000 ? total * 0.10 : 0; // 5000円以上で10%割引
-        finalTotal = total - discount;
-        totalLabel.setText(String.format("合計: ¥%.2f", total));
-        discountLabel.setText(String.format("割引: ¥%.2f", discount));
-        finalLabel.setText(String.format("最終合計: ¥%.2f", finalTotal));
+        discountPercent = total > DISCOUNT_THRESHOLD ? 10 : 0; // 5000円以上で10%割引
+        // Same per-line rounding as the Sales rows that will be recorded, so the receipt matches the books
+        finalTotal = 0;
+        for (CartItem c : cart) {
+            finalTotal += Money.lineTotal(c.product.getPrice().getMinor(), c.quantity, discountPercent);
+        }
+        discount = total - finalTotal;
+        totalLabel.setText("合計: " + Money.ofMinor(total));
+        discountLabel.setText("割引: " + Money.ofMinor(discount));
+        finalLabel.setText("最終合計: " + Money.ofMinor(finalTotal));
     }
 
     // ✅ チェックアウト
@@ -203,11 +242,10 @@ public class SalesPage extends BorderPane {
     // ✅ お釣り計算
     private void calculateChange() {
         try {
-            double paid = Double.parseDouble(paymentAmount.getText());
-            double change = paid - finalTotal;
-            changeLabel.setText(String.format("お釣り: ¥%.2f", change >= 0 ? change : 0));
+            long change = Money.parse(paymentAmount.getText()).getMinor() - finalTotal;
+            changeLabel.setText("お釣り: " + Money.ofMinor(Math.max(change, 0)));
         } catch (NumberFormatException e) {
-            changeLabel.setText("お釣り: ¥0.00");
+            changeLabel.setText("お釣り: " + Money.ZERO);
         }
     }
 
@@ -218,15 +256,15 @@ public class SalesPage extends BorderPane {
             return;
         }
 
-        double paidAmount;
+        Money paidAmount;
         try {
-            paidAmount = Double.parseDouble(paymentAmount.getText());
+            paidAmount = Money.parse(paymentAmount.getText());
         } catch (NumberFormatException e) {
             showError("入力エラー", "有効な支払金額を入力してください！");
             return;
         }
 
-        if (paidAmount < finalTotal) {
+        if (paidAmount.getMinor() < finalTotal) {
             showError("支払い不足", "お客様は最終合計以上を支払う必要があります！");
             return;
         }
@@ -236,37 +274,86 @@ public class SalesPage extends BorderPane {
     }
 
     // ✅ 売上記録保存
-    private void saveSalesToDB(String paymentMethod, double paidAmount) {
+    private void saveSalesToDB(String paymentMethod, Money paidAmount) {
         try {
+            List<Sales> lines = new ArrayList<>(cart.size());
             for (CartItem c : cart) {
-                Sales sale = new Sales.Builder()
+                lines.add(new Sales.Builder()
                         .productId(String.valueOf(c.product.getId()))
                         .name(c.product.getName())
                         .quantity(c.quantity)
+                        .purchasePrice(c.product.getCost())
                         .salePrice(c.product.getPrice())
-                        .discount(discount / total * 100)
+                        .discount(discountPercent)
                         .paymentMethod(paymentMethod)
                         .paidAmount(paidAmount)
                         .createdAt(LocalDateTime.now())
                         .updatedAt(LocalDateTime.now())
-                        .build();
-
-                sdb.saveSales(sale);
-                int newQuantity = c.product.getQuantity() - c.quantity;
-                c.product.setQuantity(Math.max(newQuantity, 0));
-                pdb.updateProduct(c.product);
+                        .build());
             }
 
+            // 1トランザクションで売上登録 + 在庫減算
+            checkoutService.checkout(registerId, lines);
+            // 在庫はDB側で減算済み — 該当商品だけキャッシュに再読込
+            Set<String> soldIds = new LinkedHashSet<>();
+            for (CartItem c : cart) soldIds.add(c.product.getId());
+            pdb.refresh(soldIds);
+
             new Alert(Alert.AlertType.INFORMATION, "✅ 販売が完了しました！").showAndWait();
             cart.clear();
             updateCartUI();
 
+        } catch (CheckoutService.OutOfStockException e) {
+            showError("在庫不足", e.getProductName() + " の在庫が足りません。在庫を再読み込みしました。");
+            pdb.refresh(List.of(e.getProductId()));
         } catch (Exception e) {
             e.printStackTrace();
             showError("保存失敗", "販売を完了できませんでした。もう一度お試しください。");
         }
     }
 
+    // ↩️ 返品 — 販売番号ごとに在庫・集計・仕訳をまとめて戻す
+    private VBox createRefundBox() {
+        refundSaleId.setPromptText("販売番号を入力してください");
+
+        Button refundBtn = new Button("↩️ 返品");
+        refundBtn.setStyle("-fx-background-color: #E53935; -fx-text-fill: white; -fx-font-weight: bold;");
+        refundBtn.setOnAction(e -> processRefund());
+
+        VBox box = new VBox(10, new Label("返品 (販売番号):"), refundSaleId, refundBtn);
+        box.setPadding(new Insets(15));
+        box.setBackground(new Background(new BackgroundFill(Color.WHITE, new CornerRadii(10), Insets.EMPTY)));
+        box.setEffect(new DropShadow(5, Color.gray(0.3)));
+        return box;
+    }
+
+    private void processRefund() {
+        int saleId;
+        try {
+            saleId = Integer.parseInt(refundSaleId.getText().trim());
+        } catch (NumberFormatException e) {
+            showError("入力エラー", "有効な販売番号を入力してください！");
+            return;
+        }
+
+        Alert confirm = new Alert(Alert.AlertType.CONFIRMATION, "販売番号 " + saleId + " を返品しますか？");
+        if (confirm.showAndWait().orElse(ButtonType.CANCEL) != ButtonType.OK) return;
+
+        try {
+            if (!checkoutService.refund(saleId)) {
+                showError("返品できません", "販売番号 " + saleId + " は存在しないか、すでに返品済みです。");
+                return;
+            }
+            // 在庫はDB側で戻し済み — カタログを再読込
+            pdb.reload();
+            refundSaleId.clear();
+            new Alert(Alert.AlertType.INFORMATION, "✅ 返品が完了しました！").showAndWait();
+        } catch (Exception e) {
+            e.printStackTrace();
+            showError("返品失敗", "返品を完了できませんでした。もう一度お試しください。");
+        }
+    }
+
     // ✅ カートアイテム
     static class CartItem {
         Product product;
@@ -2,6 +2,11 @@ package bikram.views.page;
 
 import bikram.db.SalesDB;
 import bikram.db.Salesrepository;
+import bikram.model.DateRange;
+import bikram.model.ProductRanking;
+import bikram.model.SalesPoint;
+import bikram.model.SalesSummary;
+import bikram.model.TimeBucket;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.geometry.Insets;
@@ -16,7 +21,6 @@ import javafx.scene.text.FontWeight;
 
 import java.time.LocalDate;
 import java.util.List;
-import java.util.Map;
 
 public class SalesReportPage extends VBox {
 
@@ -60,11 +64,12 @@ public class SalesReportPage extends VBox {
         grid.setHgap(25);
         grid.setVgap(25);
 
-        totalRevenueLabel = createStatCard(grid, "💰 総収益", repo.getTotalRevenue(), 0, 0, "#00b894");
-        totalProfitLabel = createStatCard(grid, "📈 総利益", repo.getTotalProfit(), 1, 0, "#0984e3");
-        totalLossLabel = createStatCard(grid, "📉 総損失", repo.getTotalLoss(), 0, 1, "#d63031");
-        totalQtyLabel = createStatCard(grid, "🛒 総販売数量", repo.getTotalQuantitySold(), 1, 1, "#fdcb6e");
-        avgSalesLabel = createStatCard(grid, "📊 平均売上/日", repo.getAverageSalesPerDay(), 0, 2, "#6c5ce7");
+        // 値は loadData() でサマリーから一括設定
+        totalRevenueLabel = createStatCard(grid, "💰 総収益", 0, 0, 0, "#00b894");
+        totalProfitLabel = createStatCard(grid, "📈 総利益", 0, 1, 0, "#0984e3");
+        totalLossLabel = createStatCard(grid, "📉 総損失", 0, 0, 1, "#d63031");
+        totalQtyLabel = createStatCard(grid, "🛒 総販売数量", 0, 1, 1, "#fdcb6e");
+        avgSalesLabel = createStatCard(grid, "📊 平均売上/日", 0, 0, 2, "#6c5ce7");
 
         return grid;
     }
@@ -143,7 +148,7 @@ public class SalesReportPage extends VBox {
         topProductTable = new TableView<>();
         TableColumn<TopProduct, String> productCol = new TableColumn<>("商品名");
         TableColumn<TopProduct, Integer> qtyCol = new TableColumn<>("数量");
-        TableColumn<TopProduct, Double> revenueCol = new TableColumn<>("売上");
+        TableColumn<TopProduct, Double> revenueCol = new TableColumn<>("利益");
 
         productCol.setCellValueFactory(c -> c.getValue().productProperty());
         qtyCol.setCellValueFactory(c -> c.getValue().quantityProperty().asObject());
@@ -189,8 +194,10 @@ public class SalesReportPage extends VBox {
         Label resultLabel = new Label();
 
         filterBtn.setOnAction(e -> {
-            double total = repo.getSalesByDateRange(startDate.getValue(), endDate.getValue());
-            resultLabel.setText("選択期間の売上合計: $" + String.format("%,.2f", total));
+            SalesSummary range = repo.getSummary(DateRange.of(startDate.getValue(), endDate.getValue()));
+            resultLabel.setText("選択期間の売上合計: $" + String.format("%,.2f", range.getRevenue())
+                    + " / 利益: $" + String.format("%,.2f", range.getProfit())
+                    + " / " + range.getTransactions() + " 件");
         });
 
         box.getChildren().addAll(new Label("開始:"), startDate, new Label("終了:"), endDate, filterBtn, resultLabel);
@@ -200,37 +207,36 @@ public class SalesReportPage extends VBox {
 
     // ================= Load Data ===================
     private void loadData() {
-        totalRevenueLabel.setText("$" + String.format("%,.2f", repo.getTotalRevenue()));
-        totalProfitLabel.setText("$" + String.format("%,.2f", repo.getTotalProfit()));
-        totalLossLabel.setText("$" + String.format("%,.2f", repo.getTotalLoss()));
-        totalQtyLabel.setText(String.valueOf(repo.getTotalQuantitySold()));
-        avgSalesLabel.setText("$" + String.format("%,.2f", repo.getAverageSalesPerDay()));
-
-        // Monthly Revenue
-        Map<String, Double> revenueMap = repo.getMonthlyRevenue();
-        XYChart.Series<String, Number> revSeries = new XYChart.Series<>();
-        revenueMap.forEach((m, v) -> revSeries.getData().add(new XYChart.Data<>(m, v)));
-        monthlyRevenueChart.getData().setAll(revSeries);
+        SalesSummary summary = repo.getSummary(DateRange.all());
+        totalRevenueLabel.setText("$" + String.format("%,.2f", summary.getRevenue()));
+        totalProfitLabel.setText("$" + String.format("%,.2f", summary.getProfit()));
+        totalLossLabel.setText("$" + String.format("%,.2f", summary.getLoss()));
+        totalQtyLabel.setText(String.valueOf(summary.getQuantity()));
+        avgSalesLabel.setText("$" + String.format("%,.2f", summary.getAverageSalesPerDay()));
 
-        // Monthly Profit
-        Map<String, Double> profitMap = repo.getMonthlyProfit();
+        LocalDate today = LocalDate.now();
+
+        // Monthly Revenue + Profit (last 6 months, one query)
+        XYChart.Series<String, Number> revSeries = new XYChart.Series<>();
         XYChart.Series<String, Number> profitSeries = new XYChart.Series<>();
-        profitMap.forEach((m, v) -> profitSeries.getData().add(new XYChart.Data<>(m, v)));
+        for (SalesPoint p : repo.getSalesSeries(today.minusMonths(5).withDayOfMonth(1), today, TimeBucket.MONTH)) {
+            revSeries.getData().add(new XYChart.Data<>(p.getLabel(), p.getRevenue()));
+            profitSeries.getData().add(new XYChart.Data<>(p.getLabel(), p.getProfit()));
+        }
+        monthlyRevenueChart.getData().setAll(revSeries);
         monthlyProfitChart.getData().setAll(profitSeries);
 
         // Daily Sales (last 30 days)
-        Map<String, Double> dailySales = repo.getDailySales(); // Implement in repo
         XYChart.Series<String, Number> dailySeries = new XYChart.Series<>();
-        dailySales.forEach((d, v) -> dailySeries.getData().add(new XYChart.Data<>(d, v)));
+        for (SalesPoint p : repo.getSalesSeries(today.minusDays(29), today, TimeBucket.DAY)) {
+            dailySeries.getData().add(new XYChart.Data<>(p.getLabel(), p.getRevenue()));
+        }
         dailySalesChart.getData().setAll(dailySeries);
 
         // Top Products
-        List<String> topProducts = repo.getTop5Products();
         ObservableList<TopProduct> topList = FXCollections.observableArrayList();
-        for (String p : topProducts) {
-            int qty = repo.countSalesByProduct(p);
-            double rev = repo.getProfitByProduct(p);
-            topList.add(new TopProduct(p, qty, rev));
+        for (ProductRanking r : repo.getTopProducts(ProductRanking.Metric.PROFIT, 5)) {
+            topList.add(new TopProduct(r.getName(), r.getQuantity(), r.getProfit()));
         }
         topProductTable.setItems(topList);
 
@@ -241,7 +247,7 @@ public class SalesReportPage extends VBox {
             recentList.add(new Activity(
                     a.getAction(),
                     repo.countSalesByProduct(a.getAction()),
-                    repo.getProfitByProduct(a.getAction()),
+                    repo.getProfitByProduct(a.getAction()).toDouble(),
                     a.getTime() // use getTime() instead of getDate
             ));
         }
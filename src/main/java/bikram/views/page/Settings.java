@@ -20,7 +20,6 @@ public class Settings extends BorderPane {
 
     private final String SETTINGS_FILE = "settings.json";
     private final Gson gson = new Gson();
-    private final User user = SecurityAuth.getCurrentUser();
     private final ProfilePage profilePage = new ProfilePage();
 
     // UI Components
@@ -100,7 +99,7 @@ public class Settings extends BorderPane {
 
         Button clearBtn = createStyledButton("🧹 ローカルデータを削除", "#ff7043");
         clearBtn.setOnAction(e -> {
-            File file = new File("tasks.json");
+            File file = new File(TaskManager.FILE_PATH);
             if (file.exists()) file.delete();
             new Alert(Alert.AlertType.INFORMATION, "ローカルデータがすべて削除されました。").showAndWait();
         });
@@ -143,6 +142,12 @@ public class Settings extends BorderPane {
 
     // ✅ 設定をJSONに保存
     private void saveSettings() {
+        // Read at save time: the active session may have changed since the page was built
+        User user = SecurityAuth.getCurrentUser();
+        if (user == null) {
+            infoLabel.setText("ログインが必要です ⚠️");
+            return;
+        }
         Map<String, Object> settings = new HashMap<>();
         settings.put("name", user.getFullName());
         settings.put("email", user.getEmail());
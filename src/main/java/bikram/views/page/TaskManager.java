@@ -24,7 +24,8 @@ public class TaskManager extends BorderPane {
     private final VBox taskList = new VBox(12);
     private final List<Task> tasks = new ArrayList<>();
 
-    private static final String FILE_PATH = "tasks.json";
+    public static final String FILE_PATH = "data/tasks.json";   // also watched by SearchIndexWatcher
+    private static final String LEGACY_FILE_PATH = "tasks.json";   // before tasks moved under data/
     private final Gson gson = new Gson();
 
     private ComboBox<String> filterCombo;
@@ -281,12 +282,14 @@ public class TaskManager extends BorderPane {
     // SAVE & LOAD
     // -----------------------------------------------------------
     private void saveTasks() {
+        new File(FILE_PATH).getParentFile().mkdirs();
         try (Writer writer = new FileWriter(FILE_PATH)) {
             gson.toJson(tasks, writer);
         } catch (IOException e) { e.printStackTrace(); }
     }
 
     private void loadTasks() {
+        moveLegacyFile();
         File file = new File(FILE_PATH);
         if (!file.exists()) return;
 
@@ -297,6 +300,20 @@ public class TaskManager extends BorderPane {
         } catch (IOException e) { e.printStackTrace(); }
     }
 
+    /**
+     * tasks.json used to sit in the working directory, where the search watcher had to
+     * wake for every file written there. Moves it under data/ once, if it is still there.
+     */
+    public static void moveLegacyFile() {
+        File legacy = new File(LEGACY_FILE_PATH);
+        File file = new File(FILE_PATH);
+        if (!legacy.isFile() || file.exists()) return;
+        file.getParentFile().mkdirs();
+        if (!legacy.renameTo(file)) {
+            System.err.println("⚠️ Could not move " + legacy + " to " + file);
+        }
+    }
+
     // -----------------------------------------------------------
     // TASK MODEL
     // -----------------------------------------------------------
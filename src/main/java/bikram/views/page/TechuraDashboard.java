@@ -1,7 +1,10 @@
 package bikram.views.page;
 
 import bikram.db.*;
+import bikram.model.DateRange;
+import bikram.model.SalesSummary;
 import bikram.security.SecurityAuth;
+import bikram.security.Session;
 import bikram.views.ui.NotificationsManager;
 import javafx.animation.*;
 import javafx.application.Platform;
@@ -41,9 +44,7 @@ public class TechuraDashboard extends BorderPane {
     private BarChart<String, Number> userChart;
     private TableView<Activity> recentTable;
 
-    private final String currentUser = SecurityAuth.getCurrentUser() != null
-            ? SecurityAuth.getCurrentUser().getFullName()
-            : "ゲスト";
+    private final String currentUser = currentUserName();
 
     public TechuraDashboard() {
         setPrefSize(1400, 900);
@@ -326,8 +327,9 @@ public class TechuraDashboard extends BorderPane {
                 try {
                     totalUsers = DBM.getCount("users");
                     totalProducts = DBM.getCount("products");
-                    totalSales = salesDB.countSales();
-                    totalRevenue = salesDB.getTotalRevenue();
+                    SalesSummary summary = salesDB.getSummary(DateRange.all());
+                    totalSales = summary.getTransactions();
+                    totalRevenue = summary.getRevenue();
                     monthlyRevenue = salesDB.getMonthlyRevenue();
                     monthlyUsers = userDB.getMonthlyNewUsers();
                     activities = salesDB.getRecentActivities();
@@ -370,6 +372,12 @@ public class TechuraDashboard extends BorderPane {
         if (data != null) recentTable.setItems(FXCollections.observableArrayList(data));
     }
 
+    // Page instances are rebuilt by Navigator whenever the active session changes
+    private static String currentUserName() {
+        Session session = SecurityAuth.getSession();
+        return session != null ? session.getFullName() : "ゲスト";
+    }
+
     private void fadeIn(Node n) {
         FadeTransition ft = new FadeTransition(Duration.millis(800), n);
         ft.setFromValue(0);
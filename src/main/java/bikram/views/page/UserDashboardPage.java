@@ -4,6 +4,7 @@ import bikram.db.UserDB;
 import bikram.db.UserRepository;
 import bikram.model.Role;
 import bikram.model.User;
+import bikram.util.UserListLoader;
 import javafx.animation.FadeTransition;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
@@ -29,6 +30,7 @@ public class UserDashboardPage extends BorderPane {
 
     private final UserRepository userDB = new UserDB();
     private final ObservableList<User> users = FXCollections.observableArrayList();
+    private final ObservableList<User> allUsers = FXCollections.observableArrayList(); // full roster, filtered in memory
     private TableView<User> table;
     private TextField searchField;
 
@@ -83,7 +85,7 @@ public class UserDashboardPage extends BorderPane {
         // Table
         table = new TableView<>();
         table.setEditable(false);
-        table.setItems(users);
+        table.setItems(allUsers);
         table.setColumnResizePolicy(TableView.CONSTRAINED_RESIZE_POLICY);
         table.setPrefHeight(600);
         table.setStyle("""
@@ -245,20 +247,17 @@ public class UserDashboardPage extends BorderPane {
     // Logic
     // ----------------------------------------------------
     private void loadUsers() {
-        try {
-            List<User> list = userDB.getAllUsers();
-            users.setAll(list);
-        } catch (Exception e) {
-            System.err.println("❌ 読み込みエラー: " + e.getMessage());
-        }
+        // Pages stream into allUsers; the table follows while no filter is typed
+        UserListLoader.streamInto(userDB, allUsers, () -> filterUsers(searchField.getText()));
     }
 
     private void filterUsers(String keyword) {
         if (keyword == null || keyword.isBlank()) {
-            loadUsers();
+            table.setItems(allUsers);
             return;
         }
-        List<User> filtered = userDB.getAllUsers().stream()
+        table.setItems(users);
+        List<User> filtered = allUsers.stream()
                 .filter(u -> u.getFirstName().toLowerCase().contains(keyword.toLowerCase())
                         || u.getLastName().toLowerCase().contains(keyword.toLowerCase())
                         || u.getEmail().toLowerCase().contains(keyword.toLowerCase()))
@@ -3,8 +3,8 @@ package bikram.views.page;
 import bikram.db.UserRepository;
 import bikram.model.User;
 import bikram.db.UserDB;
-import bikram.util.barcode.BarcodeGenerator;
-import com.google.zxing.BarcodeFormat;
+import bikram.util.barcode.CodeRenderer;
+import bikram.util.barcode.FxImageBuffer;
 import javafx.embed.swing.SwingFXUtils;
 import javafx.geometry.Insets;
 import javafx.geometry.Pos;
@@ -27,6 +27,7 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URL;
 import java.util.List;
+import java.util.Map;
 
 public class UserIDCardPage extends VBox {
 
@@ -74,11 +75,13 @@ public class UserIDCardPage extends VBox {
 
         // --- ユーザー情報を読み込み ---
         List<User> users = userDB.getAllUsers();
+        // All barcodes in one parallel batch, in memory
+        Map<CodeRenderer.Job, CodeRenderer.Rendered> barcodes =
+                CodeRenderer.renderAll(users.stream().map(u -> CodeRenderer.Job.code128(u.getId())));
         int col = 0, row = 0;
 
         for (User user : users) {
-            ensureBarcodeExists(user);
-            VBox card = createCard(user);
+            VBox card = createCard(user, barcodes.get(CodeRenderer.Job.code128(user.getId())));
             grid.add(card, col, row);
 
             // デフォルト枠線
@@ -149,7 +152,7 @@ public class UserIDCardPage extends VBox {
 
 
     // --- 個別IDカード作成 ---
-    private VBox createCard(User user) {
+    private VBox createCard(User user, CodeRenderer.Rendered barcode) {
         VBox card = new VBox(8);
         card.setAlignment(Pos.TOP_CENTER);
         card.setPadding(new Insets(12));
@@ -218,7 +221,7 @@ public class UserIDCardPage extends VBox {
         infoBox.getChildren().addAll(name, role, idText, phone, address, joined);
 
         // バーコード
-        Image barcodeImage = loadBarcode(user);
+        Image barcodeImage = toImage(barcode);
         ImageView barcodeView = new ImageView(barcodeImage);
         barcodeView.setFitWidth(280);
         barcodeView.setFitHeight(45);
@@ -238,23 +241,9 @@ public class UserIDCardPage extends VBox {
         return new Image(fallbackUrl);
     }
 
-    private Image loadBarcode(User user) {
-        try {
-            String basePath = "src/barcodes/";
-            File file = new File(basePath + user.getId() + ".png");
-            return file.exists() ? new Image(file.toURI().toString()) :
-                    new Image("https://via.placeholder.com/200x50.png?text=No+Code");
-        } catch (Exception e) {
-            return new Image("https://via.placeholder.com/200x50.png?text=Error");
-        }
-    }
-
-    private void ensureBarcodeExists(User user) {
-        String basePath = "src/barcodes/";
-        File file = new File(basePath + user.getId() + ".png");
-        if (!file.exists()) {
-            BarcodeGenerator.generateBarcode(user.getId(), user.getFullName(), BarcodeFormat.CODE_128, 300, 100);
-        }
+    private Image toImage(CodeRenderer.Rendered barcode) {
+        if (barcode == null) return new Image("https://via.placeholder.com/200x50.png?text=No+Code");
+        return FxImageBuffer.toImage(barcode.getMatrix());
     }
 
     // --- 個別カード保存 ---
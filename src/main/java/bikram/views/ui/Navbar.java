@@ -3,13 +3,12 @@ package bikram.views.ui;
 import bikram.model.Product;
 import bikram.model.Role;
 import bikram.model.Sales;
-import bikram.model.User;
 import bikram.security.SecurityAuth;
+import bikram.security.SessionManager;
 import bikram.util.AppContext;
 import bikram.util.ConfirmDialog;
 import bikram.util.Navigator;
 import bikram.views.page.EmploymentPaySlip;
-import bikram.views.page.LoginPage;
 import javafx.animation.*;
 import javafx.application.Platform;
 import javafx.geometry.Insets;
@@ -37,7 +36,6 @@ public class Navbar extends HBox {
     private final TextArea textEditor;
     private final Clipboard clipboard = Clipboard.getSystemClipboard();
     private final ClipboardContent clipboardContent = new ClipboardContent();
-    private final User currentuser = SecurityAuth.getCurrentUser();
 
 
 
@@ -96,6 +94,12 @@ public class Navbar extends HBox {
         addButtonHover(loginButton);
         loginButton.setOnAction(e -> Navigator.navigate("LoginPage"));
 
+        // The navbar outlives every page: follow sign-in, switches and idle timeouts
+        SessionManager.shared().addListener(session -> Platform.runLater(() -> {
+            setLoginText();
+            loginButton.setText(loginText);
+        }));
+
         Region spacer = new Region();
         HBox.setHgrow(spacer, Priority.ALWAYS);
 
@@ -378,7 +382,7 @@ public class Navbar extends HBox {
     public String getLoginText(){return loginText;}
 
     public void setLoginText() {
-        if (!LoginPage.isLogin()){
+        if (!SecurityAuth.isAuthenticated()){
             this.loginText="ログイン";
         }else {
             this.loginText = "ログアウト";
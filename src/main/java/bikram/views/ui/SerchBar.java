@@ -3,7 +3,8 @@ package bikram.views.ui;
 import bikram.db.*;
 import bikram.model.*;
 import bikram.util.SearchService;
-import javafx.collections.FXCollections;
+import javafx.animation.PauseTransition;
+import javafx.application.Platform;
 import javafx.geometry.Pos;
 import javafx.scene.Scene;
 import javafx.scene.control.*;
@@ -14,24 +15,64 @@ import javafx.scene.text.Font;
 import javafx.stage.Popup;
 import javafx.stage.Stage;
 
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 
 public class SerchBar extends VBox {
+    private static final int MAX_SUGGESTIONS = 12;
+    private static final javafx.util.Duration DEBOUNCE = javafx.util.Duration.millis(150);
+    private static final long CATCH_UP_INTERVAL_MS = 30_000;
+
+    // Queries run one at a time off the FX thread; a superseded query stops at its next poll
+    private static final ExecutorService SEARCH_WORKER = daemonExecutor("Search-Worker");
+    // Index loading and catch-up, kept apart so a long load never queues keystrokes behind it
+    private static final ExecutorService INDEX_WORKER = daemonExecutor("Search-Index-Loader");
+
     private TextField searchField;
-    private ListView<String> suggestionList;
+    private ListView<SearchService.Hit> suggestionList;
     private final Popup suggestionPopup;
 
-    private final ProductRepository pdb = new ProductDB();
+    private final CachedProductRepository pdb = CachedProductRepository.shared();
     private final UserRepository udb = new UserDB();
     private final Salesrepository sdb = new SalesDB();
 
-    private final SearchService searchService;
+    // One index for the bar's lifetime; filled in the background and kept current incrementally
+    private final SearchService searchService = new SearchService();
+    private final SearchIndexDB searchIndex = new SearchIndexDB();
+
+    private final PauseTransition debounce = new PauseTransition(DEBOUNCE);
+    private final AtomicLong generation = new AtomicLong();   // bumped by every keystroke; older queries are stale
+    private final AtomicReference<Results> pendingResults = new AtomicReference<>();
+    private int lastSaleId;                                   // INDEX_WORKER only
+    private long lastCatchUp;                                 // FX thread only
 
     public SerchBar() {
-        List<Product> products = pdb.getAllProducts();
-        List<User> users = udb.getAllUsers();
+        INDEX_WORKER.execute(() -> {
+            searchService.putProducts(pdb.getAllProducts());
+            udb.streamUsers(UserDB.DEFAULT_PAGE_SIZE, searchService::putUsers);
+            indexSalesSince(0);
+            System.out.println("🔎 Search index ready (" + searchService.size() + ")");
+        });
+        lastCatchUp = System.currentTimeMillis();
 
-        searchService = new SearchService(products, users);
+        // 商品の変更はその行だけ索引し直す
+        java.util.function.Consumer<CachedProductRepository.ProductChange> productListener = change -> {
+            switch (change.getType()) {
+                case ADDED, UPDATED -> searchService.putProduct(change.getProduct());
+                case REMOVED -> searchService.remove(SearchService.Kind.PRODUCT, change.getProductId());
+                case RELOADED -> searchService.replaceProducts(pdb.getAllProducts());
+            }
+        };
+        sceneProperty().addListener((obs, oldScene, newScene) -> {
+            if (newScene != null) pdb.addListener(productListener);
+            else pdb.removeListener(productListener);
+        });
 
         searchField = new TextField();
         suggestionList = new ListView<>();
@@ -58,12 +99,13 @@ public class SerchBar extends VBox {
             -fx-padding: 6 14;
         """);
 
-        // Live search
-        searchField.textProperty().addListener((obs, oldText, newText) -> handleSearch(newText.trim()));
+        // Live search: debounced, then run on the search worker
+        searchField.textProperty().addListener((obs, oldText, newText) -> scheduleSearch(newText.trim()));
 
         // Hide popup when pressing Enter
         searchField.setOnKeyPressed(e -> {
             if (e.getCode() == KeyCode.ENTER) {
+                cancelSearch();
                 suggestionPopup.hide();
             }
         });
@@ -79,10 +121,13 @@ public class SerchBar extends VBox {
             -fx-control-inner-background: transparent;
         """);
 
+        suggestionList.setPlaceholder(new Label("⚠️ 該当する結果がありません"));
+
         suggestionList.setOnMouseClicked(e -> {
-            String selected = suggestionList.getSelectionModel().getSelectedItem();
-            if (selected != null && !selected.startsWith("⚠️")) {
-                searchField.setText(selected);
+            SearchService.Hit selected = suggestionList.getSelectionModel().getSelectedItem();
+            if (selected != null) {
+                searchField.setText(SearchIndexDB.plain(selected.getTitle()));
+                cancelSearch();
                 suggestionPopup.hide();
             }
         });
@@ -93,6 +138,7 @@ public class SerchBar extends VBox {
     private void animateSearchFocus() {
         searchField.focusedProperty().addListener((obs, oldV, newV) -> {
             if (newV) {
+                catchUpIndex();
                 searchField.setStyle("""
                     -fx-background-color: rgba(255,255,255,0.18);
                     -fx-text-fill: white;
@@ -110,24 +156,114 @@ public class SerchBar extends VBox {
                     -fx-border-color: transparent;
                     -fx-padding: 6 14;
                 """);
+                cancelSearch();
                 suggestionPopup.hide();
             }
         });
     }
 
-    private void handleSearch(String query) {
+    // ---------- ASYNC SEARCH ----------
+    private void scheduleSearch(String query) {
+        long gen = generation.incrementAndGet();
         if (query.isEmpty()) {
+            debounce.stop();
             suggestionPopup.hide();
             return;
         }
+        debounce.setOnFinished(e -> SEARCH_WORKER.execute(() -> {
+            if (generation.get() != gen) return;
+            List<SearchService.Hit> hits = findHits(query, gen);
+            if (generation.get() != gen) return;
+            // Only the newest result set is kept; one FX update applies it in a single setAll
+            if (pendingResults.getAndSet(new Results(gen, hits)) == null) {
+                Platform.runLater(() -> {
+                    Results latest = pendingResults.getAndSet(null);
+                    if (latest != null && generation.get() == latest.generation) showResults(latest.hits);
+                });
+            }
+        }));
+        debounce.playFromStart();
+    }
 
-        List<String> results = searchService.search(query);
-        if (results.isEmpty()) {
-            suggestionPopup.hide();
-            return;
+    private static final class Results {
+        final long generation;
+        final List<SearchService.Hit> hits;
+
+        Results(long generation, List<SearchService.Hit> hits) {
+            this.generation = generation;
+            this.hits = hits;
+        }
+    }
+
+    /**
+     * One FTS5 query first (BM25-ranked, with highlighted snippets, covering notes and tasks too);
+     * the in-memory index then tops up with short-prefix and typo matches the full-text index can't make.
+     */
+    private List<SearchService.Hit> findHits(String query, long gen) {
+        List<SearchService.Hit> hits = new ArrayList<>(MAX_SUGGESTIONS);
+        Set<String> seen = new HashSet<>();
+        for (SearchIndexDB.Match m : searchIndex.search(query, MAX_SUGGESTIONS)) {
+            SearchService.Kind kind = kindOf(m.getKind());
+            if (kind == null) continue;
+            hits.add(new SearchService.Hit(kind, m.getRef(), m.getTitle(), m.getSnippet(), -m.getRank()));
+            seen.add(kind + ":" + m.getRef());
         }
+        if (hits.size() >= MAX_SUGGESTIONS || generation.get() != gen) return hits;
+        for (SearchService.Hit hit : searchService.search(query, MAX_SUGGESTIONS, () -> generation.get() != gen)) {
+            if (hits.size() >= MAX_SUGGESTIONS) break;
+            if (seen.add(hit.getKind() + ":" + hit.getId())) hits.add(hit);
+        }
+        return hits;
+    }
+
+    private static SearchService.Kind kindOf(String ftsKind) {
+        return switch (ftsKind) {
+            case SearchIndexDB.KIND_PRODUCT -> SearchService.Kind.PRODUCT;
+            case SearchIndexDB.KIND_USER -> SearchService.Kind.EMPLOYEE;
+            case SearchIndexDB.KIND_SALE -> SearchService.Kind.SALE;
+            case SearchIndexDB.KIND_NOTE -> SearchService.Kind.NOTE;
+            case SearchIndexDB.KIND_TASK -> SearchService.Kind.TASK;
+            default -> null;
+        };
+    }
+
+    /** Drops the pending keystroke and makes any running query stale. */
+    private void cancelSearch() {
+        debounce.stop();
+        generation.incrementAndGet();
+    }
+
+    /** Picks up staff changes and sales recorded since the last load (throttled; runs on focus). */
+    private void catchUpIndex() {
+        long now = System.currentTimeMillis();
+        if (now - lastCatchUp < CATCH_UP_INTERVAL_MS) return;
+        lastCatchUp = now;
+        INDEX_WORKER.execute(() -> {
+            List<User> staff = new ArrayList<>();
+            udb.streamUsers(UserDB.DEFAULT_PAGE_SIZE, staff::addAll);
+            searchService.replaceUsers(staff);
+            indexSalesSince(lastSaleId);
+        });
+    }
+
+    private void indexSalesSince(int afterId) {
+        sdb.streamSales(afterId, UserDB.DEFAULT_PAGE_SIZE, page -> {
+            searchService.putSales(page);
+            lastSaleId = page.get(page.size() - 1).getId();
+        });
+    }
+
+    private static ExecutorService daemonExecutor(String name) {
+        return Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, name);
+            t.setDaemon(true);
+            return t;
+        });
+    }
 
-        suggestionList.setItems(FXCollections.observableArrayList(results));
+    private void showResults(List<SearchService.Hit> results) {
+        if (!searchField.isFocused()) return;
+        suggestionList.getItems().setAll(results);
 
         // Show popup below the search bar
         if (!suggestionPopup.isShowing()) {
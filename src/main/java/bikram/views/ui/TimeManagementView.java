@@ -6,6 +6,7 @@ import bikram.db.UserDB;
 import bikram.db.UserRepository;
 import bikram.model.EmployeTime;
 import bikram.model.User;
+import bikram.util.UserListLoader;
 
 import javafx.animation.KeyFrame;
 import javafx.animation.Timeline;
@@ -45,7 +46,7 @@ public class TimeManagementView extends VBox {
 
     public TimeManagementView() {
         // Load users and DB
-        allUsers = FXCollections.observableArrayList(urepo.getAllUsers());
+        allUsers = FXCollections.observableArrayList();
         timeDB.createTable();
 
         BorderPane root = new BorderPane();
@@ -107,7 +108,8 @@ public class TimeManagementView extends VBox {
             return row;
         });
 
-        userTable.setItems(FXCollections.observableArrayList(allUsers));
+        userTable.setItems(allUsers); // filled page by page below
+        UserListLoader.streamInto(urepo, allUsers, () -> filterUsers(searchField.getText()));
 
         userTable.getSelectionModel().selectedItemProperty().addListener((obs, old, selectedUser) -> {
             if (selectedUser != null) {
@@ -122,7 +124,7 @@ public class TimeManagementView extends VBox {
 
     private void filterUsers(String keyword) {
         if (keyword == null || keyword.isEmpty()) {
-            userTable.setItems(FXCollections.observableArrayList(allUsers));
+            userTable.setItems(allUsers);
             return;
         }
 
@@ -181,11 +183,12 @@ public class TimeManagementView extends VBox {
         User u = selectedUser();
         if (u == null) return;
 
-        String now = LocalDateTime.now().format(F);
-        EmployeTime et = new EmployeTime(u.getId(), now);
-
-        timeDB.saveEmployeTime(et);  // Save to DB
-        statusLabel.setText("🟢 出働: " + u.getFullName());
+        EmployeTime et = timeDB.clockIn(u.getId(), LocalDateTime.now()); // returns the open shift if already in
+        if (et == null) {
+            statusLabel.setText("⚠ 出働を記録できませんでした");
+            return;
+        }
+        statusLabel.setText("🟢 出働: " + u.getFullName() + " (" + et.getEntryTime() + ")");
     }
 
     private void handleBreak() {
@@ -200,13 +203,12 @@ public class TimeManagementView extends VBox {
         User u = selectedUser();
         if (u == null) return;
 
-        EmployeTime last = EmployeTime.getLastEntry(u.getId(), timeDB, urepo);
-        if (last == null) {
+        EmployeTime closed = timeDB.clockOut(u.getId(), LocalDateTime.now()); // closes the open shift by id
+        if (closed == null) {
             statusLabel.setText("⚠ アクティブな作業セッションはありません");
             return;
         }
 
-        last.setExitNow(); // Updates DB automatically
         statusLabel.setText("🔴 退勤: " + u.getFullName());
     }
 }
@@ -0,0 +1,161 @@
+package bikram.db;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import bikram.model.Money;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/** v10: REAL yen columns become INTEGER minor units without losing rows or other columns. */
+class SchemaMigratorMoneyTest {
+
+    private Connection conn;
+
+    @BeforeEach
+    void openLegacyDatabase() throws SQLException {
+        conn = DriverManager.getConnection("jdbc:sqlite::memory:");
+        // The pre-v10 shape: money as REAL yen
+        SchemaMigrator.exec(conn, """
+                CREATE TABLE products (
+                    id TEXT UNIQUE NOT NULL,
+                    name TEXT NOT NULL,
+                    price REAL NOT NULL,
+                    cost REAL DEFAULT 0,
+                    quantity INTEGER NOT NULL,
+                    category TEXT
+                )
+                """, """
+                CREATE TABLE sales (
+                    id INTEGER PRIMARY KEY AUTOINCREMENT,
+                    product_id TEXT NOT NULL,
+                    name TEXT NOT NULL,
+                    quantity INTEGER,
+                    purchase_price REAL,
+                    sale_price REAL,
+                    discount REAL,
+                    final_amount REAL,
+                    profit REAL,
+                    loss REAL,
+                    created_at TEXT,
+                    sale_day INTEGER
+                )
+                """, """
+                CREATE TABLE accounts (
+                    code TEXT PRIMARY KEY,
+                    name TEXT NOT NULL,
+                    type TEXT NOT NULL,
+                    balance REAL NOT NULL DEFAULT 0
+                )
+                """, """
+                CREATE TABLE journal_lines (
+                    id INTEGER PRIMARY KEY,
+                    entry_id INTEGER NOT NULL,
+                    account TEXT NOT NULL,
+                    amount REAL NOT NULL,
+                    balance REAL NOT NULL
+                )
+                """,
+                "INSERT INTO products VALUES ('P1', 'お茶', 980.5, 0.125, 10, 'Drinks')",
+                "INSERT INTO products VALUES ('P2', 'パン', 150, NULL, 5, NULL)",
+                "INSERT INTO products VALUES ('P3', 'ガム', 1.005, 0.285, 0, 'Snacks')",
+                "INSERT INTO sales VALUES (1, 'P1', 'お茶', 2, 0.1, 0.2, 0, 0.3, 0.2, 0, '2025-10-01T10:00', 20362)",
+                "INSERT INTO sales VALUES (2, 'P1', 'お茶', 1, 0.125, 1.5, 0, 1.5, 1.375, 0, '2025-10-01T11:00', 20362)",
+                "INSERT INTO sales VALUES (3, 'P2', 'パン', 1, 200, 150, 0, 150, 0, 50, '2025-10-02T09:00', 20363)",
+                "INSERT INTO accounts VALUES ('CASH', '現金', 'ASSET', -0.125)",
+                "INSERT INTO journal_lines VALUES (1, 1, 'CASH', 151.8, -0.125)");
+    }
+
+    @AfterEach
+    void close() throws SQLException {
+        conn.close();
+    }
+
+    @Test
+    void moneyColumnsBecomeInteger() throws SQLException {
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+
+        for (String column : new String[]{"price", "cost"}) {
+            assertEquals("INTEGER", SchemaMigrator.columnType(conn, "products", column));
+        }
+        for (String column : new String[]{"purchase_price", "sale_price", "final_amount", "profit", "loss"}) {
+            assertEquals("INTEGER", SchemaMigrator.columnType(conn, "sales", column));
+        }
+        assertEquals("INTEGER", SchemaMigrator.columnType(conn, "accounts", "balance"));
+        assertEquals("INTEGER", SchemaMigrator.columnType(conn, "journal_lines", "amount"));
+        assertEquals("INTEGER", SchemaMigrator.columnType(conn, "journal_lines", "balance"));
+    }
+
+    @Test
+    void valuesAreRoundedHalfAwayFromZero() throws SQLException {
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+
+        assertEquals(98_050, queryLong("SELECT price FROM products WHERE id = 'P1'"));
+        assertEquals(13, queryLong("SELECT cost FROM products WHERE id = 'P1'"));      // 12.5 → 13
+        assertEquals(30, queryLong("SELECT final_amount FROM sales WHERE id = 1"));    // 0.3, not 0.30000000000000004
+        assertEquals(138, queryLong("SELECT profit FROM sales WHERE id = 2"));         // 137.5 → 138
+        assertEquals(-13, queryLong("SELECT balance FROM accounts WHERE code = 'CASH'"));
+        assertEquals(15_180, queryLong("SELECT amount FROM journal_lines WHERE id = 1"));
+        assertEquals(-13, queryLong("SELECT balance FROM journal_lines WHERE id = 1"));
+    }
+
+    @Test
+    void roundingMatchesLiveWrites() throws SQLException {
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+
+        // As doubles ×100 these are 100.49999… and 28.49999…; SQL ROUND would give 100 and 28
+        assertEquals(Money.toMinor(1.005), queryLong("SELECT price FROM products WHERE id = 'P3'"));
+        assertEquals(101, queryLong("SELECT price FROM products WHERE id = 'P3'"));
+        assertEquals(29, queryLong("SELECT cost FROM products WHERE id = 'P3'"));
+    }
+
+    @Test
+    void nullsAndOtherColumnsSurvive() throws SQLException {
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+
+        assertNull(SqlTemplate.queryOne(conn, "SELECT cost FROM products WHERE id = 'P2'", rs -> rs.getObject(1)));
+        assertEquals(3, queryLong("SELECT COUNT(*) FROM products"));
+        assertEquals(3, queryLong("SELECT COUNT(*) FROM sales"));
+        assertEquals(10, queryLong("SELECT quantity FROM products WHERE id = 'P1'"));
+        assertEquals("お茶", SqlTemplate.queryOne(conn, "SELECT name FROM products WHERE id = 'P1'", rs -> rs.getString(1)));
+        assertEquals(20_363, queryLong("SELECT sale_day FROM sales WHERE id = 3"));
+    }
+
+    @Test
+    void rollupsAreResummedFromConvertedRows() throws SQLException {
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+
+        assertEquals(180, queryLong("SELECT revenue FROM sales_daily_product WHERE sale_day = 20362 AND product_id = 'P1'"));
+        assertEquals(2, queryLong("SELECT tx_count FROM sales_daily_product WHERE sale_day = 20362 AND product_id = 'P1'"));
+        assertEquals(15_180, queryLong("SELECT SUM(revenue) FROM sales_monthly_category WHERE month = 202510"));
+        assertEquals(15_000, queryLong("SELECT revenue FROM sales_monthly_category WHERE category = '"
+                + SalesRollups.UNCATEGORIZED + "'"));
+    }
+
+    @Test
+    void replayLeavesConvertedColumnsAlone() throws SQLException {
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+        SchemaMigrator.v10MoneyMinorUnits(conn);
+
+        assertEquals(98_050, queryLong("SELECT price FROM products WHERE id = 'P1'"));
+        assertEquals(30, queryLong("SELECT final_amount FROM sales WHERE id = 1"));
+        assertEquals(180, queryLong("SELECT revenue FROM sales_daily_product WHERE sale_day = 20362 AND product_id = 'P1'"));
+    }
+
+    @Test
+    void toMinorUnitsSkipsMissingColumns() throws SQLException {
+        SchemaMigrator.toMinorUnits(conn, "products", "no_such_column", "INTEGER");
+        assertNull(SchemaMigrator.columnType(conn, "products", "no_such_column"));
+        assertEquals("REAL", SchemaMigrator.columnType(conn, "products", "price"));
+    }
+
+    private long queryLong(String sql) throws SQLException {
+        return SqlTemplate.queryOne(conn, sql, rs -> rs.getLong(1));
+    }
+}
@@ -0,0 +1,95 @@
+package bikram.model;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MoneyTest {
+
+    // ---------- PARSE ----------
+    @Test
+    void parseAcceptsGroupingAndYenSigns() {
+        assertEquals(120_000, Money.parse("1,200").getMinor());
+        assertEquals(98_000, Money.parse("¥980").getMinor());
+        assertEquals(98_000, Money.parse(" ￥980 ").getMinor());
+        assertEquals(1_250, Money.parse("12.5").getMinor());
+        assertEquals(-50, Money.parse("-0.5").getMinor());
+    }
+
+    @Test
+    void parseRoundsHalfAwayFromZero() {
+        assertEquals(1, Money.parse("0.005").getMinor());
+        assertEquals(-1, Money.parse("-0.005").getMinor());
+        assertEquals(0, Money.parse("0.004").getMinor());
+        assertEquals(12_346, Money.parse("123.455").getMinor());
+    }
+
+    @Test
+    void parseRejectsBadInput() {
+        assertThrows(NumberFormatException.class, () -> Money.parse(null));
+        assertThrows(NumberFormatException.class, () -> Money.parse(""));
+        assertThrows(NumberFormatException.class, () -> Money.parse("abc"));
+        assertThrows(NumberFormatException.class, () -> Money.parse("99999999999999999999"));
+    }
+
+    @Test
+    void parseReadsBackToPlainString() {
+        Money m = Money.ofMinor(123_450);
+        assertEquals(m, Money.parse(m.toPlainString()));
+    }
+
+    // ---------- LINE TOTAL ----------
+    @Test
+    void lineTotalWithoutDiscountIsExact() {
+        assertEquals(29_970, Money.lineTotal(9_990, 3, 0));
+    }
+
+    @Test
+    void lineTotalRoundsTheDiscountOnceForTheWholeLine() {
+        // ¥3.33 × 3 = ¥9.99; 10% off is 99.9 minor units, rounded to 100
+        assertEquals(899, Money.lineTotal(333, 3, 10));
+        // 12.5% of ¥1.00 is 12.5 minor units, rounded away from zero to 13
+        assertEquals(87, Money.lineTotal(100, 1, 12.5));
+    }
+
+    @Test
+    void lineTotalSumsMatchTheCheckoutTotal() {
+        long unit = Money.parse("1,980").getMinor();
+        assertEquals(Money.parse("5,346").getMinor(), Money.lineTotal(unit, 3, 10));
+    }
+
+    // ---------- DIVIDE ROUNDED ----------
+    @Test
+    void divideRoundedRoundsHalfAwayFromZero() {
+        assertEquals(3, Money.divideRounded(5, 2));
+        assertEquals(-3, Money.divideRounded(-5, 2));
+        assertEquals(1, Money.divideRounded(4, 3));
+        assertEquals(-1, Money.divideRounded(-4, 3));
+        assertEquals(2, Money.divideRounded(5, 3));
+        assertEquals(-2, Money.divideRounded(-5, 3));
+        assertEquals(0, Money.divideRounded(0, 7));
+    }
+
+    @Test
+    void divideRoundedIsExactWhenItDivides() {
+        assertEquals(25, Money.divideRounded(100, 4));
+        assertEquals(-25, Money.divideRounded(-100, 4));
+    }
+
+    // ---------- DOUBLE INPUT ----------
+    @Test
+    void ofDoubleKeepsFractionalYen() {
+        assertEquals(150_050, Money.of(1500.5).getMinor());
+        assertEquals(1, Money.of(0.005).getMinor());
+        assertEquals("¥1,500.50", Money.of(1500.5).toString());
+    }
+
+    @Test
+    void toMinorRoundsTheDecimalThatWasTyped() {
+        // 1.005 is 1.00499… in binary; the shortest decimal form is what gets rounded
+        assertEquals(101, Money.toMinor(1.005));
+        assertEquals(-101, Money.toMinor(-1.005));
+        assertEquals(29, Money.toMinor(0.285));
+    }
+}